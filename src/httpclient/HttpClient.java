@@ -54,6 +54,13 @@ public class HttpClient {
                     gui = new HttpClientGui(optionsRepository);
                     OutputHandler outputHandler = new GuiOutputHandler(gui);
                     jutl = new Jutl(outputHandler);
+                    //response bodies kept in memory are saved when the program ends
+                    Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            jutl.flushHistory();
+                        }
+                    }));
                     gui.setJurl(jutl);
                     gui.setVisible(true);
                 } catch (Exception e) {
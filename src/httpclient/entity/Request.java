@@ -1,5 +1,7 @@
 package httpclient.entity;
 
+import httpclient.util.JsonFormatter;
+
 import java.io.Serializable;
 import java.util.Map;
 
@@ -7,6 +9,10 @@ import java.util.Map;
  * Holds a request data
  */
 public class Request implements Serializable {
+    /**
+     * serialization version of requests saved before the binary codec, kept so they can still be migrated
+     */
+    private static final long serialVersionUID = -4992092957139171360L;
     /**
      * request name
      */
@@ -75,6 +81,14 @@ public class Request implements Serializable {
      * determines request body type
      */
     private RequestBodyType requestBodyType;
+    /**
+     * determines sending the request by HTTP/2 transport
+     */
+    private boolean http2;
+    /**
+     * determines showing the phase timing of the response
+     */
+    private boolean verbose;
 
     /**
      * Constructor of request.
@@ -240,6 +254,42 @@ public class Request implements Serializable {
         this.redirect = redirect;
     }
 
+    /**
+     * Gets HTTP/2 state in http request.
+     *
+     * @return {@code true} if the request is sent by HTTP/2 transport
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Sets HTTP/2 state in http request.
+     *
+     * @param http2 {@code true} to send the request by HTTP/2 transport
+     */
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * Gets verbose state in http request.
+     *
+     * @return {@code true} if the phase timing of the response is shown
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Sets verbose state in http request.
+     *
+     * @param verbose {@code true} to show the phase timing of the response
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
     /**
      * Gets form data.
      *
@@ -381,7 +431,7 @@ public class Request implements Serializable {
             printStringBuilder.append("\"");
         }
         if (json) {
-            printStringBuilder.append(" | ").append("json: \"").append(jsonData.replace("\n", "")).append("\"");
+            printStringBuilder.append(" | ").append("json: \"").append(JsonFormatter.minify(jsonData)).append("\"");
         }
         if (upload) {
             printStringBuilder.append(" | ").append("uploadData");
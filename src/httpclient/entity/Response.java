@@ -1,5 +1,6 @@
 package httpclient.entity;
 
+import java.io.InputStream;
 import java.util.Map;
 
 /**
@@ -19,13 +20,25 @@ public class Response {
      */
     private String statusMessage;
     /**
-     * request execution time
+     * request execution time in nanos, until the response was received, or -1 if not measured
      */
-    private String time;
+    private long timeNanos = -1;
     /**
-     * response data size
+     * number of content bytes after content decoding
      */
-    private String dataSize;
+    private long decodedBytes;
+    /**
+     * number of content bytes as they were received, before content decoding
+     */
+    private long wireBytes;
+    /**
+     * number of response head bytes as they were received, or -1 if the transport can't count them
+     */
+    private long headerBytes = -1;
+    /**
+     * content coding that content was decoded from, or null if content was not encoded
+     */
+    private String contentEncoding;
     /**
      * response content type
      */
@@ -38,6 +51,30 @@ public class Response {
      * response byte stream content
      */
     private byte[] contentBytes;
+    /**
+     * open response content stream of a streamed response, or null if content was read into memory
+     */
+    private InputStream contentStream;
+    /**
+     * output file transfer rate of a streamed response, or null if content was not transferred to an output file
+     */
+    private String outputRate;
+    /**
+     * validity of json content, validated while content was read, or null if content was not validated
+     */
+    private Boolean jsonValid;
+    /**
+     * byte offset of the first json error in content, or -1 if there is no error
+     */
+    private long jsonErrorOffset = -1;
+    /**
+     * how the response was served by http cache, or null if cache was not used
+     */
+    private ResponseCacheStatus cacheStatus;
+    /**
+     * time spent in each phase of the request execution, or null if it was not measured
+     */
+    private ResponseTiming timing;
 
     /**
      * Gets response header name values.
@@ -94,39 +131,121 @@ public class Response {
     }
 
     /**
-     * Gets request execution time.
+     * Gets request execution time in seconds for presentation, derived from the execution time in nanos.
      *
-     * @return request execution time
+     * @return request execution time like "0.123s", or null if not measured
      */
     public String getTime() {
-        return time;
+        if (timeNanos < 0) {
+            return null;
+        }
+        float millis = timeNanos / 1_000_000;
+        return millis / 1000 + "s";
+    }
+
+    /**
+     * Gets response data size for presentation, derived from the decoded and wire byte counts.
+     *
+     * @return response data size like "1234 B", followed by the wire size and content coding if content was encoded
+     */
+    public String getDataSize() {
+        if (contentEncoding == null) {
+            return decodedBytes + " B";
+        }
+        return decodedBytes + " B (" + wireBytes + " B on wire, " + contentEncoding + ")";
+    }
+
+    /**
+     * Gets request execution time, until the response was received.
+     *
+     * @return request execution time in nanos, or -1 if not measured
+     */
+    public long getTimeNanos() {
+        return timeNanos;
     }
 
     /**
      * Sets request execution time.
      *
-     * @param time request execution time
+     * @param timeNanos request execution time in nanos
      */
-    public void setTime(String time) {
-        this.time = time;
+    public void setTimeNanos(long timeNanos) {
+        this.timeNanos = timeNanos;
     }
 
     /**
-     * Gets response data size.
+     * Gets number of content bytes after content decoding. Count of a streamed response grows while its content stream
+     * is read.
      *
-     * @return response data size
+     * @return number of decoded content bytes
      */
-    public String getDataSize() {
-        return dataSize;
+    public long getDecodedBytes() {
+        return decodedBytes;
     }
 
     /**
-     * Sets response data size.
+     * Sets number of content bytes after content decoding.
      *
-     * @param dataSize response data size
+     * @param decodedBytes number of decoded content bytes
      */
-    public void setDataSize(String dataSize) {
-        this.dataSize = dataSize;
+    public void setDecodedBytes(long decodedBytes) {
+        this.decodedBytes = decodedBytes;
+    }
+
+    /**
+     * Gets number of content bytes as they were received, before content decoding. It equals the decoded bytes if
+     * content was not encoded.
+     *
+     * @return number of content bytes on wire
+     */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    /**
+     * Sets number of content bytes as they were received.
+     *
+     * @param wireBytes number of content bytes on wire
+     */
+    public void setWireBytes(long wireBytes) {
+        this.wireBytes = wireBytes;
+    }
+
+    /**
+     * Gets number of response head bytes as they were received, which are status line and header lines of the final
+     * response including line endings.
+     *
+     * @return number of response head bytes, or -1 if the transport can't count them
+     */
+    public long getHeaderBytes() {
+        return headerBytes;
+    }
+
+    /**
+     * Sets number of response head bytes as they were received.
+     *
+     * @param headerBytes number of response head bytes
+     */
+    public void setHeaderBytes(long headerBytes) {
+        this.headerBytes = headerBytes;
+    }
+
+    /**
+     * Gets content coding that content was decoded from.
+     *
+     * @return content coding, or null if content was not encoded
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Sets content coding that content was decoded from.
+     *
+     * @param contentEncoding content coding
+     */
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
     }
 
     /**
@@ -182,4 +301,122 @@ public class Response {
     public void setContentBytes(byte[] contentBytes) {
         this.contentBytes = contentBytes;
     }
+
+    /**
+     * Gets open response content stream of a streamed response. The stream should be consumed once and closed.
+     *
+     * @return response content stream, or null if content was read into memory
+     */
+    public InputStream getContentStream() {
+        return contentStream;
+    }
+
+    /**
+     * Sets open response content stream of a streamed response.
+     *
+     * @param contentStream response content stream
+     */
+    public void setContentStream(InputStream contentStream) {
+        this.contentStream = contentStream;
+    }
+
+    /**
+     * Determines if the response is streamed, meaning its content is available as a stream instead of memory.
+     *
+     * @return {@code true} if the response is streamed
+     */
+    public boolean isStreamed() {
+        return contentStream != null;
+    }
+
+    /**
+     * Gets output file transfer rate of a streamed response.
+     *
+     * @return output file transfer rate, or null if content was not transferred to an output file
+     */
+    public String getOutputRate() {
+        return outputRate;
+    }
+
+    /**
+     * Sets output file transfer rate of a streamed response.
+     *
+     * @param outputRate output file transfer rate
+     */
+    public void setOutputRate(String outputRate) {
+        this.outputRate = outputRate;
+    }
+
+    /**
+     * Gets validity of json content, validated while content was read.
+     *
+     * @return {@code true} if json content is valid, {@code false} if not, or null if content was not validated
+     */
+    public Boolean getJsonValid() {
+        return jsonValid;
+    }
+
+    /**
+     * Sets validity of json content.
+     *
+     * @param jsonValid validity of json content
+     */
+    public void setJsonValid(Boolean jsonValid) {
+        this.jsonValid = jsonValid;
+    }
+
+    /**
+     * Gets byte offset of the first json error in content.
+     *
+     * @return byte offset of the first json error, or -1 if there is no error
+     */
+    public long getJsonErrorOffset() {
+        return jsonErrorOffset;
+    }
+
+    /**
+     * Sets byte offset of the first json error in content.
+     *
+     * @param jsonErrorOffset byte offset of the first json error
+     */
+    public void setJsonErrorOffset(long jsonErrorOffset) {
+        this.jsonErrorOffset = jsonErrorOffset;
+    }
+
+    /**
+     * Gets how the response was served by http cache.
+     *
+     * @return cache status, or null if cache was not used
+     */
+    public ResponseCacheStatus getCacheStatus() {
+        return cacheStatus;
+    }
+
+    /**
+     * Sets how the response was served by http cache.
+     *
+     * @param cacheStatus cache status
+     */
+    public void setCacheStatus(ResponseCacheStatus cacheStatus) {
+        this.cacheStatus = cacheStatus;
+    }
+
+    /**
+     * Gets time spent in each phase of the request execution. Download and total times of a streamed response are
+     * known once its content stream ends.
+     *
+     * @return response timing, or null if it was not measured
+     */
+    public ResponseTiming getTiming() {
+        return timing;
+    }
+
+    /**
+     * Sets time spent in each phase of the request execution.
+     *
+     * @param timing response timing
+     */
+    public void setTiming(ResponseTiming timing) {
+        this.timing = timing;
+    }
 }
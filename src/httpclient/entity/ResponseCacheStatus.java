@@ -0,0 +1,10 @@
+package httpclient.entity;
+
+/**
+ * Represents how a response was served by the client side http cache
+ */
+public enum ResponseCacheStatus {
+    Hit,
+    Miss,
+    Revalidated;
+}
@@ -0,0 +1,186 @@
+package httpclient.entity;
+
+/**
+ * Holds the time spent in each phase of a request execution, measured in nanoseconds. Phases follow one another: DNS
+ * lookup, connecting, TLS handshake, writing the request, waiting for the first byte of the response and downloading
+ * its content. Phases that did not happen, such as connecting on a reused connection, take zero, and phases that the
+ * transport could not measure are -1. If redirects were followed, each phase is the sum over all requests.
+ */
+public class ResponseTiming {
+    /**
+     * DNS lookup time in nanos, or -1 if not measured
+     */
+    private long dnsNanos = -1;
+    /**
+     * TCP connect time in nanos, or -1 if not measured
+     */
+    private long connectNanos = -1;
+    /**
+     * TLS handshake time in nanos, or -1 if not measured
+     */
+    private long tlsNanos = -1;
+    /**
+     * request head and body write time in nanos, or -1 if not measured
+     */
+    private long requestWriteNanos = -1;
+    /**
+     * time in nanos from the end of request writing to the first byte of the response, or -1 if not measured
+     */
+    private long firstByteNanos = -1;
+    /**
+     * content download time in nanos, from the end of response head to the end of content, or -1 if not measured
+     */
+    private long downloadNanos = -1;
+    /**
+     * total execution time in nanos, from the start of execution to the end of content, or -1 if content did not end
+     */
+    private long totalNanos = -1;
+    /**
+     * determines the request was sent on a reused connection
+     */
+    private boolean reusedConnection;
+
+    /**
+     * Gets DNS lookup time.
+     *
+     * @return DNS lookup time in nanos, or -1 if not measured
+     */
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * Sets DNS lookup time.
+     *
+     * @param dnsNanos DNS lookup time in nanos
+     */
+    public void setDnsNanos(long dnsNanos) {
+        this.dnsNanos = dnsNanos;
+    }
+
+    /**
+     * Gets TCP connect time.
+     *
+     * @return TCP connect time in nanos, or -1 if not measured
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * Sets TCP connect time.
+     *
+     * @param connectNanos TCP connect time in nanos
+     */
+    public void setConnectNanos(long connectNanos) {
+        this.connectNanos = connectNanos;
+    }
+
+    /**
+     * Gets TLS handshake time.
+     *
+     * @return TLS handshake time in nanos, or -1 if not measured
+     */
+    public long getTlsNanos() {
+        return tlsNanos;
+    }
+
+    /**
+     * Sets TLS handshake time.
+     *
+     * @param tlsNanos TLS handshake time in nanos
+     */
+    public void setTlsNanos(long tlsNanos) {
+        this.tlsNanos = tlsNanos;
+    }
+
+    /**
+     * Gets request write time.
+     *
+     * @return request write time in nanos, or -1 if not measured
+     */
+    public long getRequestWriteNanos() {
+        return requestWriteNanos;
+    }
+
+    /**
+     * Sets request write time.
+     *
+     * @param requestWriteNanos request write time in nanos
+     */
+    public void setRequestWriteNanos(long requestWriteNanos) {
+        this.requestWriteNanos = requestWriteNanos;
+    }
+
+    /**
+     * Gets time to first byte, from the end of request writing to the first byte of the response.
+     *
+     * @return time to first byte in nanos, or -1 if not measured
+     */
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    /**
+     * Sets time to first byte.
+     *
+     * @param firstByteNanos time to first byte in nanos
+     */
+    public void setFirstByteNanos(long firstByteNanos) {
+        this.firstByteNanos = firstByteNanos;
+    }
+
+    /**
+     * Gets content download time.
+     *
+     * @return content download time in nanos, or -1 if not measured
+     */
+    public long getDownloadNanos() {
+        return downloadNanos;
+    }
+
+    /**
+     * Sets content download time.
+     *
+     * @param downloadNanos content download time in nanos
+     */
+    public void setDownloadNanos(long downloadNanos) {
+        this.downloadNanos = downloadNanos;
+    }
+
+    /**
+     * Gets total execution time.
+     *
+     * @return total execution time in nanos, or -1 if content did not end yet
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Sets total execution time.
+     *
+     * @param totalNanos total execution time in nanos
+     */
+    public void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Determines if the request was sent on a reused connection.
+     *
+     * @return {@code true} if the connection was reused
+     */
+    public boolean isReusedConnection() {
+        return reusedConnection;
+    }
+
+    /**
+     * Sets reused connection state.
+     *
+     * @param reusedConnection {@code true} if the connection was reused
+     */
+    public void setReusedConnection(boolean reusedConnection) {
+        this.reusedConnection = reusedConnection;
+    }
+}
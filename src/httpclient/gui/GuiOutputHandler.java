@@ -2,7 +2,10 @@ package httpclient.gui;
 
 import httpclient.entity.Request;
 import httpclient.entity.Response;
+import jurl.BenchResult;
+import jurl.HistoryEntry;
 import jurl.OutputHandler;
+import jurl.transport.PoolStats;
 
 import java.util.List;
 
@@ -35,6 +38,28 @@ public class GuiOutputHandler implements OutputHandler {
         gui.showResponse(request, response);
     }
 
+    /**
+     * GUI presents the whole response content, so responses are not streamed.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isStreamingOutput() {
+        return false;
+    }
+
+    /**
+     * Handles presentation of upload progress in GUI.
+     *
+     * @param request    request being sent
+     * @param sentBytes  number of bytes sent so far
+     * @param totalBytes total number of bytes, or -1 if length is unknown
+     */
+    @Override
+    public void outputUploadProgress(Request request, long sentBytes, long totalBytes) {
+        gui.showUploadProgress(request, sentBytes, totalBytes);
+    }
+
     /**
      * Handles presentation of help in GUI.
      *
@@ -75,4 +100,35 @@ public class GuiOutputHandler implements OutputHandler {
     public void outputCreateGroup(String groupName) {
         gui.addGroup(groupName);
     }
+
+    /**
+     * Handles presentation of connection pool statistics in GUI.
+     *
+     * @param poolStats connection pool statistics, or {@code null} if connections are not pooled
+     */
+    @Override
+    public void outputPoolStats(PoolStats poolStats) {
+        gui.showPoolStats(poolStats);
+    }
+
+    /**
+     * Handles presentation of result of a bench command in GUI.
+     *
+     * @param request     benched request
+     * @param benchResult bench result
+     */
+    @Override
+    public void outputBenchResult(Request request, BenchResult benchResult) {
+        gui.showBenchResult(request, benchResult);
+    }
+
+    /**
+     * Handles presentation of recorded responses in history dialog.
+     *
+     * @param entries recorded entries, the oldest first
+     */
+    @Override
+    public void outputHistory(List<HistoryEntry> entries) {
+        gui.showHistory(entries);
+    }
 }
@@ -0,0 +1,115 @@
+package httpclient.gui;
+
+import jurl.HistoryEntry;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * A dialog for history menu item to browse recorded responses and show one of them in response panel.
+ */
+class HistoryDialog extends JDialog {
+    /**
+     * serialization version of the dialog
+     */
+    private static final long serialVersionUID = -7046997030204966587L;
+    /**
+     * owner frame
+     */
+    private HttpClientGui httpClientGui;
+    /**
+     * list of recorded entries, the newest first
+     */
+    private JList<String> entryList;
+    /**
+     * numbers of listed entries in history, the newest first
+     */
+    private int[] entryNumbers = new int[0];
+
+    /**
+     * Constructor of history dialog
+     *
+     * @param owner owner frame of the dialog
+     */
+    HistoryDialog(HttpClientGui owner) {
+        super(owner, false);
+        this.httpClientGui = owner;
+        initUi();
+    }
+
+    /**
+     * Initializes history dialog GUI
+     */
+    private void initUi() {
+        //creating list of entries
+        entryList = new JList<>();
+        entryList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        add(new JScrollPane(entryList));
+
+        //creating show and close buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton showButton = new JButton("Show");
+        buttonPanel.add(showButton);
+        JButton closeButton = new JButton("Close");
+        buttonPanel.add(closeButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+        showButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                doShowAction();
+            }
+        });
+        closeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+        //double clicking an entry shows it
+        entryList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    doShowAction();
+                }
+            }
+        });
+
+        //packing and setting size and title and location
+        pack();
+        setSize(new Dimension(750, 400));
+        setTitle("History");
+        setLocationRelativeTo(getOwner());
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+    }
+
+    /**
+     * Sets the entries came from history command execution to history dialog.
+     *
+     * @param entries recorded entries, the oldest first
+     */
+    void setEntries(List<HistoryEntry> entries) {
+        DefaultListModel<String> listModel = new DefaultListModel<>();
+        entryNumbers = new int[entries.size()];
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            entryNumbers[listModel.size()] = i + 1;
+            listModel.addElement((i + 1) + ". " + entries.get(i).getPrintString());
+        }
+        entryList.setModel(listModel);
+    }
+
+    /**
+     * Asks for showing the selected entry in response panel.
+     */
+    private void doShowAction() {
+        int selectedIndex = entryList.getSelectedIndex();
+        if (selectedIndex >= 0) {
+            httpClientGui.showHistoryEntry(entryNumbers[selectedIndex]);
+        }
+    }
+}
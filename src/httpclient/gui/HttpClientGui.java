@@ -6,7 +6,11 @@ import httpclient.entity.RequestGroup;
 import httpclient.entity.Response;
 import httpclient.gui.theme.ThemeType;
 import httpclient.repository.OptionsRepository;
+import jurl.BenchResult;
+import jurl.FireExecutor;
+import jurl.HistoryEntry;
 import jurl.Jutl;
+import jurl.transport.PoolStats;
 
 import javax.swing.*;
 import java.awt.*;
@@ -14,6 +18,11 @@ import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Http client GUI, a frame that will be shown as main window when program starts. It composed of three panels, named
@@ -62,6 +71,10 @@ public class HttpClientGui extends JFrame {
      * help dialog that will be shown when Help|Help menu item selected or F1 pressed
      */
     private HelpDialog helpDialog;
+    /**
+     * history dialog
+     */
+    private HistoryDialog historyDialog;
 
     /**
      * instance of options repository for load and save options into file
@@ -83,6 +96,15 @@ public class HttpClientGui extends JFrame {
      * current saved request name
      */
     private String savedRequestName;
+    /**
+     * executor of actions that run out of the event dispatch thread
+     */
+    private final transient ExecutorService backgroundExecutor = newBackgroundExecutor();
+    /**
+     * sequence number of the last received response, to show only the last one when responses are prepared out of
+     * order
+     */
+    private final AtomicInteger responseSequence = new AtomicInteger();
 
     /**
      * Http client GUI constructor that initializes variables and makes frame UI.
@@ -97,6 +119,26 @@ public class HttpClientGui extends JFrame {
         initUi();
     }
 
+    /**
+     * Creates executor of actions that run out of the event dispatch thread.
+     *
+     * @return virtual thread per task executor if supported, otherwise a cached pool of daemon platform threads
+     */
+    private static ExecutorService newBackgroundExecutor() {
+        ExecutorService executorService = FireExecutor.newVirtualThreadExecutor();
+        if (executorService == null) {
+            executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "http-client-background");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executorService;
+    }
+
     /**
      * Initializes http client GUI.
      */
@@ -105,6 +147,7 @@ public class HttpClientGui extends JFrame {
         optionsDialog = new OptionsDialog(this, optionsModel);
         aboutDialog = new AboutDialog(this);
         helpDialog = new HelpDialog(this);
+        historyDialog = new HistoryDialog(this);
 
         //add a menu bar
         JMenuBar menuBar = new JMenuBar();
@@ -197,7 +240,7 @@ public class HttpClientGui extends JFrame {
     }
 
     /**
-     * Creates and returns View menu that contains two menu items: Toggle Full Screen and Toggle Sidebar
+     * Creates and returns View menu that contains three menu items: Toggle Full Screen, Toggle Sidebar and History
      *
      * @return created view menu
      */
@@ -216,6 +259,11 @@ public class HttpClientGui extends JFrame {
         toggleSidebarMenuItem.setAccelerator(KeyStroke.getKeyStroke("control S"));
         viewMenu.add(toggleSidebarMenuItem);
 
+        //adding History menu item
+        JMenuItem historyMenuItem = new JMenuItem("History", KeyEvent.VK_H);
+        historyMenuItem.setAccelerator(KeyStroke.getKeyStroke("control H"));
+        viewMenu.add(historyMenuItem);
+
         //adding action listener for Toggle Sidebar menu item to toggle frame view between simple and full screen mode
         toggleFullScreenMenuItem.addActionListener(new ActionListener() {
             @Override
@@ -230,6 +278,13 @@ public class HttpClientGui extends JFrame {
                 doToggleSidebarMenuItemAction();
             }
         });
+        //adding action listener for History menu item to show history dialog
+        historyMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                doHistoryAction();
+            }
+        });
 
         return viewMenu;
     }
@@ -272,6 +327,49 @@ public class HttpClientGui extends JFrame {
         return helpMenu;
     }
 
+    /**
+     * At the case of selecting of history menu, creates history command and asks for its execution. History entries are
+     * loaded out of the event dispatch thread, then history dialog is shown after the entries are set.
+     */
+    private void doHistoryAction() {
+        runInBackground(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sendRequest(new String[]{"history"});
+                    //posted after the entries are set by showHistory, so the dialog opens with them
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            historyDialog.setVisible(true);
+                        }
+                    });
+                } catch (Exception e) {
+                    showError(e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Asks for execution of a history command that shows a recorded response in response panel. The response body is
+     * read out of the event dispatch thread.
+     *
+     * @param entryNumber number of the entry in history
+     */
+    void showHistoryEntry(int entryNumber) {
+        runInBackground(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sendRequest(new String[]{"history", String.valueOf(entryNumber)});
+                } catch (Exception e) {
+                    showError(e.getMessage());
+                }
+            }
+        });
+    }
+
     /**
      * At the case of selecting of help menu, creates help command and asks for its execution.
      */
@@ -460,6 +558,67 @@ public class HttpClientGui extends JFrame {
         }
     }
 
+    /**
+     * Fires all requests of a group with specified parallelism and response order.
+     *
+     * @param groupName       group name
+     * @param requestCount    number of requests in the group
+     * @param parallelism     maximum number of requests in flight
+     * @param completionOrder {@code true} to show responses as they complete, {@code false} for request order
+     * @param virtualThreads  {@code true} to run each request on a virtual thread
+     */
+    void fireGroup(String groupName, int requestCount, int parallelism, boolean completionOrder, boolean virtualThreads) {
+        List<String> args = new ArrayList<>();
+        args.add("fire");
+        args.add(groupName);
+        for (int i = 1; i <= requestCount; i++) {
+            args.add(String.valueOf(i));
+        }
+        args.add("--parallel");
+        args.add(String.valueOf(parallelism));
+        args.add("--order");
+        args.add(completionOrder ? "completion" : "index");
+        if (virtualThreads) {
+            args.add("--virtual");
+        }
+        try {
+            sendRequest(args.toArray(new String[0]));
+        } catch (Exception e) {
+            showError(e.getMessage());
+        }
+    }
+
+    /**
+     * Cancels running fire commands.
+     */
+    void cancelFire() {
+        jurl.cancel();
+    }
+
+    /**
+     * Runs an action, like sending a request, out of the event dispatch thread. Actions run on virtual threads if the
+     * runtime supports them, otherwise on a cached pool of platform threads.
+     *
+     * @param action action to run
+     */
+    void runInBackground(Runnable action) {
+        backgroundExecutor.execute(action);
+    }
+
+    /**
+     * Shows an error message dialog on the event dispatch thread, so it can be called from background actions.
+     *
+     * @param message error message to show
+     */
+    void showError(String message) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                JOptionPane.showMessageDialog(HttpClientGui.this, message, "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
     /**
      * sends a command for execution.
      *
@@ -485,7 +644,7 @@ public class HttpClientGui extends JFrame {
                 sendRequest("", null, null, command);
             }
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            showError(e.getMessage());
         }
     }
 
@@ -536,6 +695,40 @@ public class HttpClientGui extends JFrame {
      * @param response response to show
      */
     public void showResponse(Request request, Response response) {
+        int sequence = responseSequence.incrementAndGet();
+        //preview size is read on the event dispatch thread, then the response is prepared in the background and only
+        //the prepared view is shown on the event dispatch thread
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                Dimension previewSize = responsePanel.getPreviewSize();
+                new SwingWorker<ResponseView, Void>() {
+                    @Override
+                    protected ResponseView doInBackground() {
+                        return ResponseView.prepare(response, previewSize);
+                    }
+
+                    @Override
+                    protected void done() {
+                        try {
+                            showResponseView(request, get(), sequence);
+                        } catch (InterruptedException | ExecutionException e) {
+                            JOptionPane.showMessageDialog(HttpClientGui.this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }
+                }.execute();
+            }
+        });
+    }
+
+    /**
+     * Shows a prepared response in response panel, unless a newer response has arrived meanwhile.
+     *
+     * @param request      sent request
+     * @param responseView prepared response to show
+     * @param sequence     sequence number of the response
+     */
+    private void showResponseView(Request request, ResponseView responseView, int sequence) {
         requestPanel.enableActions();
         if (request.getName().equals(savedRequestName)) {
             //finding the group and adding new request to found group
@@ -544,8 +737,70 @@ public class HttpClientGui extends JFrame {
                     savedRequestsPanel.addRequestItemToGroup(request, requestGroup);
                 }
             }
+            //the saved request is added once, firing it later must not add it again
+            savedRequestName = null;
+        }
+        if (sequence == responseSequence.get()) {
+            responsePanel.fill(responseView);
         }
-        responsePanel.fill(response);
+    }
+
+    /**
+     * Shows upload progress of a request being sent in response panel.
+     *
+     * @param request    request being sent
+     * @param sentBytes  number of bytes sent so far
+     * @param totalBytes total number of bytes, or -1 if length is unknown
+     */
+    public void showUploadProgress(Request request, long sentBytes, long totalBytes) {
+        responsePanel.showUploadProgress(sentBytes, totalBytes);
+    }
+
+    /**
+     * Shows connection pool statistics in a message dialog on the event dispatch thread.
+     *
+     * @param poolStats connection pool statistics, or {@code null} if connections are not pooled
+     */
+    public void showPoolStats(PoolStats poolStats) {
+        String message = poolStats == null ? "Connections are not pooled" : poolStats.toString();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                requestPanel.enableActions();
+                JOptionPane.showMessageDialog(HttpClientGui.this, message, "Connection Pool", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+    }
+
+    /**
+     * Shows recorded responses of history in history dialog on the event dispatch thread.
+     *
+     * @param entries recorded entries, the oldest first
+     */
+    public void showHistory(List<HistoryEntry> entries) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                requestPanel.enableActions();
+                historyDialog.setEntries(entries);
+            }
+        });
+    }
+
+    /**
+     * Shows result of a bench command in a message dialog on the event dispatch thread.
+     *
+     * @param request     benched request
+     * @param benchResult bench result
+     */
+    public void showBenchResult(Request request, BenchResult benchResult) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                requestPanel.enableActions();
+                JOptionPane.showMessageDialog(HttpClientGui.this, benchResult.toString(), "Bench " + request.getDestinationAddress(), JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
     }
 
     /**
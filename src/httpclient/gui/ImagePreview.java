@@ -0,0 +1,455 @@
+package httpclient.gui;
+
+import httpclient.entity.Response;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A panel that previews an image response. The image is decoded with source subsampling, so only as many pixels as
+ * the shown size needs are decoded: a large image shown to fit the panel is decoded at a fraction of its size. When
+ * zooming in needs more pixels, the coarse image is scaled up at once and replaced when a finer decode is ready.
+ * Decoded images are kept in a cache keyed by response identity and subsampling, so showing the same response or zoom
+ * again doesn't decode it again.
+ */
+class ImagePreview extends JPanel {
+    /**
+     * serialization version of the preview
+     */
+    private static final long serialVersionUID = -369449783357399781L;
+    /**
+     * maximum number of pixels of a decoded image, larger images are always subsampled
+     */
+    private static final long MAX_DECODED_PIXELS = 16L << 20;
+    /**
+     * maximum number of bytes of decoded images kept in cache
+     */
+    private static final long MAX_CACHE_BYTES = 128L << 20;
+    /**
+     * zoom factor of zoom in and zoom out actions
+     */
+    private static final double ZOOM_STEP = 1.5;
+    /**
+     * decoded images cache, in least recently used order
+     */
+    private static final LinkedHashMap<ImageKey, BufferedImage> IMAGE_CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * number of bytes of decoded images in cache
+     */
+    private static long cacheBytes;
+    /**
+     * previewed response
+     */
+    private transient Response response;
+    /**
+     * decoded image, which can be coarser than the shown size needs until a finer decode is ready
+     */
+    private transient BufferedImage image;
+    /**
+     * source subsampling of the decoded image
+     */
+    private int subsampling;
+    /**
+     * width of the image in source pixels
+     */
+    private int sourceWidth;
+    /**
+     * height of the image in source pixels
+     */
+    private int sourceHeight;
+    /**
+     * determines if the image is scaled to fit the panel
+     */
+    private boolean fit = true;
+    /**
+     * scale of the shown image to source pixels when it is not scaled to fit
+     */
+    private double zoom = 1;
+    /**
+     * sequence number of the last started decode, to ignore results of older decodes
+     */
+    private int decodeSequence;
+    /**
+     * component that paints the image
+     */
+    private JComponent canvas;
+    /**
+     * scroll pane of the canvas
+     */
+    private JScrollPane scrollPane;
+    /**
+     * label that shows image size and zoom
+     */
+    private JLabel sizeLabel;
+
+    /**
+     * Constructor of image preview.
+     */
+    ImagePreview() {
+        super(new BorderLayout());
+        initUi();
+    }
+
+    /**
+     * Initializes image preview GUI.
+     */
+    private void initUi() {
+        canvas = new JComponent() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                if (image == null) {
+                    return;
+                }
+                Graphics2D g2 = (Graphics2D) g;
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                Dimension size = getShownSize();
+                g2.drawImage(image, 0, 0, size.width, size.height, null);
+            }
+
+            @Override
+            public Dimension getPreferredSize() {
+                return getShownSize();
+            }
+        };
+        scrollPane = new JScrollPane(canvas);
+        add(scrollPane);
+
+        //adding zoom buttons
+        JPanel zoomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton fitButton = new JButton("Fit");
+        zoomPanel.add(fitButton);
+        JButton actualSizeButton = new JButton("100%");
+        zoomPanel.add(actualSizeButton);
+        JButton zoomOutButton = new JButton("-");
+        zoomPanel.add(zoomOutButton);
+        JButton zoomInButton = new JButton("+");
+        zoomPanel.add(zoomInButton);
+        sizeLabel = new JLabel("");
+        zoomPanel.add(sizeLabel);
+        add(zoomPanel, BorderLayout.NORTH);
+
+        fitButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                fit = true;
+                doZoomChangeAction();
+            }
+        });
+        actualSizeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                fit = false;
+                zoom = 1;
+                doZoomChangeAction();
+            }
+        });
+        zoomOutButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom = getScale() / ZOOM_STEP;
+                fit = false;
+                doZoomChangeAction();
+            }
+        });
+        zoomInButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom = Math.min(getScale() * ZOOM_STEP, 16);
+                fit = false;
+                doZoomChangeAction();
+            }
+        });
+        //a fitted image can need more pixels when the panel grows
+        scrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (fit) {
+                    doZoomChangeAction();
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows a decoded image of the specified response, scaled to fit the panel.
+     *
+     * @param response     previewed response
+     * @param image        decoded image
+     * @param subsampling  source subsampling of the decoded image
+     * @param sourceWidth  width of the image in source pixels
+     * @param sourceHeight height of the image in source pixels
+     */
+    void showImage(Response response, BufferedImage image, int subsampling, int sourceWidth, int sourceHeight) {
+        this.response = response;
+        this.image = image;
+        this.subsampling = subsampling;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        fit = true;
+        decodeSequence++;
+        doZoomChangeAction();
+    }
+
+    /**
+     * Clears the previewed image.
+     */
+    void clear() {
+        response = null;
+        image = null;
+        decodeSequence++;
+        sizeLabel.setText("");
+        canvas.revalidate();
+        canvas.repaint();
+    }
+
+    /**
+     * Implementation of zoom change action. It shows the current image at the new size at once, and decodes a finer
+     * image in the background if the new size needs more pixels than the current image has.
+     */
+    private void doZoomChangeAction() {
+        if (image == null) {
+            return;
+        }
+        double scale = getScale();
+        sizeLabel.setText(sourceWidth + " x " + sourceHeight + " px, " + Math.round(scale * 100) + "%");
+        canvas.revalidate();
+        canvas.repaint();
+        int neededSubsampling = getSubsampling(sourceWidth, sourceHeight, scale);
+        if (neededSubsampling >= subsampling) {
+            return;
+        }
+        Response decodedResponse = response;
+        int sequence = ++decodeSequence;
+        new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() throws IOException {
+                return decode(decodedResponse, neededSubsampling);
+            }
+
+            @Override
+            protected void done() {
+                if (sequence != decodeSequence) {
+                    return;
+                }
+                try {
+                    image = get();
+                    subsampling = neededSubsampling;
+                    canvas.repaint();
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(ImagePreview.this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Gets scale of the shown image to source pixels. A fitted image is never scaled up.
+     *
+     * @return scale of the shown image
+     */
+    private double getScale() {
+        if (!fit) {
+            return zoom;
+        }
+        Dimension viewportSize = scrollPane.getViewport().getExtentSize();
+        return getFitScale(sourceWidth, sourceHeight, viewportSize);
+    }
+
+    /**
+     * Gets shown size of the image.
+     *
+     * @return shown size of the image, which is empty if there is no image
+     */
+    private Dimension getShownSize() {
+        if (image == null) {
+            return new Dimension(0, 0);
+        }
+        double scale = getScale();
+        return new Dimension(Math.max((int) (sourceWidth * scale), 1), Math.max((int) (sourceHeight * scale), 1));
+    }
+
+    /**
+     * Gets scale that fits an image in the specified size without scaling it up.
+     *
+     * @param width  width of the image
+     * @param height height of the image
+     * @param size   size to fit the image in
+     * @return scale of the fitted image
+     */
+    static double getFitScale(int width, int height, Dimension size) {
+        if (size.width <= 0 || size.height <= 0) {
+            return 1;
+        }
+        return Math.min(1, Math.min((double) size.width / width, (double) size.height / height));
+    }
+
+    /**
+     * Gets source subsampling that decodes enough pixels to show an image at the specified scale, limited to
+     * {@value #MAX_DECODED_PIXELS} decoded pixels.
+     *
+     * @param width  width of the image in source pixels
+     * @param height height of the image in source pixels
+     * @param scale  scale of the shown image
+     * @return source subsampling, 1 for every pixel
+     */
+    static int getSubsampling(int width, int height, double scale) {
+        int subsampling = Math.max((int) (1 / scale), 1);
+        while ((long) ((width + subsampling - 1) / subsampling) * ((height + subsampling - 1) / subsampling) > MAX_DECODED_PIXELS) {
+            subsampling++;
+        }
+        return subsampling;
+    }
+
+    /**
+     * Reads size of the image of the specified response without decoding its pixels.
+     *
+     * @param response image response
+     * @return size of the image in source pixels
+     * @throws IOException if the image can't be read
+     */
+    static Dimension readSize(Response response) throws IOException {
+        ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(response.getContentBytes()));
+        ImageReader reader = getReader(inputStream);
+        try {
+            return new Dimension(reader.getWidth(0), reader.getHeight(0));
+        } finally {
+            reader.dispose();
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Decodes the image of the specified response with the specified source subsampling, or gets it from cache if it
+     * has been decoded before.
+     *
+     * @param response    image response
+     * @param subsampling source subsampling, 1 for every pixel
+     * @return decoded image
+     * @throws IOException if the image can't be decoded
+     */
+    static BufferedImage decode(Response response, int subsampling) throws IOException {
+        ImageKey key = new ImageKey(response, subsampling);
+        synchronized (IMAGE_CACHE) {
+            BufferedImage cachedImage = IMAGE_CACHE.get(key);
+            if (cachedImage != null) {
+                return cachedImage;
+            }
+        }
+        ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(response.getContentBytes()));
+        ImageReader reader = getReader(inputStream);
+        BufferedImage image;
+        try {
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            image = reader.read(0, param);
+        } finally {
+            reader.dispose();
+            inputStream.close();
+        }
+        synchronized (IMAGE_CACHE) {
+            if (IMAGE_CACHE.put(key, image) == null) {
+                cacheBytes += getBytes(image);
+            }
+            //evicting least recently used images, but never the image just decoded
+            Iterator<Map.Entry<ImageKey, BufferedImage>> iterator = IMAGE_CACHE.entrySet().iterator();
+            while (cacheBytes > MAX_CACHE_BYTES && IMAGE_CACHE.size() > 1) {
+                cacheBytes -= getBytes(iterator.next().getValue());
+                iterator.remove();
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Gets an image reader for the specified image input stream.
+     *
+     * @param inputStream image input stream
+     * @return image reader with the input stream as its input
+     * @throws IOException if there is no reader for the image format
+     */
+    private static ImageReader getReader(ImageInputStream inputStream) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+        if (!readers.hasNext()) {
+            inputStream.close();
+            throw new IOException("Unsupported image format");
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(inputStream, true, true);
+        return reader;
+    }
+
+    /**
+     * Gets approximate number of bytes of a decoded image.
+     *
+     * @param image decoded image
+     * @return number of bytes of the image
+     */
+    private static long getBytes(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    /**
+     * Key of a decoded image in cache, which is the identity of its response and its subsampling.
+     */
+    private static class ImageKey {
+        /**
+         * response of the image
+         */
+        private final Response response;
+        /**
+         * source subsampling of the image
+         */
+        private final int subsampling;
+
+        /**
+         * Constructor of image key.
+         *
+         * @param response    response of the image
+         * @param subsampling source subsampling of the image
+         */
+        ImageKey(Response response, int subsampling) {
+            this.response = response;
+            this.subsampling = subsampling;
+        }
+
+        /**
+         * Checks if the key is for the same response object and subsampling.
+         *
+         * @param o object to compare
+         * @return {@code true} if the key is equal
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ImageKey)) {
+                return false;
+            }
+            ImageKey imageKey = (ImageKey) o;
+            return response == imageKey.response && subsampling == imageKey.subsampling;
+        }
+
+        /**
+         * Gets hash code of the key based on response identity.
+         *
+         * @return hash code of the key
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(response) * 31 + subsampling;
+        }
+    }
+}
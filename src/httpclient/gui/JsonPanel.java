@@ -1,17 +1,48 @@
 package httpclient.gui;
 
+import httpclient.util.IncrementalJsonValidator;
+import httpclient.util.JsonFormatter;
 import httpclient.util.JsonValidator;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * A panel that shows a json and user can edit a it. It also validates json content online and changes text color based on
- * its validity.
+ * its validity. Edited content is validated incrementally off the event dispatch thread once editing pauses, and user
+ * can format or minify it from the popup menu. The validation thread keeps its own copy of edited content, updated by
+ * each edit, so only the changed text is copied out of the document.
  */
 class JsonPanel extends JPanel {
+    /**
+     * delay in millis after the last edit before edited content is validated
+     */
+    private static final int VALIDATION_DELAY = 150;
+    /**
+     * executor that validates edited content of all json panels, one validation at a time
+     */
+    private static final ExecutorService VALIDATION_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "json-validation");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * determines if validation latency of every edit is printed, enabled by jurl.debug system property
+     */
+    private static final boolean DEBUG = Boolean.getBoolean("jurl.debug");
     /**
      * a text pane that user writes json in
      */
@@ -20,6 +51,30 @@ class JsonPanel extends JPanel {
      * makes the json content editable or read only
      */
     private boolean editable;
+    /**
+     * incremental validator of edited content, used only by the validation executor
+     */
+    private final transient IncrementalJsonValidator incrementalJsonValidator = new IncrementalJsonValidator();
+    /**
+     * copy of edited content, updated by each edit in edit order and used only by the validation executor
+     */
+    private final StringBuilder editedContent = new StringBuilder();
+    /**
+     * timer that validates edited content once editing pauses
+     */
+    private Timer validationTimer;
+    /**
+     * smallest offset edited since the last validation started, or {@link Integer#MAX_VALUE} if there is no edit
+     */
+    private int editOffset = Integer.MAX_VALUE;
+    /**
+     * time in nanos of the first edit since the last validation started
+     */
+    private long editTime;
+    /**
+     * sequence number of the last started validation, to ignore results of older validations
+     */
+    private int validationSequence;
 
     /**
      * Constructor of json panel.
@@ -42,21 +97,156 @@ class JsonPanel extends JPanel {
         jsonContentPane.setEditable(editable);
         add(new JScrollPane(jsonContentPane));
 
+        //read only content is validated when it is filled, so only editable content is validated on change
+        if (!editable) {
+            return;
+        }
+        validationTimer = new Timer(VALIDATION_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                validateEditedContent();
+            }
+        });
+        validationTimer.setRepeats(false);
+
+        //adding popup menu that formats or minifies json content on user demand
+        JPopupMenu popupMenu = new JPopupMenu();
+        JMenuItem formatMenuItem = new JMenuItem("Format Json");
+        popupMenu.add(formatMenuItem);
+        JMenuItem minifyMenuItem = new JMenuItem("Minify Json");
+        popupMenu.add(minifyMenuItem);
+        formatMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                doRewriteJsonAction(false);
+            }
+        });
+        minifyMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                doRewriteJsonAction(true);
+            }
+        });
+        jsonContentPane.setComponentPopupMenu(popupMenu);
+
         //adding listener to detect any change of text pane to validate json
         jsonContentPane.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                doJsonChangeAction();
+                doJsonInsertAction(e);
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                doJsonChangeAction();
+                doJsonRemoveAction(e);
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                doJsonChangeAction();
+                //attribute changes do not change json content
+            }
+        });
+    }
+
+    /**
+     * Implementation of json insert action. It copies only the inserted text out of the document and inserts it into
+     * edited content on the validation executor.
+     *
+     * @param e document event of the insert
+     */
+    private void doJsonInsertAction(DocumentEvent e) {
+        int offset = e.getOffset();
+        String insertedText;
+        try {
+            insertedText = e.getDocument().getText(offset, e.getLength());
+        } catch (BadLocationException exception) {
+            //not possible, the range has just been inserted
+            return;
+        }
+        VALIDATION_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                editedContent.insert(offset, insertedText);
+            }
+        });
+        doJsonEditAction(offset);
+    }
+
+    /**
+     * Implementation of json remove action. It removes the same range from edited content on the validation executor.
+     *
+     * @param e document event of the remove
+     */
+    private void doJsonRemoveAction(DocumentEvent e) {
+        int offset = e.getOffset();
+        int length = e.getLength();
+        VALIDATION_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                editedContent.delete(offset, offset + length);
+            }
+        });
+        doJsonEditAction(offset);
+    }
+
+    /**
+     * Implementation of json edit action. It keeps the smallest edited offset and delays validation until editing
+     * pauses.
+     *
+     * @param offset offset of the edit
+     */
+    private void doJsonEditAction(int offset) {
+        if (editOffset == Integer.MAX_VALUE) {
+            editTime = System.nanoTime();
+        }
+        editOffset = Math.min(editOffset, offset);
+        validationTimer.restart();
+    }
+
+    /**
+     * Implementation of format and minify json actions. It replaces valid json content by its formatted or minified
+     * form, invalid json content is left as it is.
+     *
+     * @param minify {@code true} to minify json content, {@code false} to format it
+     */
+    private void doRewriteJsonAction(boolean minify) {
+        String content = jsonContentPane.getText();
+        if (!JsonValidator.isValidJson(content)) {
+            JOptionPane.showMessageDialog(this, "Json content is invalid", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        jsonContentPane.setText(minify ? JsonFormatter.minify(content) : JsonFormatter.format(content));
+    }
+
+    /**
+     * Validates edited content on the validation executor, after the edits before it, and changes text color based on
+     * its validity if no newer validation has started meanwhile.
+     */
+    private void validateEditedContent() {
+        int offset = editOffset;
+        long time = editTime;
+        editOffset = Integer.MAX_VALUE;
+        int sequence = ++validationSequence;
+        VALIDATION_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startTime = System.nanoTime();
+                boolean valid = incrementalJsonValidator.validate(editedContent, offset);
+                long errorOffset = incrementalJsonValidator.getErrorOffset();
+                long endTime = System.nanoTime();
+                if (DEBUG) {
+                    System.err.printf("Json validation: %d of %d chars in %.3f ms, %.3f ms after edit%n",
+                            incrementalJsonValidator.getRescannedLength(), editedContent.length(),
+                            (endTime - startTime) / 1e6, (endTime - time) / 1e6);
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (sequence == validationSequence) {
+                            showValidity(valid, errorOffset);
+                        }
+                    }
+                });
             }
         });
     }
@@ -66,10 +256,22 @@ class JsonPanel extends JPanel {
      * is invalid.
      */
     private void doJsonChangeAction() {
-        if (JsonValidator.isValidJson(jsonContentPane.getText())) {
+        showValidity(JsonValidator.isValidJson(jsonContentPane.getText()), -1);
+    }
+
+    /**
+     * Changes text color to red if json content is invalid, and shows error offset, if known, as tool tip.
+     *
+     * @param valid       validity of json content
+     * @param errorOffset byte offset of the first json error, or -1 if it is not known
+     */
+    private void showValidity(boolean valid, long errorOffset) {
+        if (valid) {
             jsonContentPane.setForeground(Color.BLACK);
+            jsonContentPane.setToolTipText(null);
         } else {
             jsonContentPane.setForeground(Color.RED);
+            jsonContentPane.setToolTipText(errorOffset >= 0 ? "Invalid json at " + (editable ? "character " : "byte ") + errorOffset : "Invalid json");
         }
     }
 
@@ -89,7 +291,36 @@ class JsonPanel extends JPanel {
      */
     void fill(String jsonContent) {
         jsonContentPane.setText(jsonContent);
-        doJsonChangeAction();
+        //editable content is validated by its edit action
+        if (!editable) {
+            doJsonChangeAction();
+        }
+    }
+
+    /**
+     * Fills text pane with specified json content that has already been validated, without validating it again.
+     *
+     * @param jsonContent json content
+     * @param valid       validity of json content
+     * @param errorOffset byte offset of the first json error, or -1 if there is no error
+     */
+    void fill(String jsonContent, boolean valid, long errorOffset) {
+        jsonContentPane.setText(jsonContent);
+        showValidity(valid, errorOffset);
+    }
+
+    /**
+     * Shows the specified document of json content that has already been validated, without validating it again. The
+     * document can be built off the event dispatch thread before it is shown. It is used only for read only content,
+     * since document listeners of editable content are attached to the current document.
+     *
+     * @param jsonDocument document of json content
+     * @param valid        validity of json content
+     * @param errorOffset  byte offset of the first json error, or -1 if there is no error
+     */
+    void fill(StyledDocument jsonDocument, boolean valid, long errorOffset) {
+        jsonContentPane.setStyledDocument(jsonDocument);
+        showValidity(valid, errorOffset);
     }
 
     /**
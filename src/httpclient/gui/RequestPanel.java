@@ -91,22 +91,22 @@ class RequestPanel extends JPanel {
         save.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                new Thread(new Runnable() {
+                httpClientGui.runInBackground(new Runnable() {
                     public void run() {
                         doSaveRequest();
                     }
-                }).start();
+                });
             }
         });
         //adding action of send button that sends request and gets response
         send.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                new Thread(new Runnable() {
+                httpClientGui.runInBackground(new Runnable() {
                     public void run() {
                         doSendRequest();
                     }
-                }).start();
+                });
             }
         });
 
@@ -161,7 +161,7 @@ class RequestPanel extends JPanel {
             List<String> commandArgs = collectCommandArgs();
             httpClientGui.sendRequest(commandArgs.toArray(new String[0]), getQueryNameValues(), getSelectedBodyType());
         } catch (Exception exception) {
-            JOptionPane.showMessageDialog(this, exception.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            httpClientGui.showError(exception.getMessage());
         }
     }
 
@@ -2,18 +2,13 @@ package httpclient.gui;
 
 import httpclient.entity.Response;
 import httpclient.entity.ResponseBodyType;
-import httpclient.entity.ResponseContentType;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 
 /**
  * Implementation of a panel that placed at the right side of the frame and displays the response.
@@ -48,13 +43,21 @@ class ResponsePanel extends JPanel {
      */
     private JPanel rawPanel;
     /**
-     * response raw content text pane
+     * response raw content viewer
      */
-    private JTextPane rawContentPane;
+    private TextViewer rawContentViewer;
     /**
-     * response preview panel
+     * text field of the text to find in raw content
      */
-    private JPanel previewPanel;
+    private JTextField findField;
+    /**
+     * response image preview panel
+     */
+    private ImagePreview previewPanel;
+    /**
+     * response timing waterfall panel
+     */
+    private TimingWaterfall timingWaterfall;
     /**
      * status label
      */
@@ -86,14 +89,21 @@ class ResponsePanel extends JPanel {
         jsonPanel = new JsonPanel(false);
 
         rawPanel = new JPanel(new BorderLayout());
-        rawContentPane = new JTextPane();
-        rawContentPane.setEditable(false);
-        rawPanel.add(new JScrollPane(rawContentPane));
+        rawContentViewer = new TextViewer();
+        rawPanel.add(new JScrollPane(rawContentViewer));
+        JPanel findPanel = new JPanel(new BorderLayout());
+        findField = new JTextField();
+        findPanel.add(findField);
+        JButton findButton = new JButton("Find");
+        findPanel.add(findButton, BorderLayout.EAST);
+        rawPanel.add(findPanel, BorderLayout.NORTH);
 
-        previewPanel = new JPanel(new BorderLayout());
+        previewPanel = new ImagePreview();
 
         responseHeader = new ResponseHeader(httpClientGui);
 
+        timingWaterfall = new TimingWaterfall();
+
         setLayout(new BorderLayout());
 
         //adding labels
@@ -114,10 +124,21 @@ class ResponsePanel extends JPanel {
         responseContentPanel.addTab("", getMessageBodyPanel(responseBodyTypeCombo.getItemAt(responseBodyTypeCombo.getSelectedIndex())));
         responseContentPanel.setTabComponentAt(0, responseBodyTypeCombo);
         responseContentPanel.addTab("Header", getHeaderPanel());
+        responseContentPanel.addTab("Timing", timingWaterfall);
         add(responseContentPanel);
 
         setMinimumSize(new Dimension(400, -1));
 
+        //adding action of finding the next occurrence of the find text in raw content
+        ActionListener findAction = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                rawContentViewer.find(findField.getText());
+            }
+        };
+        findField.addActionListener(findAction);
+        findButton.addActionListener(findAction);
+
         //adding action for popup menu of response body combo box to select response body tab when selecting the combo box
         responseBodyTypeCombo.addPopupMenuListener(new PopupMenuListener() {
             @Override
@@ -191,48 +212,63 @@ class ResponsePanel extends JPanel {
     }
 
     /**
-     * Fills response panel with the specified response.
+     * Fills response panel with the specified prepared response. Content has been prepared in the background, so
+     * filling only puts prepared parts in components.
      *
-     * @param response response to fill response panel
+     * @param responseView prepared response to fill response panel
      */
-    void fill(Response response) {
+    void fill(ResponseView responseView) {
         //fill with real response data
-        try {
-            status.setText(response.getStatusCode() + " " + response.getStatusMessage());
-            time.setText(response.getTime());
-            volume.setText(response.getDataSize());
-            if (response.getContentType().equals(ResponseContentType.Picture)) {
-                rawContentPane.setText("Image content type");
-                previewPanel.removeAll();
-                ByteArrayInputStream inputStream = new ByteArrayInputStream(response.getContentBytes());
-                BufferedImage testImage = ImageIO.read(inputStream);
-                JPanel previewInternalPanel = new JPanel() {
-                    @Override
-                    protected void paintComponent(Graphics g) {
-                        super.paintComponent(g);
-                        g.drawImage(testImage, 0, 0, this);
-                    }
-                };
-                previewInternalPanel.setPreferredSize(new Dimension(testImage.getWidth(), testImage.getHeight()));
-                previewPanel.add(new JScrollPane(previewInternalPanel));
-                responseBodyTypeCombo.setSelectedIndex(1);
-            } else if (response.getContentType().equals(ResponseContentType.Json)) {
-                rawContentPane.setText("Json content type");
-                jsonPanel.fill(response.getContentStr());
-                previewPanel.removeAll();
-                responseBodyTypeCombo.setSelectedIndex(2);
-            } else {
-                rawContentPane.setText(response.getContentStr());
-                jsonPanel.fill("");
-                previewPanel.removeAll();
-                responseBodyTypeCombo.setSelectedIndex(0);
-            }
-            responseHeader.fill(response.getHeader());
-
-            previewPanel.revalidate();
-            previewPanel.repaint();
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        Response response = responseView.getResponse();
+        status.setText(response.getStatusCode() + " " + response.getStatusMessage());
+        time.setText(response.getTime());
+        volume.setText(response.getDataSize());
+        if (responseView.getErrorMessage() != null) {
+            JOptionPane.showMessageDialog(this, responseView.getErrorMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        rawContentViewer.setContent(responseView.getRawContent());
+        if (responseView.getImage() != null) {
+            Dimension imageSize = responseView.getImageSize();
+            previewPanel.showImage(response, responseView.getImage(), responseView.getImageSubsampling(), imageSize.width, imageSize.height);
+        } else {
+            previewPanel.clear();
+        }
+        if (responseView.getJsonDocument() != null) {
+            jsonPanel.fill(responseView.getJsonDocument(), responseView.isJsonValid(), responseView.getJsonErrorOffset());
+        } else {
+            jsonPanel.fill("");
         }
+        responseBodyTypeCombo.setSelectedItem(responseView.getBodyType());
+        responseHeader.fill(response.getHeader());
+        timingWaterfall.fill(response.getTiming());
+    }
+
+    /**
+     * Gets size available to preview an image, which is the size of response content tabs.
+     *
+     * @return size available to preview an image
+     */
+    Dimension getPreviewSize() {
+        return responseContentPanel.getSize();
+    }
+
+    /**
+     * Shows upload progress of the request being sent in status labels.
+     *
+     * @param sentBytes  number of bytes sent so far
+     * @param totalBytes total number of bytes, or -1 if length is unknown
+     */
+    void showUploadProgress(long sentBytes, long totalBytes) {
+        String progress = totalBytes > 0 ? "Uploading " + (sentBytes * 100 / totalBytes) + "%" : "Uploading";
+        //progress is reported from the sending thread
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                status.setText(progress);
+                time.setText("");
+                volume.setText(sentBytes + " B");
+            }
+        });
     }
 }
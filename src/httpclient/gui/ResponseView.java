@@ -0,0 +1,226 @@
+package httpclient.gui;
+
+import httpclient.entity.Response;
+import httpclient.entity.ResponseBodyType;
+import httpclient.entity.ResponseContentType;
+import httpclient.util.JsonFormatter;
+import httpclient.util.JsonValidator;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.StyledDocument;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * A response prepared to be shown in response panel. Every step that takes time proportional to the response body,
+ * decoding an image, validating and formatting json and building the json document, is done when the view is
+ * prepared on a background thread, so that response panel only puts prepared parts in its components on the event
+ * dispatch thread.
+ */
+class ResponseView {
+    /**
+     * length of json content above which it is shown in raw content viewer instead of json panel
+     */
+    private static final int LARGE_JSON_LENGTH = 1 << 20;
+    /**
+     * shown response
+     */
+    private final Response response;
+    /**
+     * response body type that is selected to show the content
+     */
+    private ResponseBodyType bodyType = ResponseBodyType.Raw;
+    /**
+     * content shown in raw content viewer
+     */
+    private String rawContent;
+    /**
+     * document of json content shown in json panel, or null if there is no json content to show in json panel
+     */
+    private StyledDocument jsonDocument;
+    /**
+     * validity of json content
+     */
+    private boolean jsonValid = true;
+    /**
+     * byte offset of the first json error, or -1 if it is not known
+     */
+    private long jsonErrorOffset = -1;
+    /**
+     * decoded image of a picture response, or null if response is not a picture
+     */
+    private BufferedImage image;
+    /**
+     * source subsampling of the decoded image
+     */
+    private int imageSubsampling;
+    /**
+     * size of the image in source pixels
+     */
+    private Dimension imageSize;
+    /**
+     * message of the error that happened while preparing, or null if there is no error
+     */
+    private String errorMessage;
+
+    /**
+     * Constructor of response view.
+     *
+     * @param response shown response
+     */
+    private ResponseView(Response response) {
+        this.response = response;
+    }
+
+    /**
+     * Prepares the specified response to be shown. It must not be called on the event dispatch thread. An image is
+     * decoded only with as many pixels as fitting it in the preview size needs.
+     *
+     * @param response    response to prepare
+     * @param previewSize size of image preview
+     * @return prepared response view
+     */
+    static ResponseView prepare(Response response, Dimension previewSize) {
+        ResponseView responseView = new ResponseView(response);
+        try {
+            if (response.getContentType().equals(ResponseContentType.Picture)) {
+                responseView.rawContent = "Image content type";
+                responseView.bodyType = ResponseBodyType.Preview;
+                Dimension imageSize = ImagePreview.readSize(response);
+                double scale = ImagePreview.getFitScale(imageSize.width, imageSize.height, previewSize);
+                responseView.imageSubsampling = ImagePreview.getSubsampling(imageSize.width, imageSize.height, scale);
+                responseView.imageSize = imageSize;
+                responseView.image = ImagePreview.decode(response, responseView.imageSubsampling);
+            } else if (response.getContentType().equals(ResponseContentType.Json)) {
+                //content is usually validated while it is read
+                Boolean jsonValid = response.getJsonValid();
+                if (jsonValid == null) {
+                    jsonValid = JsonValidator.isValidJson(response.getContentStr());
+                }
+                responseView.jsonValid = jsonValid;
+                responseView.jsonErrorOffset = response.getJsonErrorOffset();
+                //only valid content is pretty printed, so error offsets still refer to the raw content
+                String jsonContent = jsonValid ? JsonFormatter.format(response.getContentStr()) : response.getContentStr();
+                if (jsonContent.length() > LARGE_JSON_LENGTH) {
+                    //a text pane can't lay out large content in time, so it is shown by the raw content viewer
+                    responseView.rawContent = jsonContent;
+                    responseView.jsonDocument = createDocument("Json content is shown in Raw");
+                } else {
+                    responseView.rawContent = "Json content type";
+                    responseView.jsonDocument = createDocument(jsonContent);
+                    responseView.bodyType = ResponseBodyType.JSON;
+                }
+            } else {
+                responseView.rawContent = response.getContentStr();
+            }
+        } catch (IOException | BadLocationException e) {
+            responseView.errorMessage = e.getMessage();
+        }
+        return responseView;
+    }
+
+    /**
+     * Creates a document with the specified content. A document that is not shown yet can be created on any thread.
+     *
+     * @param content content of the document
+     * @return created document
+     * @throws BadLocationException if content can't be inserted
+     */
+    private static StyledDocument createDocument(String content) throws BadLocationException {
+        StyledDocument document = new DefaultStyledDocument();
+        document.insertString(0, content, null);
+        return document;
+    }
+
+    /**
+     * Gets shown response.
+     *
+     * @return shown response
+     */
+    Response getResponse() {
+        return response;
+    }
+
+    /**
+     * Gets response body type that is selected to show the content.
+     *
+     * @return response body type
+     */
+    ResponseBodyType getBodyType() {
+        return bodyType;
+    }
+
+    /**
+     * Gets content shown in raw content viewer.
+     *
+     * @return raw content
+     */
+    String getRawContent() {
+        return rawContent;
+    }
+
+    /**
+     * Gets document of json content shown in json panel.
+     *
+     * @return json document, or null if there is no json content to show in json panel
+     */
+    StyledDocument getJsonDocument() {
+        return jsonDocument;
+    }
+
+    /**
+     * Gets validity of json content.
+     *
+     * @return {@code true} if json content is valid
+     */
+    boolean isJsonValid() {
+        return jsonValid;
+    }
+
+    /**
+     * Gets byte offset of the first json error.
+     *
+     * @return offset of the first json error, or -1 if it is not known
+     */
+    long getJsonErrorOffset() {
+        return jsonErrorOffset;
+    }
+
+    /**
+     * Gets decoded image of a picture response.
+     *
+     * @return decoded image, or null if response is not a picture
+     */
+    BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets source subsampling of the decoded image.
+     *
+     * @return source subsampling, 1 for every pixel
+     */
+    int getImageSubsampling() {
+        return imageSubsampling;
+    }
+
+    /**
+     * Gets size of the image in source pixels.
+     *
+     * @return size of the image, or null if response is not a picture
+     */
+    Dimension getImageSize() {
+        return imageSize;
+    }
+
+    /**
+     * Gets message of the error that happened while preparing.
+     *
+     * @return error message, or null if there is no error
+     */
+    String getErrorMessage() {
+        return errorMessage;
+    }
+}
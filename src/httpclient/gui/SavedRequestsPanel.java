@@ -2,6 +2,7 @@ package httpclient.gui;
 
 import httpclient.entity.Request;
 import httpclient.entity.RequestGroup;
+import jurl.FireExecutor;
 
 import javax.swing.*;
 import javax.swing.tree.*;
@@ -97,9 +98,95 @@ class SavedRequestsPanel extends JPanel {
                     doMouseDoubleClickedAction();
                 }
             }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                showGroupPopupMenu(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                showGroupPopupMenu(e);
+            }
         });
     }
 
+    /**
+     * Shows popup menu of a request group, if the mouse event is a popup trigger on a request group.
+     *
+     * @param e mouse event
+     */
+    private void showGroupPopupMenu(MouseEvent e) {
+        if (!e.isPopupTrigger()) {
+            return;
+        }
+        TreePath path = requestTree.getPathForLocation(e.getX(), e.getY());
+        if (path == null) {
+            return;
+        }
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
+        if (node.getUserObject() instanceof RequestGroup) {
+            requestTree.setSelectionPath(path);
+            JPopupMenu popupMenu = new JPopupMenu();
+            JMenuItem fireMenuItem = new JMenuItem("Fire Group...");
+            popupMenu.add(fireMenuItem);
+            JMenuItem cancelFireMenuItem = new JMenuItem("Cancel Fire");
+            popupMenu.add(cancelFireMenuItem);
+            //adding action of fire menu item that fires all requests of the group
+            fireMenuItem.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    doFireGroupAction(node);
+                }
+            });
+            //adding action of cancel fire menu item that cancels running fires
+            cancelFireMenuItem.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    httpClientGui.cancelFire();
+                }
+            });
+            popupMenu.show(requestTree, e.getX(), e.getY());
+        }
+    }
+
+    /**
+     * Action of fire group menu item that asks user for parallelism, response order and threads kind and fires all
+     * requests of the group.
+     *
+     * @param groupNode tree node of the group
+     */
+    private void doFireGroupAction(DefaultMutableTreeNode groupNode) {
+        int requestCount = groupNode.getChildCount();
+        if (requestCount == 0) {
+            JOptionPane.showMessageDialog(httpClientGui, "No request in group", "Fire Group", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        //making fire options panel containing parallelism spinner and response order combo box
+        JPanel firePanel = new JPanel(new GridLayout(3, 2, 5, 5));
+        JSpinner parallelSpinner = new JSpinner(new SpinnerNumberModel(Math.min(4, requestCount), 1, 256, 1));
+        firePanel.add(new JLabel("Parallel Requests:"));
+        firePanel.add(parallelSpinner);
+        JComboBox<String> orderCombo = new JComboBox<>(new String[]{"Request Order", "Completion Order"});
+        firePanel.add(new JLabel("Response Order:"));
+        firePanel.add(orderCombo);
+        JCheckBox virtualThreadsCheckBox = new JCheckBox("Virtual Threads");
+        virtualThreadsCheckBox.setEnabled(FireExecutor.isVirtualThreadsSupported());
+        firePanel.add(virtualThreadsCheckBox);
+        int userConfirm = JOptionPane.showConfirmDialog(httpClientGui, firePanel, "Fire " + groupNode.getUserObject(), JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (userConfirm == JOptionPane.OK_OPTION) {
+            String groupName = groupNode.getUserObject().toString();
+            int parallelism = (Integer) parallelSpinner.getValue();
+            boolean completionOrder = orderCombo.getSelectedIndex() == 1;
+            boolean virtualThreads = virtualThreadsCheckBox.isSelected();
+            httpClientGui.runInBackground(new Runnable() {
+                public void run() {
+                    httpClientGui.fireGroup(groupName, requestCount, parallelism, completionOrder, virtualThreads);
+                }
+            });
+        }
+    }
+
     /**
      * Action of double clicking on a saved request that loads that request in the request panel.
      */
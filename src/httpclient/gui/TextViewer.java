@@ -0,0 +1,393 @@
+package httpclient.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A read only text viewer for large content. Unlike a text pane, it does not build a document for the content: a
+ * background thread indexes line starts, and painting decodes and draws only the lines and columns that are visible.
+ * Lines longer than {@value #MAX_LINE_LENGTH} characters are wrapped, so a huge single line json is shown as many
+ * lines. Content is drawn with a monospaced font, so columns are found by position without measuring text.
+ */
+class TextViewer extends JComponent implements Scrollable {
+    /**
+     * serialization version of the viewer
+     */
+    private static final long serialVersionUID = -8650126009969761394L;
+    /**
+     * maximum number of characters shown in one line, longer lines are wrapped
+     */
+    private static final int MAX_LINE_LENGTH = 1024;
+    /**
+     * interval in nanos to show lines indexed so far while indexing
+     */
+    private static final long PUBLISH_INTERVAL = 100_000_000L;
+    /**
+     * empty space in pixels around content
+     */
+    private static final int MARGIN = 4;
+    /**
+     * executor that indexes and searches content of all text viewers, one task at a time
+     */
+    private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "text-viewer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * shown content
+     */
+    private String content = "";
+    /**
+     * generation of shown content, to stop indexing and ignore search results of replaced content
+     */
+    private volatile int generation;
+    /**
+     * start offsets of indexed lines, followed by the end offset of the last indexed line
+     */
+    private int[] lineStarts = {0, 0};
+    /**
+     * number of indexed lines
+     */
+    private int lineCount;
+    /**
+     * length of the longest indexed line
+     */
+    private int maxLineLength;
+    /**
+     * start offset of the last found match, or -1 if there is no match
+     */
+    private int matchStart = -1;
+    /**
+     * end offset of the last found match
+     */
+    private int matchEnd = -1;
+    /**
+     * buffer of characters drawn in a line
+     */
+    private char[] lineBuffer = new char[256];
+    /**
+     * width of every character in pixels
+     */
+    private int charWidth;
+    /**
+     * height of a line in pixels
+     */
+    private int lineHeight;
+    /**
+     * distance from the top of a line to its baseline in pixels
+     */
+    private int ascent;
+
+    /**
+     * Constructor of text viewer.
+     */
+    TextViewer() {
+        Font font = UIManager.getFont("TextPane.font");
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, font == null ? 12 : font.getSize()));
+        Color background = UIManager.getColor("TextPane.background");
+        setBackground(background == null ? Color.WHITE : background);
+        Color foreground = UIManager.getColor("TextPane.foreground");
+        setForeground(foreground == null ? Color.BLACK : foreground);
+        setOpaque(true);
+    }
+
+    /**
+     * Sets font of the viewer, which should be monospaced, and updates character metrics.
+     *
+     * @param font font of the viewer
+     */
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        FontMetrics fontMetrics = getFontMetrics(font);
+        charWidth = Math.max(fontMetrics.charWidth('m'), 1);
+        lineHeight = Math.max(fontMetrics.getHeight(), 1);
+        ascent = fontMetrics.getAscent();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Shows the specified content. Lines are indexed in the background and shown as they are indexed.
+     *
+     * @param content content to show
+     */
+    void setContent(String content) {
+        int contentGeneration = ++generation;
+        this.content = content;
+        lineStarts = new int[]{0, 0};
+        lineCount = 0;
+        maxLineLength = 0;
+        matchStart = -1;
+        matchEnd = -1;
+        revalidate();
+        repaint();
+        BACKGROUND_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                indexLines(content, contentGeneration);
+            }
+        });
+    }
+
+    /**
+     * Finds the next occurrence of the specified text after the last found match, continuing from the start of content
+     * if there is no more occurrence. Content is searched in the background, then the match is highlighted and scrolled
+     * to, or a beep is played if the text is not found.
+     *
+     * @param text text to find
+     */
+    void find(String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        String searchedContent = content;
+        int contentGeneration = generation;
+        int from = matchStart + 1;
+        BACKGROUND_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                int index = searchedContent.indexOf(text, from);
+                if (index < 0 && from > 0) {
+                    index = searchedContent.indexOf(text);
+                }
+                int foundIndex = index;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (contentGeneration == generation) {
+                            showMatch(foundIndex, foundIndex + text.length());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Indexes line starts of content in the background, showing indexed lines periodically and when indexing ends.
+     *
+     * @param content           content to index
+     * @param contentGeneration generation of the content
+     */
+    private void indexLines(String content, int contentGeneration) {
+        int length = content.length();
+        int[] starts = new int[1024];
+        int count = 0;
+        int maxLength = 0;
+        int lineStart = 0;
+        long publishTime = System.nanoTime();
+        while (true) {
+            int newLine = content.indexOf('\n', lineStart);
+            int lineEnd = newLine < 0 ? length : newLine;
+            //long lines are wrapped into lines of maximum length
+            while (true) {
+                int end = Math.min(lineEnd, lineStart + MAX_LINE_LENGTH);
+                int next = end == lineEnd && newLine >= 0 ? newLine + 1 : end;
+                if (count + 2 > starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count] = lineStart;
+                starts[count + 1] = next;
+                count++;
+                maxLength = Math.max(maxLength, end - lineStart);
+                lineStart = next;
+                if (end == lineEnd) {
+                    break;
+                }
+            }
+            if (lineStart >= length) {
+                break;
+            }
+            if (System.nanoTime() - publishTime > PUBLISH_INTERVAL) {
+                if (contentGeneration != generation) {
+                    return;
+                }
+                publishLines(contentGeneration, starts, count, maxLength);
+                publishTime = System.nanoTime();
+            }
+        }
+        publishLines(contentGeneration, starts, count, maxLength);
+    }
+
+    /**
+     * Shows indexed lines on the event dispatch thread. Entries of the line starts array that are published are never
+     * changed afterwards, so the indexing thread can continue filling the same array.
+     *
+     * @param contentGeneration generation of the indexed content
+     * @param starts            line starts array
+     * @param count             number of indexed lines
+     * @param maxLength         length of the longest indexed line
+     */
+    private void publishLines(int contentGeneration, int[] starts, int count, int maxLength) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (contentGeneration == generation) {
+                    lineStarts = starts;
+                    lineCount = count;
+                    maxLineLength = maxLength;
+                    revalidate();
+                    repaint();
+                }
+            }
+        });
+    }
+
+    /**
+     * Highlights a found match and scrolls to it.
+     *
+     * @param start start offset of the match, or -1 if text is not found
+     * @param end   end offset of the match
+     */
+    private void showMatch(int start, int end) {
+        if (start < 0) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        matchStart = start;
+        matchEnd = end;
+        int line = getLineOf(start);
+        int column = start - lineStarts[line];
+        scrollRectToVisible(new Rectangle(MARGIN + column * charWidth, MARGIN + line * lineHeight,
+                Math.min(end - start, MAX_LINE_LENGTH) * charWidth, lineHeight));
+        repaint();
+    }
+
+    /**
+     * Gets index of the indexed line that contains the specified offset.
+     *
+     * @param offset offset in content
+     * @return index of the line
+     */
+    private int getLineOf(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index : Math.max(-index - 2, 0);
+    }
+
+    /**
+     * Paints only the visible columns of visible lines.
+     *
+     * @param g graphics to paint with
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setFont(getFont());
+        int firstLine = Math.max((clip.y - MARGIN) / lineHeight, 0);
+        int lastLine = Math.min((clip.y + clip.height - MARGIN) / lineHeight, lineCount - 1);
+        int firstColumn = Math.max((clip.x - MARGIN) / charWidth, 0);
+        int lastColumn = (clip.x + clip.width - MARGIN) / charWidth + 1;
+        Color selectionBackground = UIManager.getColor("TextPane.selectionBackground");
+        for (int line = firstLine; line <= lastLine; line++) {
+            int lineStart = lineStarts[line];
+            int lineEnd = lineStarts[line + 1];
+            //line terminators are not drawn
+            while (lineEnd > lineStart && (content.charAt(lineEnd - 1) == '\n' || content.charAt(lineEnd - 1) == '\r')) {
+                lineEnd--;
+            }
+            int from = Math.min(lineStart + firstColumn, lineEnd);
+            int to = Math.min(lineStart + lastColumn, lineEnd);
+            int y = MARGIN + line * lineHeight;
+            if (matchStart < to && matchEnd > from) {
+                int highlightFrom = Math.max(matchStart, from);
+                int highlightTo = Math.min(matchEnd, to);
+                g.setColor(selectionBackground == null ? Color.YELLOW : selectionBackground);
+                g.fillRect(MARGIN + (highlightFrom - lineStart) * charWidth, y, (highlightTo - highlightFrom) * charWidth, lineHeight);
+            }
+            if (to > from) {
+                if (lineBuffer.length < to - from) {
+                    lineBuffer = new char[to - from];
+                }
+                content.getChars(from, to, lineBuffer, 0);
+                //control characters such as tabs take one column like any other character
+                for (int i = 0; i < to - from; i++) {
+                    if (lineBuffer[i] < ' ') {
+                        lineBuffer[i] = ' ';
+                    }
+                }
+                g.setColor(getForeground());
+                g.drawChars(lineBuffer, 0, to - from, MARGIN + (from - lineStart) * charWidth, y + ascent);
+            }
+        }
+    }
+
+    /**
+     * Gets preferred size of the viewer, which is the size of all indexed lines.
+     *
+     * @return preferred size of the viewer
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(2 * MARGIN + maxLineLength * charWidth, 2 * MARGIN + lineCount * lineHeight);
+    }
+
+    /**
+     * Gets preferred size of the viewport, which is the preferred size of the viewer.
+     *
+     * @return preferred size of the viewport
+     */
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    /**
+     * Gets scroll increment of scroll arrows, which is a line or a column.
+     *
+     * @param visibleRect visible rectangle of the viewer
+     * @param orientation scroll orientation
+     * @param direction   scroll direction
+     * @return scroll increment in pixels
+     */
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? lineHeight : charWidth;
+    }
+
+    /**
+     * Gets scroll increment of scroll pages, which is the visible size.
+     *
+     * @param visibleRect visible rectangle of the viewer
+     * @param orientation scroll orientation
+     * @param direction   scroll direction
+     * @return scroll increment in pixels
+     */
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? Math.max(visibleRect.height - lineHeight, lineHeight) : visibleRect.width;
+    }
+
+    /**
+     * Makes the viewer as wide as the viewport if its content is narrower.
+     *
+     * @return {@code true} if the viewport is wider than content
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    /**
+     * Makes the viewer as high as the viewport if its content is shorter.
+     *
+     * @return {@code true} if the viewport is higher than content
+     */
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+}
@@ -0,0 +1,149 @@
+package httpclient.gui;
+
+import httpclient.entity.ResponseTiming;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Implementation of timing panel in response tab. It draws the phases of a request execution as a waterfall: each
+ * phase is a bar on its own row, starting where the previous phase ended, scaled to the total execution time.
+ */
+class TimingWaterfall extends JPanel {
+    /**
+     * serialization version of the waterfall
+     */
+    private static final long serialVersionUID = 619832440824590820L;
+    /**
+     * names of the phases, in order
+     */
+    private static final String[] PHASE_NAMES = {"DNS Lookup", "TCP Connect", "TLS Handshake", "Request Write",
+            "Time To First Byte", "Content Download"};
+    /**
+     * bar colors of the phases, in order
+     */
+    private static final Color[] PHASE_COLORS = {new Color(0x4E9A06), new Color(0xF57900), new Color(0x75507B),
+            new Color(0x3465A4), new Color(0x06989A), new Color(0xCC0000)};
+    /**
+     * height of a phase row in pixels
+     */
+    private static final int ROW_HEIGHT = 26;
+    /**
+     * width of the phase names column in pixels
+     */
+    private static final int NAME_WIDTH = 140;
+    /**
+     * width of the phase times column in pixels
+     */
+    private static final int TIME_WIDTH = 90;
+    /**
+     * margin around the waterfall in pixels
+     */
+    private static final int MARGIN = 10;
+    /**
+     * timing to draw, or null if timing was not measured
+     */
+    private transient ResponseTiming timing;
+    /**
+     * canvas that the waterfall is drawn on
+     */
+    private JComponent canvas;
+
+    /**
+     * Constructor of timing waterfall.
+     */
+    TimingWaterfall() {
+        super(new BorderLayout());
+        initUi();
+    }
+
+    /**
+     * Initializes timing waterfall GUI.
+     */
+    private void initUi() {
+        canvas = new JComponent() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                paintWaterfall((Graphics2D) g, getWidth());
+            }
+
+            @Override
+            public Dimension getPreferredSize() {
+                return new Dimension(NAME_WIDTH + TIME_WIDTH + 2 * MARGIN + 100, 2 * MARGIN + (PHASE_NAMES.length + 2) * ROW_HEIGHT);
+            }
+        };
+        add(new JScrollPane(canvas));
+    }
+
+    /**
+     * Fills the waterfall with the specified timing.
+     *
+     * @param timing response timing, or null if timing was not measured
+     */
+    void fill(ResponseTiming timing) {
+        this.timing = timing;
+        canvas.revalidate();
+        canvas.repaint();
+    }
+
+    /**
+     * Draws the phase rows and the total row.
+     *
+     * @param g2    graphics to draw with
+     * @param width width of the canvas
+     */
+    private void paintWaterfall(Graphics2D g2, int width) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setColor(getForeground());
+        FontMetrics fontMetrics = g2.getFontMetrics();
+        int textOffset = (ROW_HEIGHT + fontMetrics.getAscent() - fontMetrics.getDescent()) / 2;
+        if (timing == null) {
+            g2.drawString("Timing was not measured", MARGIN, MARGIN + textOffset);
+            return;
+        }
+        long[] phases = {timing.getDnsNanos(), timing.getConnectNanos(), timing.getTlsNanos(), timing.getRequestWriteNanos(),
+                timing.getFirstByteNanos(), timing.getDownloadNanos()};
+        //bars are scaled to the total time, or to the sum of phases if total is not known yet
+        long scale = timing.getTotalNanos();
+        if (scale <= 0) {
+            scale = 0;
+            for (long phase : phases) {
+                scale += Math.max(phase, 0);
+            }
+        }
+        int barX = MARGIN + NAME_WIDTH;
+        int barWidth = Math.max(width - barX - TIME_WIDTH - MARGIN, 1);
+        long offset = 0;
+        for (int i = 0; i < phases.length; i++) {
+            int y = MARGIN + i * ROW_HEIGHT;
+            g2.setColor(getForeground());
+            g2.drawString(PHASE_NAMES[i], MARGIN, y + textOffset);
+            g2.drawString(formatNanos(phases[i]), barX + barWidth + MARGIN, y + textOffset);
+            if (phases[i] < 0 || scale <= 0) {
+                continue;
+            }
+            //each bar starts where the measured phases before it ended, and is at least one pixel wide
+            int x = barX + (int) (barWidth * offset / scale);
+            int w = Math.max((int) (barWidth * phases[i] / scale), 1);
+            g2.setColor(PHASE_COLORS[i]);
+            g2.fillRect(x, y + ROW_HEIGHT / 4, Math.min(w, barX + barWidth - x), ROW_HEIGHT / 2);
+            offset += phases[i];
+        }
+        int totalY = MARGIN + (phases.length + 1) * ROW_HEIGHT;
+        g2.setColor(getForeground());
+        g2.drawLine(MARGIN, totalY - ROW_HEIGHT / 2, barX + barWidth + TIME_WIDTH, totalY - ROW_HEIGHT / 2);
+        g2.drawString(timing.isReusedConnection() ? "Total (reused connection)" : "Total", MARGIN, totalY + textOffset);
+        g2.drawString(formatNanos(timing.getTotalNanos()), barX + barWidth + MARGIN, totalY + textOffset);
+    }
+
+    /**
+     * Formats a phase time in milliseconds.
+     *
+     * @param nanos phase time in nanos, or -1 if not measured
+     * @return formatted time, or "-" if not measured
+     */
+    private static String formatNanos(long nanos) {
+        return nanos < 0 ? "-" : String.format("%.3f ms", nanos / 1e6);
+    }
+}
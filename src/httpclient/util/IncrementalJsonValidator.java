@@ -0,0 +1,102 @@
+package httpclient.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A json validator for edited content that validates content again only from the last token boundary before the
+ * edit. While validating, it keeps checkpoints, copies of a {@link JsonStreamValidator} taken between tokens about
+ * every {@value #CHECKPOINT_INTERVAL} characters. An edit invalidates the checkpoints after it, and validation resumes
+ * from the last remaining checkpoint. Like {@link JsonValidator}, content is valid only if it is a json object or a
+ * json array, with optional whitespaces around it. An instance is not thread safe.
+ */
+public class IncrementalJsonValidator {
+    /**
+     * minimum number of characters between two checkpoints
+     */
+    private static final int CHECKPOINT_INTERVAL = 16384;
+    /**
+     * validator copies at token boundaries, in content order
+     */
+    private final List<JsonStreamValidator> checkpoints = new ArrayList<>();
+    /**
+     * validity of the last validated content
+     */
+    private boolean valid;
+    /**
+     * offset of the first error in the last validated content, or -1 if it is valid
+     */
+    private long errorOffset = -1;
+    /**
+     * number of characters validated again in the last validation
+     */
+    private int rescannedLength;
+
+    /**
+     * Validates the whole content after an edit, validating again only from the last checkpoint at or before the edit.
+     *
+     * @param content    whole content after the edit
+     * @param editOffset smallest offset of content changed since the previous validation, 0 for new content
+     * @return {@code true} if the content is valid json, {@code false} otherwise
+     */
+    public boolean validate(CharSequence content, int editOffset) {
+        //a checkpoint has seen only the content before its position, which is unchanged if it is not after the edit
+        while (!checkpoints.isEmpty() && checkpoints.get(checkpoints.size() - 1).getPosition() > editOffset) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+        JsonStreamValidator validator = checkpoints.isEmpty() ? new JsonStreamValidator() : checkpoints.get(checkpoints.size() - 1).copy();
+        int length = content.length();
+        int index = (int) validator.getPosition();
+        rescannedLength = length - index;
+        while (index < length && validator.isValid()) {
+            int end = Math.min(length, index + CHECKPOINT_INTERVAL);
+            validator.update(content, index, end);
+            index = end;
+            //inside a string, a number or a literal, the state depends on following content, so it is not kept
+            if (index < length && validator.isValid() && validator.isAtTokenBoundary() && isCheckpointDue(index)) {
+                checkpoints.add(validator.copy());
+            }
+        }
+        validator.finish();
+        valid = validator.isValid();
+        errorOffset = validator.getErrorOffset();
+        return valid;
+    }
+
+    /**
+     * Checks if the last validated content is valid json.
+     *
+     * @return {@code true} if the last validated content is valid json
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets character offset of the first error in the last validated content.
+     *
+     * @return offset of the first error, or -1 if the content is valid
+     */
+    public long getErrorOffset() {
+        return errorOffset;
+    }
+
+    /**
+     * Gets number of characters validated again in the last validation.
+     *
+     * @return number of validated characters
+     */
+    public int getRescannedLength() {
+        return rescannedLength;
+    }
+
+    /**
+     * Checks if a checkpoint should be kept at the specified position.
+     *
+     * @param position position in content
+     * @return {@code true} if the last checkpoint is far enough before the position
+     */
+    private boolean isCheckpointDue(int position) {
+        return checkpoints.isEmpty() || position - checkpoints.get(checkpoints.size() - 1).getPosition() >= CHECKPOINT_INTERVAL;
+    }
+}
@@ -0,0 +1,153 @@
+package httpclient.util;
+
+import java.io.IOException;
+
+/**
+ * An utility class for formatting a json content. It pretty prints or minifies json content in a single pass over its
+ * characters, writing the result to an {@link Appendable} as it goes, so large content is never split into lines or
+ * copied to intermediate strings. Only whitespaces outside strings are changed. Strings and whitespaces are skipped by
+ * the json scanner that the validators use, so they are skipped the same way. Content is not validated, and invalid
+ * content is formatted as far as its structure allows.
+ */
+public class JsonFormatter {
+    /**
+     * indentation of one nesting level in pretty printed content
+     */
+    private static final String INDENT = "  ";
+
+    /**
+     * Pretty prints a json content, putting every object member and array element on its own line indented by its
+     * nesting level. Empty objects and arrays are kept on one line.
+     *
+     * @param jsonContent json content to format
+     * @param output      output that formatted content is written to
+     * @throws IOException if writing to output fails
+     */
+    public static void format(CharSequence jsonContent, Appendable output) throws IOException {
+        write(jsonContent, output, true);
+    }
+
+    /**
+     * Pretty prints a json content.
+     *
+     * @param jsonContent json content to format
+     * @return formatted content
+     * @see #format(CharSequence, Appendable)
+     */
+    public static String format(CharSequence jsonContent) {
+        StringBuilder output = new StringBuilder(jsonContent.length() + jsonContent.length() / 2);
+        try {
+            write(jsonContent, output, true);
+        } catch (IOException e) {
+            //a string builder never fails
+        }
+        return output.toString();
+    }
+
+    /**
+     * Minifies a json content, removing all whitespaces between tokens.
+     *
+     * @param jsonContent json content to minify
+     * @param output      output that minified content is written to
+     * @throws IOException if writing to output fails
+     */
+    public static void minify(CharSequence jsonContent, Appendable output) throws IOException {
+        write(jsonContent, output, false);
+    }
+
+    /**
+     * Minifies a json content.
+     *
+     * @param jsonContent json content to minify
+     * @return minified content
+     * @see #minify(CharSequence, Appendable)
+     */
+    public static String minify(CharSequence jsonContent) {
+        StringBuilder output = new StringBuilder(jsonContent.length());
+        try {
+            write(jsonContent, output, false);
+        } catch (IOException e) {
+            //a string builder never fails
+        }
+        return output.toString();
+    }
+
+    /**
+     * Writes a json content token by token, skipping whitespaces between tokens and writing new ones if it pretty
+     * prints. Strings are copied as they are, with escaped characters.
+     *
+     * @param jsonContent json content to write
+     * @param output      output that content is written to
+     * @param pretty      {@code true} to pretty print, {@code false} to minify
+     * @throws IOException if writing to output fails
+     */
+    private static void write(CharSequence jsonContent, Appendable output, boolean pretty) throws IOException {
+        int length = jsonContent.length();
+        int depth = 0;
+        int index = 0;
+        while (index < length) {
+            char current = jsonContent.charAt(index);
+            if (current == '"') {
+                //an unterminated string lasts to the end of content
+                int end = JsonScanner.skipString(jsonContent, index);
+                if (end < 0) {
+                    end = length;
+                }
+                output.append(jsonContent, index, end);
+                index = end;
+                continue;
+            }
+            index++;
+            if (JsonScanner.isWhitespace(current)) {
+                continue;
+            }
+            if (!pretty) {
+                //tokens other than strings are copied as a whole run up to the next whitespace or string
+                int end = index;
+                while (end < length && jsonContent.charAt(end) != '"' && !JsonScanner.isWhitespace(jsonContent.charAt(end))) {
+                    end++;
+                }
+                output.append(jsonContent, index - 1, end);
+                index = end;
+                continue;
+            }
+            if (current == '{' || current == '[') {
+                output.append(current);
+                //an empty object or array stays on one line
+                int next = JsonScanner.skipWhitespace(jsonContent, index);
+                if (next < length && jsonContent.charAt(next) == (current == '{' ? '}' : ']')) {
+                    output.append(jsonContent.charAt(next));
+                    index = next + 1;
+                } else {
+                    depth++;
+                    newLine(output, depth);
+                }
+            } else if (current == '}' || current == ']') {
+                depth = Math.max(depth - 1, 0);
+                newLine(output, depth);
+                output.append(current);
+            } else if (current == ',') {
+                output.append(current);
+                newLine(output, depth);
+            } else if (current == ':') {
+                output.append(": ");
+            } else {
+                output.append(current);
+            }
+        }
+    }
+
+    /**
+     * Writes a new line indented by the specified nesting level.
+     *
+     * @param output output to write to
+     * @param depth  nesting level
+     * @throws IOException if writing to output fails
+     */
+    private static void newLine(Appendable output, int depth) throws IOException {
+        output.append('\n');
+        for (int i = 0; i < depth; i++) {
+            output.append(INDENT);
+        }
+    }
+}
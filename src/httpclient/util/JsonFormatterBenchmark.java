@@ -0,0 +1,110 @@
+package httpclient.util;
+
+/**
+ * A benchmark entry point of {@link JsonFormatter}. It formats generated pretty printed json content of the specified
+ * sizes, by default 1 KB, 1 MB and 100 MB, and prints the average time and throughput of each size for the string based
+ * approach that the formatter replaced, which is removing new lines by {@link String#replace(CharSequence, CharSequence)},
+ * and for minifying and pretty printing by the formatter.
+ * <p>
+ * Usage: {@code java httpclient.util.JsonFormatterBenchmark [size in bytes]...}
+ */
+public class JsonFormatterBenchmark {
+    /**
+     * default sizes of formatted content in bytes
+     */
+    private static final long[] DEFAULT_SIZES = {1L << 10, 1L << 20, 100L << 20};
+    /**
+     * time in nanos that each size and approach is run before measuring, to let the JIT compile it
+     */
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    /**
+     * time in nanos that each size and approach is run while measuring
+     */
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+    /**
+     * names of the measured approaches, in order
+     */
+    private static final String[] APPROACHES = {"String.replace", "JsonFormatter.minify", "JsonFormatter.format"};
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args sizes of formatted content in bytes, or nothing for default sizes
+     */
+    public static void main(String[] args) {
+        long[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new long[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Long.parseLong(args[i]);
+            }
+        }
+        for (long size : sizes) {
+            String jsonContent = makeJson(size);
+            for (int approach = 0; approach < APPROACHES.length; approach++) {
+                run(jsonContent, approach, WARMUP_NANOS);
+                long[] result = run(jsonContent, approach, MEASURE_NANOS);
+                double millis = result[1] / 1e6 / result[0];
+                System.out.printf("%,d bytes, %s: %.3f ms/op, %.1f MB/s, %d ops%n", jsonContent.length(),
+                        APPROACHES[approach], millis, jsonContent.length() / 1e3 / millis, result[0]);
+            }
+        }
+    }
+
+    /**
+     * Formats json content by an approach repeatedly for at least the specified time, and at least once.
+     *
+     * @param jsonContent json content to format
+     * @param approach    index of the approach in {@link #APPROACHES}
+     * @param duration    time in nanos to format for
+     * @return number of formattings and their total time in nanos
+     */
+    private static long[] run(String jsonContent, int approach, long duration) {
+        long operations = 0;
+        long outputLength = 0;
+        long startNanos = System.nanoTime();
+        long elapsed;
+        do {
+            String output;
+            if (approach == 0) {
+                output = jsonContent.replace("\n", "");
+            } else if (approach == 1) {
+                output = JsonFormatter.minify(jsonContent);
+            } else {
+                output = JsonFormatter.format(jsonContent);
+            }
+            //the output is used so the formatting can't be eliminated
+            outputLength += output.length();
+            operations++;
+            elapsed = System.nanoTime() - startNanos;
+        } while (elapsed < duration);
+        if (outputLength == 0) {
+            throw new IllegalStateException("Formatted content is empty");
+        }
+        return new long[]{operations, elapsed};
+    }
+
+    /**
+     * Makes pretty printed json content of about the specified size, an array of objects with strings, numbers, literals
+     * and nested arrays, like typical api responses.
+     *
+     * @param size size of content in bytes
+     * @return json content
+     */
+    private static String makeJson(long size) {
+        StringBuilder builder = new StringBuilder((int) Math.min(size + 256, Integer.MAX_VALUE - 8));
+        builder.append("[\n");
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(",\n");
+            }
+            builder.append("  {\n    \"id\": ").append(i)
+                    .append(",\n    \"name\": \"item ").append(i).append('"')
+                    .append(",\n    \"price\": -").append(i % 1000).append(".25e-2")
+                    .append(",\n    \"active\": ").append(i % 2 == 0)
+                    .append(",\n    \"tags\": [\"a\", \"b\", null]\n  }");
+        }
+        builder.append("\n]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package httpclient.util;
+
+/**
+ * Scanning rules shared by the json utilities, so that validating and formatting skip strings and whitespaces the same
+ * way. A backslash in a string escapes the character after it, and whitespaces are the characters accepted between json
+ * tokens.
+ */
+final class JsonScanner {
+    /**
+     * Constructor of json scanner, which is not instantiated.
+     */
+    private JsonScanner() {
+    }
+
+    /**
+     * Skips a json string starting at the specified index, which is its opening quote, and returns the index after its
+     * closing quote. A backslash escapes the character after it.
+     *
+     * @param jsonContent content that has a json string at the start index
+     * @param start       start index of the json string, which is its opening quote
+     * @return index after the json string, or -1 if the string is not terminated
+     */
+    static int skipString(CharSequence jsonContent, int start) {
+        int length = jsonContent.length();
+        int index = start + 1;
+        while (index < length) {
+            char current = jsonContent.charAt(index);
+            if (current == '\\') {
+                index++;
+            } else if (current == '"') {
+                return index + 1;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Skips whitespaces starting at the specified index.
+     *
+     * @param jsonContent content that can have whitespaces at the start index
+     * @param start       start index of the whitespaces
+     * @return index after the whitespaces, which is the start index if there is no whitespace
+     */
+    static int skipWhitespace(CharSequence jsonContent, int start) {
+        int index = start;
+        while (index < jsonContent.length() && isWhitespace(jsonContent.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Checks if a character, or a byte of UTF-8 content, is a whitespace, as accepted between json tokens.
+     *
+     * @param c character or byte to check
+     * @return {@code true} if it is a whitespace
+     */
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+}
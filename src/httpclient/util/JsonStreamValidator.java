@@ -0,0 +1,480 @@
+package httpclient.util;
+
+import java.util.Arrays;
+
+/**
+ * A push style json validator that validates UTF-8 encoded json content chunk by chunk as it arrives, without keeping
+ * the content. It follows the same state charts as {@link JsonValidator}, so the content must be a json object or a
+ * json array, with optional whitespaces around it. Only ASCII bytes are meaningful to json structure, so bytes of
+ * multi byte UTF-8 characters are simply consumed inside strings.
+ * <p>
+ * Content is passed using {@link #update(byte[], int, int)} and the end of content is marked using {@link #finish()}.
+ * Validation stops at the first invalid byte and its offset is kept. Characters can be validated the same way using
+ * {@link #update(CharSequence, int, int)}, in which case offsets are character offsets.
+ */
+public class JsonStreamValidator {
+    /**
+     * state before the root object or array
+     */
+    private static final int BEFORE_ROOT = 0;
+    /**
+     * state after an object start, expecting the first key or the object end
+     */
+    private static final int OBJECT_START = 1;
+    /**
+     * state after a comma in an object, expecting a key
+     */
+    private static final int OBJECT_KEY = 2;
+    /**
+     * state after an object key, expecting a colon
+     */
+    private static final int COLON = 3;
+    /**
+     * state after an array start, expecting the first value or the array end
+     */
+    private static final int ARRAY_START = 4;
+    /**
+     * state expecting a value
+     */
+    private static final int VALUE = 5;
+    /**
+     * state after a value, expecting a comma or the end of the enclosing object or array
+     */
+    private static final int AFTER_VALUE = 6;
+    /**
+     * state after the root object or array
+     */
+    private static final int END = 7;
+    /**
+     * state inside a string
+     */
+    private static final int STRING = 8;
+    /**
+     * state after a backslash inside a string
+     */
+    private static final int STRING_ESCAPE = 9;
+    /**
+     * state inside a literal name (null, true or false)
+     */
+    private static final int LITERAL = 10;
+    /**
+     * state after the minus of a number
+     */
+    private static final int NUMBER_MINUS = 11;
+    /**
+     * state after a number integer part that is zero
+     */
+    private static final int NUMBER_ZERO = 12;
+    /**
+     * state inside a number integer part that starts with a digit 1 to 9
+     */
+    private static final int NUMBER_INTEGER = 13;
+    /**
+     * state after the dot of a number
+     */
+    private static final int NUMBER_DOT = 14;
+    /**
+     * state inside a number fraction digits
+     */
+    private static final int NUMBER_FRACTION = 15;
+    /**
+     * state after the e of a number exponent
+     */
+    private static final int NUMBER_E = 16;
+    /**
+     * state after the sign of a number exponent
+     */
+    private static final int NUMBER_E_SIGN = 17;
+    /**
+     * state inside a number exponent digits
+     */
+    private static final int NUMBER_EXPONENT = 18;
+    /**
+     * current state
+     */
+    private int state = BEFORE_ROOT;
+    /**
+     * starts of enclosing objects and arrays, from the root to the innermost one
+     */
+    private byte[] stack = new byte[32];
+    /**
+     * number of enclosing objects and arrays
+     */
+    private int depth;
+    /**
+     * determines if the current string is an object key
+     */
+    private boolean key;
+    /**
+     * literal name being met
+     */
+    private String literal;
+    /**
+     * number of met characters of the literal name
+     */
+    private int literalIndex;
+    /**
+     * number of bytes validated so far
+     */
+    private long position;
+    /**
+     * offset of the first invalid byte, or -1 if no invalid byte has been met
+     */
+    private long errorOffset = -1;
+    /**
+     * determines if the end of content has been marked
+     */
+    private boolean finished;
+
+    /**
+     * Validates the next chunk of content. Nothing is validated after an invalid byte has been met.
+     *
+     * @param bytes  bytes of the chunk
+     * @param offset offset of the chunk in bytes
+     * @param length length of the chunk
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        if (finished) {
+            throw new IllegalStateException("Content has already finished");
+        }
+        int index = offset;
+        int end = offset + length;
+        while (index < end && errorOffset < 0) {
+            //a byte that ends a number is not consumed and is validated again in the next state
+            if (accept(bytes[index] & 0xFF)) {
+                index++;
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Validates the next characters of content. Characters out of ASCII range are treated like bytes of multi byte
+     * UTF-8 characters. Nothing is validated after an invalid character has been met.
+     *
+     * @param content content containing the characters
+     * @param start   start index of the characters in content
+     * @param end     end index of the characters in content, exclusive
+     */
+    public void update(CharSequence content, int start, int end) {
+        if (finished) {
+            throw new IllegalStateException("Content has already finished");
+        }
+        int index = start;
+        while (index < end && errorOffset < 0) {
+            if (accept(content.charAt(index))) {
+                index++;
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Makes an independent copy of the validator in its current state, which can continue validation from where this
+     * validator is.
+     *
+     * @return copy of the validator
+     */
+    public JsonStreamValidator copy() {
+        JsonStreamValidator copy = new JsonStreamValidator();
+        copy.state = state;
+        copy.stack = Arrays.copyOf(stack, Math.max(depth, 32));
+        copy.depth = depth;
+        copy.key = key;
+        copy.literal = literal;
+        copy.literalIndex = literalIndex;
+        copy.position = position;
+        copy.errorOffset = errorOffset;
+        copy.finished = finished;
+        return copy;
+    }
+
+    /**
+     * Checks if the validator is between tokens, meaning it is not inside a string, a number or a literal name.
+     *
+     * @return {@code true} if the validator is between tokens
+     */
+    public boolean isAtTokenBoundary() {
+        return state <= END;
+    }
+
+    /**
+     * Gets number of bytes, or characters, validated so far.
+     *
+     * @return number of validated bytes or characters
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Marks the end of content. Content is valid if the root object or array has been closed without any invalid byte.
+     */
+    public void finish() {
+        finished = true;
+        if (errorOffset < 0 && state != END) {
+            errorOffset = position;
+        }
+    }
+
+    /**
+     * Checks if validated content is a valid json. The result is final only after {@link #finish()}.
+     *
+     * @return {@code true} if content is valid so far, {@code false} otherwise
+     */
+    public boolean isValid() {
+        return errorOffset < 0;
+    }
+
+    /**
+     * Gets byte offset of the first invalid byte, or the content length if content ended too early.
+     *
+     * @return offset of the error, or -1 if content is valid so far
+     */
+    public long getErrorOffset() {
+        return errorOffset;
+    }
+
+    /**
+     * Accepts the next byte of content in the current state.
+     *
+     * @param b byte to accept
+     * @return {@code true} if the byte is consumed, {@code false} if it should be accepted again in the new state
+     */
+    private boolean accept(int b) {
+        switch (state) {
+            case BEFORE_ROOT:
+            case END:
+                if (JsonScanner.isWhitespace(b)) {
+                    return true;
+                }
+                if (state == BEFORE_ROOT && (b == '{' || b == '[')) {
+                    push(b);
+                } else {
+                    error();
+                }
+                return true;
+            case OBJECT_START:
+            case OBJECT_KEY:
+                if (JsonScanner.isWhitespace(b)) {
+                    return true;
+                }
+                if (b == '"') {
+                    key = true;
+                    state = STRING;
+                } else if (b == '}' && state == OBJECT_START) {
+                    pop();
+                } else {
+                    error();
+                }
+                return true;
+            case COLON:
+                if (JsonScanner.isWhitespace(b)) {
+                    return true;
+                }
+                if (b == ':') {
+                    state = VALUE;
+                } else {
+                    error();
+                }
+                return true;
+            case ARRAY_START:
+                if (JsonScanner.isWhitespace(b)) {
+                    return true;
+                }
+                if (b == ']') {
+                    pop();
+                    return true;
+                }
+                state = VALUE;
+                return false;
+            case VALUE:
+                acceptValueStart(b);
+                return true;
+            case AFTER_VALUE:
+                if (JsonScanner.isWhitespace(b)) {
+                    return true;
+                }
+                if (b == ',') {
+                    state = stack[depth - 1] == '{' ? OBJECT_KEY : VALUE;
+                } else if ((b == '}' && stack[depth - 1] == '{') || (b == ']' && stack[depth - 1] == '[')) {
+                    pop();
+                } else {
+                    error();
+                }
+                return true;
+            case STRING:
+                if (b == '\\') {
+                    state = STRING_ESCAPE;
+                } else if (b == '"') {
+                    if (key) {
+                        key = false;
+                        state = COLON;
+                    } else {
+                        endValue();
+                    }
+                }
+                return true;
+            case STRING_ESCAPE:
+                state = STRING;
+                return true;
+            case LITERAL:
+                if (b == literal.charAt(literalIndex)) {
+                    literalIndex++;
+                    if (literalIndex == literal.length()) {
+                        endValue();
+                    }
+                } else {
+                    error();
+                }
+                return true;
+            default:
+                return acceptNumber(b);
+        }
+    }
+
+    /**
+     * Accepts the first byte of a value, skipping whitespaces before it.
+     *
+     * @param b byte to accept
+     */
+    private void acceptValueStart(int b) {
+        if (JsonScanner.isWhitespace(b)) {
+            return;
+        }
+        if (b == '{' || b == '[') {
+            push(b);
+        } else if (b == '"') {
+            key = false;
+            state = STRING;
+        } else if (b == '-') {
+            state = NUMBER_MINUS;
+        } else if (b == '0') {
+            state = NUMBER_ZERO;
+        } else if (b >= '1' && b <= '9') {
+            state = NUMBER_INTEGER;
+        } else if (b == 'n' || b == 't' || b == 'f') {
+            literal = b == 'n' ? "null" : b == 't' ? "true" : "false";
+            literalIndex = 1;
+            state = LITERAL;
+        } else {
+            error();
+        }
+    }
+
+    /**
+     * Accepts a byte inside a number. A byte that can't continue a complete number ends the number.
+     *
+     * @param b byte to accept
+     * @return {@code true} if the byte is consumed, {@code false} if it ended the number
+     */
+    private boolean acceptNumber(int b) {
+        boolean digit = b >= '0' && b <= '9';
+        switch (state) {
+            case NUMBER_MINUS:
+                if (b == '0') {
+                    state = NUMBER_ZERO;
+                } else if (digit) {
+                    state = NUMBER_INTEGER;
+                } else {
+                    error();
+                }
+                return true;
+            case NUMBER_ZERO:
+            case NUMBER_INTEGER:
+                if (digit && state == NUMBER_INTEGER) {
+                    return true;
+                } else if (b == '.') {
+                    state = NUMBER_DOT;
+                    return true;
+                }
+                return acceptExponentOrEnd(b);
+            case NUMBER_DOT:
+                if (digit) {
+                    state = NUMBER_FRACTION;
+                } else {
+                    error();
+                }
+                return true;
+            case NUMBER_FRACTION:
+                if (digit) {
+                    return true;
+                }
+                return acceptExponentOrEnd(b);
+            case NUMBER_E:
+                if (b == '+' || b == '-') {
+                    state = NUMBER_E_SIGN;
+                } else if (digit) {
+                    state = NUMBER_EXPONENT;
+                } else {
+                    error();
+                }
+                return true;
+            case NUMBER_E_SIGN:
+                if (digit) {
+                    state = NUMBER_EXPONENT;
+                } else {
+                    error();
+                }
+                return true;
+            default:
+                if (digit) {
+                    return true;
+                }
+                endValue();
+                return false;
+        }
+    }
+
+    /**
+     * Accepts the e of a number exponent or ends the number.
+     *
+     * @param b byte to accept
+     * @return {@code true} if the byte is consumed, {@code false} if it ended the number
+     */
+    private boolean acceptExponentOrEnd(int b) {
+        if (b == 'e' || b == 'E') {
+            state = NUMBER_E;
+            return true;
+        }
+        endValue();
+        return false;
+    }
+
+    /**
+     * Enters an object or an array.
+     *
+     * @param b start of the object or the array
+     */
+    private void push(int b) {
+        if (depth == stack.length) {
+            byte[] grownStack = new byte[stack.length * 2];
+            System.arraycopy(stack, 0, grownStack, 0, depth);
+            stack = grownStack;
+        }
+        stack[depth++] = (byte) b;
+        state = b == '{' ? OBJECT_START : ARRAY_START;
+    }
+
+    /**
+     * Leaves the innermost object or array, which ends a value.
+     */
+    private void pop() {
+        depth--;
+        endValue();
+    }
+
+    /**
+     * Moves to the state after a value, which is the end of content if the root has been closed.
+     */
+    private void endValue() {
+        state = depth == 0 ? END : AFTER_VALUE;
+    }
+
+    /**
+     * Marks the current byte as the first invalid byte.
+     */
+    private void error() {
+        errorOffset = position;
+    }
+}
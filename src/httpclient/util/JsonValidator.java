@@ -1,410 +1,284 @@
 package httpclient.util;
 
+import java.util.Arrays;
+
 /**
  * An utility class for validating a json content. This class uses state charts defined at
- * <a href="https://www.json.org/json-en.html">https://www.json.org/json-en.html</a>
+ * <a href="https://www.json.org/json-en.html">https://www.json.org/json-en.html</a>. The content is validated in a
+ * single pass over its characters by index, without copying the content or allocating per character. Nested objects
+ * and arrays are kept on an explicit stack instead of the call stack, so any nesting depth can be validated. Like
+ * <a href="https://www.rfc-editor.org/rfc/rfc8259#section-2">RFC 8259</a>, whitespaces are allowed around the root
+ * object or array, the same as {@link JsonStreamValidator}.
  */
 public class JsonValidator {
+    /**
+     * initial capacity of the stack of enclosing objects and arrays
+     */
+    private static final int INITIAL_DEPTH = 32;
+
     /**
      * Validates a json content.
      *
      * @param jsonContent json contend for validation
      * @return {@code true} if input json is valid, {@code false} otherwise
      */
-    public static boolean isValidJson(String jsonContent) {
-        //a content is json, if meets a json object or a json array
-        return meetObject(jsonContent) == jsonContent.length() || meetArray(jsonContent) == jsonContent.length();
+    public static boolean isValidJson(CharSequence jsonContent) {
+        //a content is json, if meets a json object or a json array, with optional whitespaces around it
+        int length = jsonContent.length();
+        int start = JsonScanner.skipWhitespace(jsonContent, 0);
+        if (start == length || (jsonContent.charAt(start) != '{' && jsonContent.charAt(start) != '[')) {
+            return false;
+        }
+        return meetValue(jsonContent, start) == length;
     }
 
     /**
-     * Gets a content as input and meets a json array structure using
-     * <a href="https://www.json.org/img/array.png">https://www.json.org/img/array.png</a> state machine and returns
-     * number of character that it consumed to meet the json array. If the structure does not meet a json array, it
-     * returns -1.
+     * Meets a json value structure, with its surrounding whitespaces, starting at the specified index using
+     * <a href="https://www.json.org/img/value.png">https://www.json.org/img/value.png</a>,
+     * <a href="https://www.json.org/img/object.png">https://www.json.org/img/object.png</a> and
+     * <a href="https://www.json.org/img/array.png">https://www.json.org/img/array.png</a> state machines and returns
+     * the index after the json value. Objects and arrays are met without recursion, keeping the enclosing ones on a
+     * stack, so deeply nested content needs no call stack. If the structure does not meet a json value, it returns -1.
      *
-     * @param jsonContent content that can start with a json array
-     * @return number of consumed characters to meet the json array or -1 if the structure does not meet a json array
+     * @param jsonContent content that can have a json value at the start index
+     * @param start       start index of the json value
+     * @return index after the json value or -1 if the structure does not meet a json value
      */
-    private static int meetArray(String jsonContent) {
-        if (jsonContent.isEmpty()) return -1;
-        String content = jsonContent;
-        if (content.charAt(0) == '[') {
-            content = content.substring(1);
-            int index = 1;
-
-            int meetResult = meetWhitespace(content);
-            if (meetResult < 0) {
-                return -1;
-            }
-            index += meetResult;
-            content = content.substring(meetResult);
-
-            if (content.isEmpty()) {
+    private static int meetValue(CharSequence jsonContent, int start) {
+        int length = jsonContent.length();
+        byte[] stack = new byte[INITIAL_DEPTH];
+        int depth = 0;
+        int index = start;
+        while (true) {
+            //meeting a value, which either starts an object or an array or is a whole simple value
+            index = meetWhitespace(jsonContent, index);
+            if (index >= length) {
                 return -1;
             }
-            if (content.charAt(0) == ']') {
-                return index + 1;
-            }
-
-            index = 1;
-            content = jsonContent.substring(1);
-            do {
-                meetResult = meetWhitespace(content);
-                if (meetResult < 0) {
+            char current = jsonContent.charAt(index);
+            if (current == '{' || current == '[') {
+                index = meetWhitespace(jsonContent, index + 1);
+                if (index >= length) {
                     return -1;
                 }
-                index += meetResult;
-                content = content.substring(meetResult);
-
-                meetResult = meetValue(content);
-                if (meetResult < 0) {
+                if (jsonContent.charAt(index) != (current == '{' ? '}' : ']')) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = (byte) current;
+                    if (current == '{') {
+                        index = meetKey(jsonContent, index);
+                        if (index < 0) {
+                            return -1;
+                        }
+                    }
+                    continue;
+                }
+                //an empty object or array is a whole value
+                index++;
+            } else {
+                index = meetSimpleValue(jsonContent, index, current);
+                if (index < 0) {
                     return -1;
                 }
-                index += meetResult;
-                content = content.substring(meetResult);
-                if (content.isEmpty()) {
+            }
+
+            //after a value, enclosing objects and arrays end or the next member or element is met
+            while (true) {
+                index = meetWhitespace(jsonContent, index);
+                if (depth == 0) {
+                    return index;
+                }
+                if (index >= length) {
                     return -1;
                 }
-                if (content.charAt(0) == ']') {
-                    return index + 1;
-                } else if (content.charAt(0) != ',') {
+                current = jsonContent.charAt(index);
+                byte container = stack[depth - 1];
+                if (current == ',') {
+                    index++;
+                    if (container == '{') {
+                        index = meetKey(jsonContent, index);
+                        if (index < 0) {
+                            return -1;
+                        }
+                    }
+                    break;
+                } else if (current == (container == '{' ? '}' : ']')) {
+                    depth--;
+                    index++;
+                } else {
                     return -1;
                 }
-                content = content.substring(1);
-                index++;
-            } while (index < jsonContent.length());
+            }
         }
-        return -1;
     }
 
     /**
-     * Gets a content as input and meets a json object structure using
-     * <a href="https://www.json.org/img/object.png">https://www.json.org/img/object.png</a> state machine and returns
-     * number of character that it consumed to meet the json object. If the structure does not meet a json object, it
-     * returns -1.
+     * Meets an object member key, which is a json string followed by a colon with whitespaces around them, starting at
+     * the specified index and returns the index after the colon. If the structure does not meet a key, it returns -1.
      *
-     * @param jsonContent content that can start with a json object
-     * @return number of consumed characters to meet the json object or -1 if the structure does not meet a json object
+     * @param jsonContent content that can have a key at the start index
+     * @param start       start index of the key
+     * @return index after the colon or -1 if the structure does not meet a key
      */
-    private static int meetObject(String jsonContent) {
-        if (jsonContent.isEmpty()) return -1;
-        String content = jsonContent;
-        if (content.charAt(0) == '{') {
-            content = content.substring(1);
-            int index = 1;
+    private static int meetKey(CharSequence jsonContent, int start) {
+        int index = meetString(jsonContent, meetWhitespace(jsonContent, start));
+        if (index < 0) {
+            return -1;
+        }
+        index = meetWhitespace(jsonContent, index);
+        if (index >= jsonContent.length() || jsonContent.charAt(index) != ':') {
+            return -1;
+        }
+        return index + 1;
+    }
 
-            int meetResult = meetWhitespace(content);
-            if (meetResult < 0) {
-                return -1;
-            }
-            index += meetResult;
-            content = content.substring(meetResult);
+    /**
+     * Meets a json value that is not an object or an array, starting at the specified index, and returns the index after
+     * it. The first character determines the only value structure that can be met. If the structure does not meet such
+     * a value, it returns -1.
+     *
+     * @param jsonContent content that can have a value at the start index
+     * @param start       start index of the value
+     * @param first       first character of the value
+     * @return index after the value or -1 if the structure does not meet a value
+     */
+    private static int meetSimpleValue(CharSequence jsonContent, int start, char first) {
+        if (first == 'n') {
+            return meetLiteral(jsonContent, start, "null");
+        } else if (first == 't') {
+            return meetLiteral(jsonContent, start, "true");
+        } else if (first == 'f') {
+            return meetLiteral(jsonContent, start, "false");
+        } else if (first == '"') {
+            return meetString(jsonContent, start);
+        } else if (first == '-' || isDigit(first)) {
+            return meetNumber(jsonContent, start);
+        }
+        return -1;
+    }
 
-            if (content.isEmpty()) {
+    /**
+     * Meets a literal name (null, true or false) starting at the specified index and returns the index after it. If the
+     * content does not have the literal at the start index, it returns -1.
+     *
+     * @param jsonContent content that can have the literal at the start index
+     * @param start       start index of the literal
+     * @param literal     literal to meet
+     * @return index after the literal or -1 if the content does not have the literal
+     */
+    private static int meetLiteral(CharSequence jsonContent, int start, String literal) {
+        if (start + literal.length() > jsonContent.length()) {
+            return -1;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (jsonContent.charAt(start + i) != literal.charAt(i)) {
                 return -1;
             }
-
-            if (content.charAt(0) == '}') {
-                return index + 1;
-            }
-
-            index = 1;
-            content = jsonContent.substring(1);
-            do {
-                meetResult = meetWhitespace(content);
-                if (meetResult < 0) {
-                    return -1;
-                }
-                index += meetResult;
-                content = content.substring(meetResult);
-
-                meetResult = meetString(content);
-                if (meetResult < 0) {
-                    return -1;
-                }
-                index += meetResult;
-                content = content.substring(meetResult);
-
-                meetResult = meetWhitespace(content);
-                if (meetResult < 0) {
-                    return -1;
-                }
-                index += meetResult;
-                content = content.substring(meetResult);
-
-                if (content.isEmpty() || content.charAt(0) != ':') {
-                    return -1;
-                }
-                index++;
-                content = content.substring(1);
-
-                meetResult = meetValue(content);
-                if (meetResult < 0) {
-                    return -1;
-                }
-                index += meetResult;
-                content = content.substring(meetResult);
-                if (content.isEmpty()) {
-                    return -1;
-                }
-                if (content.charAt(0) == '}') {
-                    return index + 1;
-                } else if (content.charAt(0) != ',') {
-                    return -1;
-                }
-                content = content.substring(1);
-                index++;
-            } while (index < jsonContent.length());
         }
-        return -1;
+        return start + literal.length();
     }
 
     /**
-     * Gets a content as input and meets a json value structure using
-     * <a href="https://www.json.org/img/value.png">https://www.json.org/img/value.png</a> state machine and returns
-     * number of character that it consumed to meet the json value. If the structure does not meet a json value, it
-     * returns -1.
+     * Meets a json number structure starting at the specified index using
+     * <a href="https://www.json.org/img/number.png">https://www.json.org/img/number.png</a> state machine and returns
+     * the index after the json number. If the structure does not meet a json number, it returns -1.
      *
-     * @param jsonContent content that can start with a json value
-     * @return number of consumed characters to meet the json value or -1 if the structure does not meet a json value
+     * @param jsonContent content that can have a json number at the start index
+     * @param start       start index of the json number
+     * @return index after the json number or -1 if the structure does not meet a json number
      */
-    private static int meetValue(String jsonContent) {
-        if (jsonContent.isEmpty()) return -1;
-        String content = jsonContent;
-        int index = 0;
+    private static int meetNumber(CharSequence jsonContent, int start) {
+        int length = jsonContent.length();
+        int index = start;
 
-        int meetResult = meetWhitespace(content);
-        if (meetResult < 0) {
+        //optional minus, then zero or a digit 1 to 9 followed by digits
+        if (index < length && jsonContent.charAt(index) == '-') {
+            index++;
+        }
+        if (index >= length) {
             return -1;
         }
-        index += meetResult;
-        content = content.substring(meetResult);
-
-        if (content.startsWith("null")) {
-            index += 4;
-            content = content.substring(4);
-        } else if (content.startsWith("true")) {
-            index += 4;
-            content = content.substring(4);
-        } else if (content.startsWith("false")) {
-            index += 5;
-            content = content.substring(5);
-        } else if ((meetResult = meetString(content)) >= 0) {
-            index += meetResult;
-            content = content.substring(meetResult);
-        } else if ((meetResult = meetNumber(content)) >= 0) {
-            index += meetResult;
-            content = content.substring(meetResult);
-        } else if ((meetResult = meetObject(content)) >= 0) {
-            index += meetResult;
-            content = content.substring(meetResult);
-        } else if ((meetResult = meetArray(content)) >= 0) {
-            index += meetResult;
-            content = content.substring(meetResult);
+        char current = jsonContent.charAt(index);
+        if (current == '0') {
+            index++;
+        } else if (current >= '1' && current <= '9') {
+            index = meetDigits(jsonContent, index + 1);
         } else {
             return -1;
         }
 
-        meetResult = meetWhitespace(content);
-        if (meetResult < 0) {
-            return -1;
+        //optional fraction, a dot followed by at least one digit
+        if (index < length && jsonContent.charAt(index) == '.') {
+            index++;
+            if (index >= length || !isDigit(jsonContent.charAt(index))) {
+                return -1;
+            }
+            index = meetDigits(jsonContent, index + 1);
         }
-        index += meetResult;
-        return index;
-    }
-
-    /**
-     * Gets a content as input and meets a json number structure using
-     * <a href="https://www.json.org/img/number.png">https://www.json.org/img/number.png</a> state machine and returns
-     * number of character that it consumed to meet the json number. If the structure does not meet a json number, it
-     * returns -1.
-     *
-     * @param jsonContent content that can start with a json number
-     * @return number of consumed characters to meet the json number or -1 if the structure does not meet a json number
-     */
-    private static int meetNumber(String jsonContent) {
-        if (jsonContent.isEmpty()) return -1;
-        final int minusEmptyDetect = 1;
-        final int zeroDigit1To9Detect = 2;
-        final int digit1To9Consume = 3;
-        final int digitsFractionDetect = 4;
-        final int fractionExponentDetect = 5;
-        final int dotConsume = 6;
-        final int fractionDigitConsume = 7;
-        final int digitExponentDetect = 8;
-        final int exponentEndDetect = 9;
-        final int eConsume = 10;
-        final int plusMinusDetect = 11;
-        final int exponentDigitConsume = 12;
-        final int digitsEndDetect = 13;
 
-        int index = 0;
-        boolean end = false;
-        int state = 1;
-        while (index < jsonContent.length() && !end) {
-            String current = String.valueOf(jsonContent.charAt(index));
-            switch (state) {
-                case minusEmptyDetect:
-                    if (current.equals("-")) {
-                        index++;
-                    }
-                    state = zeroDigit1To9Detect;
-                    break;
-                case zeroDigit1To9Detect:
-                    if (current.equals("0")) {
-                        index++;
-                        state = fractionExponentDetect;
-                    } else {
-                        state = digit1To9Consume;
-                    }
-                    break;
-                case digit1To9Consume:
-                    if (current.matches("[1-9]")) {
-                        index++;
-                        state = digitsFractionDetect;
-                    } else {
-                        return -1;
-                    }
-                    break;
-                case digitsFractionDetect:
-                    if (current.matches("[0-9]")) {
-                        index++;
-                    } else if (current.equals(".")) {
-                        state = dotConsume;
-                    } else {
-                        state = exponentEndDetect;
-                    }
-                    break;
-                case fractionExponentDetect:
-                    if (current.equals(".")) {
-                        state = dotConsume;
-                    } else {
-                        state = exponentEndDetect;
-                    }
-                    break;
-                case dotConsume:
-                    if (current.equals(".")) {
-                        index++;
-                        state = fractionDigitConsume;
-                    } else {
-                        return -1;
-                    }
-                    break;
-                case fractionDigitConsume:
-                    if (current.matches("[0-9]")) {
-                        index++;
-                        state = digitExponentDetect;
-                    } else {
-                        return -1;
-                    }
-                    break;
-                case digitExponentDetect:
-                    if (current.matches("[0-9]")) {
-                        index++;
-                    } else {
-                        state = exponentEndDetect;
-                    }
-                    break;
-                case exponentEndDetect:
-                    if (current.toLowerCase().equals("e")) {
-                        if (index + 1 < jsonContent.length()) {
-                            if (jsonContent.charAt(index + 1) == '-' || jsonContent.charAt(index + 1) == '+') {
-                                if (index + 2 < jsonContent.length()) {
-                                    if (String.valueOf(jsonContent.charAt(index + 2)).matches("[0-9]")) {
-                                        state = eConsume;
-                                    } else {
-                                        end = true;
-                                    }
-                                } else {
-                                    end = true;
-                                }
-                            } else if (String.valueOf(jsonContent.charAt(index + 1)).matches("[0-9]")) {
-                                state = eConsume;
-                            } else {
-                                end = true;
-                            }
-                        } else {
-                            end = true;
-                        }
-                    } else {
-                        end = true;
-                    }
-                    break;
-                case eConsume:
-                    if (current.toLowerCase().equals("e")) {
-                        index++;
-                        state = plusMinusDetect;
-                    } else {
-                        return -1;
-                    }
-                    break;
-                case plusMinusDetect:
-                    if (current.equals("+") || current.equals("-")) {
-                        index++;
-                    }
-                    state = exponentDigitConsume;
-                    break;
-                case exponentDigitConsume:
-                    if (current.matches("[0-9]")) {
-                        index++;
-                        state = digitsEndDetect;
-                    } else {
-                        return -1;
-                    }
-                    break;
-                case digitsEndDetect:
-                    if (current.matches("[0-9]")) {
-                        index++;
-                    } else {
-                        end = true;
-                    }
-                    break;
+        //optional exponent, only if e and the optional sign are followed by a digit
+        if (index < length && (jsonContent.charAt(index) == 'e' || jsonContent.charAt(index) == 'E')) {
+            int exponentIndex = index + 1;
+            if (exponentIndex < length && (jsonContent.charAt(exponentIndex) == '+' || jsonContent.charAt(exponentIndex) == '-')) {
+                exponentIndex++;
+            }
+            if (exponentIndex < length && isDigit(jsonContent.charAt(exponentIndex))) {
+                index = meetDigits(jsonContent, exponentIndex + 1);
             }
         }
         return index;
     }
 
     /**
-     * Gets a content as input and meets a json string structure  and returns number of character that it consumed
-     * to meet the json string. If the structure does not meet a json string, it returns -1.
+     * Meets a json string structure starting at the specified index and returns the index after the json string. A
+     * backslash escapes the character after it, as the json scanner skips strings. If the structure does not meet a
+     * json string, it returns -1.
      *
-     * @param jsonContent content that can start with a json string
-     * @return number of consumed characters to meet the json string or -1 if the structure does not meet a json string
+     * @param jsonContent content that can have a json string at the start index
+     * @param start       start index of the json string
+     * @return index after the json string or -1 if the structure does not meet a json string
      */
-    private static int meetString(String jsonContent) {
-        if (jsonContent.isEmpty()) return -1;
-        if (!jsonContent.startsWith("\"")) {
+    private static int meetString(CharSequence jsonContent, int start) {
+        if (start >= jsonContent.length() || jsonContent.charAt(start) != '"') {
             return -1;
         }
-        int index = 1;
-        boolean backSlashSeen = false;
-        while (index < jsonContent.length()) {
-            if (jsonContent.charAt(index) == '\\') {
-                backSlashSeen = !backSlashSeen;
-            }
-            if (jsonContent.charAt(index) == '\"') {
-                if (!backSlashSeen) {
-                    return index + 1;
-                }
-            }
-            index++;
-        }
-        return -1;
+        return JsonScanner.skipString(jsonContent, start);
     }
 
     /**
-     * Gets a content as input and meets a json whitespace structure  and returns number of character that it consumed
-     * to meet the json whirespace. If the structure does not meet a json whitespace, it returns -1.
+     * Meets digits starting at the specified index and returns the index after them.
      *
-     * @param jsonContent content that can start with a json whitespace
-     * @return number of consumed characters to meet the json whitespace or -1 if the structure does not meet a
-     * json whitespace
+     * @param jsonContent content that can have digits at the start index
+     * @param start       start index of the digits
+     * @return index after the digits, which is the start index if there is no digit
      */
-    private static int meetWhitespace(String jsonContent) {
-        int index = 0;
-        while (index < jsonContent.length() && jsonContent.substring(0, index + 1).matches("\\s+")) {
+    private static int meetDigits(CharSequence jsonContent, int start) {
+        int index = start;
+        while (index < jsonContent.length() && isDigit(jsonContent.charAt(index))) {
             index++;
         }
         return index;
     }
+
+    /**
+     * Meets a json whitespace structure starting at the specified index and returns the index after it.
+     *
+     * @param jsonContent content that can have a json whitespace at the start index
+     * @param start       start index of the json whitespace
+     * @return index after the json whitespace, which is the start index if there is no whitespace
+     */
+    private static int meetWhitespace(CharSequence jsonContent, int start) {
+        return JsonScanner.skipWhitespace(jsonContent, start);
+    }
+
+    /**
+     * Checks if a character is a decimal digit.
+     *
+     * @param c character to check
+     * @return {@code true} if the character is a digit 0 to 9
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 }
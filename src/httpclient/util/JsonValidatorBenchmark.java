@@ -0,0 +1,97 @@
+package httpclient.util;
+
+/**
+ * A benchmark entry point of {@link JsonValidator}. It validates generated json content of the specified sizes, by
+ * default 1 KB, 1 MB and 100 MB, and prints the average time and throughput of each size, so linear scaling shows as
+ * a steady throughput. It calls only {@link JsonValidator#isValidJson(String)}, so the same class can be compiled
+ * against an older validator to compare the two.
+ * <p>
+ * Usage: {@code java httpclient.util.JsonValidatorBenchmark [size in bytes]...}
+ */
+public class JsonValidatorBenchmark {
+    /**
+     * default sizes of validated content in bytes
+     */
+    private static final long[] DEFAULT_SIZES = {1L << 10, 1L << 20, 100L << 20};
+    /**
+     * time in nanos that each size is validated before measuring, to let the JIT compile the validator
+     */
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    /**
+     * time in nanos that each size is validated while measuring
+     */
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args sizes of validated content in bytes, or nothing for default sizes
+     */
+    public static void main(String[] args) {
+        long[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new long[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Long.parseLong(args[i]);
+            }
+        }
+        for (long size : sizes) {
+            String jsonContent = makeJson(size);
+            if (!JsonValidator.isValidJson(jsonContent)) {
+                System.out.println("Generated json is rejected by the validator");
+                return;
+            }
+            run(jsonContent, WARMUP_NANOS);
+            long[] result = run(jsonContent, MEASURE_NANOS);
+            double millis = result[1] / 1e6 / result[0];
+            System.out.printf("%,d bytes: %.3f ms/op, %.1f MB/s, %d ops%n", jsonContent.length(), millis,
+                    jsonContent.length() / 1e3 / millis, result[0]);
+        }
+    }
+
+    /**
+     * Validates json content repeatedly for at least the specified time, and at least once.
+     *
+     * @param jsonContent json content to validate
+     * @param duration    time in nanos to validate for
+     * @return number of validations and their total time in nanos
+     */
+    private static long[] run(String jsonContent, long duration) {
+        long operations = 0;
+        long startNanos = System.nanoTime();
+        long elapsed;
+        do {
+            //the result is checked so the validation can't be eliminated
+            if (!JsonValidator.isValidJson(jsonContent)) {
+                throw new IllegalStateException("Json content became invalid");
+            }
+            operations++;
+            elapsed = System.nanoTime() - startNanos;
+        } while (elapsed < duration);
+        return new long[]{operations, elapsed};
+    }
+
+    /**
+     * Makes json content of about the specified size, an array of objects with strings, numbers, literals and nested
+     * arrays, like typical api responses.
+     *
+     * @param size size of content in bytes
+     * @return json content
+     */
+    private static String makeJson(long size) {
+        StringBuilder builder = new StringBuilder((int) Math.min(size + 256, Integer.MAX_VALUE - 8));
+        builder.append('[');
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(",\n");
+            }
+            builder.append("{\"id\": ").append(i)
+                    .append(", \"name\": \"item ").append(i).append('"')
+                    .append(", \"price\": -").append(i % 1000).append(".25e-2")
+                    .append(", \"active\": ").append(i % 2 == 0)
+                    .append(", \"tags\": [\"a\", \"b\", null]}");
+        }
+        builder.append(']');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package jurl;
+
+/**
+ * Holds the result of a bench command: number of requests and errors, elapsed time and latency distribution.
+ */
+public class BenchResult {
+    /**
+     * number of completed requests
+     */
+    private final long requests;
+    /**
+     * number of failed requests, either not executed or responded with an error status code
+     */
+    private final long errors;
+    /**
+     * elapsed time in nanos
+     */
+    private final long elapsedNanos;
+    /**
+     * latency histogram in microseconds
+     */
+    private final LatencyHistogram latencyHistogram;
+
+    /**
+     * Constructor of bench result.
+     *
+     * @param requests         number of completed requests
+     * @param errors           number of failed requests
+     * @param elapsedNanos     elapsed time in nanos
+     * @param latencyHistogram latency histogram in microseconds
+     */
+    public BenchResult(long requests, long errors, long elapsedNanos, LatencyHistogram latencyHistogram) {
+        this.requests = requests;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    /**
+     * Gets number of completed requests.
+     *
+     * @return number of completed requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets number of failed requests.
+     *
+     * @return number of failed requests
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets error rate in percent.
+     *
+     * @return error rate in percent
+     */
+    public double getErrorRate() {
+        return requests == 0 ? 0 : errors * 100.0 / requests;
+    }
+
+    /**
+     * Gets elapsed time in nanos.
+     *
+     * @return elapsed time in nanos
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets throughput in requests per second.
+     *
+     * @return throughput in requests per second
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : requests * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets latency histogram in microseconds.
+     *
+     * @return latency histogram
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * Returns a multi line report of the bench result.
+     *
+     * @return a string representation of the bench result
+     */
+    @Override
+    public String toString() {
+        return String.format("Requests: %d | Errors: %d (%.2f%%) | Duration: %.3fs | Throughput: %.1f req/s%n" +
+                        "Latency: p50 %s | p90 %s | p99 %s | p99.9 %s | max %s | mean %s",
+                requests, errors, getErrorRate(), elapsedNanos / 1e9, getThroughput(),
+                formatMicros(latencyHistogram.getValueAtPercentile(50)), formatMicros(latencyHistogram.getValueAtPercentile(90)),
+                formatMicros(latencyHistogram.getValueAtPercentile(99)), formatMicros(latencyHistogram.getValueAtPercentile(99.9)),
+                formatMicros(latencyHistogram.getMax()), formatMicros((long) latencyHistogram.getMean()));
+    }
+
+    /**
+     * Formats a latency value in milliseconds.
+     *
+     * @param micros latency in microseconds
+     * @return formatted latency
+     */
+    private static String formatMicros(long micros) {
+        return String.format("%.3fms", micros / 1000.0);
+    }
+}
@@ -0,0 +1,177 @@
+package jurl;
+
+import httpclient.entity.Request;
+import httpclient.entity.Response;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a request repeatedly for a duration and measures throughput, errors and latency. It uses the request executor,
+ * so measured numbers reflect what the client actually sends.
+ * <p>
+ * With no target rate, each worker sends the next request as soon as the previous one completes (fixed concurrency).
+ * With a target rate, requests are scheduled at fixed intervals and latency is measured from the scheduled time, so a
+ * slow server is not hidden by requests that are sent late (coordinated omission).
+ */
+public class BenchRunner {
+    /**
+     * request executor that sends the requests
+     */
+    private final RequestExecutor requestExecutor;
+
+    /**
+     * Constructor of bench runner.
+     *
+     * @param requestExecutor request executor that sends the requests
+     */
+    public BenchRunner(RequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * Runs the bench.
+     *
+     * @param request        request to drive
+     * @param durationMillis bench duration in millis
+     * @param concurrency    number of concurrent workers
+     * @param rate           target rate in requests per second, or 0 to send as fast as the workers can
+     * @return bench result
+     * @throws Exception if the bench is interrupted
+     */
+    public BenchResult run(Request request, long durationMillis, int concurrency, double rate) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jurl-bench");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        AtomicLong ticket = new AtomicLong();
+        List<Future<Worker>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executorService.submit(new Worker(request, startNanos, endNanos, rate, ticket)));
+            }
+            LatencyHistogram latencyHistogram = new LatencyHistogram();
+            long errors = 0;
+            for (Future<Worker> future : futures) {
+                Worker worker = future.get();
+                latencyHistogram.add(worker.latencyHistogram);
+                errors += worker.errors;
+            }
+            return new BenchResult(latencyHistogram.getTotalCount(), errors, System.nanoTime() - startNanos, latencyHistogram);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Bench interrupted");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * A bench worker that sends requests until the bench ends and records their latency in its own histogram.
+     */
+    private class Worker implements Callable<Worker> {
+        /**
+         * request to drive
+         */
+        private final Request request;
+        /**
+         * bench start time in nanos
+         */
+        private final long startNanos;
+        /**
+         * bench end time in nanos
+         */
+        private final long endNanos;
+        /**
+         * target rate in requests per second, or 0 for no target rate
+         */
+        private final double rate;
+        /**
+         * shared ticket counter that gives each scheduled request its sequence number
+         */
+        private final AtomicLong ticket;
+        /**
+         * latency histogram of the worker
+         */
+        private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        /**
+         * buffer that response content of the worker is drained into
+         */
+        private final byte[] drainBuffer = new byte[8192];
+        /**
+         * number of failed requests of the worker
+         */
+        private long errors;
+
+        /**
+         * Constructor of bench worker.
+         *
+         * @param request    request to drive
+         * @param startNanos bench start time in nanos
+         * @param endNanos   bench end time in nanos
+         * @param rate       target rate in requests per second, or 0 for no target rate
+         * @param ticket     shared ticket counter
+         */
+        Worker(Request request, long startNanos, long endNanos, double rate, AtomicLong ticket) {
+            this.request = request;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.rate = rate;
+            this.ticket = ticket;
+        }
+
+        /**
+         * Sends requests until the bench ends.
+         *
+         * @return the worker itself holding its measurements
+         */
+        @Override
+        public Worker call() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long intendedNanos;
+                if (rate > 0) {
+                    //scheduled send time of the next ticket, waiting for it if it is in the future
+                    intendedNanos = startNanos + (long) (ticket.getAndIncrement() * 1e9 / rate);
+                    if (intendedNanos >= endNanos || System.nanoTime() >= endNanos) {
+                        break;
+                    }
+                    long waitNanos;
+                    while ((waitNanos = intendedNanos - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                } else {
+                    intendedNanos = System.nanoTime();
+                    if (intendedNanos >= endNanos) {
+                        break;
+                    }
+                }
+                try {
+                    //content is streamed and drained so memory stays bounded regardless of response size
+                    Response response = requestExecutor.executeRequest(request, true);
+                    try (InputStream contentStream = response.getContentStream()) {
+                        while (contentStream.read(drainBuffer) != -1) {
+                            //discarding content
+                        }
+                    }
+                    if (response.getStatusCode() >= 400) {
+                        errors++;
+                    }
+                } catch (Exception e) {
+                    errors++;
+                }
+                latencyHistogram.record((System.nanoTime() - intendedNanos) / 1000);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package jurl;
+
+import jurl.transport.TransportRequest;
+import jurl.transport.TransportResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content stream of a storable response. Content read by the consumer is copied to memory, and the response is stored
+ * in http cache when content ends. Content longer than the cache limit, or closed before it ends, is not stored.
+ */
+class CacheRecordingInputStream extends FilterInputStream {
+    /**
+     * cache to store in
+     */
+    private final HttpCache httpCache;
+    /**
+     * sent request
+     */
+    private final TransportRequest request;
+    /**
+     * received response
+     */
+    private final TransportResponse response;
+    /**
+     * time in millis that the request was sent at
+     */
+    private final long requestTime;
+    /**
+     * time in millis that the response was received at
+     */
+    private final long responseTime;
+    /**
+     * content read so far, or null if content is too long to store
+     */
+    private ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+    /**
+     * Constructor of cache recording input stream.
+     *
+     * @param inputStream  response content stream
+     * @param httpCache    cache to store in
+     * @param request      sent request
+     * @param response     received response
+     * @param requestTime  time in millis that the request was sent at
+     * @param responseTime time in millis that the response was received at
+     */
+    CacheRecordingInputStream(InputStream inputStream, HttpCache httpCache, TransportRequest request, TransportResponse response,
+                              long requestTime, long responseTime) {
+        super(inputStream);
+        this.httpCache = httpCache;
+        this.request = request;
+        this.response = response;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+
+    /**
+     * Reads a byte of content.
+     *
+     * @return the byte, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read == -1) {
+            store();
+        } else if (content != null) {
+            content.write(read);
+            checkLength();
+        }
+        return read;
+    }
+
+    /**
+     * Reads some bytes of content into the buffer.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read == -1) {
+            store();
+        } else if (read > 0 && content != null) {
+            content.write(buffer, offset, read);
+            checkLength();
+        }
+        return read;
+    }
+
+    /**
+     * Skips some bytes of content by reading them, so that they are stored.
+     *
+     * @param n number of bytes to skip
+     * @return number of skipped bytes
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    /**
+     * Mark is not supported, as content is read only once.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Drops the copied content if it became longer than the cache limit.
+     */
+    private void checkLength() {
+        if (content.size() > httpCache.getMaxBodyBytes()) {
+            content = null;
+        }
+    }
+
+    /**
+     * Stores the response with its content once, when content ends.
+     */
+    private void store() {
+        if (content == null) {
+            return;
+        }
+        byte[] body = content.toByteArray();
+        content = null;
+        try {
+            httpCache.store(request, response, body, requestTime, responseTime);
+        } catch (IOException e) {
+            //failing to store a response does not fail reading it, the next request just misses the cache
+        }
+    }
+}
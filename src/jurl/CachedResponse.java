@@ -0,0 +1,123 @@
+package jurl;
+
+import java.util.Map;
+
+/**
+ * A response stored in http cache, with the values of request headers that were named by its vary header and the
+ * times that its request was sent and it was received, which its age is calculated from.
+ */
+class CachedResponse {
+    /**
+     * request header name values named by vary header of the response, with empty values for absent headers
+     */
+    private final Map<String, String> varyValues;
+    /**
+     * response status code
+     */
+    private final int statusCode;
+    /**
+     * response status message
+     */
+    private final String statusMessage;
+    /**
+     * response header name values, with case insensitive names
+     */
+    private final Map<String, String> headers;
+    /**
+     * response content
+     */
+    private final byte[] body;
+    /**
+     * time in millis that the request was sent at
+     */
+    private final long requestTime;
+    /**
+     * time in millis that the response was received at
+     */
+    private final long responseTime;
+
+    /**
+     * Constructor of cached response.
+     *
+     * @param varyValues    request header name values named by vary header of the response
+     * @param statusCode    response status code
+     * @param statusMessage response status message
+     * @param headers       response header name values, with case insensitive names
+     * @param body          response content
+     * @param requestTime   time in millis that the request was sent at
+     * @param responseTime  time in millis that the response was received at
+     */
+    CachedResponse(Map<String, String> varyValues, int statusCode, String statusMessage, Map<String, String> headers,
+                   byte[] body, long requestTime, long responseTime) {
+        this.varyValues = varyValues;
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.headers = headers;
+        this.body = body;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+
+    /**
+     * Gets request header name values named by vary header of the response.
+     *
+     * @return vary header name values
+     */
+    Map<String, String> getVaryValues() {
+        return varyValues;
+    }
+
+    /**
+     * Gets response status code.
+     *
+     * @return response status code
+     */
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets response status message.
+     *
+     * @return response status message
+     */
+    String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * Gets response header name values.
+     *
+     * @return response header name values, with case insensitive names
+     */
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets response content.
+     *
+     * @return response content
+     */
+    byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Gets time in millis that the request was sent at.
+     *
+     * @return request time in millis
+     */
+    long getRequestTime() {
+        return requestTime;
+    }
+
+    /**
+     * Gets time in millis that the response was received at.
+     *
+     * @return response time in millis
+     */
+    long getResponseTime() {
+        return responseTime;
+    }
+}
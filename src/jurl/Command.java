@@ -44,6 +44,70 @@ public class Command {
      * fire request indexes in fire command
      */
     private Set<Integer> fireRequestIndexList;
+    /**
+     * determines showing connection pool statistics after fire command
+     */
+    private boolean poolStats;
+    /**
+     * determines serving fire command responses from http cache
+     */
+    private boolean cache;
+    /**
+     * determines sending fire command requests by HTTP/2 transport
+     */
+    private boolean http2;
+    /**
+     * determines pipelining fire command requests over HTTP/1.1 connections
+     */
+    private boolean pipeline;
+    /**
+     * determines sending fire command requests by the non-blocking transport
+     */
+    private boolean nonBlocking;
+    /**
+     * maximum number of requests in flight in fire command, 0 if not specified
+     */
+    private int parallelism;
+    /**
+     * determines delivering fire command responses in completion order instead of request order
+     */
+    private boolean completionOrder;
+    /**
+     * determines running fire command requests on virtual threads
+     */
+    private boolean virtualThreads;
+    /**
+     * determines bench command
+     */
+    private boolean isBench;
+    /**
+     * saved request index of bench command, or -1 for an inline request
+     */
+    private int benchRequestIndex = -1;
+    /**
+     * bench duration in millis
+     */
+    private long benchDuration = 10000;
+    /**
+     * number of concurrent workers of bench command
+     */
+    private int benchConcurrency = 1;
+    /**
+     * target rate of bench command in requests per second, 0 for no target rate
+     */
+    private double benchRate;
+    /**
+     * determines history command
+     */
+    private boolean history;
+    /**
+     * number of the history entry to show, or -1 to list history entries
+     */
+    private int historyEntryNumber = -1;
+    /**
+     * determines history clear command
+     */
+    private boolean historyClear;
 
     /**
      * Gets request of the command.
@@ -206,4 +270,292 @@ public class Command {
     public void setFireRequestIndexList(Set<Integer> fireRequestIndexList) {
         this.fireRequestIndexList = fireRequestIndexList;
     }
+
+    /**
+     * Gets show connection pool statistics state.
+     *
+     * @return show connection pool statistics state
+     */
+    public boolean isPoolStats() {
+        return poolStats;
+    }
+
+    /**
+     * Sets show connection pool statistics state.
+     *
+     * @param poolStats show connection pool statistics state
+     */
+    public void setPoolStats(boolean poolStats) {
+        this.poolStats = poolStats;
+    }
+
+    /**
+     * Gets use http cache state.
+     *
+     * @return use http cache state
+     */
+    public boolean isCache() {
+        return cache;
+    }
+
+    /**
+     * Sets use http cache state.
+     *
+     * @param cache use http cache state
+     */
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets use HTTP/2 transport state.
+     *
+     * @return use HTTP/2 transport state
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Sets use HTTP/2 transport state.
+     *
+     * @param http2 use HTTP/2 transport state
+     */
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * Gets pipeline requests state.
+     *
+     * @return pipeline requests state
+     */
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Sets pipeline requests state.
+     *
+     * @param pipeline pipeline requests state
+     */
+    public void setPipeline(boolean pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Gets use non-blocking transport state.
+     *
+     * @return use non-blocking transport state
+     */
+    public boolean isNonBlocking() {
+        return nonBlocking;
+    }
+
+    /**
+     * Sets use non-blocking transport state.
+     *
+     * @param nonBlocking use non-blocking transport state
+     */
+    public void setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+    }
+
+    /**
+     * Gets maximum number of requests in flight in fire command.
+     *
+     * @return maximum number of requests in flight, 0 if not specified
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets maximum number of requests in flight in fire command.
+     *
+     * @param parallelism maximum number of requests in flight
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets completion order delivery state of fire command responses.
+     *
+     * @return {@code true} if responses are delivered in completion order, {@code false} for request order
+     */
+    public boolean isCompletionOrder() {
+        return completionOrder;
+    }
+
+    /**
+     * Sets completion order delivery state of fire command responses.
+     *
+     * @param completionOrder {@code true} to deliver responses in completion order, {@code false} for request order
+     */
+    public void setCompletionOrder(boolean completionOrder) {
+        this.completionOrder = completionOrder;
+    }
+
+    /**
+     * Gets virtual threads state of fire command.
+     *
+     * @return {@code true} if fire command requests run on virtual threads
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Sets virtual threads state of fire command.
+     *
+     * @param virtualThreads {@code true} to run fire command requests on virtual threads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Gets bench command state.
+     *
+     * @return bench command state
+     */
+    public boolean isBench() {
+        return isBench;
+    }
+
+    /**
+     * Sets bench command state.
+     *
+     * @param bench bench command state
+     */
+    public void setBench(boolean bench) {
+        isBench = bench;
+    }
+
+    /**
+     * Gets saved request index of bench command.
+     *
+     * @return saved request index, or -1 for an inline request
+     */
+    public int getBenchRequestIndex() {
+        return benchRequestIndex;
+    }
+
+    /**
+     * Sets saved request index of bench command.
+     *
+     * @param benchRequestIndex saved request index, or -1 for an inline request
+     */
+    public void setBenchRequestIndex(int benchRequestIndex) {
+        this.benchRequestIndex = benchRequestIndex;
+    }
+
+    /**
+     * Gets bench duration.
+     *
+     * @return bench duration in millis
+     */
+    public long getBenchDuration() {
+        return benchDuration;
+    }
+
+    /**
+     * Sets bench duration.
+     *
+     * @param benchDuration bench duration in millis
+     */
+    public void setBenchDuration(long benchDuration) {
+        this.benchDuration = benchDuration;
+    }
+
+    /**
+     * Gets number of concurrent workers of bench command.
+     *
+     * @return number of concurrent workers
+     */
+    public int getBenchConcurrency() {
+        return benchConcurrency;
+    }
+
+    /**
+     * Sets number of concurrent workers of bench command.
+     *
+     * @param benchConcurrency number of concurrent workers
+     */
+    public void setBenchConcurrency(int benchConcurrency) {
+        this.benchConcurrency = benchConcurrency;
+    }
+
+    /**
+     * Gets target rate of bench command.
+     *
+     * @return target rate in requests per second, 0 for no target rate
+     */
+    public double getBenchRate() {
+        return benchRate;
+    }
+
+    /**
+     * Sets target rate of bench command.
+     *
+     * @param benchRate target rate in requests per second, 0 for no target rate
+     */
+    public void setBenchRate(double benchRate) {
+        this.benchRate = benchRate;
+    }
+
+    /**
+     * Gets history command state.
+     *
+     * @return {@code true} if it is a history command
+     */
+    public boolean isHistory() {
+        return history;
+    }
+
+    /**
+     * Sets history command state.
+     *
+     * @param history history command state
+     */
+    public void setHistory(boolean history) {
+        this.history = history;
+    }
+
+    /**
+     * Gets number of the history entry to show.
+     *
+     * @return number of the history entry, or -1 to list history entries
+     */
+    public int getHistoryEntryNumber() {
+        return historyEntryNumber;
+    }
+
+    /**
+     * Sets number of the history entry to show.
+     *
+     * @param historyEntryNumber number of the history entry, or -1 to list history entries
+     */
+    public void setHistoryEntryNumber(int historyEntryNumber) {
+        this.historyEntryNumber = historyEntryNumber;
+    }
+
+    /**
+     * Gets history clear command state.
+     *
+     * @return {@code true} if it is a history clear command
+     */
+    public boolean isHistoryClear() {
+        return historyClear;
+    }
+
+    /**
+     * Sets history clear command state.
+     *
+     * @param historyClear history clear command state
+     */
+    public void setHistoryClear(boolean historyClear) {
+        this.historyClear = historyClear;
+    }
 }
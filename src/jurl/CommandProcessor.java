@@ -5,10 +5,7 @@ import httpclient.entity.RequestBodyType;
 import httpclient.entity.RequestMethod;
 import httpclient.util.JsonValidator;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Processes the command and creates command object. The process contains validating input arguments, saving extra info
@@ -70,23 +67,101 @@ public class CommandProcessor {
                     } else {
                         //validating command numbers
                         resultCommand.setFire(true);
-                        Set<Integer> fireRequestIndexList = new HashSet<>();
+                        Set<Integer> fireRequestIndexList = new LinkedHashSet<>();
                         for (int i = 2; i < commandArray.length; i++) {
-                            try {
-                                int savedRequestNumber = Integer.parseInt(commandArray[i]);
-                                if (savedRequestNumber < 1) {
-                                    throw new Exception("Invalid saved request number " + commandArray[i]);
+                            if (commandArray[i].equals("--stats")) {
+                                //connection pool statistics option
+                                resultCommand.setPoolStats(true);
+                            } else if (commandArray[i].equals("--cache")) {
+                                //http cache option
+                                resultCommand.setCache(true);
+                            } else if (commandArray[i].equals("--http2")) {
+                                //HTTP/2 transport option
+                                resultCommand.setHttp2(true);
+                            } else if (commandArray[i].equals("--pipeline")) {
+                                //HTTP/1.1 pipelining option
+                                resultCommand.setPipeline(true);
+                            } else if (commandArray[i].equals("--nio")) {
+                                //non-blocking transport option
+                                resultCommand.setNonBlocking(true);
+                            } else if (commandArray[i].equals("--parallel")) {
+                                //parallel option needs a positive number of requests in flight
+                                if (i + 1 >= commandArray.length) {
+                                    throw new Exception(" parallel parameter value not found.");
+                                }
+                                try {
+                                    resultCommand.setParallelism(Integer.parseInt(commandArray[i + 1]));
+                                } catch (NumberFormatException e) {
+                                    throw new Exception("Invalid parallel parameter value " + commandArray[i + 1]);
+                                }
+                                if (resultCommand.getParallelism() < 1) {
+                                    throw new Exception("Invalid parallel parameter value " + commandArray[i + 1]);
+                                }
+                                i++;
+                            } else if (commandArray[i].equals("--virtual")) {
+                                //virtual threads option
+                                resultCommand.setVirtualThreads(true);
+                            } else if (commandArray[i].equals("--order")) {
+                                //order option is either index or completion
+                                if (i + 1 < commandArray.length && commandArray[i + 1].equals("completion")) {
+                                    resultCommand.setCompletionOrder(true);
+                                } else if (i + 1 < commandArray.length && commandArray[i + 1].equals("index")) {
+                                    resultCommand.setCompletionOrder(false);
                                 } else {
-                                    fireRequestIndexList.add(savedRequestNumber - 1);
+                                    throw new Exception(" order parameter value should be index or completion.");
+                                }
+                                i++;
+                            } else {
+                                try {
+                                    int savedRequestNumber = Integer.parseInt(commandArray[i]);
+                                    if (savedRequestNumber < 1) {
+                                        throw new Exception("Invalid saved request number " + commandArray[i]);
+                                    } else {
+                                        fireRequestIndexList.add(savedRequestNumber - 1);
+                                    }
+                                } catch (NumberFormatException e) {
+                                    throw new Exception("Invalid saved request number " + commandArray[i]);
                                 }
-                            } catch (NumberFormatException e) {
-                                throw new Exception("Invalid saved request number " + commandArray[i]);
                             }
                         }
+                        if (fireRequestIndexList.isEmpty()) {
+                            throw new Exception("Saved requests to fire not found");
+                        }
+                        //pipelined requests are sent in order on a single HTTP/1.1 connection
+                        if (resultCommand.isPipeline() && (resultCommand.getParallelism() > 0 || resultCommand.isVirtualThreads()
+                                || resultCommand.isHttp2() || resultCommand.isCache())) {
+                            throw new Exception("pipeline can't be used with parallel, virtual, http2 or cache options.");
+                        }
+                        //non-blocking requests are driven by the selector thread instead of a thread per request
+                        if (resultCommand.isNonBlocking() && (resultCommand.isVirtualThreads() || resultCommand.isPipeline())) {
+                            throw new Exception("nio can't be used with virtual or pipeline options.");
+                        }
                         resultCommand.setFireRequestIndexList(fireRequestIndexList);
                         return resultCommand;
                     }
                 }
+            case "bench":
+                return createBenchCommand(requestName, queryParams, requestBodyType, commandArray);
+            case "history":
+                //history command lists entries, shows an entry by its number or clears history
+                resultCommand.setHistory(true);
+                if (commandArray.length == 1) {
+                    return resultCommand;
+                } else if (commandArray.length > 2) {
+                    throw new Exception("Invalid command format");
+                } else if (commandArray[1].equals("clear")) {
+                    resultCommand.setHistoryClear(true);
+                    return resultCommand;
+                }
+                try {
+                    resultCommand.setHistoryEntryNumber(Integer.parseInt(commandArray[1]));
+                } catch (NumberFormatException e) {
+                    throw new Exception("Invalid history entry number " + commandArray[1]);
+                }
+                if (resultCommand.getHistoryEntryNumber() < 1) {
+                    throw new Exception("Invalid history entry number " + commandArray[1]);
+                }
+                return resultCommand;
             case "-h":
             case "--help":
                 resultCommand.setHelp(true);
@@ -111,6 +186,8 @@ public class CommandProcessor {
         boolean data = false;
         boolean json = false;
         boolean upload = false;
+        boolean http2 = false;
+        boolean verbose = false;
 
         //finding other options of request
         if (commandArray.length > 1) {
@@ -245,6 +322,22 @@ public class CommandProcessor {
                             throw new Exception(" direction not found");
                         }
                     }
+                } else if ((commandArray[i].equals("--http2"))) {
+                    //HTTP/2 transport option
+                    if (http2) {
+                        throw new Exception("must use http2 parameter at most once.");
+                    } else {
+                        http2 = true;
+                        request.setHttp2(true);
+                    }
+                } else if ((commandArray[i].equals("-v")) || (commandArray[i].equals("--verbose"))) {
+                    //show response timing option
+                    if (verbose) {
+                        throw new Exception("must use verbose (v) parameter at most once.");
+                    } else {
+                        verbose = true;
+                        request.setVerbose(true);
+                    }
                 } else {
                     throw new Exception(" invalid parameter: " + commandArray[i]);
                 }
@@ -253,4 +346,67 @@ public class CommandProcessor {
         }
         return resultCommand;
     }
+
+    /**
+     * Creates a bench command. Bench options are taken out of the arguments and the rest should be either a saved
+     * request group name and number, or an inline request with its options.
+     *
+     * @param requestName     request display name, if was a saved request
+     * @param queryParams     request query parameters map
+     * @param requestBodyType request body type
+     * @param commandArray    command arguments starting with bench
+     * @return bench command object
+     * @throws Exception if command arguments is not valid
+     */
+    private Command createBenchCommand(String requestName, Map<String, String> queryParams, RequestBodyType requestBodyType, String[] commandArray) throws Exception {
+        Command resultCommand = new Command();
+        resultCommand.setBench(true);
+        List<String> requestArgs = new ArrayList<>();
+        for (int i = 1; i < commandArray.length; i++) {
+            if (commandArray[i].equals("--duration") || commandArray[i].equals("--concurrency") || commandArray[i].equals("--rate")) {
+                //bench options need a positive number value
+                if (i + 1 >= commandArray.length) {
+                    throw new Exception(" " + commandArray[i].substring(2) + " parameter value not found.");
+                }
+                double value;
+                try {
+                    value = Double.parseDouble(commandArray[i + 1]);
+                } catch (NumberFormatException e) {
+                    throw new Exception("Invalid " + commandArray[i].substring(2) + " parameter value " + commandArray[i + 1]);
+                }
+                if (value <= 0) {
+                    throw new Exception("Invalid " + commandArray[i].substring(2) + " parameter value " + commandArray[i + 1]);
+                }
+                if (commandArray[i].equals("--duration")) {
+                    resultCommand.setBenchDuration((long) (value * 1000));
+                } else if (commandArray[i].equals("--concurrency")) {
+                    resultCommand.setBenchConcurrency((int) Math.ceil(value));
+                } else {
+                    resultCommand.setBenchRate(value);
+                }
+                i++;
+            } else {
+                requestArgs.add(commandArray[i]);
+            }
+        }
+        if (requestArgs.isEmpty()) {
+            throw new Exception("Request to bench not found");
+        }
+        //a group name followed by a request number is a saved request, otherwise it is an inline request
+        if (requestArgs.size() == 2 && requestArgs.get(1).matches("\\d+")) {
+            int savedRequestNumber = Integer.parseInt(requestArgs.get(1));
+            if (savedRequestNumber < 1) {
+                throw new Exception("Invalid saved request number " + requestArgs.get(1));
+            }
+            resultCommand.setGroupName(requestArgs.get(0));
+            resultCommand.setBenchRequestIndex(savedRequestNumber - 1);
+        } else {
+            Command requestCommand = createCommand(requestName, queryParams, requestBodyType, requestArgs.toArray(new String[0]));
+            if (requestCommand.getRequest() == null) {
+                throw new Exception("Invalid request to bench");
+            }
+            resultCommand.setRequest(requestCommand.getRequest());
+        }
+        return resultCommand;
+    }
 }
@@ -5,12 +5,22 @@ import httpclient.entity.Response;
 import httpclient.entity.ResponseContentType;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Handles the output option that writes response text and binary content to a output file based of the response content
  * type. The file name either specified in command or will be generated if not specified.
  */
 public class FileOutputHandler {
+    /**
+     * maximum number of bytes transferred from response content to output file in one transfer call
+     */
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+
     /**
      * Handles the output option that writes response text and binary content to a output file based of the response
      * content type. The file name either specified in command or will be generated if not specified.
@@ -27,8 +37,11 @@ public class FileOutputHandler {
             } else {
                 file = new File("output" + "_" + System.currentTimeMillis());
             }
-            //if response content was picture, uses output streams
-            if (response.getContentType().equals(ResponseContentType.Picture)) {
+            //if response content was streamed, transfers exact content bytes directly to the file channel
+            if (response.isStreamed()) {
+                transferToFile(response, file);
+            } else if (response.getContentType().equals(ResponseContentType.Picture)) {
+                //if response content was picture, uses output streams
                 try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
                     BufferedOutputStream br1 = new BufferedOutputStream(fileOutputStream);
                     br1.write(response.getContentBytes());
@@ -39,7 +52,7 @@ public class FileOutputHandler {
                     throw new Exception("Fail to save output");
                 }
             } else { //use writer otherwise
-                try (FileWriter fileWriter = new FileWriter(file)) {
+                try (FileWriter fileWriter = new FileWriter(file, StandardCharsets.UTF_8)) {
                     BufferedWriter br1 = new BufferedWriter(fileWriter);
                     br1.write(response.getContentStr());
                     br1.flush();
@@ -49,5 +62,46 @@ public class FileOutputHandler {
             }
         }
     }
-}
 
+    /**
+     * Transfers streamed response content to the output file channel without holding content in heap and sets the
+     * transfer rate of the response.
+     *
+     * @param response streamed response
+     * @param file     output file
+     * @throws Exception if any problem exists in file creation and writing
+     */
+    private void transferToFile(Response response, File file) throws Exception {
+        long startTime = System.nanoTime();
+        long position = 0;
+        try (ReadableByteChannel contentChannel = Channels.newChannel(response.getContentStream());
+             FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long transferred;
+            //a blocking content channel transfers nothing only at the end of content
+            while ((transferred = fileChannel.transferFrom(contentChannel, position, TRANSFER_SIZE)) > 0) {
+                position += transferred;
+            }
+        } catch (IOException e) {
+            throw new Exception("Fail to save output");
+        }
+        response.setOutputRate(calculateTransferRate(position, System.nanoTime() - startTime));
+    }
+
+    /**
+     * Calculates transfer rate of the specified number of bytes in the specified time.
+     *
+     * @param bytes        number of transferred bytes
+     * @param elapsedNanos transfer time in nanos
+     * @return transfer rate text
+     */
+    private String calculateTransferRate(long bytes, long elapsedNanos) {
+        double bytesPerSecond = elapsedNanos > 0 ? bytes * 1e9 / elapsedNanos : 0;
+        if (bytesPerSecond >= 1024 * 1024) {
+            return String.format("%.1f MB/s", bytesPerSecond / (1024 * 1024));
+        } else if (bytesPerSecond >= 1024) {
+            return String.format("%.1f KB/s", bytesPerSecond / 1024);
+        }
+        return String.format("%.0f B/s", bytesPerSecond);
+    }
+}
@@ -0,0 +1,299 @@
+package jurl;
+
+import httpclient.entity.Request;
+import httpclient.entity.Response;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Executes the requests of a fire command concurrently. Each fire command runs in its own scope: responses are
+ * delivered to the output handler on the calling thread, either in completion order or in the original order of the
+ * requests, and the first failure or a user cancel cancels every request of the scope.
+ * <p>
+ * Requests run either on a bounded pool of platform threads, or on one virtual thread per request when the runtime
+ * supports virtual threads (Java 21+), bounded by a cap of requests in flight, or on the non-blocking transport whose
+ * single selector thread drives every request in flight.
+ */
+public class FireExecutor {
+    /**
+     * default maximum number of requests in flight in virtual threads mode
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    /**
+     * request executor that sends each request
+     */
+    private final RequestExecutor requestExecutor;
+    /**
+     * file output handler of responses
+     */
+    private final FileOutputHandler fileOutputHandler;
+    /**
+     * output handler that responses are delivered to
+     */
+    private final OutputHandler outputHandler;
+    /**
+     * history that responses are recorded in
+     */
+    private final ResponseHistory responseHistory;
+    /**
+     * executions of all running fire scopes
+     */
+    private final Set<Future<Response>> runningExecutions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor of fire executor.
+     *
+     * @param requestExecutor   request executor that sends each request
+     * @param fileOutputHandler file output handler of responses
+     * @param outputHandler     output handler that responses are delivered to
+     * @param responseHistory   history that responses are recorded in
+     */
+    public FireExecutor(RequestExecutor requestExecutor, FileOutputHandler fileOutputHandler, OutputHandler outputHandler,
+                        ResponseHistory responseHistory) {
+        this.requestExecutor = requestExecutor;
+        this.fileOutputHandler = fileOutputHandler;
+        this.outputHandler = outputHandler;
+        this.responseHistory = responseHistory;
+    }
+
+    /**
+     * Executes the requests using at most the specified number of concurrent platform threads and delivers their
+     * responses to the output handler.
+     *
+     * @param requests        requests to execute
+     * @param parallelism     maximum number of requests in flight
+     * @param completionOrder {@code true} to deliver responses as they complete, {@code false} to deliver them in
+     *                        the order of requests
+     * @throws Exception if any request execution fails or the fire is cancelled
+     */
+    public void fire(List<Request> requests, int parallelism, boolean completionOrder) throws Exception {
+        fire(requests, parallelism, completionOrder, false);
+    }
+
+    /**
+     * Executes the requests with at most the specified number of requests in flight and delivers their responses to
+     * the output handler. If a request fails or the fire is cancelled, remaining requests are cancelled and the
+     * failure is thrown.
+     *
+     * @param requests        requests to execute
+     * @param maxInFlight     maximum number of requests in flight
+     * @param completionOrder {@code true} to deliver responses as they complete, {@code false} to deliver them in
+     *                        the order of requests
+     * @param virtualThreads  {@code true} to run each request on a virtual thread if the runtime supports it
+     * @throws Exception if any request execution fails or the fire is cancelled
+     */
+    public void fire(List<Request> requests, int maxInFlight, boolean completionOrder, boolean virtualThreads) throws Exception {
+        ExecutorService executorService = virtualThreads ? newVirtualThreadExecutor() : null;
+        //without virtual threads, in flight requests are bounded by the pool size, otherwise by a semaphore
+        Semaphore inFlight = executorService != null ? new Semaphore(maxInFlight) : null;
+        if (executorService == null) {
+            executorService = newPlatformThreadExecutor(Math.min(maxInFlight, Math.max(requests.size(), 1)));
+        }
+        CompletionService<Response> completionService = new ExecutorCompletionService<>(executorService);
+        Map<Future<Response>, Integer> futureIndexes = new HashMap<>();
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                Request request = requests.get(i);
+                Future<Response> future = completionService.submit(new Callable<Response>() {
+                    @Override
+                    public Response call() throws Exception {
+                        if (inFlight != null) {
+                            inFlight.acquire();
+                        }
+                        try {
+                            //only responses written to output file are streamed, as they are consumed here and
+                            //do not hold connections until delivery
+                            boolean streaming = request.isOutput() && outputHandler.isStreamingOutput();
+                            Response response = requestExecutor.executeRequest(request, streaming);
+                            responseHistory.record(request, response);
+                            fileOutputHandler.handleFileOutput(request, response);
+                            return response;
+                        } finally {
+                            if (inFlight != null) {
+                                inFlight.release();
+                            }
+                        }
+                    }
+                });
+                futureIndexes.put(future, i);
+                runningExecutions.add(future);
+            }
+            Response[] responses = new Response[requests.size()];
+            int nextIndex = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                Future<Response> future = completionService.take();
+                runningExecutions.remove(future);
+                int index = futureIndexes.get(future);
+                Response response = getResponse(future);
+                if (completionOrder) {
+                    outputHandler.handleOutput(requests.get(index), response);
+                } else {
+                    //deliver every response whose previous responses all have been delivered
+                    responses[index] = response;
+                    while (nextIndex < responses.length && responses[nextIndex] != null) {
+                        outputHandler.handleOutput(requests.get(nextIndex), responses[nextIndex]);
+                        responses[nextIndex] = null;
+                        nextIndex++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Fire interrupted");
+        } finally {
+            //closing the scope: nothing of this fire keeps running after it returns
+            for (Future<Response> future : futureIndexes.keySet()) {
+                future.cancel(true);
+                runningExecutions.remove(future);
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes the requests by the non-blocking transport of the request executor, with at most the specified number
+     * of requests in flight, and delivers their responses to the output handler. The calling thread only submits
+     * requests and delivers responses, while a single selector thread drives all plain http requests in flight.
+     * Requests that the non-blocking transport can't send run on a bounded pool of platform threads. If a request
+     * fails or the fire is cancelled, remaining requests are cancelled and the failure is thrown.
+     *
+     * @param requests        requests to execute
+     * @param maxInFlight     maximum number of requests in flight
+     * @param completionOrder {@code true} to deliver responses as they complete, {@code false} to deliver them in
+     *                        the order of requests
+     * @throws Exception if any request execution fails or the fire is cancelled
+     */
+    public void fireNonBlocking(List<Request> requests, int maxInFlight, boolean completionOrder) throws Exception {
+        ExecutorService fallbackExecutor = newPlatformThreadExecutor(Math.min(maxInFlight, Math.max(requests.size(), 1)));
+        BlockingQueue<CompletableFuture<Response>> completedExecutions = new LinkedBlockingQueue<>();
+        Map<Future<Response>, Integer> futureIndexes = new HashMap<>();
+        try {
+            Response[] responses = new Response[requests.size()];
+            int nextIndex = 0;
+            int submitted = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                //requests are submitted as earlier ones complete, keeping at most max in flight
+                while (submitted < requests.size() && submitted - i < maxInFlight) {
+                    CompletableFuture<Response> future = requestExecutor.executeRequestAsync(requests.get(submitted), fallbackExecutor);
+                    futureIndexes.put(future, submitted);
+                    runningExecutions.add(future);
+                    future.whenComplete(new BiConsumer<Response, Throwable>() {
+                        @Override
+                        public void accept(Response response, Throwable failure) {
+                            completedExecutions.add(future);
+                        }
+                    });
+                    submitted++;
+                }
+                CompletableFuture<Response> future = completedExecutions.take();
+                runningExecutions.remove(future);
+                int index = futureIndexes.get(future);
+                Response response = getResponse(future);
+                responseHistory.record(requests.get(index), response);
+                fileOutputHandler.handleFileOutput(requests.get(index), response);
+                if (completionOrder) {
+                    outputHandler.handleOutput(requests.get(index), response);
+                } else {
+                    //deliver every response whose previous responses all have been delivered
+                    responses[index] = response;
+                    while (nextIndex < responses.length && responses[nextIndex] != null) {
+                        outputHandler.handleOutput(requests.get(nextIndex), responses[nextIndex]);
+                        responses[nextIndex] = null;
+                        nextIndex++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Fire interrupted");
+        } finally {
+            //closing the scope: nothing of this fire keeps running after it returns
+            for (Future<Response> future : futureIndexes.keySet()) {
+                future.cancel(true);
+                runningExecutions.remove(future);
+            }
+            fallbackExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cancels all running fire scopes. Requests not started yet are never sent, and running ones are interrupted.
+     */
+    public void cancel() {
+        for (Future<Response> future : runningExecutions) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Gets the response of a completed execution, or throws the execution failure.
+     *
+     * @param future completed execution
+     * @return response of the execution
+     * @throws Exception the execution failure
+     */
+    private Response getResponse(Future<Response> future) throws Exception {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            throw new Exception("Fire cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if the runtime supports virtual threads.
+     *
+     * @return {@code true} if virtual threads are supported
+     */
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an executor service that runs each task on a new virtual thread. The executor is looked up reflectively,
+     * so the code still runs on runtimes older than Java 21.
+     *
+     * @return virtual thread per task executor, or {@code null} if the runtime does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a fixed size pool of daemon platform threads.
+     *
+     * @param size number of threads
+     * @return created executor service
+     */
+    private static ExecutorService newPlatformThreadExecutor(int size) {
+        return Executors.newFixedThreadPool(size, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jurl-fire");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
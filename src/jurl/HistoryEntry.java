@@ -0,0 +1,227 @@
+package jurl;
+
+import httpclient.entity.Request;
+import httpclient.entity.ResponseContentType;
+
+import java.util.Map;
+
+/**
+ * A recorded response in response history. It keeps the request and response metadata, and refers to the response
+ * body by the hash of its content, so identical bodies of different entries are stored once.
+ */
+public class HistoryEntry {
+    /**
+     * identifier of the entry, which is the offset of its record in history log
+     */
+    private final long id;
+    /**
+     * time in millis that the response was recorded at
+     */
+    private final long recordedAt;
+    /**
+     * sent request
+     */
+    private final Request request;
+    /**
+     * response status code
+     */
+    private final int statusCode;
+    /**
+     * response status message
+     */
+    private final String statusMessage;
+    /**
+     * response content type
+     */
+    private final ResponseContentType contentType;
+    /**
+     * response header name values
+     */
+    private final Map<String, String> header;
+    /**
+     * request execution time in nanos, or -1 if not measured
+     */
+    private final long timeNanos;
+    /**
+     * SHA-256 hash of response body in hex, or null if the body was not recorded completely
+     */
+    private final String contentHash;
+    /**
+     * length of response body in bytes
+     */
+    private final long contentLength;
+    /**
+     * number of response body bytes as they were received, before content decoding
+     */
+    private final long wireBytes;
+    /**
+     * number of response head bytes as they were received, or -1 if not counted
+     */
+    private final long headerBytes;
+    /**
+     * content coding that response body was decoded from, or null if it was not encoded
+     */
+    private final String contentEncoding;
+
+    /**
+     * Constructor of history entry.
+     *
+     * @param id              identifier of the entry
+     * @param recordedAt      time in millis that the response was recorded at
+     * @param request         sent request
+     * @param statusCode      response status code
+     * @param statusMessage   response status message
+     * @param contentType     response content type
+     * @param header          response header name values
+     * @param timeNanos       request execution time in nanos, or -1 if not measured
+     * @param contentHash     hash of response body, or null if the body was not recorded completely
+     * @param contentLength   length of response body in bytes
+     * @param wireBytes       number of response body bytes as they were received
+     * @param headerBytes     number of response head bytes as they were received, or -1 if not counted
+     * @param contentEncoding content coding that response body was decoded from, or null if it was not encoded
+     */
+    HistoryEntry(long id, long recordedAt, Request request, int statusCode, String statusMessage, ResponseContentType contentType,
+                 Map<String, String> header, long timeNanos, String contentHash, long contentLength, long wireBytes,
+                 long headerBytes, String contentEncoding) {
+        this.id = id;
+        this.recordedAt = recordedAt;
+        this.request = request;
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.contentType = contentType;
+        this.header = header;
+        this.timeNanos = timeNanos;
+        this.contentHash = contentHash;
+        this.contentLength = contentLength;
+        this.wireBytes = wireBytes;
+        this.headerBytes = headerBytes;
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Gets identifier of the entry.
+     *
+     * @return identifier of the entry
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets time in millis that the response was recorded at.
+     *
+     * @return recording time in millis
+     */
+    public long getRecordedAt() {
+        return recordedAt;
+    }
+
+    /**
+     * Gets sent request.
+     *
+     * @return sent request
+     */
+    public Request getRequest() {
+        return request;
+    }
+
+    /**
+     * Gets response status code.
+     *
+     * @return response status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets response status message.
+     *
+     * @return response status message
+     */
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * Gets response content type.
+     *
+     * @return response content type
+     */
+    public ResponseContentType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Gets response header name values.
+     *
+     * @return response header name values
+     */
+    public Map<String, String> getHeader() {
+        return header;
+    }
+
+    /**
+     * Gets request execution time.
+     *
+     * @return request execution time in nanos, or -1 if not measured
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Gets SHA-256 hash of response body in hex.
+     *
+     * @return hash of response body, or null if the body was not recorded completely
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Gets length of response body in bytes.
+     *
+     * @return length of response body
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Gets number of response body bytes as they were received, before content decoding.
+     *
+     * @return number of response body bytes on wire
+     */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    /**
+     * Gets number of response head bytes as they were received.
+     *
+     * @return number of response head bytes, or -1 if not counted
+     */
+    public long getHeaderBytes() {
+        return headerBytes;
+    }
+
+    /**
+     * Gets content coding that response body was decoded from.
+     *
+     * @return content coding, or null if response body was not encoded
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Returns print string of the entry used in command line presentation.
+     *
+     * @return print string
+     */
+    public String getPrintString() {
+        return String.format("%tF %<tT | %s %s | %d %s | %d B", recordedAt, request.getRequestMethod(),
+                request.getDestinationAddress(), statusCode, statusMessage, contentLength);
+    }
+}
@@ -0,0 +1,232 @@
+package jurl;
+
+import httpclient.entity.Request;
+import httpclient.entity.Response;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content stream of a streamed response that is recorded in response history. Content read by the consumer is hashed
+ * and compressed to a temporary body file, so it is never kept in memory. When content ends, the body file is stored
+ * by its hash and the entry is appended to history. If the stream is closed before content ends, or content is larger
+ * than the maximum body size, the entry is recorded without body. Content that is larger than the maximum body size is
+ * neither hashed nor compressed after it reaches that size, or at all if its content length header is larger.
+ */
+class HistoryRecordingInputStream extends FilterInputStream {
+    /**
+     * history to record in
+     */
+    private final ResponseHistory responseHistory;
+    /**
+     * sent request
+     */
+    private final Request request;
+    /**
+     * received response
+     */
+    private final Response response;
+    /**
+     * digest of content read so far
+     */
+    private final MessageDigest digest = ResponseHistory.newDigest();
+    /**
+     * maximum number of bytes of a recorded body
+     */
+    private final long maxBodyBytes;
+    /**
+     * temporary file of compressed content, or null if the body is not recorded
+     */
+    private File tempFile;
+    /**
+     * compressed output of the temporary file, or null if the body is not recorded
+     */
+    private OutputStream bodyOutputStream;
+    /**
+     * number of bytes read
+     */
+    private long count;
+    /**
+     * determines if the entry has been recorded
+     */
+    private boolean recorded;
+
+    /**
+     * Constructor of history recording input stream.
+     *
+     * @param inputStream     response content stream
+     * @param responseHistory history to record in
+     * @param request         sent request
+     * @param response        received response
+     * @param maxBodyBytes    maximum number of bytes of a recorded body
+     * @throws IOException if the temporary body file can't be created
+     */
+    HistoryRecordingInputStream(InputStream inputStream, ResponseHistory responseHistory, Request request, Response response,
+                                long maxBodyBytes) throws IOException {
+        super(inputStream);
+        this.responseHistory = responseHistory;
+        this.request = request;
+        this.response = response;
+        this.maxBodyBytes = maxBodyBytes;
+        if (getContentLength(response) <= maxBodyBytes) {
+            this.tempFile = responseHistory.createTempBodyFile();
+            this.bodyOutputStream = new GZIPOutputStream(new FileOutputStream(tempFile), 65536);
+        }
+    }
+
+    /**
+     * Gets the content length header of a response.
+     *
+     * @param response received response
+     * @return content length, or -1 if it is not known
+     */
+    private static long getContentLength(Response response) {
+        if (response.getHeader() != null) {
+            for (Map.Entry<String, String> header : response.getHeader().entrySet()) {
+                if ("Content-Length".equalsIgnoreCase(header.getKey())) {
+                    try {
+                        return Long.parseLong(header.getValue().trim());
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a byte of content.
+     *
+     * @return the byte, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading or recording
+     */
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read == -1) {
+            record(true);
+        } else {
+            count++;
+            if (bodyOutputStream != null && count > maxBodyBytes) {
+                discardBody();
+            } else if (bodyOutputStream != null) {
+                digest.update((byte) read);
+                bodyOutputStream.write(read);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Reads some bytes of content into the buffer.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading or recording
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read == -1) {
+            record(true);
+        } else if (read > 0) {
+            count += read;
+            if (bodyOutputStream != null && count > maxBodyBytes) {
+                discardBody();
+            } else if (bodyOutputStream != null) {
+                digest.update(buffer, offset, read);
+                bodyOutputStream.write(buffer, offset, read);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Skips some bytes of content by reading them, so that they are recorded.
+     *
+     * @param n number of bytes to skip
+     * @return number of skipped bytes
+     * @throws IOException if any problem occurs in reading or recording
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    /**
+     * Mark is not supported, as content is read only once.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Closes content stream, recording the entry without body if content has not ended.
+     *
+     * @throws IOException if any problem occurs in closing or recording
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            record(false);
+        }
+    }
+
+    /**
+     * Stops recording the body, which exceeded the maximum body size, and deletes its temporary file.
+     *
+     * @throws IOException if the temporary file can't be closed
+     */
+    private void discardBody() throws IOException {
+        try {
+            bodyOutputStream.close();
+        } finally {
+            bodyOutputStream = null;
+            tempFile.delete();
+            tempFile = null;
+        }
+    }
+
+    /**
+     * Records the entry once, with its body if content has ended and the body was recorded.
+     *
+     * @param ended {@code true} if content has ended
+     * @throws IOException if any problem occurs in recording
+     */
+    private void record(boolean ended) throws IOException {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+        String contentHash = null;
+        if (bodyOutputStream != null) {
+            bodyOutputStream.close();
+            if (ended) {
+                contentHash = ResponseHistory.toHex(digest.digest());
+                responseHistory.storeBodyFile(contentHash, tempFile);
+            } else {
+                tempFile.delete();
+            }
+        }
+        responseHistory.appendEntry(request, response, contentHash, count);
+    }
+}
@@ -0,0 +1,497 @@
+package jurl;
+
+import jurl.transport.TransportRequest;
+import jurl.transport.TransportResponse;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Client side http cache. Responses of GET and HEAD requests are stored in cache directory, in a file per method and url
+ * that keeps a response per values of the request headers named by its vary header. A fresh stored response, by its
+ * {@code Cache-Control} max age or {@code Expires} header, is used without contacting the server, and a stale one is
+ * revalidated by {@code If-None-Match} and {@code If-Modified-Since} headers, so a not modified response only refreshes
+ * it. Requests with other methods invalidate the stored responses of their url.
+ */
+public class HttpCache {
+    /**
+     * cache directory name in working directory
+     */
+    public static final String DIRECTORY_NAME = "cache";
+    /**
+     * default maximum length of a stored response content
+     */
+    private static final int DEFAULT_MAX_BODY_BYTES = 16 << 20;
+    /**
+     * maximum number of stored responses with different vary values per method and url
+     */
+    private static final int MAX_VARIANTS = 4;
+    /**
+     * file version written at start of every cache file, to be able to change the layout later
+     */
+    private static final int VERSION = 1;
+    /**
+     * status codes of responses that may be stored
+     */
+    private static final Set<Integer> CACHEABLE_STATUS_CODES = new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501));
+    /**
+     * response headers that describe the connection or message framing, which are not updated by a not modified response
+     */
+    private static final Set<String> UNUPDATED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        UNUPDATED_HEADERS.addAll(Arrays.asList("Connection", "Keep-Alive", "Content-Length", "Transfer-Encoding", "Content-Encoding"));
+    }
+
+    /**
+     * cache directory
+     */
+    private final File directory;
+    /**
+     * maximum length of a stored response content
+     */
+    private final int maxBodyBytes;
+
+    /**
+     * Constructor of http cache that keeps its files in cache directory of working directory, with response content
+     * length limit of {@code jurl.cache.maxBodyBytes} system property.
+     */
+    public HttpCache() {
+        this(new File(DIRECTORY_NAME), Integer.getInteger("jurl.cache.maxBodyBytes", DEFAULT_MAX_BODY_BYTES));
+    }
+
+    /**
+     * Constructor of http cache.
+     *
+     * @param directory    directory of cache files
+     * @param maxBodyBytes maximum length of a stored response content
+     */
+    public HttpCache(File directory, int maxBodyBytes) {
+        this.directory = directory;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Determines if the response of a request may be served from or stored in cache. Only GET and HEAD requests without
+     * body are, unless they forbid storing.
+     *
+     * @param request request to send
+     * @return {@code true} if the request may be served from cache
+     */
+    boolean isCacheable(TransportRequest request) {
+        if (!isSafeMethod(request.getMethod()) || request.getBody() != null) {
+            return false;
+        }
+        return !getDirectives(getHeader(request.getHeaders(), "Cache-Control")).containsKey("no-store");
+    }
+
+    /**
+     * Finds the stored response of a request that matches the values of its vary headers. Conditional requests made by
+     * the user are left to the server.
+     *
+     * @param request request to send
+     * @return stored response, or null if there is not one
+     * @throws IOException if cache file can't be read
+     */
+    synchronized CachedResponse lookup(TransportRequest request) throws IOException {
+        if (!isCacheable(request) || getHeader(request.getHeaders(), "If-None-Match") != null
+                || getHeader(request.getHeaders(), "If-Modified-Since") != null) {
+            return null;
+        }
+        for (CachedResponse cachedResponse : readVariants(getCacheFile(request.getMethod(), request))) {
+            if (matches(cachedResponse, request)) {
+                return cachedResponse;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines if a stored response can be used without revalidation, which is when its age is less than its
+     * freshness lifetime and the max age that request allows.
+     *
+     * @param cachedResponse stored response
+     * @param request        request to send
+     * @param now            current time in millis
+     * @return {@code true} if the stored response is fresh
+     */
+    boolean isFresh(CachedResponse cachedResponse, TransportRequest request, long now) {
+        Map<String, String> requestDirectives = getDirectives(getHeader(request.getHeaders(), "Cache-Control"));
+        if (requestDirectives.containsKey("no-cache")) {
+            return false;
+        }
+        long age = getAge(cachedResponse, now);
+        long requestMaxAge = parseSeconds(requestDirectives.get("max-age"));
+        if (requestMaxAge >= 0 && age > requestMaxAge * 1000) {
+            return false;
+        }
+        return age < getFreshnessLifetime(cachedResponse.getHeaders());
+    }
+
+    /**
+     * Adds validators of a stale stored response to the request, so the server can answer not modified.
+     *
+     * @param cachedResponse stale stored response
+     * @param request        request to send
+     * @return {@code true} if any validator was added
+     */
+    boolean addValidators(CachedResponse cachedResponse, TransportRequest request) {
+        boolean added = false;
+        String eTag = getHeader(cachedResponse.getHeaders(), "ETag");
+        if (eTag != null) {
+            request.setHeader("If-None-Match", eTag);
+            added = true;
+        }
+        String lastModified = getHeader(cachedResponse.getHeaders(), "Last-Modified");
+        if (lastModified != null) {
+            request.setHeader("If-Modified-Since", lastModified);
+            added = true;
+        }
+        return added;
+    }
+
+    /**
+     * Refreshes a stored response by the headers of a not modified response and stores it again.
+     *
+     * @param cachedResponse revalidated stored response
+     * @param request        sent request
+     * @param notModified    not modified response
+     * @param requestTime    time in millis that the request was sent at
+     * @param responseTime   time in millis that the response was received at
+     * @return refreshed stored response
+     * @throws IOException if cache file can't be written
+     */
+    CachedResponse update(CachedResponse cachedResponse, TransportRequest request, TransportResponse notModified,
+                          long requestTime, long responseTime) throws IOException {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(cachedResponse.getHeaders());
+        for (Map.Entry<String, String> header : notModified.getHeaders().entrySet()) {
+            if (!UNUPDATED_HEADERS.contains(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        CachedResponse updatedResponse = new CachedResponse(cachedResponse.getVaryValues(), cachedResponse.getStatusCode(),
+                cachedResponse.getStatusMessage(), headers, cachedResponse.getBody(), requestTime, responseTime);
+        store(request, updatedResponse);
+        return updatedResponse;
+    }
+
+    /**
+     * Determines if the response of a request may be stored. It may be if the request is cacheable and the response
+     * status is cacheable, it does not forbid storing, does not vary by everything, and has either an explicit freshness
+     * lifetime or a validator.
+     *
+     * @param request  sent request
+     * @param response received response
+     * @return {@code true} if the response may be stored
+     */
+    boolean isStorable(TransportRequest request, TransportResponse response) {
+        if (!isCacheable(request) || !CACHEABLE_STATUS_CODES.contains(response.getStatusCode())) {
+            return false;
+        }
+        Map<String, String> directives = getDirectives(response.getHeader("Cache-Control"));
+        if (directives.containsKey("no-store") || "*".equals(response.getHeader("Vary"))) {
+            return false;
+        }
+        return directives.containsKey("max-age") || response.getHeader("Expires") != null
+                || response.getHeader("ETag") != null || response.getHeader("Last-Modified") != null;
+    }
+
+    /**
+     * Gets maximum length of a stored response content, longer contents are not stored.
+     *
+     * @return maximum length of a stored response content
+     */
+    int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Stores a received response with its content.
+     *
+     * @param request      sent request
+     * @param response     received response
+     * @param body         response content
+     * @param requestTime  time in millis that the request was sent at
+     * @param responseTime time in millis that the response was received at
+     * @throws IOException if cache file can't be written
+     */
+    void store(TransportRequest request, TransportResponse response, byte[] body, long requestTime, long responseTime) throws IOException {
+        Map<String, String> varyValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String vary = response.getHeader("Vary");
+        if (vary != null) {
+            for (String name : vary.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    String value = getHeader(request.getHeaders(), name.trim());
+                    varyValues.put(name.trim(), value == null ? "" : value);
+                }
+            }
+        }
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.getHeaders());
+        store(request, new CachedResponse(varyValues, response.getStatusCode(), response.getStatusMessage(), headers, body,
+                requestTime, responseTime));
+    }
+
+    /**
+     * Removes stored responses of the url of a request with an unsafe method, as it may change the resource.
+     *
+     * @param request request to send
+     * @throws IOException if cache files can't be removed
+     */
+    synchronized void invalidate(TransportRequest request) throws IOException {
+        if (!isSafeMethod(request.getMethod())) {
+            Files.deleteIfExists(getCacheFile("GET", request).toPath());
+            Files.deleteIfExists(getCacheFile("HEAD", request).toPath());
+        }
+    }
+
+    /**
+     * Stores a response in the cache file of its method and url, replacing the response with the same vary values and
+     * the oldest one if there are too many.
+     *
+     * @param request        sent request
+     * @param cachedResponse response to store
+     * @throws IOException if cache file can't be written
+     */
+    private synchronized void store(TransportRequest request, CachedResponse cachedResponse) throws IOException {
+        File cacheFile = getCacheFile(request.getMethod(), request);
+        List<CachedResponse> variants = readVariants(cacheFile);
+        Iterator<CachedResponse> iterator = variants.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getVaryValues().equals(cachedResponse.getVaryValues())) {
+                iterator.remove();
+            }
+        }
+        variants.add(0, cachedResponse);
+        while (variants.size() > MAX_VARIANTS) {
+            variants.remove(variants.size() - 1);
+        }
+        //writing to a temporary file and moving it, so other processes never read a partial file
+        Files.createDirectories(directory.toPath());
+        File tempFile = File.createTempFile("cache", ".tmp", directory);
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile), 65536)))) {
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(variants.size());
+                for (CachedResponse variant : variants) {
+                    RequestCodec.writeMap(outputStream, variant.getVaryValues());
+                    outputStream.writeInt(variant.getStatusCode());
+                    RequestCodec.writeString(outputStream, variant.getStatusMessage());
+                    RequestCodec.writeMap(outputStream, variant.getHeaders());
+                    outputStream.writeLong(variant.getRequestTime());
+                    outputStream.writeLong(variant.getResponseTime());
+                    outputStream.writeInt(variant.getBody().length);
+                    outputStream.write(variant.getBody());
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Reads all stored responses of a cache file.
+     *
+     * @param cacheFile cache file of a method and url
+     * @return stored responses, the newest first, or an empty list if there is no valid cache file
+     * @throws IOException if cache file can't be read
+     */
+    private List<CachedResponse> readVariants(File cacheFile) throws IOException {
+        List<CachedResponse> variants = new ArrayList<>();
+        if (!cacheFile.exists()) {
+            return variants;
+        }
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(cacheFile), 65536)))) {
+            if (inputStream.readInt() != VERSION) {
+                return variants;
+            }
+            int count = inputStream.readInt();
+            for (int i = 0; i < count; i++) {
+                Map<String, String> varyValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                varyValues.putAll(RequestCodec.readMap(inputStream));
+                int statusCode = inputStream.readInt();
+                String statusMessage = RequestCodec.readString(inputStream);
+                Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                headers.putAll(RequestCodec.readMap(inputStream));
+                long requestTime = inputStream.readLong();
+                long responseTime = inputStream.readLong();
+                byte[] body = new byte[inputStream.readInt()];
+                inputStream.readFully(body);
+                variants.add(new CachedResponse(varyValues, statusCode, statusMessage, headers, body, requestTime, responseTime));
+            }
+        } catch (EOFException e) {
+            //a damaged cache file is ignored, and replaced by the next stored response
+            variants.clear();
+        }
+        return variants;
+    }
+
+    /**
+     * Determines if a stored response was received for the same values of its vary headers as the request has.
+     *
+     * @param cachedResponse stored response
+     * @param request        request to send
+     * @return {@code true} if vary values match
+     */
+    private boolean matches(CachedResponse cachedResponse, TransportRequest request) {
+        for (Map.Entry<String, String> varyValue : cachedResponse.getVaryValues().entrySet()) {
+            String value = getHeader(request.getHeaders(), varyValue.getKey());
+            if (!varyValue.getValue().equals(value == null ? "" : value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the cache file of a method and the url of a request, named by the hash of them.
+     *
+     * @param method  request method
+     * @param request request
+     * @return cache file
+     */
+    private File getCacheFile(String method, TransportRequest request) {
+        String key = method + " " + request.getUrl();
+        return new File(directory, ResponseHistory.toHex(ResponseHistory.newDigest().digest(key.getBytes(StandardCharsets.UTF_8))) + ".cache");
+    }
+
+    /**
+     * Calculates current age of a stored response, from its date and age headers and the time it was received.
+     *
+     * @param cachedResponse stored response
+     * @param now            current time in millis
+     * @return current age in millis
+     */
+    private long getAge(CachedResponse cachedResponse, long now) {
+        long date = parseDate(getHeader(cachedResponse.getHeaders(), "Date"));
+        long apparentAge = date < 0 ? 0 : Math.max(0, cachedResponse.getResponseTime() - date);
+        long ageValue = Math.max(0, parseSeconds(getHeader(cachedResponse.getHeaders(), "Age"))) * 1000;
+        long correctedAge = ageValue + (cachedResponse.getResponseTime() - cachedResponse.getRequestTime());
+        return Math.max(apparentAge, correctedAge) + (now - cachedResponse.getResponseTime());
+    }
+
+    /**
+     * Calculates freshness lifetime of a response, by its max age directive, its expires header, or a tenth of the time
+     * since it was last modified. A response that must be revalidated has no freshness lifetime.
+     *
+     * @param headers response header name values
+     * @return freshness lifetime in millis
+     */
+    private long getFreshnessLifetime(Map<String, String> headers) {
+        Map<String, String> directives = getDirectives(getHeader(headers, "Cache-Control"));
+        if (directives.containsKey("no-cache")) {
+            return 0;
+        }
+        long maxAge = parseSeconds(directives.get("max-age"));
+        if (maxAge >= 0) {
+            return maxAge * 1000;
+        }
+        long date = parseDate(getHeader(headers, "Date"));
+        String expiresValue = getHeader(headers, "Expires");
+        if (expiresValue != null) {
+            //an invalid expires date means the response is already expired
+            long expires = parseDate(expiresValue);
+            return expires < 0 || date < 0 ? 0 : Math.max(0, expires - date);
+        }
+        long lastModified = parseDate(getHeader(headers, "Last-Modified"));
+        if (lastModified >= 0 && date >= lastModified) {
+            return (date - lastModified) / 10;
+        }
+        return 0;
+    }
+
+    /**
+     * Determines if a method is safe, which means it does not change the resource and its response may be stored.
+     *
+     * @param method request method
+     * @return {@code true} for GET and HEAD methods
+     */
+    private static boolean isSafeMethod(String method) {
+        return method.equals("GET") || method.equals("HEAD");
+    }
+
+    /**
+     * Parses directives of a cache control header, with lower case names and unquoted values.
+     *
+     * @param cacheControl cache control header value, or null
+     * @return directive name values, with null values for directives without value
+     */
+    private static Map<String, String> getDirectives(String cacheControl) {
+        Map<String, String> directives = new HashMap<>();
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                int equalsIndex = directive.indexOf('=');
+                if (equalsIndex < 0) {
+                    directives.put(directive.trim().toLowerCase(), null);
+                } else {
+                    String value = directive.substring(equalsIndex + 1).trim();
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    directives.put(directive.substring(0, equalsIndex).trim().toLowerCase(), value);
+                }
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * Parses a number of seconds of a header or directive.
+     *
+     * @param value number of seconds, or null
+     * @return number of seconds, or -1 if it is absent or invalid
+     */
+    private static long parseSeconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses an http date.
+     *
+     * @param value http date, or null
+     * @return date in millis, or -1 if it is absent or invalid
+     */
+    private static long parseDate(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Finds a header value, ignoring case of header name.
+     *
+     * @param headers header name values
+     * @param name    header name
+     * @return header value, or null if not found
+     */
+    private static String getHeader(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,103 @@
+package jurl;
+
+import httpclient.entity.Response;
+import httpclient.util.JsonStreamValidator;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content stream of a json response that validates content as it is read and sets the validation result on the
+ * response when the content ends, so json content is validated without being kept.
+ */
+class JsonValidatingInputStream extends FilterInputStream {
+    /**
+     * response that content belongs to
+     */
+    private final Response response;
+    /**
+     * validator of content
+     */
+    private final JsonStreamValidator jsonStreamValidator = new JsonStreamValidator();
+
+    /**
+     * Constructor of json validating input stream.
+     *
+     * @param inputStream content stream of the transport
+     * @param response    response that content belongs to
+     */
+    JsonValidatingInputStream(InputStream inputStream, Response response) {
+        super(inputStream);
+        this.response = response;
+    }
+
+    /**
+     * Reads a byte of content and validates it.
+     *
+     * @return the byte, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read == -1) {
+            finish();
+        } else {
+            jsonStreamValidator.update(new byte[]{(byte) read}, 0, 1);
+        }
+        return read;
+    }
+
+    /**
+     * Reads some bytes of content into the buffer and validates them.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read == -1) {
+            finish();
+        } else {
+            jsonStreamValidator.update(buffer, offset, read);
+        }
+        return read;
+    }
+
+    /**
+     * Skipped content can't be validated, so skipping is not supported.
+     *
+     * @param n number of bytes to skip
+     * @return 0
+     */
+    @Override
+    public long skip(long n) {
+        return 0;
+    }
+
+    /**
+     * Mark is not supported, as content is validated only once.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Marks the end of content once and sets the validation result on the response.
+     */
+    private void finish() {
+        if (response.getJsonValid() == null) {
+            jsonStreamValidator.finish();
+            response.setJsonValid(jsonStreamValidator.isValid());
+            response.setJsonErrorOffset(jsonStreamValidator.getErrorOffset());
+        }
+    }
+}
@@ -3,7 +3,10 @@ package jurl;
 import httpclient.entity.Request;
 import httpclient.entity.RequestBodyType;
 import httpclient.entity.Response;
+import jurl.transport.HttpPipeline;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +36,18 @@ public class Jutl {
      * file output handler instance
      */
     FileOutputHandler fileOutputHandler = new FileOutputHandler();
+    /**
+     * fire executor instance for concurrent fire commands
+     */
+    FireExecutor fireExecutor;
+    /**
+     * history of received responses
+     */
+    ResponseHistory responseHistory = new ResponseHistory();
+    /**
+     * http cache used by fire commands with cache option
+     */
+    HttpCache httpCache = new HttpCache();
 
     /**
      * Constructor of the jurl that initializes the output handler.
@@ -41,6 +56,8 @@ public class Jutl {
      */
     public Jutl(OutputHandler outputHandler) {
         this.outputHandler = outputHandler;
+        this.fireExecutor = new FireExecutor(requestExecutor, fileOutputHandler, outputHandler, responseHistory);
+        this.requestExecutor.setUploadProgressHandler(outputHandler);
     }
 
     /**
@@ -50,6 +67,14 @@ public class Jutl {
      */
     public static void main(String[] args) {
         Jutl jutl = new Jutl(new ResponseCommandLineOutputHandler());
+        //aborting the command line cancels running fire commands
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                jutl.cancel();
+                jutl.flushHistory();
+            }
+        }));
         try {
             jutl.run(args);
         } catch (Exception e) {
@@ -102,9 +127,79 @@ public class Jutl {
             //in the case of firing list of requests of a group, find them in repository for each request
             //execute it using request executor and handle its file output and finally send them to show
             List<Request> requests = requestRepository.getRequests(command.getGroupName(), command.getFireRequestIndexList());
-            for (Request request : requests) {
-                Response response = requestExecutor.executeRequest(request);
-                fileOutputHandler.handleFileOutput(request, response);
+            if (command.isCache()) {
+                //in the case of cache option, responses are served from and stored in http cache during the fire
+                requestExecutor.setHttpCache(httpCache);
+            }
+            if (command.isHttp2()) {
+                //in the case of http2 option, all requests of the fire share HTTP/2 connections, saved requests are not changed
+                requestExecutor.setHttp2(true);
+            }
+            try {
+                if (command.isNonBlocking()) {
+                    //in the case of nio option, a single selector thread drives all requests with a cap of requests in flight
+                    int maxInFlight = command.getParallelism() > 0 ? command.getParallelism() : FireExecutor.DEFAULT_MAX_IN_FLIGHT;
+                    fireExecutor.fireNonBlocking(requests, maxInFlight, command.isCompletionOrder());
+                } else if (command.isVirtualThreads()) {
+                    //in the case of virtual option, execute each one on a virtual thread with a cap of requests in flight
+                    int maxInFlight = command.getParallelism() > 0 ? command.getParallelism() : FireExecutor.DEFAULT_MAX_IN_FLIGHT;
+                    fireExecutor.fire(requests, maxInFlight, command.isCompletionOrder(), true);
+                } else if (command.isPipeline()) {
+                    //in the case of pipeline option, pipeline them over HTTP/1.1 connections and show responses in order
+                    List<Response> responses = requestExecutor.executePipelined(requests,
+                            Integer.getInteger("jurl.pipeline.depth", HttpPipeline.DEFAULT_DEPTH));
+                    for (int i = 0; i < requests.size(); i++) {
+                        responseHistory.record(requests.get(i), responses.get(i));
+                        fileOutputHandler.handleFileOutput(requests.get(i), responses.get(i));
+                        outputHandler.handleOutput(requests.get(i), responses.get(i));
+                    }
+                } else if (command.getParallelism() > 1) {
+                    //in the case of parallel option, execute them concurrently using fire executor
+                    fireExecutor.fire(requests, command.getParallelism(), command.isCompletionOrder());
+                } else {
+                    for (Request request : requests) {
+                        Response response = requestExecutor.executeRequest(request, outputHandler.isStreamingOutput());
+                        responseHistory.record(request, response);
+                        fileOutputHandler.handleFileOutput(request, response);
+                        outputHandler.handleOutput(request, response);
+                    }
+                }
+            } finally {
+                requestExecutor.setHttpCache(null);
+                requestExecutor.setHttp2(false);
+            }
+            //HTTP/2 connections are kept by http client, which does not expose them, so pool stats would only show zeros
+            if (command.isPoolStats() && !command.isHttp2()) {
+                outputHandler.outputPoolStats(command.isNonBlocking() ? requestExecutor.getNonBlockingStats() : requestExecutor.getPoolStats());
+            }
+        } else if (command.isBench()) {
+            //in the case of bench, find the saved request or use the inline request and drive it using bench runner
+            Request request = command.getRequest();
+            if (command.getBenchRequestIndex() >= 0) {
+                request = requestRepository.getRequests(command.getGroupName(), Collections.singleton(command.getBenchRequestIndex())).get(0);
+            }
+            BenchResult benchResult = new BenchRunner(requestExecutor).run(request, command.getBenchDuration(),
+                    command.getBenchConcurrency(), command.getBenchRate());
+            outputHandler.outputBenchResult(request, benchResult);
+        } else if (command.isHistory()) {
+            //in the case of history, clear it, list its entries or show the recorded response of an entry
+            if (command.isHistoryClear()) {
+                responseHistory.clear();
+                outputHandler.outputHistory(Collections.<HistoryEntry>emptyList());
+                return;
+            }
+            List<HistoryEntry> entries = responseHistory.getEntries();
+            if (command.getHistoryEntryNumber() < 0) {
+                outputHandler.outputHistory(entries);
+            } else if (command.getHistoryEntryNumber() > entries.size()) {
+                throw new Exception("History entry " + command.getHistoryEntryNumber() + " not found");
+            } else {
+                HistoryEntry entry = entries.get(command.getHistoryEntryNumber() - 1);
+                Response response = responseHistory.getResponse(entry, outputHandler.isStreamingOutput());
+                //a recorded response is shown with its headers and is not written to output file again
+                Request request = entry.getRequest();
+                request.setOutput(false);
+                request.setShowHeaderResponse(true);
                 outputHandler.handleOutput(request, response);
             }
         } else if (command.isHelp()) {
@@ -114,17 +209,38 @@ public class Jutl {
             //in the case of a command that has save option, first save it using repository and then
             //execute it using request executor and handle its file output and finally send them to show
             requestRepository.save(command.getRequest().getGroupName(), command.getRequest());
-            Response response = requestExecutor.executeRequest(command.getRequest());
+            Response response = requestExecutor.executeRequest(command.getRequest(), outputHandler.isStreamingOutput());
+            responseHistory.record(command.getRequest(), response);
             fileOutputHandler.handleFileOutput(command.getRequest(), response);
             outputHandler.handleOutput(command.getRequest(), response);
         } else {
             //otherwise, execute the request using request executor and handle its file output and finally send them to show
-            Response response = requestExecutor.executeRequest(command.getRequest());
+            Response response = requestExecutor.executeRequest(command.getRequest(), outputHandler.isStreamingOutput());
+            responseHistory.record(command.getRequest(), response);
             fileOutputHandler.handleFileOutput(command.getRequest(), response);
             outputHandler.handleOutput(command.getRequest(), response);
         }
     }
 
+    /**
+     * Cancels running fire commands.
+     */
+    public void cancel() {
+        fireExecutor.cancel();
+    }
+
+    /**
+     * Spills response bodies of history kept in memory to files, so they are available to other processes. Failures
+     * are reported to standard error, as it is called when the process ends.
+     */
+    public void flushHistory() {
+        try {
+            responseHistory.flush();
+        } catch (IOException e) {
+            System.err.println("Can't save response history: " + e.getMessage());
+        }
+    }
+
     /**
      * Makes help result text based on supporting commands.
      *
@@ -142,13 +258,33 @@ public class Jutl {
                 "-d, --data <data>               HTTP POST data\n" +
                 "-j, --json                      Send message body as a json object\n" +
                 "--upload <file>                 Upload file\n" +
+                "--http2                         Send the request by HTTP/2 (ALPN for https, h2c upgrade for http)\n" +
+                "-v, --verbose                   Show DNS, connect, TLS, write, first byte and download times of the response\n" +
                 "Usage: jurl create <group_name>\n" +
                 "\tCreate a saved request group named <group_name>\n" +
                 "Usage: jurl list\n" +
                 "\tList all saved request groups\n" +
                 "Usage: jurl list <group_name>\n" +
                 "\tList all saved requests of <group_name>\n" +
-                "Usage: jurl fire <group_name> <request_num_1> [request_num_2...]\n" +
-                "\tExecutes saved request in <group_name> specified by numbers <request_num_1> [request_num_2...] one by one\n";
+                "Usage: jurl fire <group_name> <request_num_1> [request_num_2...] [--parallel <n>] [--virtual] [--order index|completion] [--stats] [--cache] [--http2] [--pipeline] [--nio]\n" +
+                "\tExecutes saved request in <group_name> specified by numbers <request_num_1> [request_num_2...] one by one\n" +
+                "\t--parallel executes at most <n> requests at the same time (connections per host are limited by jurl.pool.maxConnectionsPerRoute)\n" +
+                "\t--virtual executes each request on a virtual thread (Java 21+), at most <n> or " + FireExecutor.DEFAULT_MAX_IN_FLIGHT + " at the same time\n" +
+                "\t--order shows responses in requests order (index, default) or as they complete (completion)\n" +
+                "\t--stats shows connection pool hits, misses and evictions after execution, not shown with --http2\n" +
+                "\t--cache serves GET responses from cache/ while fresh by Cache-Control or Expires, revalidates stale ones by\n" +
+                "\tETag or Last-Modified and stores new ones (content up to jurl.cache.maxBodyBytes)\n" +
+                "\t--http2 sends all requests by HTTP/2, multiplexing concurrent requests to an origin on one connection\n" +
+                "\t--pipeline writes consecutive GET, PUT and DELETE requests to a host on one HTTP/1.1 connection before\n" +
+                "\treading their responses (at most jurl.pipeline.depth ahead), falling back to one by one if the server closes it\n" +
+                "\t--nio drives all plain http requests from a single selector thread, at most <n> or " + FireExecutor.DEFAULT_MAX_IN_FLIGHT + " in flight\n" +
+                "\t(connections per host are limited by jurl.nio.maxConnectionsPerRoute), https requests run on threads\n" +
+                "Usage: jurl bench <group_name> <request_num> [--duration <seconds>] [--concurrency <n>] [--rate <requests_per_second>]\n" +
+                "Usage: jurl bench <url> [options...] [--duration <seconds>] [--concurrency <n>] [--rate <requests_per_second>]\n" +
+                "\tDrives a saved or inline request for <seconds> (default 10) using <n> workers (default 1), optionally at a\n" +
+                "\ttarget rate, and reports throughput, error rate and latency percentiles\n" +
+                "Usage: jurl history [<entry_num> | clear]\n" +
+                "\tLists recorded responses, shows the recorded response <entry_num> or clears history\n" +
+                "\t(bodies are kept in memory up to jurl.history.maxEntries and jurl.history.maxBytes, then in history/bodies)\n";
     }
 }
@@ -0,0 +1,163 @@
+package jurl;
+
+/**
+ * A log-linear histogram of latency values in microseconds, recorded the way HdrHistogram does: values are grouped in
+ * power of two ranges and each range is split into equal sub buckets, so any recorded value is kept with about 1.5%
+ * precision in a fixed amount of memory. A histogram is not thread safe; each recording thread keeps its own histogram
+ * and histograms are merged using {@link #add(LatencyHistogram)}.
+ */
+public class LatencyHistogram {
+    /**
+     * number of bits of sub bucket index
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+    /**
+     * number of sub buckets of the first range
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * number of sub buckets of each next range
+     */
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    /**
+     * number of power of two ranges after the first one, enough for values up to several days in microseconds
+     */
+    private static final int RANGE_COUNT = 32;
+    /**
+     * count of values of each bucket
+     */
+    private final long[] counts = new long[SUB_BUCKET_COUNT + RANGE_COUNT * SUB_BUCKET_HALF_COUNT];
+    /**
+     * total number of recorded values
+     */
+    private long totalCount;
+    /**
+     * sum of recorded values
+     */
+    private long totalSum;
+    /**
+     * minimum recorded value
+     */
+    private long min = Long.MAX_VALUE;
+    /**
+     * maximum recorded value
+     */
+    private long max;
+
+    /**
+     * Records a value.
+     *
+     * @param value value in microseconds, negative values are recorded as zero
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[Math.min(bucketIndex(value), counts.length - 1)]++;
+        totalCount++;
+        totalSum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values recorded in another histogram to this histogram.
+     *
+     * @param other histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalSum += other.totalSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Gets the value at the specified percentile. The result is the highest value that is equivalent to the found
+     * bucket, so percentiles are never under reported.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return value at the percentile in microseconds, or 0 if no value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets total number of recorded values.
+     *
+     * @return total number of recorded values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets mean of recorded values.
+     *
+     * @return mean in microseconds, or 0 if no value was recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) totalSum / totalCount;
+    }
+
+    /**
+     * Gets minimum recorded value.
+     *
+     * @return minimum in microseconds, or 0 if no value was recorded
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * Gets maximum recorded value.
+     *
+     * @return maximum in microseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Finds bucket index of a value.
+     *
+     * @param value non negative value
+     * @return bucket index
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        //shift that brings the value into [SUB_BUCKET_HALF_COUNT, SUB_BUCKET_COUNT)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * Finds the highest value that falls into a bucket.
+     *
+     * @param index bucket index
+     * @return highest value of the bucket
+     */
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -2,6 +2,7 @@ package jurl;
 
 import httpclient.entity.Request;
 import httpclient.entity.Response;
+import jurl.transport.PoolStats;
 
 import java.util.List;
 
@@ -17,6 +18,23 @@ public interface OutputHandler {
      */
     void handleOutput(Request request, Response response);
 
+    /**
+     * Determines if the output handler presents streamed responses, which hold an open content stream instead of
+     * content read into memory. Such an output handler must consume and close the content stream.
+     *
+     * @return {@code true} if streamed responses are presented
+     */
+    boolean isStreamingOutput();
+
+    /**
+     * Handles presentation of upload progress of a request with file content.
+     *
+     * @param request    request being sent
+     * @param sentBytes  number of bytes sent so far
+     * @param totalBytes total number of bytes, or -1 if length is unknown
+     */
+    void outputUploadProgress(Request request, long sentBytes, long totalBytes);
+
     /**
      * Handles presentation of help.
      *
@@ -45,4 +63,26 @@ public interface OutputHandler {
      * @param groupName new group
      */
     void outputCreateGroup(String groupName);
+
+    /**
+     * Handles presentation of connection pool statistics.
+     *
+     * @param poolStats connection pool statistics, or {@code null} if connections are not pooled
+     */
+    void outputPoolStats(PoolStats poolStats);
+
+    /**
+     * Handles presentation of result of a bench command.
+     *
+     * @param request     benched request
+     * @param benchResult bench result
+     */
+    void outputBenchResult(Request request, BenchResult benchResult);
+
+    /**
+     * Handles presentation of recorded responses of response history.
+     *
+     * @param entries recorded entries, the oldest first
+     */
+    void outputHistory(List<HistoryEntry> entries);
 }
@@ -0,0 +1,170 @@
+package jurl;
+
+import httpclient.entity.Request;
+import httpclient.entity.RequestBodyType;
+import httpclient.entity.RequestMethod;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary codec of saved requests. Every field of a request is written explicitly, so records do not depend on java
+ * serialization of the request class and can be decoded one by one.
+ */
+class RequestCodec {
+    /**
+     * codec version written before every request, to be able to change the layout later. Version 2 added HTTP/2 state
+     * and version 3 added verbose state.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * Encodes a request into bytes.
+     *
+     * @param request request to encode
+     * @return encoded request
+     * @throws IOException if any problem occurs in encoding
+     */
+    static byte[] encode(Request request) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(256);
+        DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        outputStream.writeByte(VERSION);
+        writeString(outputStream, request.getName());
+        writeString(outputStream, request.getDestinationAddress());
+        writeString(outputStream, request.getRequestMethod() == null ? null : request.getRequestMethod().name());
+        writeMap(outputStream, request.getHeader());
+        outputStream.writeBoolean(request.isRedirect());
+        writeMap(outputStream, request.getData());
+        writeString(outputStream, request.getJsonData());
+        outputStream.writeBoolean(request.isJson());
+        outputStream.writeBoolean(request.isUpload());
+        writeString(outputStream, request.getUploadPath());
+        outputStream.writeBoolean(request.isOutput());
+        outputStream.writeBoolean(request.isOutputNameProvided());
+        writeString(outputStream, request.getOutputName());
+        outputStream.writeBoolean(request.isShowHeaderResponse());
+        writeString(outputStream, request.getGroupName());
+        writeMap(outputStream, request.getQueryParams());
+        writeString(outputStream, request.getRequestBodyType() == null ? null : request.getRequestBodyType().name());
+        outputStream.writeBoolean(request.isHttp2());
+        outputStream.writeBoolean(request.isVerbose());
+        outputStream.flush();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Decodes a request from the specified input.
+     *
+     * @param inputStream input to decode from
+     * @return decoded request
+     * @throws IOException if the input is not a valid encoded request
+     */
+    static Request decode(DataInput inputStream) throws IOException {
+        int version = inputStream.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported request record version " + version);
+        }
+        String name = readString(inputStream);
+        String destinationAddress = readString(inputStream);
+        Request request = new Request(name, destinationAddress);
+        String requestMethod = readString(inputStream);
+        request.setRequestMethod(requestMethod == null ? null : RequestMethod.valueOf(requestMethod));
+        request.setHeader(readMap(inputStream));
+        request.setRedirect(inputStream.readBoolean());
+        request.setData(readMap(inputStream));
+        request.setJsonData(readString(inputStream));
+        request.setJson(inputStream.readBoolean());
+        request.setUpload(inputStream.readBoolean());
+        request.setUploadPath(readString(inputStream));
+        request.setOutput(inputStream.readBoolean());
+        request.setOutputNameProvided(inputStream.readBoolean());
+        request.setOutputName(readString(inputStream));
+        request.setShowHeaderResponse(inputStream.readBoolean());
+        request.setGroupName(readString(inputStream));
+        request.setQueryParams(readMap(inputStream));
+        String requestBodyType = readString(inputStream);
+        request.setRequestBodyType(requestBodyType == null ? null : RequestBodyType.valueOf(requestBodyType));
+        //requests recorded by version 1 are sent by HTTP/1.1
+        if (version >= 2) {
+            request.setHttp2(inputStream.readBoolean());
+        }
+        if (version >= 3) {
+            request.setVerbose(inputStream.readBoolean());
+        }
+        return request;
+    }
+
+    /**
+     * Writes a nullable string of any length in UTF-8.
+     *
+     * @param outputStream output to write in
+     * @param value        string to write, or null
+     * @throws IOException if any problem occurs in writing
+     */
+    static void writeString(DataOutput outputStream, String value) throws IOException {
+        if (value == null) {
+            outputStream.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            outputStream.writeInt(bytes.length);
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a nullable string written by {@link #writeString(DataOutput, String)}.
+     *
+     * @param inputStream input to read from
+     * @return read string, or null
+     * @throws IOException if any problem occurs in reading
+     */
+    static String readString(DataInput inputStream) throws IOException {
+        int length = inputStream.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        inputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a nullable string map.
+     *
+     * @param outputStream output to write in
+     * @param map          map to write, or null
+     * @throws IOException if any problem occurs in writing
+     */
+    static void writeMap(DataOutput outputStream, Map<String, String> map) throws IOException {
+        if (map == null) {
+            outputStream.writeInt(-1);
+        } else {
+            outputStream.writeInt(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(outputStream, entry.getKey());
+                writeString(outputStream, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads a nullable string map written by {@link #writeMap(DataOutput, Map)}, keeping its entries order.
+     *
+     * @param inputStream input to read from
+     * @return read map, or null
+     * @throws IOException if any problem occurs in reading
+     */
+    static Map<String, String> readMap(DataInput inputStream) throws IOException {
+        int size = inputStream.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(inputStream), readString(inputStream));
+        }
+        return map;
+    }
+}
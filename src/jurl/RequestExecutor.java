@@ -2,18 +2,29 @@ package jurl;
 
 
 import httpclient.entity.Request;
+import httpclient.entity.RequestMethod;
 import httpclient.entity.Response;
+import httpclient.entity.ResponseCacheStatus;
 import httpclient.entity.ResponseContentType;
+import httpclient.entity.ResponseTiming;
+import jurl.transport.*;
 
 import java.io.*;
-import java.lang.reflect.Field;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Executor class of the request. It takes a request object and sends it to destination and creates the response.
@@ -23,6 +34,14 @@ public class RequestExecutor {
      * content type header key
      */
     public static final String CONTENT_TYPE = "Content-Type";
+    /**
+     * content encoding header key
+     */
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+    /**
+     * accept encoding header key
+     */
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
     /**
      * multipart form data header value for content type
      */
@@ -41,106 +60,208 @@ public class RequestExecutor {
     public static final String URL_ENCODED = "application/x-www-form-urlencoded";
 
     /**
-     * Handles data sending in the case of multipart form data selection.
+     * transport that sends the requests
+     */
+    private final HttpTransport transport;
+    /**
+     * HTTP/2 transport that sends the requests asking for it, created when it is needed first
+     */
+    private HttpTransport http2Transport;
+    /**
+     * non-blocking transport that sends the requests executed asynchronously, created when it is needed first
+     */
+    private NioHttpTransport nioTransport;
+    /**
+     * output handler that upload progress is reported to, or null for no report
+     */
+    private volatile OutputHandler uploadProgressHandler;
+    /**
+     * http cache that responses are served from and stored in, or null for no caching
+     */
+    private volatile HttpCache httpCache;
+    /**
+     * determines all requests are sent by HTTP/2, whether they ask for it or not
+     */
+    private volatile boolean http2;
+
+    /**
+     * Constructor of request executor that uses a pooled keep alive transport, or the {@link HttpURLConnection} based
+     * transport as a fallback if jurl.transport system property is urlconnection.
+     */
+    public RequestExecutor() {
+        this("urlconnection".equalsIgnoreCase(System.getProperty("jurl.transport"))
+                ? new UrlConnectionTransport() : new PooledHttpTransport());
+    }
+
+    /**
+     * Constructor of request executor.
      *
-     * @param body                 data to send
-     * @param boundary             data boundary determiner
-     * @param bufferedOutputStream output stream to write data
+     * @param transport transport that sends the requests
+     */
+    public RequestExecutor(HttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Sets the output handler that upload progress of requests with file content is reported to.
+     *
+     * @param uploadProgressHandler output handler to report upload progress to, or null for no report
+     */
+    public void setUploadProgressHandler(OutputHandler uploadProgressHandler) {
+        this.uploadProgressHandler = uploadProgressHandler;
+    }
+
+    /**
+     * Sets whether all requests are sent by HTTP/2. Requests themselves are not changed, so requests that ask for
+     * HTTP/2 are always sent by it.
+     *
+     * @param http2 {@code true} to send all requests by HTTP/2
+     */
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * Sets the http cache that responses of GET and HEAD requests are served from and stored in.
+     *
+     * @param httpCache http cache to use, or null for no caching
+     */
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    /**
+     * Handles data sending in the case of multipart form data selection. File parts are streamed from their files
+     * when the body is sent.
+     *
+     * @param body     data to send
+     * @param boundary data boundary determiner
+     * @return request body of the multipart form
      * @throws IOException if an IO problem occurs
      */
-    private void bufferOutFormData(Map<String, String> body, String boundary, BufferedOutputStream bufferedOutputStream) throws IOException {
+    private RequestBody bufferOutFormData(Map<String, String> body, String boundary) throws IOException {
+        SequenceRequestBody formDataBody = new SequenceRequestBody();
         for (String key : body.keySet()) {
-            bufferedOutputStream.write(("--" + boundary + "\r\n").getBytes());
+            formDataBody.addPart(new ByteArrayRequestBody(("--" + boundary + "\r\n").getBytes()));
             if (key.contains("file")) {
-                bufferedOutputStream.write(("Content-Disposition: form-data; filename=\"" + (new File(body.get(key))).getName() + "\"\r\nContent-Type: Auto\r\n\r\n").getBytes());
-                BufferedInputStream tempBufferedInputStream = new BufferedInputStream(new FileInputStream(new File(body.get(key))));
-                byte[] filesBytes = tempBufferedInputStream.readAllBytes();
-                bufferedOutputStream.write(filesBytes);
-                bufferedOutputStream.write("\r\n".getBytes());
+                formDataBody.addPart(new ByteArrayRequestBody(("Content-Disposition: form-data; filename=\"" + (new File(body.get(key))).getName() + "\"\r\nContent-Type: Auto\r\n\r\n").getBytes()));
+                formDataBody.addPart(new FileRequestBody(new File(body.get(key))));
+                formDataBody.addPart(new ByteArrayRequestBody("\r\n".getBytes()));
             } else {
-                bufferedOutputStream.write(("Content-Disposition: form-data; name=\"" + key + "\"\r\n\r\n").getBytes());
-                bufferedOutputStream.write((body.get(key) + "\r\n").getBytes());
+                formDataBody.addPart(new ByteArrayRequestBody(("Content-Disposition: form-data; name=\"" + key + "\"\r\n\r\n").getBytes()));
+                formDataBody.addPart(new ByteArrayRequestBody((body.get(key) + "\r\n").getBytes()));
             }
         }
-        bufferedOutputStream.write(("--" + boundary + "--\r\n").getBytes());
+        formDataBody.addPart(new ByteArrayRequestBody(("--" + boundary + "--\r\n").getBytes()));
+        return formDataBody;
     }
 
     /**
      * Handles uploading binary data in the case of upload selection.
      *
-     * @param fileName             file name to upload
-     * @param bufferedOutputStream output stream to write
+     * @param fileName file name to upload
+     * @return request body streaming the file content
      * @throws IOException if an IO problem occurs
      */
-    private void uploadBinary(String fileName, BufferedOutputStream bufferedOutputStream) throws IOException {
-        File file = new File(fileName);
-        BufferedInputStream fileInputStream = new BufferedInputStream(new FileInputStream(file));
-        bufferedOutputStream.write(fileInputStream.readAllBytes());
-        bufferedOutputStream.flush();
-        bufferedOutputStream.close();
+    private RequestBody uploadBinary(String fileName) throws IOException {
+        return new FileRequestBody(new File(fileName));
     }
 
     /**
-     * Executes specified request and builds the execution response.
+     * Wraps a request body with file content to report its upload progress to the upload progress handler.
+     *
+     * @param request request to send
+     * @param body    request body with file content
+     * @return request body reporting its progress, or the body itself if there is no upload progress handler
+     */
+    private RequestBody reportProgress(Request request, RequestBody body) {
+        OutputHandler progressHandler = uploadProgressHandler;
+        if (progressHandler == null) {
+            return body;
+        }
+        return new ProgressRequestBody(body, new ProgressListener() {
+            @Override
+            public void progress(long sentBytes, long totalBytes) {
+                progressHandler.outputUploadProgress(request, sentBytes, totalBytes);
+            }
+        });
+    }
+
+    /**
+     * Executes specified request and builds the execution response with its whole content read into memory.
      *
      * @param request request to execute
      * @return response of execution
      * @throws Exception if any problem occurs
      */
     public Response executeRequest(Request request) throws Exception {
-        URL url;
+        return executeRequest(request, false);
+    }
+
+    /**
+     * Executes specified request and builds the execution response. In streaming mode, response content is not read and
+     * the response holds an open content stream instead, so the content can be consumed with a fixed buffer regardless
+     * of its size. The content stream must be closed by its consumer to release the connection.
+     *
+     * @param request   request to execute
+     * @param streaming {@code true} to return an open content stream instead of reading content into memory
+     * @return response of execution
+     * @throws Exception if any problem occurs
+     */
+    public Response executeRequest(Request request, boolean streaming) throws Exception {
         Response resultResponse = new Response();
 
         try {
-            url = new URL(request.getDestinationAddress());
-            HttpURLConnection httpURLConnection = (HttpURLConnection) url.openConnection();
-            setMethod(request, httpURLConnection);
-            httpURLConnection.setInstanceFollowRedirects(request.isRedirect());
-            setHeader(request, httpURLConnection);
-            handleFormData(request, httpURLConnection);
-            handleUpload(request, httpURLConnection);
-            handleJson(request, httpURLConnection);
+            TransportRequest transportRequest = makeTransportRequest(request);
 
             long startTime = System.currentTimeMillis();
-            resultResponse.setStatusCode(httpURLConnection.getResponseCode());
-            long endTime = System.currentTimeMillis();
-            resultResponse.setStatusMessage(httpURLConnection.getResponseMessage());
-            resultResponse.setTime(calculateRequestExecutionTime(startTime, endTime));
-            Map<String, String> responseHeader = new HashMap<>();
-            for (String headerKey : httpURLConnection.getHeaderFields().keySet()) {
-                if (headerKey != null) {
-                    responseHeader.put(headerKey, httpURLConnection.getHeaderField(headerKey));
+            long startNanos = System.nanoTime();
+            HttpCache cache = httpCache;
+            CachedResponse cachedResponse = null;
+            if (cache != null) {
+                //requests that may change the resource invalidate its stored responses
+                cache.invalidate(transportRequest);
+                cachedResponse = cache.lookup(transportRequest);
+                if (cachedResponse != null && cache.isFresh(cachedResponse, transportRequest, startTime)) {
+                    //a fresh stored response is used without contacting the server
+                    resultResponse.setCacheStatus(ResponseCacheStatus.Hit);
+                    fillResponse(resultResponse, cachedResponse.getStatusCode(), cachedResponse.getStatusMessage(), cachedResponse.getHeaders(),
+                            -1, new ResponseTiming(), startNanos, new ByteArrayInputStream(cachedResponse.getBody()), streaming);
+                    return resultResponse;
                 }
-            }
-            resultResponse.setHeader(responseHeader);
-            String contentType = responseHeader.get("Content-Type");
-            if (contentType == null) {
-                resultResponse.setContentType(ResponseContentType.General);
-            } else {
-                if (contentType.contains("image")) {
-                    resultResponse.setContentType(ResponseContentType.Picture);
-                } else if (contentType.contains("json")) {
-                    resultResponse.setContentType(ResponseContentType.Json);
-                } else {
-                    resultResponse.setContentType(ResponseContentType.General);
+                if (cachedResponse != null && !cache.addValidators(cachedResponse, transportRequest)) {
+                    //a stale stored response without validators can't be revalidated
+                    cachedResponse = null;
                 }
             }
+            TransportResponse transportResponse = getTransport(request).send(transportRequest);
+            boolean streamed = false;
             try {
-                InputStream ip = httpURLConnection.getInputStream();
-                //if output type is picture read binary stream, otherwise read text data
-                if (resultResponse.getContentType().equals(ResponseContentType.Picture)) {
-                    BufferedInputStream br1 = new BufferedInputStream(ip);
-                    resultResponse.setContentBytes(br1.readAllBytes());
-                    resultResponse.setDataSize(resultResponse.getContentBytes().length + " B");
+                long endTime = System.currentTimeMillis();
+                if (cachedResponse != null && transportResponse.getStatusCode() == 304) {
+                    //a not modified response refreshes the stored response, which is used instead
+                    cachedResponse = cache.update(cachedResponse, transportRequest, transportResponse, startTime, endTime);
+                    resultResponse.setCacheStatus(ResponseCacheStatus.Revalidated);
+                    fillResponse(resultResponse, cachedResponse.getStatusCode(), cachedResponse.getStatusMessage(), cachedResponse.getHeaders(),
+                            transportResponse.getHeaderBytes(), makeTiming(transportResponse.getTiming()), startNanos,
+                            new ByteArrayInputStream(cachedResponse.getBody()), streaming);
                 } else {
-                    BufferedInputStream br = new BufferedInputStream(ip);
-                    byte[] bytes = br.readAllBytes();
-                    resultResponse.setContentStr(new String(bytes, StandardCharsets.UTF_8));
-                    resultResponse.setDataSize(bytes.length + " B");
+                    InputStream contentStream = transportResponse.getBody();
+                    if (cache != null && cache.isCacheable(transportRequest)) {
+                        resultResponse.setCacheStatus(ResponseCacheStatus.Miss);
+                        if (cache.isStorable(transportRequest, transportResponse)) {
+                            //content is stored while it is read
+                            contentStream = new CacheRecordingInputStream(contentStream, cache, transportRequest, transportResponse, startTime, endTime);
+                        }
+                    }
+                    streamed = fillResponse(resultResponse, transportResponse.getStatusCode(), transportResponse.getStatusMessage(),
+                            transportResponse.getHeaders(), transportResponse.getHeaderBytes(), makeTiming(transportResponse.getTiming()),
+                            startNanos, contentStream, streaming);
+                }
+            } finally {
+                if (!streamed) {
+                    transportResponse.close();
                 }
-            } catch (IOException e) {
-                resultResponse.setContentStr("");
-                resultResponse.setDataSize("0 B");
             }
         } catch (MalformedURLException e) {
             throw new Exception("Invalid destination Address");
@@ -151,64 +272,438 @@ public class RequestExecutor {
     }
 
     /**
-     * Handles json input data sendind.
+     * Executes specified request asynchronously and builds the execution response with its whole content read into
+     * memory. Plain http requests are sent by the non-blocking transport, whose selector thread drives all requests in
+     * flight, and their responses are built on it from the received bytes. Requests it can't send, which are https
+     * and HTTP/2 requests and any request while http cache is used, are executed by the blocking transports on the
+     * fallback executor, which also prepares the redirect requests of the non-blocking transport. Cancelling the
+     * returned future aborts the request.
      *
-     * @param request           request to send
-     * @param httpURLConnection connection to use
-     * @throws IOException if any problem occurs
+     * @param request          request to execute
+     * @param fallbackExecutor executor of the requests that the non-blocking transport can't send, and of its redirect
+     *                         request preparation
+     * @return future of the response of execution
+     */
+    public CompletableFuture<Response> executeRequestAsync(Request request, Executor fallbackExecutor) {
+        if (!isNonBlocking(request)) {
+            return CompletableFuture.supplyAsync(new Supplier<Response>() {
+                @Override
+                public Response get() {
+                    try {
+                        return executeRequest(request, false);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }
+            }, fallbackExecutor);
+        }
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        CompletableFuture<TransportResponse> exchange;
+        long startNanos;
+        try {
+            TransportRequest transportRequest = makeTransportRequest(request);
+            startNanos = System.nanoTime();
+            exchange = getNioTransport().sendAsync(transportRequest, fallbackExecutor);
+        } catch (MalformedURLException e) {
+            result.completeExceptionally(new Exception("Invalid destination Address"));
+            return result;
+        } catch (IOException e) {
+            result.completeExceptionally(new Exception("destination Address can’t be reached"));
+            return result;
+        }
+        exchange.whenComplete(new BiConsumer<TransportResponse, Throwable>() {
+            @Override
+            public void accept(TransportResponse transportResponse, Throwable failure) {
+                if (failure != null) {
+                    result.completeExceptionally(new Exception("destination Address can’t be reached"));
+                    return;
+                }
+                Response resultResponse = new Response();
+                try {
+                    //content is already in memory, so the response is filled without blocking the selector
+                    fillResponse(resultResponse, transportResponse.getStatusCode(), transportResponse.getStatusMessage(),
+                            transportResponse.getHeaders(), transportResponse.getHeaderBytes(), makeTiming(transportResponse.getTiming()),
+                            startNanos, transportResponse.getBody(), false);
+                    result.complete(resultResponse);
+                } catch (IOException e) {
+                    result.completeExceptionally(new Exception("destination Address can’t be reached"));
+                }
+            }
+        });
+        result.whenComplete(new BiConsumer<Response, Throwable>() {
+            @Override
+            public void accept(Response response, Throwable failure) {
+                if (result.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Checks if a request can be sent by the non-blocking transport.
+     *
+     * @param request request to check
+     * @return {@code true} if the request is a plain http request, not asking for HTTP/2 and not proxied, and http cache
+     * is not used
+     */
+    private boolean isNonBlocking(Request request) {
+        if (isHttp2(request) || httpCache != null) {
+            return false;
+        }
+        try {
+            URL url = new URI(request.getDestinationAddress()).toURL();
+            //proxied requests are sent by the blocking transports, which hand them to http url connection
+            return NioHttpTransport.isSupported(url) && !PooledHttpTransport.isProxied(url);
+        } catch (URISyntaxException | MalformedURLException | IllegalArgumentException e) {
+            //an address that is not a valid uri is left to the blocking transports
+            return false;
+        }
+    }
+
+    /**
+     * Executes specified requests with their whole contents read into memory. Consecutive requests with idempotent
+     * methods to the same host are pipelined over a single connection of the pooled transport, and other requests are
+     * executed one by one. The time of a pipelined response is measured from the start of its pipeline to the end of
+     * its content, which is the latency its request saw.
+     *
+     * @param requests requests to execute
+     * @param depth    maximum number of requests written ahead of their responses in a pipeline
+     * @return responses of execution, in request order
+     * @throws Exception if any problem occurs
+     */
+    public List<Response> executePipelined(List<Request> requests, int depth) throws Exception {
+        List<Response> responses = new ArrayList<>();
+        int index = 0;
+        while (index < requests.size()) {
+            //finding consecutive requests that can share a pipeline
+            int end = index + 1;
+            String route = getPipelineRoute(requests.get(index));
+            if (transport instanceof PooledHttpTransport && route != null) {
+                while (end < requests.size() && route.equals(getPipelineRoute(requests.get(end)))) {
+                    end++;
+                }
+            }
+            if (end - index == 1) {
+                responses.add(executeRequest(requests.get(index), false));
+            } else {
+                responses.addAll(executePipeline(requests.subList(index, end), depth));
+            }
+            index = end;
+        }
+        return responses;
+    }
+
+    /**
+     * Executes requests to the same host in a pipeline.
+     *
+     * @param requests requests to execute
+     * @param depth    maximum number of requests written ahead of their responses
+     * @return responses of execution, in request order
+     * @throws Exception if any problem occurs
      */
-    private void handleJson(Request request, HttpURLConnection httpURLConnection) throws IOException {
+    private List<Response> executePipeline(List<Request> requests, int depth) throws Exception {
+        List<Response> responses = new ArrayList<>();
+        try {
+            List<TransportRequest> transportRequests = new ArrayList<>();
+            for (Request request : requests) {
+                transportRequests.add(makeTransportRequest(request));
+            }
+            long startNanos = System.nanoTime();
+            try (HttpPipeline pipeline = ((PooledHttpTransport) transport).pipeline(transportRequests, depth)) {
+                while (pipeline.hasNext()) {
+                    Response resultResponse = new Response();
+                    //content is read before the next response, which follows it on the connection
+                    try (TransportResponse transportResponse = pipeline.next()) {
+                        fillResponse(resultResponse, transportResponse.getStatusCode(), transportResponse.getStatusMessage(),
+                                transportResponse.getHeaders(), transportResponse.getHeaderBytes(), makeTiming(transportResponse.getTiming()),
+                                startNanos, transportResponse.getBody(), false);
+                    }
+                    //a pipelined response is received when its content is read, as the next one follows it
+                    resultResponse.setTimeNanos(System.nanoTime() - startNanos);
+                    responses.add(resultResponse);
+                }
+            }
+        } catch (MalformedURLException e) {
+            throw new Exception("Invalid destination Address");
+        } catch (IOException e) {
+            throw new Exception("destination Address can’t be reached");
+        }
+        return responses;
+    }
+
+    /**
+     * Gets the route of a request that can be pipelined, which is a request with an idempotent method sent by HTTP/1.1.
+     *
+     * @param request request to check
+     * @return route of the request as protocol, host and port, or null if the request can't be pipelined, which is also
+     * the case of proxied requests
+     */
+    private String getPipelineRoute(Request request) {
+        RequestMethod method = request.getRequestMethod();
+        if (isHttp2(request) || (method != RequestMethod.GET && method != RequestMethod.PUT && method != RequestMethod.DELETE)) {
+            return null;
+        }
+        try {
+            URL url = new URI(request.getDestinationAddress()).toURL();
+            if (PooledHttpTransport.isProxied(url)) {
+                return null;
+            }
+            int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+            return url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port;
+        } catch (URISyntaxException | MalformedURLException | IllegalArgumentException e) {
+            //an address that is not a valid uri is executed alone
+            return null;
+        }
+    }
+
+    /**
+     * Makes the transport request of a request, with its headers and body.
+     *
+     * @param request request to send
+     * @return transport request
+     * @throws IOException if the url is invalid or the body can't be made
+     */
+    private TransportRequest makeTransportRequest(Request request) throws IOException {
+        URL url;
+        try {
+            //parsed as a uri first, so an address that is not a valid uri is rejected as it is by the other transports
+            url = URI.create(request.getDestinationAddress()).toURL();
+        } catch (IllegalArgumentException e) {
+            throw new MalformedURLException("Invalid destination address " + request.getDestinationAddress());
+        }
+        TransportRequest transportRequest = new TransportRequest(request.getRequestMethod().toString(), url);
+        transportRequest.setFollowRedirects(request.isRedirect());
+        setHeader(request, transportRequest);
+        if (getHeaderValue(transportRequest, ACCEPT_ENCODING) == null) {
+            //compressed responses of all registered codecs are accepted, unless the request asks for its own codings
+            transportRequest.setHeader(ACCEPT_ENCODING, ContentCodecs.getAcceptEncoding());
+        }
+        handleFormData(request, transportRequest);
+        handleUpload(request, transportRequest);
+        handleJson(request, transportRequest);
+        return transportRequest;
+    }
+
+    /**
+     * Fills the response by status, headers and content of a received or stored response. In streaming mode, response
+     * holds the content stream, otherwise content is read into memory.
+     *
+     * @param resultResponse response to fill
+     * @param statusCode     response status code
+     * @param statusMessage  response status message
+     * @param headers        response header name values
+     * @param headerBytes    number of response head bytes as they were received, or -1 if not counted
+     * @param timing         phase timing of the response, completed when content ends
+     * @param startNanos     time in nanos that the execution started at
+     * @param contentStream  response content stream, as it was received
+     * @param streaming      {@code true} to keep the content stream instead of reading content into memory
+     * @return {@code true} if response holds the content stream
+     * @throws IOException if encoded content can't be decoded
+     */
+    private boolean fillResponse(Response resultResponse, int statusCode, String statusMessage, Map<String, String> headers,
+                                 long headerBytes, ResponseTiming timing, long startNanos, InputStream contentStream,
+                                 boolean streaming) throws IOException {
+        long headNanos = System.nanoTime();
+        resultResponse.setStatusCode(statusCode);
+        resultResponse.setStatusMessage(statusMessage);
+        resultResponse.setTimeNanos(headNanos - startNanos);
+        resultResponse.setHeaderBytes(headerBytes);
+        resultResponse.setTiming(timing);
+        resultResponse.setHeader(headers);
+        String contentType = null;
+        String contentEncoding = null;
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (CONTENT_TYPE.equalsIgnoreCase(entry.getKey())) {
+                contentType = entry.getValue();
+            } else if (CONTENT_ENCODING.equalsIgnoreCase(entry.getKey())) {
+                contentEncoding = entry.getValue();
+            }
+        }
+        if (contentType == null) {
+            resultResponse.setContentType(ResponseContentType.General);
+        } else {
+            if (contentType.contains("image")) {
+                resultResponse.setContentType(ResponseContentType.Picture);
+            } else if (contentType.contains("json")) {
+                resultResponse.setContentType(ResponseContentType.Json);
+            } else {
+                resultResponse.setContentType(ResponseContentType.General);
+            }
+        }
+        WireCountingInputStream wireStream = null;
+        if (contentEncoding != null && !contentEncoding.trim().equalsIgnoreCase("identity") && ContentCodecs.isDecodable(contentEncoding)) {
+            //encoded content is decoded while it is read, and its encoded size is counted
+            resultResponse.setContentEncoding(contentEncoding.trim());
+            wireStream = new WireCountingInputStream(contentStream);
+            contentStream = ContentCodecs.decode(wireStream, contentEncoding);
+        }
+        if (resultResponse.getContentType().equals(ResponseContentType.Json)) {
+            //json content is validated chunk by chunk while it is read
+            contentStream = new JsonValidatingInputStream(contentStream, resultResponse);
+        }
+        if (streaming) {
+            //content is left to its consumer, which counts the data size while reading
+            resultResponse.setContentStream(new ResponseContentInputStream(contentStream, resultResponse, wireStream, startNanos, headNanos));
+            return true;
+        }
+        readContent(contentStream, resultResponse, wireStream);
+        completeTiming(timing, startNanos, headNanos);
+        return false;
+    }
+
+    /**
+     * Makes the phase timing of a response from the timing of its transport exchange.
+     *
+     * @param transportTiming timing of the exchange, or null if the transport does not measure it
+     * @return response timing, without download and total times unless the transport downloaded the content
+     */
+    private ResponseTiming makeTiming(TransportTiming transportTiming) {
+        ResponseTiming timing = new ResponseTiming();
+        if (transportTiming != null) {
+            timing.setDnsNanos(transportTiming.getDnsNanos());
+            timing.setConnectNanos(transportTiming.getConnectNanos());
+            timing.setTlsNanos(transportTiming.getTlsNanos());
+            timing.setRequestWriteNanos(transportTiming.getWriteNanos());
+            timing.setFirstByteNanos(transportTiming.getFirstByteNanos());
+            timing.setDownloadNanos(transportTiming.getDownloadNanos());
+            timing.setReusedConnection(transportTiming.isReused());
+        }
+        return timing;
+    }
+
+    /**
+     * Completes the phase timing of a response when its content ended. Download time is measured from the response
+     * head, unless the transport already downloaded the content before handing the response over.
+     *
+     * @param timing     timing to complete
+     * @param startNanos time in nanos that the execution started at
+     * @param headNanos  time in nanos that the response head was handed over at
+     */
+    static void completeTiming(ResponseTiming timing, long startNanos, long headNanos) {
+        long endNanos = System.nanoTime();
+        if (timing.getDownloadNanos() < 0) {
+            timing.setDownloadNanos(endNanos - headNanos);
+        }
+        timing.setTotalNanos(endNanos - startNanos);
+    }
+
+    /**
+     * Reads the whole response content into memory. Picture content is kept as bytes and other content as text.
+     *
+     * @param contentStream  response content stream
+     * @param resultResponse response to fill
+     * @param wireStream     encoded content stream that content is decoded from, or null if content is not encoded
+     */
+    private void readContent(InputStream contentStream, Response resultResponse, WireCountingInputStream wireStream) {
+        try {
+            //if output type is picture read binary stream, otherwise read text data
+            if (resultResponse.getContentType().equals(ResponseContentType.Picture)) {
+                BufferedInputStream br1 = new BufferedInputStream(contentStream);
+                resultResponse.setContentBytes(br1.readAllBytes());
+                setDataSize(resultResponse, resultResponse.getContentBytes().length, wireStream);
+            } else {
+                BufferedInputStream br = new BufferedInputStream(contentStream);
+                byte[] bytes = br.readAllBytes();
+                resultResponse.setContentStr(new String(bytes, StandardCharsets.UTF_8));
+                setDataSize(resultResponse, bytes.length, wireStream);
+            }
+        } catch (IOException e) {
+            resultResponse.setContentStr("");
+            setDataSize(resultResponse, 0, wireStream);
+        }
+    }
+
+    /**
+     * Sets the decoded and wire data sizes of a response content.
+     *
+     * @param response   response to fill
+     * @param size       number of decoded content bytes
+     * @param wireStream encoded content stream that content was decoded from, or null if content was not encoded
+     */
+    static void setDataSize(Response response, long size, WireCountingInputStream wireStream) {
+        response.setDecodedBytes(size);
+        response.setWireBytes(wireStream == null ? size : wireStream.getCount());
+    }
+
+    /**
+     * Handles json input data sendind. Json data is sent as it is stored, since minifying it is a user action. If the
+     * request has a content encoding header of a registered codec, json data is compressed by the codec.
+     *
+     * @param request          request to send
+     * @param transportRequest transport request to fill
+     * @throws IOException if any problem occurs in compressing
+     */
+    private void handleJson(Request request, TransportRequest transportRequest) throws IOException {
         if (request.isJson()) {
-            httpURLConnection.setDoOutput(true);
-            OutputStream out = httpURLConnection.getOutputStream();
-            out.write(request.getJsonData().getBytes());
+            byte[] content = request.getJsonData().getBytes(StandardCharsets.UTF_8);
+            String contentEncoding = getHeaderValue(transportRequest, CONTENT_ENCODING);
+            ContentCodec codec = contentEncoding == null ? null : ContentCodecs.get(contentEncoding);
+            if (codec != null) {
+                ByteArrayOutputStream encodedContent = new ByteArrayOutputStream(content.length / 4 + 64);
+                try (OutputStream outputStream = codec.encode(encodedContent)) {
+                    outputStream.write(content);
+                }
+                content = encodedContent.toByteArray();
+            }
+            transportRequest.setBody(new ByteArrayRequestBody(content));
         }
     }
 
     /**
      * Handles all settings for uploading file.
      *
-     * @param request           request to send
-     * @param httpURLConnection connection to use
+     * @param request          request to send
+     * @param transportRequest transport request to fill
      * @throws IOException if any problem occurs
      */
-    private void handleUpload(Request request, HttpURLConnection httpURLConnection) throws IOException {
+    private void handleUpload(Request request, TransportRequest transportRequest) throws IOException {
         if (request.isUpload()) {
-            httpURLConnection.setDoOutput(true);
-            BufferedOutputStream requestBufferedOutputStream = new BufferedOutputStream(httpURLConnection.getOutputStream());
-            uploadBinary(request.getUploadPath(), requestBufferedOutputStream);
+            transportRequest.setBody(reportProgress(request, uploadBinary(request.getUploadPath())));
         }
     }
 
     /**
      * Handles all settings for sending input data, either in multipart form or url encoded.
      *
-     * @param request           request to send
-     * @param httpURLConnection connection to use
+     * @param request          request to send
+     * @param transportRequest transport request to fill
      * @throws IOException if any problem occurs
      */
-    private void handleFormData(Request request, HttpURLConnection httpURLConnection) throws IOException {
+    private void handleFormData(Request request, TransportRequest transportRequest) throws IOException {
         Map<String, String> formData = request.getData();
         if (formData != null) {
-            httpURLConnection.setDoOutput(true);
-            String contentTypeProperty = httpURLConnection.getRequestProperty(CONTENT_TYPE);
+            String contentTypeProperty = getHeaderValue(transportRequest, CONTENT_TYPE);
             if (MULTIPART_FORM_DATA.equals(contentTypeProperty)) {
                 String boundary = System.currentTimeMillis() + "";
-                httpURLConnection.setRequestProperty(CONTENT_TYPE, contentTypeProperty + "; boundary=" + boundary);
-                try (BufferedOutputStream requestBufferedOutputStream = new BufferedOutputStream(httpURLConnection.getOutputStream())) {
-                    bufferOutFormData(formData, boundary, requestBufferedOutputStream);
-                    requestBufferedOutputStream.flush();
-                }
+                transportRequest.setHeader(CONTENT_TYPE, contentTypeProperty + "; boundary=" + boundary);
+                transportRequest.setBody(reportProgress(request, bufferOutFormData(formData, boundary)));
             } else {
-                String dataString = getDataString(formData);
-                byte[] postData = dataString.getBytes(StandardCharsets.UTF_8);
-                int postDataLength = postData.length;
-                httpURLConnection.setRequestProperty("Content-Length", Integer.toString(postDataLength));
-                try (DataOutputStream wr = new DataOutputStream(httpURLConnection.getOutputStream())) {
-                    wr.write(postData);
+                //url encoded is the default content type of form data, as http url connection sent it
+                if (contentTypeProperty == null) {
+                    transportRequest.setHeader(CONTENT_TYPE, URL_ENCODED);
                 }
+                String dataString = getDataString(formData);
+                transportRequest.setBody(new ByteArrayRequestBody(dataString.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    /**
+     * Finds a header value of the transport request, ignoring case of header name.
+     *
+     * @param transportRequest transport request
+     * @param name             header name
+     * @return header value, or null if not found
+     */
+    private String getHeaderValue(TransportRequest transportRequest, String name) {
+        for (Map.Entry<String, String> entry : transportRequest.getHeaders().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
             }
         }
+        return null;
     }
 
     /**
@@ -233,47 +728,87 @@ public class RequestExecutor {
     }
 
     /**
-     * Sets header key-values to connection to send.
+     * Sets header key-values to transport request to send.
      *
-     * @param request           request to send
-     * @param httpURLConnection connection to use
+     * @param request          request to send
+     * @param transportRequest transport request to fill
      */
-    private void setHeader(Request request, HttpURLConnection httpURLConnection) {
+    private void setHeader(Request request, TransportRequest transportRequest) {
         Map<String, String> headerMap = request.getHeader();
         if (headerMap != null) {
             for (Map.Entry<String, String> entry : headerMap.entrySet()) {
-                httpURLConnection.setRequestProperty(entry.getKey(), entry.getValue());
+                transportRequest.setHeader(entry.getKey(), entry.getValue());
             }
         }
     }
 
     /**
-     * Sets the http method. It performs PATCH using force!
+     * Checks if a request is sent by HTTP/2, because it asks for it or all requests are sent by HTTP/2.
      *
-     * @param request           request to send
-     * @param httpURLConnection connection to use
-     * @throws Exception if any problem occurs, specifically in forcing!
-     */
-    private void setMethod(Request request, HttpURLConnection httpURLConnection) throws Exception {
-        String method = request.getRequestMethod().toString();
-        if (!method.equals("PATCH")) {
-            httpURLConnection.setRequestMethod(method);
-        } else {
-            Field field = HttpURLConnection.class.getDeclaredField("method");
-            field.setAccessible(true);
-            field.set(httpURLConnection, "PATCH");
+     * @param request request to check
+     * @return {@code true} if the request is sent by HTTP/2
+     */
+    private boolean isHttp2(Request request) {
+        return http2 || request.isHttp2();
+    }
+
+    /**
+     * Gets the transport of a request, which is the HTTP/2 transport if the request is sent by HTTP/2.
+     *
+     * @param request request to send
+     * @return transport to send the request by
+     */
+    private synchronized HttpTransport getTransport(Request request) {
+        if (!isHttp2(request)) {
+            return transport;
+        }
+        if (http2Transport == null) {
+            http2Transport = new Http2Transport();
+        }
+        return http2Transport;
+    }
+
+    /**
+     * Gets the non-blocking transport, which is created and started when it is needed first.
+     *
+     * @return non-blocking transport
+     * @throws IOException if the transport can't be started
+     */
+    private synchronized NioHttpTransport getNioTransport() throws IOException {
+        if (nioTransport == null) {
+            nioTransport = new NioHttpTransport();
         }
+        return nioTransport;
+    }
+
+    /**
+     * Gets connection pool statistics of the transport.
+     *
+     * @return connection pool statistics, or {@code null} if the transport does not pool connections
+     */
+    public PoolStats getPoolStats() {
+        return transport.getPoolStats();
     }
 
     /**
-     * Calculates the execution time and returns it in seconds.
+     * Gets connection statistics of the non-blocking transport.
      *
-     * @param startTime execution start time
-     * @param endTime   execution finish time
-     * @return execution time in seconds
+     * @return connection statistics, or {@code null} if no request was sent by the non-blocking transport
      */
-    private String calculateRequestExecutionTime(long startTime, long endTime) {
-        float diff = endTime - startTime;
-        return diff / 1000 + "s";
+    public synchronized PoolStats getNonBlockingStats() {
+        return nioTransport == null ? null : nioTransport.getPoolStats();
+    }
+
+    /**
+     * Closes the transports and their connections.
+     */
+    public synchronized void close() {
+        transport.close();
+        if (http2Transport != null) {
+            http2Transport.close();
+        }
+        if (nioTransport != null) {
+            nioTransport.close();
+        }
     }
 }
@@ -3,63 +3,226 @@ package jurl;
 import httpclient.entity.Request;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.zip.CRC32;
 
 /**
- * A repository for loading and saving requests and request groups into file. It serializes a map containing
- * request group names as key and for each request group, a list of requests as value and and saves the byte
- * stream into an specified file.
+ * A repository for loading and saving requests and request groups into file. Groups and requests are kept as records
+ * of an append-only log file, so saving a request appends a single record instead of rewriting all requests. An index
+ * file maps each group to the offsets of its request records and covers the log up to a known length; records appended
+ * after that length are caught up on load. Index and log are read through read-only memory mappings: loading parses
+ * only the index header of group names and request counts, and reading requests of a group touches only the pages of
+ * its offsets and records. Requests are decoded lazily, only when they are asked for. Once enough records have been
+ * appended, the log is compacted, which rewrites it with the records of each group next to each other and rewrites the
+ * index.
+ * <p>
+ * Mapped files can't be replaced or deleted on some systems, like Windows, and other processes may keep their own
+ * mappings. So the log and the index are never replaced: a compacted log is a new file named by its generation and a
+ * rewritten index is a new file named by its generation and indexed log length. Older files are deleted once they are
+ * no longer current, or later if they are still mapped.
  */
 public class RequestRepository {
     /**
-     * saved requests file name
+     * legacy saved requests file name, containing the java serialized requests map
      */
     private static final String FILE_NAME = "saved-requests";
     /**
-     * requests map
+     * suffix of saved requests log file names, which are the legacy file name, the log generation and this suffix
      */
-    private Map<String, List<Request>> savedRequests = new HashMap<>();
+    private static final String LOG_FILE_SUFFIX = ".log";
+    /**
+     * suffix of saved requests index file names, which are the legacy file name, the log generation, the indexed log
+     * length and this suffix
+     */
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+    /**
+     * magic number at the beginning of log file ("JURLLOG1")
+     */
+    private static final long LOG_MAGIC = 0x4A55524C4C4F4731L;
+    /**
+     * magic number at the beginning of index file ("JURLIDX2")
+     */
+    private static final long INDEX_MAGIC = 0x4A55524C49445832L;
+    /**
+     * index header size before group entries, containing magic number, generation, log length, compacted length,
+     * appended records and group count
+     */
+    private static final int INDEX_HEADER_SIZE = 40;
+    /**
+     * log header size, containing magic number and generation
+     */
+    private static final int LOG_HEADER_SIZE = 16;
+    /**
+     * record header size, containing body length and body checksum
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /**
+     * record type of a created group
+     */
+    private static final byte GROUP_RECORD = 1;
+    /**
+     * record type of a saved request
+     */
+    private static final byte REQUEST_RECORD = 2;
+    /**
+     * number of records not covered by the index file that makes loading rewrite the index file
+     */
+    private static final int INDEX_TAIL_LIMIT = 64;
+    /**
+     * minimum number of records appended since the last compaction to compact the log
+     */
+    private static final int COMPACTION_MIN_RECORDS = 1024;
+    /**
+     * the log is compacted when records appended since the last compaction are more than this fraction of all records
+     */
+    private static final int COMPACTION_RATIO = 4;
+    /**
+     * determines if reload and skipped reload counts are printed on every load, enabled by jurl.debug system property
+     */
+    private static final boolean DEBUG = Boolean.getBoolean("jurl.debug");
+    /**
+     * directory of repository files
+     */
+    private final File directory;
+    /**
+     * legacy saved requests file
+     */
+    private final File legacyFile;
+    /**
+     * saved requests log file that was last opened, or null if no log has been opened
+     */
+    private File logFile;
+    /**
+     * record offsets of the requests of each group, in creation order of groups
+     */
+    private Map<String, GroupOffsets> groupOffsets = new LinkedHashMap<>();
+    /**
+     * read-only mapping of the index file, or null if no index is loaded
+     */
+    private MappedByteBuffer indexBuffer;
+    /**
+     * read-only mapping of the loaded part of the log, or null if it is not mapped yet
+     */
+    private MappedByteBuffer logBuffer;
+    /**
+     * already decoded requests by their record offset
+     */
+    private final Map<Long, Request> loadedRequests = new HashMap<>();
+    /**
+     * generation of the loaded log, increased by every compaction, or 0 if no log is loaded
+     */
+    private long generation;
+    /**
+     * length of the valid part of the log that has been loaded
+     */
+    private long logLength;
+    /**
+     * length of the log at the last compaction
+     */
+    private long compactedLength;
+    /**
+     * number of records appended since the last compaction
+     */
+    private int appendedRecords;
+    /**
+     * number of records not covered by the index file
+     */
+    private int unindexedRecords;
+    /**
+     * file key, modification time and size of the log when it was last loaded or written by this repository, or null
+     * if the log is not loaded
+     */
+    private BasicFileAttributes loadedLogAttributes;
+    /**
+     * number of loads that read the log because it changed
+     */
+    private long reloadCount;
+    /**
+     * number of loads that were skipped because the log did not change
+     */
+    private long skippedReloadCount;
 
     /**
-     * Loads all requests and request groups from file and initializes the requests map.
+     * Constructor of request repository that keeps its files in working directory.
+     */
+    public RequestRepository() {
+        this(new File("."));
+    }
+
+    /**
+     * Constructor of request repository that keeps its files in the specified directory.
+     *
+     * @param directory directory of repository files
+     */
+    public RequestRepository(File directory) {
+        this.directory = directory;
+        this.legacyFile = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Loads all request groups and request offsets from index and log files. Only records appended after the index
+     * are read. Nothing is read if file key, modification time and size of the log have not changed since it was last
+     * loaded or written by this repository. A legacy saved requests file is migrated into a new log the first time.
      *
      * @throws Exception if any problem in loading requests file occurs
      */
-    public void load() throws Exception {
-        File savedRequestsFile = new File(FILE_NAME);
-        //checking file existence
-        if (savedRequestsFile.exists()) {
-            Object readObject;
-            try {
-                //reading the file
-                ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream(savedRequestsFile));
-                readObject = inputStream.readObject();
-            } catch (IOException | ClassNotFoundException e) {
-                throw new Exception("Failed to load requests, " + e.getMessage(), e);
-            }
-            if (readObject instanceof Map) {
-                savedRequests = (Map<String, List<Request>>) readObject;
-            } else {
-                throw new Exception("Invalid options file!");
+    public synchronized void load() throws Exception {
+        try {
+            if (isLogUnchanged()) {
+                skippedReloadCount++;
+                printLoadCounts();
+                return;
+            }
+            reloadCount++;
+            printLoadCounts();
+            if (findLastGeneration(LOG_FILE_SUFFIX) == 0) {
+                clear();
+                if (legacyFile.exists()) {
+                    migrateLegacyFile();
+                }
+                return;
             }
+            try (FileChannel channel = openLockedLog()) {
+                refresh(channel);
+                rememberLogAttributes();
+            }
+            if (unindexedRecords >= INDEX_TAIL_LIMIT) {
+                writeIndex();
+            }
+        } catch (IOException e) {
+            throw new Exception("Failed to load requests, " + e.getMessage(), e);
         }
     }
 
     /**
-     * Saves a request into a request group. It simply gets request list of the group using group name and adds new
-     * request to the list and finally asks for writing new map into file.
+     * Saves a request into a request group by appending a request record to the log. The group is created if it does
+     * not exist.
      *
      * @param groupName specified group name
      * @param request   request to save
-     * @throws Exception if any problem occurs in saving map to file
+     * @throws Exception if any problem occurs in saving the request to file
      */
-    public void save(String groupName, Request request) throws Exception {
+    public synchronized void save(String groupName, Request request) throws Exception {
         if (groupName == null) {
             groupName = "";
         }
-        savedRequests.putIfAbsent(groupName, new ArrayList<>());
-        savedRequests.get(groupName).add(request);
-        flush();
+        try {
+            long offset = append(requestRecord(groupName, request));
+            loadedRequests.put(offset, request);
+            compactIfNeeded();
+        } catch (IOException e) {
+            throw new Exception("Failed to save requests, " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -72,28 +235,14 @@ public class RequestRepository {
         save("", request);
     }
 
-    /**
-     * Writes the request map into requests file.
-     *
-     * @throws Exception if any problem occurs in file writing
-     */
-    private void flush() throws Exception {
-        try {
-            ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream(FILE_NAME));
-            outputStream.writeObject(savedRequests);
-        } catch (IOException e) {
-            throw new Exception("Failed to save requests, " + e.getMessage(), e);
-        }
-    }
-
     /**
      * Gets all group names.
      *
      * @return list of all group names
      */
-    public List<String> getAllGroupNames() {
+    public synchronized List<String> getAllGroupNames() {
         List<String> result = new ArrayList<>();
-        for (String groupName : savedRequests.keySet()) {
+        for (String groupName : groupOffsets.keySet()) {
             if (!groupName.equals("")) {
                 result.add(groupName);
             }
@@ -106,9 +255,18 @@ public class RequestRepository {
      *
      * @param groupName group name
      * @return list of  requests in the specified group
+     * @throws Exception if any problem occurs in reading requests
      */
-    public List<Request> getGroupRequests(String groupName) {
-        return savedRequests.getOrDefault(groupName, new ArrayList<>());
+    public synchronized List<Request> getGroupRequests(String groupName) throws Exception {
+        GroupOffsets offsets = groupOffsets.get(groupName);
+        if (offsets == null) {
+            return new ArrayList<>();
+        }
+        List<Long> requestOffsets = new ArrayList<>(offsets.size());
+        for (int i = 0; i < offsets.size(); i++) {
+            requestOffsets.add(offsets.get(i));
+        }
+        return readRequests(requestOffsets);
     }
 
     /**
@@ -117,36 +275,854 @@ public class RequestRepository {
      * @param groupName new request group
      * @throws Exception if any problem occurs in file writing
      */
-    public void createGroup(String groupName) throws Exception {
-        if (savedRequests.containsKey(groupName)) {
+    public synchronized void createGroup(String groupName) throws Exception {
+        if (groupOffsets.containsKey(groupName)) {
             throw new Exception("Group name \"" + groupName + "\" already exists!");
         } else {
-            savedRequests.putIfAbsent(groupName, new ArrayList<>());
-            flush();
+            try {
+                append(groupRecord(groupName));
+                compactIfNeeded();
+            } catch (IOException e) {
+                throw new Exception("Failed to save requests, " + e.getMessage(), e);
+            }
         }
     }
 
     /**
-     * Finds a list of request in specified group using given request indexes.
+     * Finds a list of request in specified group using given request indexes. Only the found requests are read.
      *
      * @param groupName            group name
      * @param fireRequestIndexList request indexes to finf
      * @return list of found requests
      * @throws Exception if request indexes are invalid
      */
-    public List<Request> getRequests(String groupName, Set<Integer> fireRequestIndexList) throws Exception {
-        if (!savedRequests.containsKey(groupName)) {
+    public synchronized List<Request> getRequests(String groupName, Set<Integer> fireRequestIndexList) throws Exception {
+        if (!groupOffsets.containsKey(groupName)) {
             throw new Exception("Group with name \"" + groupName + "\" not found!");
         }
-        List<Request> result = new ArrayList<>();
-        List<Request> groupRequests = savedRequests.get(groupName);
+        List<Long> offsets = new ArrayList<>();
+        GroupOffsets groupRequestOffsets = groupOffsets.get(groupName);
         for (Integer idx : fireRequestIndexList) {
-            if (groupRequests == null || idx < 0 || idx >= groupRequests.size()) {
+            if (idx < 0 || idx >= groupRequestOffsets.size()) {
                 throw new Exception("Invalid request number " + (idx + 1));
             } else {
-                result.add(groupRequests.get(idx));
+                offsets.add(groupRequestOffsets.get(idx));
+            }
+        }
+        return readRequests(offsets);
+    }
+
+    /**
+     * Prints number of loads that read the log and number of loads that were skipped, if debug output is enabled.
+     */
+    private void printLoadCounts() {
+        if (DEBUG) {
+            System.err.printf("Saved requests load: %d reloads, %d skipped reloads%n", reloadCount, skippedReloadCount);
+        }
+    }
+
+    /**
+     * Checks if the log is the same file with the same modification time and size as when it was last loaded or
+     * written by this repository, and it has not been compacted into a log of the next generation.
+     *
+     * @return {@code true} if the log has not changed
+     * @throws IOException if log attributes can't be read
+     */
+    private boolean isLogUnchanged() throws IOException {
+        //older logs are deleted oldest first, so a newer log than an existing one exists only if the next one does
+        if (loadedLogAttributes == null || !logFile.exists() || logFile(generation + 1).exists()) {
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(logFile.toPath(), BasicFileAttributes.class);
+        return Objects.equals(attributes.fileKey(), loadedLogAttributes.fileKey())
+                && attributes.lastModifiedTime().equals(loadedLogAttributes.lastModifiedTime())
+                && attributes.size() == loadedLogAttributes.size();
+    }
+
+    /**
+     * Remembers current attributes of the log as loaded, after the log has been loaded or written under its lock.
+     *
+     * @throws IOException if log attributes can't be read
+     */
+    private void rememberLogAttributes() throws IOException {
+        loadedLogAttributes = Files.readAttributes(logFile.toPath(), BasicFileAttributes.class);
+    }
+
+    /**
+     * Clears all loaded state.
+     */
+    private void clear() {
+        groupOffsets = new LinkedHashMap<>();
+        loadedRequests.clear();
+        indexBuffer = null;
+        logBuffer = null;
+        loadedLogAttributes = null;
+        generation = 0;
+        logLength = 0;
+        compactedLength = 0;
+        appendedRecords = 0;
+        unindexedRecords = 0;
+    }
+
+    /**
+     * Reads requests of the specified record offsets from the mapped log, decoding those that have not been decoded
+     * yet.
+     *
+     * @param offsets record offsets of requests
+     * @return read requests in offsets order
+     * @throws Exception if any problem occurs in reading requests
+     */
+    private List<Request> readRequests(List<Long> offsets) throws Exception {
+        List<Request> result = new ArrayList<>(offsets.size());
+        try {
+            for (Long offset : offsets) {
+                Request request = loadedRequests.get(offset);
+                if (request == null) {
+                    request = readRequest(offset);
+                    loadedRequests.put(offset, request);
+                }
+                result.add(request);
+            }
+        } catch (IOException e) {
+            throw new Exception("Failed to load requests, " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Reads and decodes the request record at the specified offset of the log.
+     *
+     * @param offset record offset
+     * @return decoded request
+     * @throws IOException if the record is not a valid request record
+     */
+    private Request readRequest(long offset) throws IOException {
+        ByteBuffer record = getRecord(offset);
+        int checksum = record.getInt(record.position() + 4);
+        byte[] body = new byte[record.remaining() - RECORD_HEADER_SIZE];
+        record.position(record.position() + RECORD_HEADER_SIZE);
+        record.get(body);
+        if (checksum(body) != checksum) {
+            throw new IOException("Corrupted request record at " + offset);
+        }
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(body));
+        if (inputStream.readByte() != REQUEST_RECORD) {
+            throw new IOException("Invalid request record at " + offset);
+        }
+        RequestCodec.readString(inputStream);
+        return RequestCodec.decode(inputStream);
+    }
+
+    /**
+     * Gets the record at the specified offset of the log from the log mapping, mapping the loaded part of the log again
+     * if it has grown since it was mapped.
+     *
+     * @param offset record offset
+     * @return buffer positioned at the record start and limited to the record end, including its header
+     * @throws IOException if the log can't be mapped or the record is out of the loaded part of the log
+     */
+    private ByteBuffer getRecord(long offset) throws IOException {
+        return getRecord(offset, null);
+    }
+
+    /**
+     * Gets the record at the specified offset of the log from the log mapping. While the log is locked, the log is
+     * mapped from the locked channel, as closing another channel of the log would release the lock on some systems.
+     *
+     * @param offset        record offset
+     * @param lockedChannel channel of the locked log, or null if the log is not locked
+     * @return buffer positioned at the record start and limited to the record end, including its header
+     * @throws IOException if the log can't be mapped or the record is out of the loaded part of the log
+     */
+    private ByteBuffer getRecord(long offset, FileChannel lockedChannel) throws IOException {
+        if (offset + RECORD_HEADER_SIZE > logLength) {
+            throw new IOException("Invalid record offset " + offset);
+        }
+        if (logBuffer == null || offset + RECORD_HEADER_SIZE > logBuffer.capacity()) {
+            if (logLength > Integer.MAX_VALUE) {
+                throw new IOException(logFile.getName() + " is larger than 2 GB");
+            }
+            if (lockedChannel != null) {
+                logBuffer = lockedChannel.map(FileChannel.MapMode.READ_ONLY, 0, logLength);
+            } else {
+                try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+                    logBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, logLength);
+                }
+            }
+        }
+        ByteBuffer record = logBuffer.duplicate();
+        int length = record.getInt((int) offset);
+        if (length <= 0 || offset + RECORD_HEADER_SIZE + length > record.capacity()) {
+            throw new IOException("Invalid record at " + offset);
+        }
+        record.limit((int) offset + RECORD_HEADER_SIZE + length);
+        record.position((int) offset);
+        return record;
+    }
+
+    /**
+     * Reads the log header and returns the log generation.
+     *
+     * @param channel log file channel
+     * @return log generation
+     * @throws IOException if the log header is invalid
+     */
+    private long readLogHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) != -1) {
+            //reading until the header is complete
+        }
+        if (header.hasRemaining() || header.getLong(0) != LOG_MAGIC) {
+            throw new IOException(logFile.getName() + " is not a saved requests log");
+        }
+        return header.getLong(8);
+    }
+
+    /**
+     * Brings loaded state up to date with the log. If the log has been compacted since it was loaded, the state is
+     * loaded again from the index, otherwise only records after the loaded length are read. The log should be locked by
+     * the caller.
+     *
+     * @param channel log file channel opened for reading and writing
+     * @throws IOException if any problem occurs in reading log
+     */
+    private void refresh(FileChannel channel) throws IOException {
+        long logGeneration = readLogHeader(channel);
+        if (logGeneration != generation) {
+            //a compacted log moves records, so nothing loaded before is valid
+            clear();
+            generation = logGeneration;
+            if (!readIndex()) {
+                //without a valid index, the whole log is scanned
+                logLength = LOG_HEADER_SIZE;
+                compactedLength = LOG_HEADER_SIZE;
+            }
+        }
+        catchUp(channel);
+    }
+
+    /**
+     * Reads records of the log after the loaded length and adds them to loaded state. A partially written record at the
+     * end of the log, left by an interrupted save, is truncated. The log should be locked by the caller.
+     *
+     * @param channel log file channel opened for reading and writing
+     * @throws IOException if any problem occurs in reading log
+     */
+    private void catchUp(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (logLength >= size) {
+            return;
+        }
+        //the stream is not closed, as closing it closes the channel
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(logLength)), 65536));
+        long position = logLength;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            int length = inputStream.readInt();
+            int checksum = inputStream.readInt();
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            byte[] body = new byte[length];
+            inputStream.readFully(body);
+            if (checksum(body) != checksum) {
+                break;
+            }
+            addRecord(position, body);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        logLength = position;
+        if (position < size) {
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * Adds a record of the log to loaded state.
+     *
+     * @param offset record offset
+     * @param body   record body
+     * @throws IOException if the record is invalid
+     */
+    private void addRecord(long offset, byte[] body) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = inputStream.readByte();
+        String groupName = RequestCodec.readString(inputStream);
+        groupOffsets.putIfAbsent(groupName, new GroupOffsets(null, 0, 0));
+        if (type == REQUEST_RECORD) {
+            groupOffsets.get(groupName).add(offset);
+        } else if (type != GROUP_RECORD) {
+            throw new IOException("Invalid record type " + type + " at " + offset);
+        }
+        if (offset >= compactedLength) {
+            appendedRecords++;
+        }
+        unindexedRecords++;
+    }
+
+    /**
+     * Appends a record to the log under the log lock, after catching up with changes of the log by other processes.
+     *
+     * @param body record body
+     * @return offset of the appended record
+     * @throws IOException if any problem occurs in writing log
+     */
+    private long append(byte[] body) throws IOException {
+        if ((logFile == null || !logFile.exists()) && findLastGeneration(LOG_FILE_SUFFIX) == 0) {
+            createLog();
+        }
+        try (FileChannel channel = openLockedLog()) {
+            refresh(channel);
+            long offset = logLength;
+            writeRecord(channel, offset, body);
+            addRecord(offset, body);
+            logLength = offset + RECORD_HEADER_SIZE + body.length;
+            rememberLogAttributes();
+            return offset;
+        }
+    }
+
+    /**
+     * Opens the current log, which is the log of the last generation, and locks it until the returned channel is
+     * closed. Another process may compact the log into a log of the next generation between opening and locking it, so
+     * the log is opened again until the locked log is still the current one.
+     *
+     * @return channel of the locked log
+     * @throws IOException if the log can't be opened or locked
+     */
+    private FileChannel openLockedLog() throws IOException {
+        while (true) {
+            long lastGeneration = findLastGeneration(LOG_FILE_SUFFIX);
+            if (lastGeneration == 0) {
+                throw new IOException("Saved requests log not found");
+            }
+            File currentLogFile = logFile(lastGeneration);
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(currentLogFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (NoSuchFileException e) {
+                //deleted after a compaction by another process
+                continue;
+            }
+            try {
+                //the lock is released when the channel is closed
+                channel.lock();
+                if (!logFile(lastGeneration + 1).exists()) {
+                    logFile = currentLogFile;
+                    return channel;
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Creates an empty log of a new generation, unless another process has created it meanwhile. The log header is
+     * written into a temporary file that is linked as the log, so the log never exists without its header. The new
+     * generation is after the generations of left over index files, so they are never taken as its index.
+     *
+     * @throws IOException if any problem occurs in writing log
+     */
+    private void createLog() throws IOException {
+        clear();
+        long newGeneration = Math.max(findLastGeneration(LOG_FILE_SUFFIX), findLastGeneration(INDEX_FILE_SUFFIX)) + 1;
+        File tempFile = Files.createTempFile(directory.toPath(), FILE_NAME + LOG_FILE_SUFFIX, ".tmp").toFile();
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                writeLogHeader(channel, newGeneration);
+            }
+            Files.createLink(logFile(newGeneration).toPath(), tempFile.toPath());
+        } catch (FileAlreadyExistsException e) {
+            //the log of the other process is loaded when it is locked
+            return;
+        } finally {
+            tempFile.delete();
+        }
+        logFile = logFile(newGeneration);
+        generation = newGeneration;
+        logLength = LOG_HEADER_SIZE;
+        compactedLength = LOG_HEADER_SIZE;
+    }
+
+    /**
+     * Compacts the log if enough records have been appended since the last compaction.
+     *
+     * @throws IOException if any problem occurs in compaction
+     */
+    private void compactIfNeeded() throws IOException {
+        int recordCount = groupOffsets.size();
+        for (GroupOffsets offsets : groupOffsets.values()) {
+            recordCount += offsets.size();
+        }
+        if (appendedRecords >= Math.max(COMPACTION_MIN_RECORDS, recordCount / COMPACTION_RATIO)) {
+            compact();
+        }
+    }
+
+    /**
+     * Compacts the log by rewriting it with a group record followed by the request records of the group for every
+     * group, which keeps requests of a group next to each other and drops repeated group records. Records are copied
+     * without decoding them. The new log is written into a temporary file that is linked as the log of the next
+     * generation while the old log is locked, so the old log, which may be mapped, is not replaced. Then the index is
+     * rewritten.
+     *
+     * @throws IOException if any problem occurs in compaction
+     */
+    private void compact() throws IOException {
+        File compactedFile = Files.createTempFile(directory.toPath(), FILE_NAME + LOG_FILE_SUFFIX, ".tmp").toFile();
+        Map<String, GroupOffsets> newGroupOffsets = new LinkedHashMap<>();
+        long newGeneration;
+        long position;
+        try (FileChannel channel = openLockedLog();
+             FileChannel compactedChannel = FileChannel.open(compactedFile.toPath(), StandardOpenOption.WRITE)) {
+            refresh(channel);
+            newGeneration = generation + 1;
+            writeLogHeader(compactedChannel, newGeneration);
+            position = LOG_HEADER_SIZE;
+            for (Map.Entry<String, GroupOffsets> group : groupOffsets.entrySet()) {
+                byte[] groupBody = groupRecord(group.getKey());
+                writeRecord(compactedChannel, position, groupBody);
+                position += RECORD_HEADER_SIZE + groupBody.length;
+                GroupOffsets offsets = new GroupOffsets(null, 0, 0);
+                for (int i = 0; i < group.getValue().size(); i++) {
+                    ByteBuffer record = getRecord(group.getValue().get(i), channel);
+                    int recordLength = record.remaining();
+                    while (record.hasRemaining()) {
+                        compactedChannel.write(record, position + recordLength - record.remaining());
+                    }
+                    offsets.add(position);
+                    position += recordLength;
+                }
+                newGroupOffsets.put(group.getKey(), offsets);
+            }
+            compactedChannel.force(true);
+            Files.createLink(logFile(newGeneration).toPath(), compactedFile.toPath());
+        } finally {
+            compactedFile.delete();
+        }
+        clear();
+        logFile = logFile(newGeneration);
+        groupOffsets = newGroupOffsets;
+        generation = newGeneration;
+        logLength = position;
+        compactedLength = position;
+        rememberLogAttributes();
+        writeIndex();
+    }
+
+    /**
+     * Maps the index file of the current log generation that covers the longest part of the log, and reads its header
+     * of group names, request counts and offsets positions into loaded state. Offsets themselves are read from the
+     * mapping when they are needed.
+     *
+     * @return {@code true} if the index was read, {@code false} if it is missing or stale
+     */
+    private boolean readIndex() {
+        File indexFile = findIndexFile();
+        if (indexFile == null) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < INDEX_HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return false;
+            }
+            //the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong() != INDEX_MAGIC || buffer.getLong() != generation) {
+                return false;
+            }
+            long indexedLength = buffer.getLong();
+            long indexedCompactedLength = buffer.getLong();
+            int indexedAppendedRecords = buffer.getInt();
+            int groupCount = buffer.getInt();
+            if (indexedLength > logFile.length()) {
+                return false;
+            }
+            Map<String, GroupOffsets> indexedGroupOffsets = new LinkedHashMap<>();
+            for (int i = 0; i < groupCount; i++) {
+                String groupName = readString(buffer);
+                int count = buffer.getInt();
+                long offsetsPosition = buffer.getLong();
+                if (count < 0 || offsetsPosition + (long) count * 8 > buffer.capacity()) {
+                    return false;
+                }
+                indexedGroupOffsets.put(groupName, new GroupOffsets(buffer, (int) offsetsPosition, count));
+            }
+            groupOffsets = indexedGroupOffsets;
+            indexBuffer = buffer;
+            logLength = indexedLength;
+            compactedLength = indexedCompactedLength;
+            appendedRecords = indexedAppendedRecords;
+            unindexedRecords = 0;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            //a broken index is rebuilt from the log
+            return false;
+        }
+    }
+
+    /**
+     * Writes loaded state into the index file and maps the written index. The index starts with a header of group
+     * names, request counts and offsets positions, followed by the offsets of each group. It is written into a
+     * temporary file of its own that is linked as a new index file named by generation and log length, so indexes
+     * written by several processes at the same time are not mixed and an index that may be mapped is not replaced.
+     * Older files are deleted afterwards.
+     *
+     * @throws IOException if any problem occurs in writing index
+     */
+    private void writeIndex() throws IOException {
+        File tempFile = Files.createTempFile(directory.toPath(), FILE_NAME + INDEX_FILE_SUFFIX, ".tmp").toFile();
+        long offsetsPosition = INDEX_HEADER_SIZE;
+        for (String groupName : groupOffsets.keySet()) {
+            offsetsPosition += 4 + groupName.getBytes(StandardCharsets.UTF_8).length + 4 + 8;
+        }
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 65536))) {
+                outputStream.writeLong(INDEX_MAGIC);
+                outputStream.writeLong(generation);
+                outputStream.writeLong(logLength);
+                outputStream.writeLong(compactedLength);
+                outputStream.writeInt(appendedRecords);
+                outputStream.writeInt(groupOffsets.size());
+                for (Map.Entry<String, GroupOffsets> group : groupOffsets.entrySet()) {
+                    RequestCodec.writeString(outputStream, group.getKey());
+                    outputStream.writeInt(group.getValue().size());
+                    outputStream.writeLong(offsetsPosition);
+                    offsetsPosition += (long) group.getValue().size() * 8;
+                }
+                for (GroupOffsets offsets : groupOffsets.values()) {
+                    for (int i = 0; i < offsets.size(); i++) {
+                        outputStream.writeLong(offsets.get(i));
+                    }
+                }
+            }
+            Files.createLink(indexFile(generation, logLength).toPath(), tempFile.toPath());
+        } catch (FileAlreadyExistsException e) {
+            //another process has indexed the same part of the log
+        } finally {
+            tempFile.delete();
+        }
+        //another process may have compacted the log meanwhile, then loaded state is kept as it is
+        readIndex();
+        deleteOldFiles();
+    }
+
+    /**
+     * Migrates the legacy java serialized saved requests file into a new log. The legacy file is left as it was.
+     *
+     * @throws Exception if the legacy file can't be read
+     */
+    @SuppressWarnings("unchecked")
+    private void migrateLegacyFile() throws Exception {
+        Object readObject;
+        try (ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream(legacyFile))) {
+            readObject = inputStream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new Exception("Failed to load requests, " + e.getMessage(), e);
+        }
+        if (!(readObject instanceof Map)) {
+            throw new Exception("Invalid options file!");
+        }
+        createLog();
+        for (Map.Entry<String, List<Request>> group : ((Map<String, List<Request>>) readObject).entrySet()) {
+            append(groupRecord(group.getKey()));
+            for (Request request : group.getValue()) {
+                append(requestRecord(group.getKey(), request));
+            }
+        }
+        compact();
+    }
+
+    /**
+     * Makes body of a group record.
+     *
+     * @param groupName group name
+     * @return record body
+     * @throws IOException if any problem occurs in encoding
+     */
+    private byte[] groupRecord(String groupName) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        outputStream.writeByte(GROUP_RECORD);
+        RequestCodec.writeString(outputStream, groupName);
+        outputStream.flush();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Makes body of a request record.
+     *
+     * @param groupName group name
+     * @param request   request to save
+     * @return record body
+     * @throws IOException if any problem occurs in encoding
+     */
+    private byte[] requestRecord(String groupName, Request request) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        outputStream.writeByte(REQUEST_RECORD);
+        RequestCodec.writeString(outputStream, groupName);
+        outputStream.write(RequestCodec.encode(request));
+        outputStream.flush();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Writes a record with its length and checksum at the specified position.
+     *
+     * @param channel  log file channel
+     * @param position position to write at
+     * @param body     record body
+     * @throws IOException if any problem occurs in writing
+     */
+    private void writeRecord(FileChannel channel, long position, byte[] body) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length);
+        record.putInt(body.length);
+        record.putInt(checksum(body));
+        record.put(body);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record, position + record.position());
+        }
+    }
+
+    /**
+     * Writes log header with magic number and generation at the beginning of the log.
+     *
+     * @param channel    log file channel
+     * @param generation log generation
+     * @throws IOException if any problem occurs in writing
+     */
+    private void writeLogHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putLong(LOG_MAGIC);
+        header.putLong(generation);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Calculates checksum of a record body.
+     *
+     * @param body record body
+     * @return checksum
+     */
+    private int checksum(byte[] body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Gets the log file of a generation.
+     *
+     * @param generation log generation
+     * @return log file
+     */
+    private File logFile(long generation) {
+        return new File(directory, FILE_NAME + "." + generation + LOG_FILE_SUFFIX);
+    }
+
+    /**
+     * Gets the index file of a log generation that covers the log up to the specified length.
+     *
+     * @param generation    log generation
+     * @param indexedLength indexed log length
+     * @return index file
+     */
+    private File indexFile(long generation, long indexedLength) {
+        return new File(directory, FILE_NAME + "." + generation + "." + indexedLength + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Parses the numbers in a repository file name, which are the generation of a log file, or the generation and the
+     * indexed log length of an index file.
+     *
+     * @param fileName file name
+     * @param suffix   suffix of the file name, either {@link #LOG_FILE_SUFFIX} or {@link #INDEX_FILE_SUFFIX}
+     * @return numbers in the file name, or null if it is not a repository file name with the suffix
+     */
+    private static long[] parseFileName(String fileName, String suffix) {
+        String prefix = FILE_NAME + ".";
+        if (!fileName.startsWith(prefix) || !fileName.endsWith(suffix) || fileName.length() <= prefix.length() + suffix.length()) {
+            return null;
+        }
+        String[] parts = fileName.substring(prefix.length(), fileName.length() - suffix.length()).split("\\.");
+        if (parts.length != (suffix.equals(LOG_FILE_SUFFIX) ? 1 : 2)) {
+            return null;
+        }
+        long[] numbers = new long[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                numbers[i] = Long.parseLong(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return numbers;
+    }
+
+    /**
+     * Lists the numbers in names of all repository files with the specified suffix.
+     *
+     * @param suffix suffix of the file names, either {@link #LOG_FILE_SUFFIX} or {@link #INDEX_FILE_SUFFIX}
+     * @return numbers in the file names, as parsed by {@link #parseFileName(String, String)}
+     */
+    private List<long[]> listFiles(String suffix) {
+        List<long[]> result = new ArrayList<>();
+        String[] fileNames = directory.list();
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                long[] numbers = parseFileName(fileName, suffix);
+                if (numbers != null) {
+                    result.add(numbers);
+                }
             }
         }
         return result;
     }
+
+    /**
+     * Finds the last generation of the repository files with the specified suffix.
+     *
+     * @param suffix suffix of the file names, either {@link #LOG_FILE_SUFFIX} or {@link #INDEX_FILE_SUFFIX}
+     * @return the last generation, or 0 if there is no such file
+     */
+    private long findLastGeneration(String suffix) {
+        long lastGeneration = 0;
+        for (long[] numbers : listFiles(suffix)) {
+            lastGeneration = Math.max(lastGeneration, numbers[0]);
+        }
+        return lastGeneration;
+    }
+
+    /**
+     * Finds the index file of the loaded log generation that covers the longest part of the log.
+     *
+     * @return index file, or null if the loaded generation has no index
+     */
+    private File findIndexFile() {
+        long indexedLength = -1;
+        for (long[] numbers : listFiles(INDEX_FILE_SUFFIX)) {
+            if (numbers[0] == generation) {
+                indexedLength = Math.max(indexedLength, numbers[1]);
+            }
+        }
+        return indexedLength < 0 ? null : indexFile(generation, indexedLength);
+    }
+
+    /**
+     * Deletes logs of older generations than the loaded one, oldest first, and index files of older generations or
+     * covering a shorter part of the loaded log than its last index. A file that is still mapped can't be deleted on
+     * some systems, then it is deleted by a later call. A log that is kept stops deleting newer logs, so the log of the
+     * next generation of any remaining log exists.
+     */
+    private void deleteOldFiles() {
+        List<Long> oldGenerations = new ArrayList<>();
+        for (long[] numbers : listFiles(LOG_FILE_SUFFIX)) {
+            if (numbers[0] < generation) {
+                oldGenerations.add(numbers[0]);
+            }
+        }
+        Collections.sort(oldGenerations);
+        for (long oldGeneration : oldGenerations) {
+            if (!logFile(oldGeneration).delete()) {
+                break;
+            }
+        }
+        File indexFile = findIndexFile();
+        for (long[] numbers : listFiles(INDEX_FILE_SUFFIX)) {
+            File oldIndexFile = indexFile(numbers[0], numbers[1]);
+            if (numbers[0] < generation || (numbers[0] == generation && !oldIndexFile.equals(indexFile))) {
+                oldIndexFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads a nullable string written by {@link RequestCodec#writeString(DataOutput, String)} from a buffer.
+     *
+     * @param buffer buffer to read from
+     * @return read string, or null
+     */
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Record offsets of the requests of a group. Offsets covered by the index are read from the index mapping on
+     * demand, and offsets of records appended after the index are kept in memory.
+     */
+    private static class GroupOffsets {
+        /**
+         * index mapping, or null if no offset is covered by the index
+         */
+        private final ByteBuffer index;
+        /**
+         * position of the first offset of the group in the index mapping
+         */
+        private final int indexPosition;
+        /**
+         * number of offsets of the group in the index mapping
+         */
+        private final int indexCount;
+        /**
+         * offsets of records appended after the index
+         */
+        private final List<Long> appendedOffsets = new ArrayList<>();
+
+        /**
+         * Constructor of group offsets.
+         *
+         * @param index         index mapping, or null if no offset is covered by the index
+         * @param indexPosition position of the first offset of the group in the index mapping
+         * @param indexCount    number of offsets of the group in the index mapping
+         */
+        GroupOffsets(ByteBuffer index, int indexPosition, int indexCount) {
+            this.index = index;
+            this.indexPosition = indexPosition;
+            this.indexCount = indexCount;
+        }
+
+        /**
+         * Gets number of requests of the group.
+         *
+         * @return number of requests
+         */
+        int size() {
+            return indexCount + appendedOffsets.size();
+        }
+
+        /**
+         * Gets record offset of a request of the group.
+         *
+         * @param i request index in the group
+         * @return record offset
+         */
+        long get(int i) {
+            if (i < indexCount) {
+                return index.getLong(indexPosition + i * 8);
+            }
+            return appendedOffsets.get(i - indexCount);
+        }
+
+        /**
+         * Adds offset of a record appended after the index.
+         *
+         * @param offset record offset
+         */
+        void add(long offset) {
+            appendedOffsets.add(offset);
+        }
+    }
 }
@@ -3,13 +3,22 @@ package jurl;
 import httpclient.entity.Request;
 import httpclient.entity.Response;
 import httpclient.entity.ResponseContentType;
+import httpclient.entity.ResponseTiming;
+import jurl.transport.PoolStats;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
  * Output handler to show request execution result in command line interface.
  */
 public class ResponseCommandLineOutputHandler implements OutputHandler {
+    /**
+     * buffer size for copying streamed response content
+     */
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * Handles presentation of request execution response in command line interface.
      *
@@ -18,9 +27,16 @@ public class ResponseCommandLineOutputHandler implements OutputHandler {
      */
     @Override
     public void handleOutput(Request request, Response response) {
+        if (response.isStreamed()) {
+            handleStreamedOutput(request, response);
+            return;
+        }
         System.out.println("Response Code: " + response.getStatusCode());
         System.out.println("Response Message: " + response.getStatusMessage());
         System.out.println("Response Time: " + response.getTime());
+        if (response.getCacheStatus() != null) {
+            System.out.println("Response Cache: " + response.getCacheStatus());
+        }
         System.out.println("Response Size: " + response.getDataSize());
         if (request.isShowHeaderResponse()) {
             System.out.println(response.getHeader());
@@ -31,6 +47,117 @@ public class ResponseCommandLineOutputHandler implements OutputHandler {
                 System.out.println(response.getContentStr());
             }
         }
+        if (request.isVerbose()) {
+            outputTiming(response.getTiming());
+        }
+    }
+
+    /**
+     * Handles presentation of a streamed response in command line interface. Content is copied to standard output using
+     * a fixed buffer, so the response size is known and shown after the content. Picture content is read without being
+     * shown.
+     *
+     * @param request  executed request
+     * @param response streamed request execution response
+     */
+    private void handleStreamedOutput(Request request, Response response) {
+        System.out.println("Response Code: " + response.getStatusCode());
+        System.out.println("Response Message: " + response.getStatusMessage());
+        System.out.println("Response Time: " + response.getTime());
+        if (response.getCacheStatus() != null) {
+            System.out.println("Response Cache: " + response.getCacheStatus());
+        }
+        if (request.isShowHeaderResponse()) {
+            System.out.println(response.getHeader());
+        }
+        System.out.println(response.getContentType());
+        try (InputStream contentStream = response.getContentStream()) {
+            if (request.isOutput()) {
+                //content has already been consumed by the file output
+                System.out.println("Response body written to output file at " + response.getOutputRate());
+            } else {
+                //picture content is not shown, but it is read to the end so its size is counted and it is recorded
+                boolean picture = response.getContentType().equals(ResponseContentType.Picture);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = contentStream.read(buffer)) != -1) {
+                    if (!picture) {
+                        System.out.write(buffer, 0, read);
+                    }
+                }
+                if (!picture) {
+                    System.out.println();
+                }
+            }
+        } catch (IOException e) {
+            System.out.println();
+            System.out.println("Error: Response content can't be read completely");
+        }
+        System.out.println("Response Size: " + response.getDataSize());
+        //timing of a streamed response is complete once its content was read
+        if (request.isVerbose()) {
+            outputTiming(response.getTiming());
+        }
+    }
+
+    /**
+     * Shows the phase timing of a response, one phase per line in milliseconds.
+     *
+     * @param timing response timing, or null if it was not measured
+     */
+    private void outputTiming(ResponseTiming timing) {
+        if (timing == null) {
+            System.out.println("Response Timing: <Not Measured>");
+            return;
+        }
+        System.out.println("Response Timing:" + (timing.isReusedConnection() ? " (reused connection)" : ""));
+        System.out.println("  DNS Lookup:         " + formatNanos(timing.getDnsNanos()));
+        System.out.println("  TCP Connect:        " + formatNanos(timing.getConnectNanos()));
+        System.out.println("  TLS Handshake:      " + formatNanos(timing.getTlsNanos()));
+        System.out.println("  Request Write:      " + formatNanos(timing.getRequestWriteNanos()));
+        System.out.println("  Time To First Byte: " + formatNanos(timing.getFirstByteNanos()));
+        System.out.println("  Content Download:   " + formatNanos(timing.getDownloadNanos()));
+        System.out.println("  Total:              " + formatNanos(timing.getTotalNanos()));
+    }
+
+    /**
+     * Formats a phase time in milliseconds.
+     *
+     * @param nanos phase time in nanos, or -1 if not measured
+     * @return formatted time, or "-" if not measured
+     */
+    private String formatNanos(long nanos) {
+        return nanos < 0 ? "-" : String.format("%.3f ms", nanos / 1e6);
+    }
+
+    /**
+     * Command line presents content as it arrives, so responses are streamed.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isStreamingOutput() {
+        return true;
+    }
+
+    /**
+     * Handles presentation of upload progress in command line interface. Progress is written on a single line of
+     * standard error, so it does not mix with response content.
+     *
+     * @param request    request being sent
+     * @param sentBytes  number of bytes sent so far
+     * @param totalBytes total number of bytes, or -1 if length is unknown
+     */
+    @Override
+    public void outputUploadProgress(Request request, long sentBytes, long totalBytes) {
+        if (totalBytes > 0) {
+            System.err.print("\rUploading: " + (sentBytes * 100 / totalBytes) + "% (" + sentBytes + " B / " + totalBytes + " B)");
+        } else {
+            System.err.print("\rUploading: " + sentBytes + " B");
+        }
+        if (sentBytes == totalBytes) {
+            System.err.println();
+        }
     }
 
     /**
@@ -86,4 +213,46 @@ public class ResponseCommandLineOutputHandler implements OutputHandler {
     public void outputCreateGroup(String groupName) {
         System.out.println(groupName + " created!");
     }
+
+    /**
+     * Handles presentation of connection pool statistics in command line interface.
+     *
+     * @param poolStats connection pool statistics, or {@code null} if connections are not pooled
+     */
+    @Override
+    public void outputPoolStats(PoolStats poolStats) {
+        if (poolStats == null) {
+            System.out.println("Connection Pool: <Not Pooled>");
+        } else {
+            System.out.println("Connection Pool: " + poolStats);
+        }
+    }
+
+    /**
+     * Handles presentation of result of a bench command in command line interface.
+     *
+     * @param request     benched request
+     * @param benchResult bench result
+     */
+    @Override
+    public void outputBenchResult(Request request, BenchResult benchResult) {
+        System.out.println("Bench: " + request.getPrintString());
+        System.out.println(benchResult);
+    }
+
+    /**
+     * Handles presentation of recorded responses of response history in command line interface.
+     *
+     * @param entries recorded entries, the oldest first
+     */
+    @Override
+    public void outputHistory(List<HistoryEntry> entries) {
+        if (entries.isEmpty()) {
+            System.out.println("<No Response in History>");
+        } else {
+            for (int i = 0; i < entries.size(); i++) {
+                System.out.println((i + 1) + ". " + entries.get(i).getPrintString());
+            }
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package jurl;
+
+import httpclient.entity.Response;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content stream of a streamed response. It counts the bytes read by the consumer and sets the data size of the
+ * response when the content ends or the stream is closed, and completes the response timing when the content ends.
+ */
+class ResponseContentInputStream extends FilterInputStream {
+    /**
+     * response that content belongs to
+     */
+    private final Response response;
+    /**
+     * encoded content stream that decoded content is read from, or null if content is not encoded
+     */
+    private final WireCountingInputStream wireStream;
+    /**
+     * time in nanos that the execution started at
+     */
+    private final long startNanos;
+    /**
+     * time in nanos that the response head was handed over at
+     */
+    private final long headNanos;
+    /**
+     * number of bytes read
+     */
+    private long count;
+    /**
+     * determines the content ended and the timing was completed
+     */
+    private boolean ended;
+
+    /**
+     * Constructor of response content input stream.
+     *
+     * @param inputStream content stream of the transport
+     * @param response    response that content belongs to
+     * @param wireStream  encoded content stream that content is decoded from, or null if content is not encoded
+     * @param startNanos  time in nanos that the execution started at
+     * @param headNanos   time in nanos that the response head was handed over at
+     */
+    ResponseContentInputStream(InputStream inputStream, Response response, WireCountingInputStream wireStream,
+                               long startNanos, long headNanos) {
+        super(inputStream);
+        this.response = response;
+        this.wireStream = wireStream;
+        this.startNanos = startNanos;
+        this.headNanos = headNanos;
+        updateDataSize();
+    }
+
+    /**
+     * Reads a byte of content.
+     *
+     * @return the byte, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read != -1) {
+            count++;
+        } else {
+            end();
+        }
+        updateDataSize();
+        return read;
+    }
+
+    /**
+     * Reads some bytes of content into the buffer.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count += read;
+        } else if (read == -1) {
+            end();
+        }
+        updateDataSize();
+        return read;
+    }
+
+    /**
+     * Skips some bytes of content.
+     *
+     * @param n number of bytes to skip
+     * @return number of skipped bytes
+     * @throws IOException if any problem occurs in skipping
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        updateDataSize();
+        return skipped;
+    }
+
+    /**
+     * Mark is not supported, as content is read only once.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Completes the response timing once, when the content ends.
+     */
+    private void end() {
+        if (!ended && response.getTiming() != null) {
+            ended = true;
+            RequestExecutor.completeTiming(response.getTiming(), startNanos, headNanos);
+        }
+    }
+
+    /**
+     * Sets data size of the response by the bytes read so far.
+     */
+    private void updateDataSize() {
+        RequestExecutor.setDataSize(response, count, wireStream);
+    }
+}
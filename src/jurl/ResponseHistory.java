@@ -0,0 +1,587 @@
+package jurl;
+
+import httpclient.entity.Request;
+import httpclient.entity.Response;
+import httpclient.entity.ResponseContentType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * History of received responses. Entry metadata is appended to a history log as soon as a response is recorded, so
+ * every process sees the history of the others. Bodies are stored by the SHA-256 hash of their content, so identical
+ * bodies are kept once: the last bodies are kept in memory, at most {@code jurl.history.maxEntries} of them and
+ * {@code jurl.history.maxBytes} bytes in total, and least recently used bodies are spilled to gzip compressed files
+ * when they are evicted or when history is flushed. Streamed bodies are never kept in memory, they are compressed to a
+ * file while they are read.
+ * <p>
+ * Bodies larger than {@code jurl.history.maxBodyBytes} are not stored, their entries are recorded without body, and
+ * the oldest body files are deleted when body files take more than {@code jurl.history.maxDiskBytes} bytes of disk.
+ * Recording is turned off by setting {@code jurl.history.record} to false.
+ */
+public class ResponseHistory {
+    /**
+     * history directory name in working directory
+     */
+    public static final String DIRECTORY_NAME = "history";
+    /**
+     * history log file name
+     */
+    private static final String LOG_FILE_NAME = "history.log";
+    /**
+     * directory name of spilled bodies
+     */
+    private static final String BODIES_DIRECTORY_NAME = "bodies";
+    /**
+     * default maximum number of bodies kept in memory
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 100;
+    /**
+     * default maximum number of bytes of bodies kept in memory
+     */
+    private static final long DEFAULT_MAX_BYTES = 64L << 20;
+    /**
+     * default maximum number of bytes of a stored body
+     */
+    private static final long DEFAULT_MAX_BODY_BYTES = 8L << 20;
+    /**
+     * default maximum number of bytes of body files on disk
+     */
+    private static final long DEFAULT_MAX_DISK_BYTES = 256L << 20;
+    /**
+     * record version written before every entry, to be able to change the layout later
+     */
+    private static final int VERSION = 2;
+    /**
+     * record version that kept response time as a display string like "0.123s" and did not keep byte counts
+     */
+    private static final int STRING_TIME_VERSION = 1;
+    /**
+     * size of record header, which is record body length and checksum
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /**
+     * history log file
+     */
+    private final File logFile;
+    /**
+     * directory of spilled bodies
+     */
+    private final File bodiesDirectory;
+    /**
+     * maximum number of bodies kept in memory
+     */
+    private final int maxEntries;
+    /**
+     * maximum number of bytes of bodies kept in memory
+     */
+    private final long maxBytes;
+    /**
+     * maximum number of bytes of a stored body
+     */
+    private final long maxBodyBytes;
+    /**
+     * maximum number of bytes of body files on disk
+     */
+    private final long maxDiskBytes;
+    /**
+     * determines if responses are recorded
+     */
+    private final boolean recording;
+    /**
+     * bodies kept in memory by content hash, in least recently used order
+     */
+    private final LinkedHashMap<String, byte[]> bodies = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * bodies evicted from memory that are being spilled, by content hash
+     */
+    private final Map<String, byte[]> spillingBodies = new HashMap<>();
+    /**
+     * number of bytes of bodies kept in memory
+     */
+    private long bodyBytes;
+
+    /**
+     * Constructor of response history that keeps its files in history directory of working directory, with memory
+     * limits of {@code jurl.history.maxEntries} and {@code jurl.history.maxBytes} system properties, body size and
+     * disk limits of {@code jurl.history.maxBodyBytes} and {@code jurl.history.maxDiskBytes} system properties, and
+     * recording turned off if {@code jurl.history.record} system property is false.
+     */
+    public ResponseHistory() {
+        this(new File(DIRECTORY_NAME), Integer.getInteger("jurl.history.maxEntries", DEFAULT_MAX_ENTRIES),
+                Long.getLong("jurl.history.maxBytes", DEFAULT_MAX_BYTES),
+                Long.getLong("jurl.history.maxBodyBytes", DEFAULT_MAX_BODY_BYTES),
+                Long.getLong("jurl.history.maxDiskBytes", DEFAULT_MAX_DISK_BYTES),
+                !"false".equalsIgnoreCase(System.getProperty("jurl.history.record")));
+    }
+
+    /**
+     * Constructor of response history.
+     *
+     * @param directory    directory of history files
+     * @param maxEntries   maximum number of bodies kept in memory
+     * @param maxBytes     maximum number of bytes of bodies kept in memory
+     * @param maxBodyBytes maximum number of bytes of a stored body, larger bodies are recorded without body
+     * @param maxDiskBytes maximum number of bytes of body files on disk, the oldest ones are deleted beyond it
+     * @param recording    {@code true} to record responses, {@code false} to only read recorded history
+     */
+    public ResponseHistory(File directory, int maxEntries, long maxBytes, long maxBodyBytes, long maxDiskBytes, boolean recording) {
+        this.logFile = new File(directory, LOG_FILE_NAME);
+        this.bodiesDirectory = new File(directory, BODIES_DIRECTORY_NAME);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.recording = recording;
+    }
+
+    /**
+     * Records a response. A response read into memory is recorded at once, a streamed response is recorded when its
+     * content ends, by replacing its content stream with a stream that stores content while it is read. Nothing is
+     * recorded if recording is turned off.
+     *
+     * @param request  sent request
+     * @param response received response
+     * @throws IOException if any problem occurs in recording
+     */
+    public void record(Request request, Response response) throws IOException {
+        if (!recording) {
+            return;
+        }
+        if (response.isStreamed()) {
+            response.setContentStream(new HistoryRecordingInputStream(response.getContentStream(), this, request, response, maxBodyBytes));
+            return;
+        }
+        byte[] body = response.getContentBytes();
+        if (body == null) {
+            body = response.getContentStr() == null ? new byte[0] : response.getContentStr().getBytes(StandardCharsets.UTF_8);
+        }
+        if (body.length > maxBodyBytes) {
+            appendEntry(request, response, null, body.length);
+            return;
+        }
+        String contentHash = toHex(newDigest().digest(body));
+        cacheBody(contentHash, body);
+        appendEntry(request, response, contentHash, body.length);
+    }
+
+    /**
+     * Gets all recorded entries, from the oldest to the newest.
+     *
+     * @return recorded entries
+     * @throws IOException if any problem occurs in reading history log
+     */
+    public List<HistoryEntry> getEntries() throws IOException {
+        List<HistoryEntry> entries = new ArrayList<>();
+        if (!logFile.exists()) {
+            return entries;
+        }
+        long size = logFile.length();
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), 65536))) {
+            long position = 0;
+            //a partially written record at the end of the log, left by an interrupted process, is ignored
+            while (position + RECORD_HEADER_SIZE <= size) {
+                int length = inputStream.readInt();
+                int checksum = inputStream.readInt();
+                if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                inputStream.readFully(body);
+                if (checksum(body) != checksum) {
+                    break;
+                }
+                entries.add(decodeEntry(position, body));
+                position += RECORD_HEADER_SIZE + length;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the recorded response of an entry.
+     *
+     * @param entry     recorded entry
+     * @param streaming {@code true} to get the body as a content stream that the caller must close, {@code false} to
+     *                  read the body into memory
+     * @return recorded response
+     * @throws Exception if the body of the entry is not available
+     */
+    public Response getResponse(HistoryEntry entry, boolean streaming) throws Exception {
+        Response response = new Response();
+        response.setStatusCode(entry.getStatusCode());
+        response.setStatusMessage(entry.getStatusMessage());
+        response.setContentType(entry.getContentType());
+        response.setHeader(entry.getHeader());
+        response.setTimeNanos(entry.getTimeNanos());
+        response.setDecodedBytes(entry.getContentLength());
+        response.setWireBytes(entry.getWireBytes());
+        response.setHeaderBytes(entry.getHeaderBytes());
+        response.setContentEncoding(entry.getContentEncoding());
+        InputStream bodyStream = openBody(entry.getContentHash());
+        if (bodyStream == null) {
+            throw new Exception("Response body is not available in history");
+        }
+        if (streaming) {
+            response.setContentStream(bodyStream);
+            return response;
+        }
+        try (InputStream inputStream = bodyStream) {
+            byte[] body = inputStream.readAllBytes();
+            if (entry.getContentType().equals(ResponseContentType.Picture)) {
+                response.setContentBytes(body);
+            } else {
+                response.setContentStr(new String(body, StandardCharsets.UTF_8));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Spills all bodies kept in memory to files, so they are available after the process ends. Bodies stay in memory.
+     *
+     * @throws IOException if any problem occurs in spilling
+     */
+    public void flush() throws IOException {
+        Map<String, byte[]> unspilledBodies;
+        synchronized (this) {
+            unspilledBodies = new LinkedHashMap<>(bodies);
+        }
+        for (Map.Entry<String, byte[]> body : unspilledBodies.entrySet()) {
+            spill(body.getKey(), body.getValue());
+        }
+    }
+
+    /**
+     * Removes all recorded entries and bodies.
+     *
+     * @throws IOException if any problem occurs in removing history files
+     */
+    public synchronized void clear() throws IOException {
+        bodies.clear();
+        bodyBytes = 0;
+        Files.deleteIfExists(logFile.toPath());
+        File[] bodyFiles = bodiesDirectory.listFiles();
+        if (bodyFiles != null) {
+            for (File bodyFile : bodyFiles) {
+                Files.deleteIfExists(bodyFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * Keeps a body in memory, evicting least recently used bodies that exceed memory limits and spilling them to files.
+     *
+     * @param contentHash hash of the body
+     * @param body        body content
+     * @throws IOException if any problem occurs in spilling
+     */
+    private void cacheBody(String contentHash, byte[] body) throws IOException {
+        Map<String, byte[]> evictedBodies = new LinkedHashMap<>();
+        synchronized (this) {
+            //an identical body is kept once
+            if (bodies.get(contentHash) != null) {
+                return;
+            }
+            bodies.put(contentHash, body);
+            bodyBytes += body.length;
+            Iterator<Map.Entry<String, byte[]>> iterator = bodies.entrySet().iterator();
+            while ((bodyBytes > maxBytes || bodies.size() > maxEntries) && iterator.hasNext()) {
+                Map.Entry<String, byte[]> eldest = iterator.next();
+                bodyBytes -= eldest.getValue().length;
+                evictedBodies.put(eldest.getKey(), eldest.getValue());
+                spillingBodies.put(eldest.getKey(), eldest.getValue());
+                iterator.remove();
+            }
+        }
+        //evicted bodies are spilled out of the lock, and are found in spilling bodies meanwhile
+        try {
+            for (Map.Entry<String, byte[]> evictedBody : evictedBodies.entrySet()) {
+                spill(evictedBody.getKey(), evictedBody.getValue());
+            }
+        } finally {
+            synchronized (this) {
+                spillingBodies.keySet().removeAll(evictedBodies.keySet());
+            }
+        }
+    }
+
+    /**
+     * Writes a body to its gzip compressed file, unless an identical body has already been written.
+     *
+     * @param contentHash hash of the body
+     * @param body        body content
+     * @throws IOException if any problem occurs in writing
+     */
+    private void spill(String contentHash, byte[] body) throws IOException {
+        File bodyFile = getBodyFile(contentHash);
+        if (bodyFile.exists()) {
+            //an identical body is used again, so it is kept as a recent one
+            bodyFile.setLastModified(System.currentTimeMillis());
+            return;
+        }
+        File tempFile = createTempBodyFile();
+        try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(tempFile), 65536)) {
+            outputStream.write(body);
+        }
+        storeBodyFile(contentHash, tempFile);
+    }
+
+    /**
+     * Deletes the oldest body files while body files take more than the disk limit. Entries of deleted bodies stay in
+     * history without body.
+     */
+    private void trimBodyFiles() {
+        File[] bodyFiles = bodiesDirectory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(".gz");
+            }
+        });
+        if (bodyFiles == null) {
+            return;
+        }
+        long diskBytes = 0;
+        long[] lastModified = new long[bodyFiles.length];
+        for (int i = 0; i < bodyFiles.length; i++) {
+            diskBytes += bodyFiles[i].length();
+            lastModified[i] = bodyFiles[i].lastModified();
+        }
+        if (diskBytes <= maxDiskBytes) {
+            return;
+        }
+        Integer[] order = new Integer[bodyFiles.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return Long.compare(lastModified[first], lastModified[second]);
+            }
+        });
+        for (int i = 0; i < order.length && diskBytes > maxDiskBytes; i++) {
+            long length = bodyFiles[order[i]].length();
+            //another process may have deleted the file meanwhile
+            if (bodyFiles[order[i]].delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * Creates a temporary file in bodies directory to write a compressed body in.
+     *
+     * @return created file
+     * @throws IOException if the file can't be created
+     */
+    File createTempBodyFile() throws IOException {
+        Files.createDirectories(bodiesDirectory.toPath());
+        return File.createTempFile("body", ".tmp", bodiesDirectory);
+    }
+
+    /**
+     * Moves a temporary compressed body file to the file of its hash, or deletes it if an identical body has already
+     * been stored. Oldest body files are deleted afterwards if body files exceed the disk limit.
+     *
+     * @param contentHash hash of the body
+     * @param tempFile    temporary compressed body file
+     * @throws IOException if the file can't be moved
+     */
+    void storeBodyFile(String contentHash, File tempFile) throws IOException {
+        File bodyFile = getBodyFile(contentHash);
+        if (bodyFile.exists()) {
+            Files.delete(tempFile.toPath());
+            bodyFile.setLastModified(System.currentTimeMillis());
+        } else {
+            Files.move(tempFile.toPath(), bodyFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            trimBodyFiles();
+        }
+    }
+
+    /**
+     * Opens a body from memory or from its file.
+     *
+     * @param contentHash hash of the body
+     * @return body stream, or null if the body is not available
+     * @throws IOException if the body file can't be opened
+     */
+    private InputStream openBody(String contentHash) throws IOException {
+        if (contentHash == null) {
+            return null;
+        }
+        synchronized (this) {
+            byte[] body = bodies.get(contentHash);
+            if (body == null) {
+                body = spillingBodies.get(contentHash);
+            }
+            if (body != null) {
+                return new ByteArrayInputStream(body);
+            }
+        }
+        File bodyFile = getBodyFile(contentHash);
+        if (!bodyFile.exists()) {
+            return null;
+        }
+        return new GZIPInputStream(new FileInputStream(bodyFile), 65536);
+    }
+
+    /**
+     * Appends an entry to history log. The log is locked while appending, so entries of concurrent processes are not
+     * interleaved.
+     *
+     * @param request       sent request
+     * @param response      received response
+     * @param contentHash   hash of response body, or null if the body was not recorded completely
+     * @param contentLength length of response body in bytes
+     * @throws IOException if any problem occurs in appending
+     */
+    void appendEntry(Request request, Response response, String contentHash, long contentLength) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(512);
+        DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        outputStream.writeByte(VERSION);
+        outputStream.writeLong(System.currentTimeMillis());
+        byte[] encodedRequest = RequestCodec.encode(request);
+        outputStream.writeInt(encodedRequest.length);
+        outputStream.write(encodedRequest);
+        outputStream.writeInt(response.getStatusCode());
+        RequestCodec.writeString(outputStream, response.getStatusMessage());
+        RequestCodec.writeString(outputStream, response.getContentType() == null ? null : response.getContentType().name());
+        RequestCodec.writeMap(outputStream, response.getHeader());
+        outputStream.writeLong(response.getTimeNanos());
+        RequestCodec.writeString(outputStream, contentHash);
+        outputStream.writeLong(contentLength);
+        outputStream.writeLong(response.getWireBytes());
+        outputStream.writeLong(response.getHeaderBytes());
+        RequestCodec.writeString(outputStream, response.getContentEncoding());
+        outputStream.flush();
+        byte[] body = byteArrayOutputStream.toByteArray();
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length);
+        record.putInt(body.length).putInt(checksum(body)).put(body).flip();
+        Files.createDirectories(logFile.getParentFile().toPath());
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            //the lock is released when the channel is closed
+            channel.lock();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        }
+    }
+
+    /**
+     * Decodes an entry record of history log.
+     *
+     * @param offset record offset, which is the entry identifier
+     * @param body   record body
+     * @return decoded entry
+     * @throws IOException if the record is invalid
+     */
+    private HistoryEntry decodeEntry(long offset, byte[] body) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(body));
+        int version = inputStream.readUnsignedByte();
+        if (version != VERSION && version != STRING_TIME_VERSION) {
+            throw new IOException("Unsupported history record version " + version);
+        }
+        long recordedAt = inputStream.readLong();
+        byte[] encodedRequest = new byte[inputStream.readInt()];
+        inputStream.readFully(encodedRequest);
+        Request request = RequestCodec.decode(new DataInputStream(new ByteArrayInputStream(encodedRequest)));
+        int statusCode = inputStream.readInt();
+        String statusMessage = RequestCodec.readString(inputStream);
+        String contentType = RequestCodec.readString(inputStream);
+        Map<String, String> header = RequestCodec.readMap(inputStream);
+        long timeNanos = version == STRING_TIME_VERSION ? parseTime(RequestCodec.readString(inputStream)) : inputStream.readLong();
+        String contentHash = RequestCodec.readString(inputStream);
+        long contentLength = inputStream.readLong();
+        long wireBytes = contentLength;
+        long headerBytes = -1;
+        String contentEncoding = null;
+        if (version != STRING_TIME_VERSION) {
+            wireBytes = inputStream.readLong();
+            headerBytes = inputStream.readLong();
+            contentEncoding = RequestCodec.readString(inputStream);
+        }
+        return new HistoryEntry(offset, recordedAt, request, statusCode, statusMessage,
+                contentType == null ? ResponseContentType.General : ResponseContentType.valueOf(contentType),
+                header, timeNanos, contentHash, contentLength, wireBytes, headerBytes, contentEncoding);
+    }
+
+    /**
+     * Parses a response time display string of an old record, like "0.123s".
+     *
+     * @param time response time string, or null if it was not measured
+     * @return response time in nanos, or -1 if it was not measured or can't be parsed
+     */
+    private static long parseTime(String time) {
+        if (time == null || !time.endsWith("s")) {
+            return -1;
+        }
+        try {
+            return Math.round(Double.parseDouble(time.substring(0, time.length() - 1)) * 1000) * 1_000_000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the file of a spilled body.
+     *
+     * @param contentHash hash of the body
+     * @return body file
+     */
+    private File getBodyFile(String contentHash) {
+        return new File(bodiesDirectory, contentHash + ".gz");
+    }
+
+    /**
+     * Calculates checksum of a record body.
+     *
+     * @param body record body
+     * @return checksum
+     */
+    private int checksum(byte[] body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Creates a digest of body hashes.
+     *
+     * @return SHA-256 message digest
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //every java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Converts a hash to hex.
+     *
+     * @param hash hash bytes
+     * @return hash in hex
+     */
+    static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package jurl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Encoded content stream of a response, as it was received. It counts the encoded bytes read by the decoder, so the
+ * data size of the response can show both encoded and decoded sizes.
+ */
+class WireCountingInputStream extends FilterInputStream {
+    /**
+     * number of encoded bytes read
+     */
+    private long count;
+
+    /**
+     * Constructor of wire counting input stream.
+     *
+     * @param inputStream encoded content stream
+     */
+    WireCountingInputStream(InputStream inputStream) {
+        super(inputStream);
+    }
+
+    /**
+     * Reads a byte of encoded content.
+     *
+     * @return the byte, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read != -1) {
+            count++;
+        }
+        return read;
+    }
+
+    /**
+     * Reads some bytes of encoded content into the buffer.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    /**
+     * Skips some bytes of encoded content.
+     *
+     * @param n number of bytes to skip
+     * @return number of skipped bytes
+     * @throws IOException if any problem occurs in skipping
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    /**
+     * Mark is not supported, so bytes are never counted twice.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Gets number of encoded bytes read so far.
+     *
+     * @return number of encoded bytes
+     */
+    long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,53 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body that holds its content in a byte array.
+ */
+public class ByteArrayRequestBody implements RequestBody {
+    /**
+     * body content
+     */
+    private final byte[] content;
+
+    /**
+     * Constructor of byte array request body.
+     *
+     * @param content body content
+     */
+    public ByteArrayRequestBody(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * Gets body length in bytes.
+     *
+     * @return body length in bytes
+     */
+    @Override
+    public long getContentLength() {
+        return content.length;
+    }
+
+    /**
+     * Gets body content.
+     *
+     * @return body content
+     */
+    byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Writes the body content into the specified output stream.
+     *
+     * @param outputStream output stream to write body in
+     * @throws IOException if any problem occurs in writing
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(content);
+    }
+}
@@ -0,0 +1,84 @@
+package jurl.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output stream that writes a request body of unknown length in chunked transfer coding. Every write is sent as a
+ * chunk and finishing the stream writes the last chunk. It never closes the underlying stream, as the connection is
+ * kept alive.
+ */
+class ChunkedOutputStream extends FilterOutputStream {
+    /**
+     * determines if the last chunk has been written
+     */
+    private boolean finished;
+
+    /**
+     * Constructor of chunked output stream.
+     *
+     * @param outputStream connection output stream to write chunks in
+     */
+    ChunkedOutputStream(OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    /**
+     * Writes a single byte as a chunk.
+     *
+     * @param b byte to write
+     * @throws IOException if any problem occurs in writing
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Writes the specified bytes as a chunk.
+     *
+     * @param buffer bytes to write
+     * @param offset offset of bytes
+     * @param length number of bytes to write
+     * @throws IOException if any problem occurs in writing
+     */
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IOException("Chunked body already finished");
+        }
+        //an empty chunk would mark the end of the body
+        if (length == 0) {
+            return;
+        }
+        out.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(buffer, offset, length);
+        out.write('\r');
+        out.write('\n');
+    }
+
+    /**
+     * Writes the last chunk that ends the body, if it has not been written yet.
+     *
+     * @throws IOException if any problem occurs in writing
+     */
+    void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Finishes the body and flushes the underlying stream without closing it.
+     *
+     * @throws IOException if any problem occurs in writing
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.flush();
+    }
+}
@@ -0,0 +1,229 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * A pool of persistent connections, grouped by route (scheme, host and port). It limits the number of open connections
+ * of each route, keeps released connections idle for reuse and evicts idle connections that are expired or closed by the
+ * peer. It also counts hits, misses and evictions so connection reuse can be verified.
+ */
+public class ConnectionPool {
+    /**
+     * default maximum number of open connections per route
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
+    /**
+     * default time in millis that an idle connection is kept
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+    /**
+     * maximum number of open connections per route
+     */
+    private final int maxConnectionsPerRoute;
+    /**
+     * time in millis that an idle connection is kept
+     */
+    private final long idleTimeout;
+    /**
+     * idle connections of each route, most recently released first
+     */
+    private final Map<String, Deque<PooledConnection>> idleConnections = new HashMap<>();
+    /**
+     * number of open connections (idle or leased) of each route
+     */
+    private final Map<String, Integer> openConnections = new HashMap<>();
+    /**
+     * number of acquires that reused an idle connection
+     */
+    private long hits;
+    /**
+     * number of acquires that opened a new connection
+     */
+    private long misses;
+    /**
+     * number of idle connections closed because of expiration or being stale
+     */
+    private long evictions;
+
+    /**
+     * Constructor of connection pool that reads its configuration from {@code jurl.pool.maxConnectionsPerRoute} and
+     * {@code jurl.pool.idleTimeout} system properties, or uses default values.
+     */
+    public ConnectionPool() {
+        this(Integer.getInteger("jurl.pool.maxConnectionsPerRoute", DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+                Long.getLong("jurl.pool.idleTimeout", DEFAULT_IDLE_TIMEOUT));
+    }
+
+    /**
+     * Constructor of connection pool.
+     *
+     * @param maxConnectionsPerRoute maximum number of open connections per route
+     * @param idleTimeout            time in millis that an idle connection is kept
+     */
+    public ConnectionPool(int maxConnectionsPerRoute, long idleTimeout) {
+        if (maxConnectionsPerRoute < 1) {
+            throw new IllegalArgumentException("Invalid max connections per route " + maxConnectionsPerRoute);
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Makes the route key of the specified url.
+     *
+     * @param url url to make its route key
+     * @return route key of the url
+     */
+    static String routeKey(URL url) {
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port;
+    }
+
+    /**
+     * Acquires a connection to the host of the specified url. It reuses an idle connection of the route if possible,
+     * otherwise opens a new one. If the route has reached its maximum open connections, it waits until a connection
+     * is released.
+     *
+     * @param url url to connect to its host
+     * @return acquired connection
+     * @throws IOException if opening a new connection fails or waiting is interrupted
+     */
+    PooledConnection acquire(URL url) throws IOException {
+        String route = routeKey(url);
+        synchronized (this) {
+            while (true) {
+                evictExpired();
+                Deque<PooledConnection> idle = idleConnections.get(route);
+                PooledConnection connection;
+                while (idle != null && (connection = idle.pollFirst()) != null) {
+                    if (connection.isAlive()) {
+                        hits++;
+                        connection.setReused(true);
+                        return connection;
+                    }
+                    //the peer closed the idle connection
+                    evict(connection);
+                }
+                int open = openConnections.getOrDefault(route, 0);
+                if (open < maxConnectionsPerRoute) {
+                    openConnections.put(route, open + 1);
+                    misses++;
+                    break;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for a connection to " + route);
+                }
+            }
+        }
+        //connecting happens out of the lock, so other routes are not blocked
+        try {
+            return PooledConnection.open(url, route);
+        } catch (IOException e) {
+            synchronized (this) {
+                decrementOpen(route);
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases an acquired connection. A reusable connection is kept idle until the specified keep alive time or pool
+     * idle timeout, whichever is sooner. A non reusable connection is closed.
+     *
+     * @param connection connection to release
+     * @param reusable   determines if the connection can be reused
+     * @param keepAlive  time in millis that the server keeps the connection, or -1 if not specified
+     */
+    synchronized void release(PooledConnection connection, boolean reusable, long keepAlive) {
+        if (reusable && idleTimeout > 0) {
+            long timeout = keepAlive >= 0 ? Math.min(keepAlive, idleTimeout) : idleTimeout;
+            connection.setExpiresAt(System.currentTimeMillis() + timeout);
+            idleConnections.putIfAbsent(connection.getRoute(), new ArrayDeque<>());
+            idleConnections.get(connection.getRoute()).addFirst(connection);
+        } else {
+            connection.close();
+            decrementOpen(connection.getRoute());
+        }
+        notifyAll();
+    }
+
+    /**
+     * Closes idle connections that are expired.
+     */
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Deque<PooledConnection> idle : idleConnections.values()) {
+            Iterator<PooledConnection> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledConnection connection = iterator.next();
+                if (connection.getExpiresAt() <= now) {
+                    iterator.remove();
+                    evict(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes an idle connection that was removed from idle connections and counts it as an eviction.
+     *
+     * @param connection connection to evict
+     */
+    private void evict(PooledConnection connection) {
+        evictions++;
+        connection.close();
+        decrementOpen(connection.getRoute());
+    }
+
+    /**
+     * Decrements number of open connections of a route.
+     *
+     * @param route route key
+     */
+    private void decrementOpen(String route) {
+        int open = openConnections.getOrDefault(route, 0) - 1;
+        if (open <= 0) {
+            openConnections.remove(route);
+        } else {
+            openConnections.put(route, open);
+        }
+    }
+
+    /**
+     * Gets a snapshot of pool statistics.
+     *
+     * @return pool statistics
+     */
+    public synchronized PoolStats getStats() {
+        evictExpired();
+        int idle = 0;
+        for (Deque<PooledConnection> routeIdleConnections : idleConnections.values()) {
+            idle += routeIdleConnections.size();
+        }
+        int open = 0;
+        for (Integer routeOpenConnections : openConnections.values()) {
+            open += routeOpenConnections;
+        }
+        return new PoolStats(hits, misses, evictions, idle, open - idle);
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    public synchronized void close() {
+        for (Deque<PooledConnection> idle : idleConnections.values()) {
+            for (PooledConnection connection : idle) {
+                connection.close();
+                decrementOpen(connection.getRoute());
+            }
+            idle.clear();
+        }
+        notifyAll();
+    }
+}
@@ -0,0 +1,37 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A content coding of http message bodies, like gzip. Codecs are registered in {@link ContentCodecs} by their name,
+ * which is the token used in {@code Accept-Encoding} and {@code Content-Encoding} headers. Codecs that are not part of
+ * the JDK, like brotli or zstd, can be plugged in by a service provider of this interface.
+ */
+public interface ContentCodec {
+    /**
+     * Gets content coding name of the codec.
+     *
+     * @return content coding name, in lower case
+     */
+    String getName();
+
+    /**
+     * Wraps an encoded content stream to decode it while it is read.
+     *
+     * @param inputStream encoded content stream
+     * @return decoded content stream
+     * @throws IOException if encoded content can't be read
+     */
+    InputStream decode(InputStream inputStream) throws IOException;
+
+    /**
+     * Wraps an output stream to encode content while it is written. Closing the returned stream finishes encoding.
+     *
+     * @param outputStream output stream of encoded content
+     * @return output stream of content to encode
+     * @throws IOException if encoded content can't be written
+     */
+    OutputStream encode(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,118 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of content codecs. Gzip and deflate are registered by default, and other codecs are found as service
+ * providers of {@link ContentCodec} on the class path, or registered explicitly.
+ */
+public class ContentCodecs {
+    /**
+     * registered codecs by their name, in preference order
+     */
+    private static final Map<String, ContentCodec> CODECS = new LinkedHashMap<>();
+
+    static {
+        register(new GzipContentCodec());
+        register(new DeflateContentCodec());
+        for (ContentCodec codec : ServiceLoader.load(ContentCodec.class)) {
+            register(codec);
+        }
+    }
+
+    /**
+     * Registry only has static methods.
+     */
+    private ContentCodecs() {
+    }
+
+    /**
+     * Registers a codec, replacing the codec registered with the same name.
+     *
+     * @param codec codec to register
+     */
+    public static synchronized void register(ContentCodec codec) {
+        CODECS.put(codec.getName().toLowerCase(), codec);
+    }
+
+    /**
+     * Finds the codec of a content coding name.
+     *
+     * @param name content coding name, ignoring case
+     * @return codec, or null if there is no codec registered with the name
+     */
+    public static synchronized ContentCodec get(String name) {
+        String codecName = name.trim().toLowerCase();
+        //x-gzip is an alias of gzip
+        if (codecName.equals("x-gzip")) {
+            codecName = "gzip";
+        }
+        return CODECS.get(codecName);
+    }
+
+    /**
+     * Gets value of accept encoding header of all registered codecs.
+     *
+     * @return comma separated content coding names
+     */
+    public static synchronized String getAcceptEncoding() {
+        return String.join(", ", CODECS.keySet());
+    }
+
+    /**
+     * Determines if all codings of a content encoding header value can be decoded.
+     *
+     * @param contentEncoding content encoding header value, or null
+     * @return {@code true} if all codings have a registered codec
+     */
+    public static boolean isDecodable(String contentEncoding) {
+        if (contentEncoding == null) {
+            return true;
+        }
+        for (String coding : contentEncoding.split(",")) {
+            if (!coding.trim().isEmpty() && !coding.trim().equalsIgnoreCase("identity") && get(coding) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wraps a content stream to decode all codings of a content encoding header value while it is read. Codings are
+     * decoded in the reverse order of their application. Empty content, like content of a HEAD response, is not decoded.
+     * When decoded content ends, the rest of the encoded stream is read, so the stream under it ends too.
+     *
+     * @param inputStream     encoded content stream
+     * @param contentEncoding content encoding header value
+     * @return decoded content stream
+     * @throws IOException if any coding can't be decoded
+     */
+    public static InputStream decode(InputStream inputStream, String contentEncoding) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 1);
+        int first = pushbackInputStream.read();
+        if (first == -1) {
+            return pushbackInputStream;
+        }
+        pushbackInputStream.unread(first);
+        inputStream = pushbackInputStream;
+        String[] codings = contentEncoding.split(",");
+        for (int i = codings.length - 1; i >= 0; i--) {
+            String coding = codings[i].trim();
+            if (coding.isEmpty() || coding.equalsIgnoreCase("identity")) {
+                continue;
+            }
+            ContentCodec codec = get(coding);
+            if (codec == null) {
+                throw new IOException("Unsupported content encoding " + coding);
+            }
+            inputStream = codec.decode(inputStream);
+        }
+        //the encoded stream is read to its end with the decoded content, so it ends like content that is not encoded
+        return new DecodedContentInputStream(inputStream, pushbackInputStream);
+    }
+}
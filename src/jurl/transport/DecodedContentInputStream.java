@@ -0,0 +1,91 @@
+package jurl.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decoded content stream that reads its encoded stream to the end when decoded content ends. Decoders stop reading at
+ * the end of their coded data, like the gzip trailer, so without it the streams under them, such as the framed body of
+ * the transport and the recorders that act when content ends, would never see the end of content.
+ */
+class DecodedContentInputStream extends FilterInputStream {
+    /**
+     * encoded content stream that the decoders read from
+     */
+    private final InputStream encodedStream;
+    /**
+     * determines that the encoded stream was read to the end
+     */
+    private boolean drained;
+
+    /**
+     * Constructor of decoded content input stream.
+     *
+     * @param inputStream   decoded content stream
+     * @param encodedStream encoded content stream that the decoders read from
+     */
+    DecodedContentInputStream(InputStream inputStream, InputStream encodedStream) {
+        super(inputStream);
+        this.encodedStream = encodedStream;
+    }
+
+    /**
+     * Reads a byte of decoded content.
+     *
+     * @return the byte, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading or decoding
+     */
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read == -1) {
+            drain();
+        }
+        return read;
+    }
+
+    /**
+     * Reads some bytes of decoded content into the buffer.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of content
+     * @throws IOException if any problem occurs in reading or decoding
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read == -1) {
+            drain();
+        }
+        return read;
+    }
+
+    /**
+     * Mark is not supported, as content is read only once.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Reads the rest of the encoded stream once, which is usually nothing but the end of its framing.
+     *
+     * @throws IOException if any problem occurs in reading
+     */
+    private void drain() throws IOException {
+        if (drained) {
+            return;
+        }
+        drained = true;
+        byte[] buffer = new byte[512];
+        while (encodedStream.read(buffer, 0, buffer.length) != -1) {
+            //bytes after the coded data are ignored
+        }
+    }
+}
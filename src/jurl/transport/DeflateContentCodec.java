@@ -0,0 +1,80 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate content codec. Deflate content coding is zlib format, but some servers send raw deflate data, so the zlib
+ * header is checked before decompressing.
+ */
+public class DeflateContentCodec implements ContentCodec {
+    /**
+     * buffer size of the inflater and deflater streams
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Gets content coding name of the codec.
+     *
+     * @return {@code deflate}
+     */
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    /**
+     * Wraps a deflate content stream to decompress it while it is read.
+     *
+     * @param inputStream zlib or raw deflate content stream
+     * @return decompressed content stream
+     * @throws IOException if content header can't be read
+     */
+    @Override
+    public InputStream decode(InputStream inputStream) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 2);
+        byte[] header = new byte[2];
+        int length = pushbackInputStream.readNBytes(header, 0, 2);
+        pushbackInputStream.unread(header, 0, length);
+        //a zlib header has deflate compression method and is a multiple of 31
+        boolean zlib = length == 2 && (header[0] & 0x0f) == 8 && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+        //the inflater is not the default one of the stream, so it is released on close
+        return new InflaterInputStream(pushbackInputStream, new Inflater(!zlib), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps an output stream to compress content in zlib format while it is written.
+     *
+     * @param outputStream output stream of zlib content
+     * @return output stream of content to compress
+     */
+    @Override
+    public OutputStream encode(OutputStream outputStream) {
+        //the deflater is not the default one of the stream, so it is released on close
+        return new DeflaterOutputStream(outputStream, new Deflater(), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    def.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package jurl.transport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A request body that streams the content of a file in fixed size chunks, so files of any size are sent in constant
+ * memory.
+ */
+public class FileRequestBody implements RequestBody {
+    /**
+     * size of chunks that the file is copied in
+     */
+    private static final int CHUNK_SIZE = 8192;
+    /**
+     * file to send
+     */
+    private final File file;
+    /**
+     * file length in bytes when the body was created
+     */
+    private final long contentLength;
+
+    /**
+     * Constructor of file request body.
+     *
+     * @param file file to send
+     * @throws IOException if the file is not a readable file
+     */
+    public FileRequestBody(File file) throws IOException {
+        if (!file.isFile() || !file.canRead()) {
+            throw new IOException("File " + file + " can't be read");
+        }
+        this.file = file;
+        this.contentLength = file.length();
+    }
+
+    /**
+     * Gets file length in bytes.
+     *
+     * @return file length in bytes
+     */
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Writes the file content into the specified output stream in fixed size chunks.
+     *
+     * @param outputStream output stream to write body in
+     * @throws IOException if any problem occurs in reading file or writing
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (InputStream fileInputStream = new FileInputStream(file)) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            long remaining = contentLength;
+            int read;
+            //never sends more than the announced length, even if the file grows meanwhile
+            while (remaining > 0 && (read = fileInputStream.read(chunk, 0, (int) Math.min(chunk.length, remaining))) != -1) {
+                outputStream.write(chunk, 0, read);
+                remaining -= read;
+            }
+            if (remaining > 0) {
+                throw new IOException("File " + file + " was truncated while sending");
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip content codec.
+ */
+public class GzipContentCodec implements ContentCodec {
+    /**
+     * buffer size of the inflater and deflater streams
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Gets content coding name of the codec.
+     *
+     * @return {@code gzip}
+     */
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    /**
+     * Wraps a gzip content stream to decompress it while it is read.
+     *
+     * @param inputStream gzip content stream
+     * @return decompressed content stream
+     * @throws IOException if gzip header can't be read
+     */
+    @Override
+    public InputStream decode(InputStream inputStream) throws IOException {
+        return new GZIPInputStream(inputStream, BUFFER_SIZE);
+    }
+
+    /**
+     * Wraps an output stream to gzip content while it is written.
+     *
+     * @param outputStream output stream of gzip content
+     * @return output stream of content to compress
+     * @throws IOException if gzip header can't be written
+     */
+    @Override
+    public OutputStream encode(OutputStream outputStream) throws IOException {
+        return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,212 @@
+package jurl.transport;
+
+import java.io.*;
+import java.net.ProxySelector;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * An HTTP/2 transport built on the http client of the JDK. Concurrent requests to the same origin are multiplexed as
+ * streams of a single connection instead of taking a socket each. Https connections negotiate HTTP/2 by ALPN and http
+ * connections by an h2c upgrade of the first request, and both fall back to HTTP/1.1 if the server does not support
+ * HTTP/2.
+ */
+public class Http2Transport implements HttpTransport {
+    /**
+     * maximum number of redirects to follow
+     */
+    private static final int MAX_REDIRECTS = 20;
+    /**
+     * headers that are set by the http client itself and can't be set on a request
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    /**
+     * reason phrases of common status codes, as HTTP/2 responses have no status message
+     */
+    private static final Map<Integer, String> REASON_PHRASES = new HashMap<>();
+
+    static {
+        RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Expect", "Host", "Upgrade",
+                "Keep-Alive", "Transfer-Encoding", "TE", "Trailer"));
+        REASON_PHRASES.put(200, "OK");
+        REASON_PHRASES.put(201, "Created");
+        REASON_PHRASES.put(202, "Accepted");
+        REASON_PHRASES.put(204, "No Content");
+        REASON_PHRASES.put(206, "Partial Content");
+        REASON_PHRASES.put(301, "Moved Permanently");
+        REASON_PHRASES.put(302, "Found");
+        REASON_PHRASES.put(303, "See Other");
+        REASON_PHRASES.put(304, "Not Modified");
+        REASON_PHRASES.put(307, "Temporary Redirect");
+        REASON_PHRASES.put(308, "Permanent Redirect");
+        REASON_PHRASES.put(400, "Bad Request");
+        REASON_PHRASES.put(401, "Unauthorized");
+        REASON_PHRASES.put(403, "Forbidden");
+        REASON_PHRASES.put(404, "Not Found");
+        REASON_PHRASES.put(405, "Method Not Allowed");
+        REASON_PHRASES.put(409, "Conflict");
+        REASON_PHRASES.put(410, "Gone");
+        REASON_PHRASES.put(415, "Unsupported Media Type");
+        REASON_PHRASES.put(429, "Too Many Requests");
+        REASON_PHRASES.put(500, "Internal Server Error");
+        REASON_PHRASES.put(501, "Not Implemented");
+        REASON_PHRASES.put(502, "Bad Gateway");
+        REASON_PHRASES.put(503, "Service Unavailable");
+        REASON_PHRASES.put(504, "Gateway Timeout");
+    }
+
+    /**
+     * http client that keeps the connections, redirects are followed by the transport itself
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * Constructor of HTTP/2 transport. Requests are sent through the proxies of the default proxy selector, as http url
+     * connection sends them.
+     */
+    public Http2Transport() {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (ProxySelector.getDefault() != null) {
+            builder.proxy(ProxySelector.getDefault());
+        }
+        this.httpClient = builder.build();
+    }
+
+    /**
+     * Sends the specified request and follows redirects if the request asks for it.
+     *
+     * @param request request to send
+     * @return response of the request
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    @Override
+    public TransportResponse send(TransportRequest request) throws IOException {
+        TransportRequest currentRequest = request;
+        TransportTiming timing = new TransportTiming();
+        int redirects = 0;
+        while (true) {
+            TransportResponse response = exchange(currentRequest, timing);
+            String location = response.getHeader("Location");
+            if (!currentRequest.isFollowRedirects() || !PooledHttpTransport.isRedirect(response.getStatusCode()) || location == null
+                    || redirects >= MAX_REDIRECTS) {
+                response.setTiming(timing);
+                return response;
+            }
+            response.close();
+            currentRequest = PooledHttpTransport.makeRedirectRequest(currentRequest, response.getStatusCode(), PooledHttpTransport.resolveRedirectUrl(currentRequest.getUrl(), location));
+            redirects++;
+        }
+    }
+
+    /**
+     * Sends a request on a stream of a shared connection and waits for its response head.
+     *
+     * @param request request to send
+     * @param timing  timing that the phases of the exchange are added to
+     * @return response of the request, with its body read as it arrives
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    private TransportResponse exchange(TransportRequest request, TransportTiming timing) throws IOException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(request.getUrl().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid url " + request.getUrl(), e);
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            //framing and connection headers are computed by the http client
+            if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+        builder.method(request.getMethod(), makeBodyPublisher(request.getBody()));
+        HttpResponse<InputStream> response;
+        long sendStart = System.nanoTime();
+        try {
+            response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request was interrupted");
+        }
+        //the http client does not expose its connection phases, so the wait for the response head includes them
+        timing.addFirstByte(System.nanoTime() - sendStart);
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            headers.put(header.getKey(), String.join(", ", header.getValue()));
+        }
+        String statusMessage = REASON_PHRASES.get(response.statusCode());
+        return new TransportResponse(response.statusCode(), statusMessage == null ? "" : statusMessage, headers, response.body());
+    }
+
+    /**
+     * Makes the body publisher of a request body. A body already in memory is published from its byte array, other
+     * bodies are written to a pipe by a separate thread while the http client reads it, so they are streamed instead of
+     * being held in memory.
+     *
+     * @param body request body, or null for no body
+     * @return body publisher
+     */
+    private HttpRequest.BodyPublisher makeBodyPublisher(RequestBody body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        if (body instanceof ByteArrayRequestBody) {
+            return HttpRequest.BodyPublishers.ofByteArray(((ByteArrayRequestBody) body).getContent());
+        }
+        if (body.getContentLength() == 0) {
+            return HttpRequest.BodyPublishers.ofByteArray(new byte[0]);
+        }
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(new Supplier<InputStream>() {
+            @Override
+            public InputStream get() {
+                PipedInputStream inputStream = new PipedInputStream(65536);
+                PipedOutputStream outputStream;
+                try {
+                    outputStream = new PipedOutputStream(inputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                Thread writerThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try (OutputStream pipeOutputStream = outputStream) {
+                            body.writeTo(pipeOutputStream);
+                        } catch (IOException e) {
+                            //the reader sees the broken pipe and fails the request
+                        }
+                    }
+                }, "http2-body-writer");
+                writerThread.setDaemon(true);
+                writerThread.start();
+                return inputStream;
+            }
+        });
+        if (body.getContentLength() > 0) {
+            return HttpRequest.BodyPublishers.fromPublisher(publisher, body.getContentLength());
+        }
+        return publisher;
+    }
+
+    /**
+     * Connections are multiplexed by the http client, so there are no pool statistics.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public PoolStats getPoolStats() {
+        return null;
+    }
+
+    /**
+     * Connections of the http client are closed when they are idle, so there is nothing to close.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,192 @@
+package jurl.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A pipeline of HTTP/1.1 requests to the same route. Requests are written on a single persistent connection ahead of
+ * their responses, at most a depth of requests at a time, so the server can answer the next request while the client
+ * reads the previous response. Responses are read in request order, and a response body must be consumed or closed
+ * before the next response is taken. If the server closes the connection in the middle of the pipeline, or a response
+ * does not keep it alive, requests without response are sent one by one by the transport instead.
+ */
+public class HttpPipeline implements Closeable {
+    /**
+     * default maximum number of requests written ahead of their responses
+     */
+    public static final int DEFAULT_DEPTH = 16;
+    /**
+     * transport that sends the requests one by one after the pipeline falls back
+     */
+    private final PooledHttpTransport transport;
+    /**
+     * pool of the pipeline connection
+     */
+    private final ConnectionPool connectionPool;
+    /**
+     * requests of the pipeline, in order
+     */
+    private final List<TransportRequest> requests;
+    /**
+     * maximum number of requests written ahead of their responses
+     */
+    private final int depth;
+    /**
+     * pipeline connection, or null if the pipeline has fallen back to serial sending
+     */
+    private PooledConnection connection;
+    /**
+     * body of the last response read from the pipeline connection, or null
+     */
+    private ResponseBodyInputStream lastBody;
+    /**
+     * number of requests written on the pipeline connection
+     */
+    private int written;
+    /**
+     * number of responses taken
+     */
+    private int taken;
+    /**
+     * number of requests sent one by one after the pipeline fell back
+     */
+    private int serialCount;
+
+    /**
+     * Constructor of http pipeline.
+     *
+     * @param transport      transport that sends the requests one by one after the pipeline falls back
+     * @param connectionPool pool of the pipeline connection
+     * @param requests       requests to the same route
+     * @param depth          maximum number of requests written ahead of their responses
+     */
+    HttpPipeline(PooledHttpTransport transport, ConnectionPool connectionPool, List<TransportRequest> requests, int depth) {
+        this.transport = transport;
+        this.connectionPool = connectionPool;
+        this.requests = requests;
+        this.depth = Math.max(1, depth);
+    }
+
+    /**
+     * Determines if there are requests whose responses are not taken yet.
+     *
+     * @return {@code true} if there is a next response
+     */
+    public boolean hasNext() {
+        return taken < requests.size();
+    }
+
+    /**
+     * Takes the response of the next request. The body of the previous response is closed, and requests are written
+     * ahead up to the pipeline depth before the response is read.
+     *
+     * @return response of the next request
+     * @throws IOException if the request can't be sent even one by one
+     */
+    public TransportResponse next() throws IOException {
+        if (!hasNext()) {
+            throw new IOException("No request left in pipeline");
+        }
+        TransportRequest request = requests.get(taken++);
+        finishLastBody();
+        if (taken == 1 && requests.size() > 1) {
+            try {
+                connection = connectionPool.acquire(request.getUrl());
+            } catch (IOException e) {
+                //without a pipeline connection, requests are sent one by one
+                connection = null;
+            }
+        }
+        if (connection != null) {
+            try {
+                //keeping requests written ahead of the response to read
+                while (written < requests.size() && written < taken - 1 + depth) {
+                    PooledHttpTransport.writeRequest(connection, requests.get(written));
+                    written++;
+                }
+                HttpWireFormat.ResponseHead responseHead = HttpWireFormat.readResponseHead(connection.getInputStream());
+                lastBody = new ResponseBodyInputStream(connection, null, responseHead.getBodyFraming(request.getMethod()),
+                        responseHead.getContentLength(request.getMethod()), responseHead.isKeepAlive(), responseHead.getKeepAliveTimeout());
+                TransportResponse response = new TransportResponse(responseHead.getStatusCode(), responseHead.getStatusMessage(),
+                        responseHead.getHeaders(), lastBody);
+                response.setHeaderBytes(responseHead.getHeadBytes());
+                return followRedirect(request, response);
+            } catch (IOException e) {
+                //the server closed the connection in the middle of the pipeline, the rest is sent one by one
+                fallBack();
+            }
+        }
+        serialCount++;
+        return transport.send(request);
+    }
+
+    /**
+     * Follows a redirect of a pipelined response if its request asks for it. The redirect is sent by the transport, out
+     * of the pipeline.
+     *
+     * @param request  pipelined request
+     * @param response pipelined response
+     * @return the response itself, or the response of the redirect location
+     * @throws IOException if the redirect can't be sent
+     */
+    private TransportResponse followRedirect(TransportRequest request, TransportResponse response) throws IOException {
+        String location = response.getHeader("Location");
+        if (!request.isFollowRedirects() || !PooledHttpTransport.isRedirect(response.getStatusCode()) || location == null) {
+            return response;
+        }
+        finishLastBody();
+        return transport.send(PooledHttpTransport.makeRedirectRequest(request, response.getStatusCode(), PooledHttpTransport.resolveRedirectUrl(request.getUrl(), location)));
+    }
+
+    /**
+     * Closes the body of the last pipelined response. If the connection can't be reused after it, the pipeline falls
+     * back.
+     */
+    private void finishLastBody() {
+        if (lastBody == null) {
+            return;
+        }
+        try {
+            lastBody.close();
+        } catch (IOException e) {
+            //a broken body makes the connection not reusable
+        }
+        boolean reusable = lastBody.isReusable();
+        lastBody = null;
+        if (!reusable && connection != null) {
+            fallBack();
+        }
+    }
+
+    /**
+     * Closes the pipeline connection, so the requests without response are sent one by one.
+     */
+    private void fallBack() {
+        connectionPool.release(connection, false, -1);
+        connection = null;
+    }
+
+    /**
+     * Gets number of requests that were sent one by one instead of in the pipeline.
+     *
+     * @return number of requests sent one by one
+     */
+    public int getSerialCount() {
+        return serialCount;
+    }
+
+    /**
+     * Closes the body of the last response and releases the pipeline connection, as reusable if all of its responses
+     * were read.
+     */
+    @Override
+    public void close() {
+        long keepAliveTimeout = lastBody == null ? -1 : lastBody.getKeepAliveTimeout();
+        finishLastBody();
+        if (connection != null) {
+            connectionPool.release(connection, written == taken, keepAliveTimeout);
+            connection = null;
+        }
+    }
+}
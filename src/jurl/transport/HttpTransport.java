@@ -0,0 +1,31 @@
+package jurl.transport;
+
+import java.io.IOException;
+
+/**
+ * Transport layer of the request executor. A transport takes a wire level request, sends it to its destination and
+ * returns the wire level response whose body can be read as a stream.
+ */
+public interface HttpTransport {
+    /**
+     * Sends the specified request and returns its response. The returned response must be closed after its body was
+     * consumed so the transport can release or reuse the underlying connection.
+     *
+     * @param request request to send
+     * @return response of the request
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    TransportResponse send(TransportRequest request) throws IOException;
+
+    /**
+     * Gets connection pool statistics of the transport.
+     *
+     * @return connection pool statistics, or {@code null} if the transport does not pool connections
+     */
+    PoolStats getPoolStats();
+
+    /**
+     * Closes the transport and releases all of its connections.
+     */
+    void close();
+}
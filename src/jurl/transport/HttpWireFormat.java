@@ -0,0 +1,341 @@
+package jurl.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An utility class for writing and reading HTTP/1.1 messages on a socket stream.
+ */
+class HttpWireFormat {
+    /**
+     * maximum length of a request or header line
+     */
+    private static final int MAX_LINE_LENGTH = 65536;
+
+    /**
+     * Writes request line and headers of the specified request. Host, content length and transfer encoding headers are
+     * added based on the request url and body.
+     *
+     * @param outputStream output stream to write in
+     * @param request      request to write
+     * @throws IOException if any problem occurs in writing
+     */
+    static void writeRequestHead(OutputStream outputStream, TransportRequest request) throws IOException {
+        URL url = request.getUrl();
+        String path = url.getFile().isEmpty() ? "/" : url.getFile();
+        StringBuilder head = new StringBuilder();
+        head.append(request.getMethod()).append(' ').append(path).append(" HTTP/1.1\r\n");
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(request.getHeaders());
+        if (!headers.containsKey("Host")) {
+            head.append("Host: ").append(url.getHost());
+            if (url.getPort() != -1 && url.getPort() != url.getDefaultPort()) {
+                head.append(':').append(url.getPort());
+            }
+            head.append("\r\n");
+        }
+        if (!headers.containsKey("User-Agent")) {
+            head.append("User-Agent: jurl\r\n");
+        }
+        if (!headers.containsKey("Accept")) {
+            head.append("Accept: */*\r\n");
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            //framing headers are always computed from the body
+            if (!header.getKey().equalsIgnoreCase("Content-Length") && !header.getKey().equalsIgnoreCase("Transfer-Encoding")) {
+                head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+        }
+        RequestBody body = request.getBody();
+        if (body != null) {
+            if (body.getContentLength() >= 0) {
+                head.append("Content-Length: ").append(body.getContentLength()).append("\r\n");
+            } else {
+                head.append("Transfer-Encoding: chunked\r\n");
+            }
+        }
+        head.append("\r\n");
+        outputStream.write(head.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads status line and headers of a response. Informational (1xx) responses are skipped.
+     *
+     * @param inputStream input stream to read from
+     * @return read response head
+     * @throws IOException if any problem occurs in reading or response is malformed
+     */
+    static ResponseHead readResponseHead(InputStream inputStream) throws IOException {
+        ResponseHead responseHead;
+        //head bytes of skipped informational responses are counted too, as they were received
+        long headBytes = 0;
+        StringBuilder line = new StringBuilder();
+        do {
+            headBytes += readLine(inputStream, line);
+            String statusLine = line.toString();
+            if (!statusLine.startsWith("HTTP/")) {
+                throw new IOException("Invalid status line \"" + statusLine + "\"");
+            }
+            String[] statusParts = statusLine.split(" ", 3);
+            int statusCode;
+            try {
+                statusCode = Integer.parseInt(statusParts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Invalid status line \"" + statusLine + "\"");
+            }
+            responseHead = new ResponseHead(statusParts[0], statusCode, statusParts.length > 2 ? statusParts[2] : "");
+            while (true) {
+                headBytes += readLine(inputStream, line);
+                if (line.length() == 0) {
+                    break;
+                }
+                int colonIndex = line.indexOf(":");
+                if (colonIndex <= 0) {
+                    continue;
+                }
+                responseHead.addHeader(line.substring(0, colonIndex).trim(), line.substring(colonIndex + 1).trim());
+            }
+        } while (responseHead.statusCode >= 100 && responseHead.statusCode < 200);
+        responseHead.setHeadBytes(headBytes);
+        return responseHead;
+    }
+
+    /**
+     * Waits until the first byte of a response arrives, without consuming it.
+     *
+     * @param inputStream input stream to wait on, which should support mark
+     * @throws IOException if stream ends before any byte
+     */
+    static void awaitFirstByte(InputStream inputStream) throws IOException {
+        inputStream.mark(1);
+        if (inputStream.read() == -1) {
+            throw new EOFException("Connection closed by server");
+        }
+        inputStream.reset();
+    }
+
+    /**
+     * Reads a line that ends with CRLF or LF and returns it without line ending.
+     *
+     * @param inputStream input stream to read from
+     * @return read line
+     * @throws IOException if stream ends or line is too long
+     */
+    static String readLine(InputStream inputStream) throws IOException {
+        StringBuilder line = new StringBuilder();
+        readLine(inputStream, line);
+        return line.toString();
+    }
+
+    /**
+     * Reads a line that ends with CRLF or LF into a builder, without line ending. Each byte is read as one character.
+     *
+     * @param inputStream input stream to read from
+     * @param line        builder to read the line into, which is cleared first
+     * @return number of bytes read, including line ending
+     * @throws IOException if stream ends or line is too long
+     */
+    private static int readLine(InputStream inputStream, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int read;
+        while ((read = inputStream.read()) != -1) {
+            if (read == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return length + 1;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("Too long line in response head");
+            }
+            line.append((char) read);
+        }
+        throw new EOFException("Connection closed by server");
+    }
+
+    /**
+     * Response status line and headers.
+     */
+    static class ResponseHead {
+        /**
+         * http version of the response
+         */
+        private final String version;
+        /**
+         * response status code
+         */
+        private final int statusCode;
+        /**
+         * response status message
+         */
+        private final String statusMessage;
+        /**
+         * response headers, with case insensitive names
+         */
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        /**
+         * number of bytes the head was received in, including skipped informational responses
+         */
+        private long headBytes;
+
+        /**
+         * Constructor of response head without headers.
+         *
+         * @param version       http version of the response
+         * @param statusCode    response status code
+         * @param statusMessage response status message
+         */
+        ResponseHead(String version, int statusCode, String statusMessage) {
+            this.version = version;
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+        }
+
+        /**
+         * Gets response status code.
+         *
+         * @return response status code
+         */
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Gets response status message.
+         *
+         * @return response status message
+         */
+        String getStatusMessage() {
+            return statusMessage;
+        }
+
+        /**
+         * Gets response headers.
+         *
+         * @return response headers
+         */
+        Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Gets number of bytes the head was received in.
+         *
+         * @return number of head bytes
+         */
+        long getHeadBytes() {
+            return headBytes;
+        }
+
+        /**
+         * Sets number of bytes the head was received in.
+         *
+         * @param headBytes number of head bytes
+         */
+        void setHeadBytes(long headBytes) {
+            this.headBytes = headBytes;
+        }
+
+        /**
+         * Adds a header. Values of repeated headers are joined by comma.
+         *
+         * @param name  header name
+         * @param value header value
+         */
+        void addHeader(String name, String value) {
+            String previous = headers.get(name);
+            headers.put(name, previous == null ? value : previous + ", " + value);
+        }
+
+        /**
+         * Determines if the server allows keeping the connection alive after this response.
+         *
+         * @return {@code true} if connection can be kept alive
+         */
+        boolean isKeepAlive() {
+            String connection = headers.get("Connection");
+            if ("HTTP/1.0".equals(version)) {
+                return connection != null && connection.equalsIgnoreCase("keep-alive");
+            }
+            return connection == null || !connection.toLowerCase().contains("close");
+        }
+
+        /**
+         * Gets time in millis that the server keeps the connection, using timeout parameter of the Keep-Alive header.
+         *
+         * @return keep alive time in millis, or -1 if not specified
+         */
+        long getKeepAliveTimeout() {
+            String keepAlive = headers.get("Keep-Alive");
+            if (keepAlive != null) {
+                for (String parameter : keepAlive.split(",")) {
+                    String[] nameValue = parameter.trim().split("=");
+                    if (nameValue.length == 2 && nameValue[0].trim().equalsIgnoreCase("timeout")) {
+                        try {
+                            return Long.parseLong(nameValue[1].trim()) * 1000;
+                        } catch (NumberFormatException e) {
+                            return -1;
+                        }
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Determines body framing of the response of the specified request method.
+         *
+         * @param method request method
+         * @return body framing type of {@link ResponseBodyInputStream}
+         */
+        int getBodyFraming(String method) {
+            if (hasNoBody(method)) {
+                return ResponseBodyInputStream.FIXED_LENGTH;
+            }
+            String transferEncoding = headers.get("Transfer-Encoding");
+            if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+                return ResponseBodyInputStream.CHUNKED;
+            }
+            if (headers.get("Content-Length") != null) {
+                return ResponseBodyInputStream.FIXED_LENGTH;
+            }
+            return ResponseBodyInputStream.UNTIL_CLOSE;
+        }
+
+        /**
+         * Gets body length of the response of the specified request method for fixed length framing.
+         *
+         * @param method request method
+         * @return body length
+         * @throws IOException if content length header is invalid
+         */
+        long getContentLength(String method) throws IOException {
+            if (hasNoBody(method)) {
+                return 0;
+            }
+            String contentLength = headers.get("Content-Length");
+            try {
+                return contentLength == null ? -1 : Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length \"" + contentLength + "\"");
+            }
+        }
+
+        /**
+         * Determines if the response of the specified request method has no body.
+         *
+         * @param method request method
+         * @return {@code true} if response has no body
+         */
+        private boolean hasNoBody(String method) {
+            return method.equals("HEAD") || statusCode == 204 || statusCode == 304;
+        }
+    }
+}
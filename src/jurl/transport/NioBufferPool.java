@@ -0,0 +1,61 @@
+package jurl.transport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A pool of direct byte buffers of the same size. Channels read into and write from direct buffers without the extra
+ * copy of heap buffers, and pooling them avoids allocating direct memory per request. The pool is not thread safe, it
+ * is used by the selector thread of {@link NioHttpTransport} only.
+ */
+class NioBufferPool {
+    /**
+     * size of each buffer in bytes
+     */
+    private final int bufferSize;
+    /**
+     * maximum number of buffers kept in the pool
+     */
+    private final int maxPooledBuffers;
+    /**
+     * released buffers that can be acquired again
+     */
+    private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+
+    /**
+     * Constructor of buffer pool.
+     *
+     * @param bufferSize       size of each buffer in bytes
+     * @param maxPooledBuffers maximum number of buffers kept in the pool
+     */
+    NioBufferPool(int bufferSize, int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * Acquires a cleared buffer, which is a released one if possible or a newly allocated one.
+     *
+     * @return acquired buffer
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.pollFirst();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Releases an acquired buffer. Buffers beyond the pool capacity are left to garbage collection.
+     *
+     * @param buffer buffer to release
+     */
+    void release(ByteBuffer buffer) {
+        if (buffers.size() < maxPooledBuffers) {
+            buffers.addFirst(buffer);
+        }
+    }
+}
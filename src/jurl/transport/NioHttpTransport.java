@@ -0,0 +1,967 @@
+package jurl.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+
+/**
+ * A non-blocking HTTP/1.1 transport for plain http urls. A single selector thread connects, writes requests and
+ * parses responses of all requests in flight, so thousands of concurrent requests need no thread each. Sockets are
+ * kept alive and reused per route as in {@link ConnectionPool}, requests beyond the connection limit of a route wait
+ * in its queue, and responses are parsed from pooled direct buffers into memory as they arrive.
+ * <p>
+ * Request bodies are written into memory by the sending thread before the request is queued, so the selector thread
+ * never blocks on reading body files. Redirect requests are written and their hosts resolved on a preparing executor,
+ * and then handed back to the selector thread.
+ */
+public class NioHttpTransport implements HttpTransport {
+    /**
+     * default maximum number of open connections per route
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 256;
+    /**
+     * maximum number of redirects to follow
+     */
+    private static final int MAX_REDIRECTS = 20;
+    /**
+     * size of the direct buffers that sockets are read into and written from
+     */
+    private static final int BUFFER_SIZE = 16384;
+    /**
+     * maximum number of direct buffers kept in the buffer pool
+     */
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    /**
+     * time in millis that the selector waits before checking expired idle connections
+     */
+    private static final long SELECT_TIMEOUT = 1000;
+    /**
+     * maximum number of open connections per route
+     */
+    private final int maxConnectionsPerRoute;
+    /**
+     * time in millis that an idle connection is kept
+     */
+    private final long idleTimeout;
+    /**
+     * selector of all connections
+     */
+    private final Selector selector;
+    /**
+     * tasks submitted by other threads to run on the selector thread
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /**
+     * executor that prepares redirect requests of the requests sent without a preparing executor
+     */
+    private final ExecutorService redirectExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jurl-nio-redirect");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * pool of direct buffers, used by the selector thread only
+     */
+    private final NioBufferPool bufferPool = new NioBufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    /**
+     * routes by route key, used by the selector thread only
+     */
+    private final Map<String, Route> routes = new HashMap<>();
+    /**
+     * determines the transport is closed
+     */
+    private volatile boolean closed;
+    /**
+     * number of requests sent on reused connections
+     */
+    private volatile long hits;
+    /**
+     * number of new connections opened
+     */
+    private volatile long misses;
+    /**
+     * number of idle connections closed by timeout or by server
+     */
+    private volatile long evictions;
+    /**
+     * number of idle connections
+     */
+    private volatile int idleConnections;
+    /**
+     * number of open connections
+     */
+    private volatile int openConnections;
+
+    /**
+     * Constructor of non-blocking transport with connection limits read from system properties, and starts its
+     * selector thread.
+     *
+     * @throws IOException if the selector can't be opened
+     */
+    public NioHttpTransport() throws IOException {
+        this(Integer.getInteger("jurl.nio.maxConnectionsPerRoute", DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+                Long.getLong("jurl.pool.idleTimeout", ConnectionPool.DEFAULT_IDLE_TIMEOUT));
+    }
+
+    /**
+     * Constructor of non-blocking transport, and starts its selector thread.
+     *
+     * @param maxConnectionsPerRoute maximum number of open connections per route
+     * @param idleTimeout            time in millis that an idle connection is kept, 0 to not keep connections
+     * @throws IOException if the selector can't be opened
+     */
+    public NioHttpTransport(int maxConnectionsPerRoute, long idleTimeout) throws IOException {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.idleTimeout = idleTimeout;
+        this.selector = Selector.open();
+        Thread selectorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runSelector();
+            }
+        }, "jurl-nio-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Checks if the transport can send a request to the specified url.
+     *
+     * @param url destination url
+     * @return {@code true} for plain http urls
+     */
+    public static boolean isSupported(URL url) {
+        return url.getProtocol().equalsIgnoreCase("http");
+    }
+
+    /**
+     * Sends the specified request and waits for its response, whose body is already in memory.
+     *
+     * @param request request to send
+     * @return response of the request
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    @Override
+    public TransportResponse send(TransportRequest request) throws IOException {
+        CompletableFuture<TransportResponse> future = sendAsync(request);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends the specified request without blocking, and prepares its redirect requests on the executor of the
+     * transport.
+     *
+     * @param request request to send
+     * @return future of the response, completed on the selector thread with the whole body in memory
+     * @see #sendAsync(TransportRequest, Executor)
+     */
+    public CompletableFuture<TransportResponse> sendAsync(TransportRequest request) {
+        return sendAsync(request, redirectExecutor);
+    }
+
+    /**
+     * Sends the specified request without blocking. Its body is written into memory and its host is resolved on the
+     * calling thread, then the selector thread sends it and follows redirects if the request asks for it. Redirect
+     * requests are prepared the same way on the specified executor, as the selector thread must not block. Cancelling
+     * the returned future aborts the request and closes its connection.
+     *
+     * @param request         request to send
+     * @param prepareExecutor executor that writes redirect requests into memory and resolves their hosts
+     * @return future of the response, completed on the selector thread with the whole body in memory
+     */
+    public CompletableFuture<TransportResponse> sendAsync(TransportRequest request, Executor prepareExecutor) {
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        Exchange exchange = new Exchange(future, prepareExecutor);
+        try {
+            exchange.prepare(request);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete(new BiConsumer<TransportResponse, Throwable>() {
+            @Override
+            public void accept(TransportResponse response, Throwable failure) {
+                if (future.isCancelled()) {
+                    submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            abort(exchange);
+                        }
+                    });
+                }
+            }
+        });
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                start(exchange);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets connection statistics of the transport.
+     *
+     * @return connection statistics
+     */
+    @Override
+    public PoolStats getPoolStats() {
+        int idle = idleConnections;
+        return new PoolStats(hits, misses, evictions, idle, Math.max(openConnections - idle, 0));
+    }
+
+    /**
+     * Closes the transport. The selector thread closes all connections and fails the requests in flight.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Submits a task to run on the selector thread and wakes the selector up.
+     *
+     * @param task task to run
+     */
+    private void submit(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the selector loop until the transport is closed.
+     */
+    private void runSelector() {
+        long nextEviction = System.currentTimeMillis() + SELECT_TIMEOUT;
+        try {
+            while (!closed) {
+                selector.select(SELECT_TIMEOUT);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextEviction) {
+                    evictExpired(now);
+                    nextEviction = now + SELECT_TIMEOUT;
+                }
+            }
+        } catch (IOException e) {
+            //a failing selector closes the transport
+            closed = true;
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Handles the ready operations of a connection key.
+     *
+     * @param key selected key
+     */
+    private void handleKey(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isValid() && key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    connection.connectNanos = System.nanoTime() - connection.connectStart;
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    startWriting(connection);
+                    write(connection);
+                }
+            } else {
+                if (key.isValid() && key.isWritable()) {
+                    write(connection);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(connection);
+                }
+            }
+        } catch (IOException e) {
+            fail(connection, e);
+        }
+    }
+
+    /**
+     * Starts an exchange on an idle connection of its route, or on a new connection, or queues it if the route has
+     * reached its maximum open connections.
+     *
+     * @param exchange exchange to start
+     */
+    private void start(Exchange exchange) {
+        if (exchange.future.isDone()) {
+            return;
+        }
+        if (closed) {
+            exchange.future.completeExceptionally(new IOException("Transport closed"));
+            return;
+        }
+        Route route = routes.get(exchange.route);
+        if (route == null) {
+            route = new Route(exchange.route);
+            routes.put(exchange.route, route);
+        }
+        Connection connection = route.idle.pollFirst();
+        if (connection != null) {
+            idleConnections--;
+            hits++;
+            connection.reused = true;
+            begin(connection, exchange);
+        } else if (route.open < maxConnectionsPerRoute) {
+            open(route, exchange);
+        } else {
+            route.pending.addLast(exchange);
+        }
+    }
+
+    /**
+     * Opens a new connection of a route and starts an exchange on it once it is connected.
+     *
+     * @param route    route to connect to
+     * @param exchange exchange to start
+     */
+    private void open(Route route, Exchange exchange) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(route, channel);
+            connection.dnsNanos = exchange.dnsNanos;
+            connection.connectStart = System.nanoTime();
+            boolean connected = channel.connect(exchange.address);
+            connection.key = channel.register(selector, connected ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT, connection);
+            route.open++;
+            openConnections++;
+            misses++;
+            connection.exchange = exchange;
+            exchange.connection = connection;
+            exchange.reset();
+            if (connected) {
+                connection.connectNanos = System.nanoTime() - connection.connectStart;
+                startWriting(connection);
+                write(connection);
+            }
+        } catch (IOException e) {
+            if (exchange.connection != null) {
+                fail(exchange.connection, e);
+            } else {
+                closeQuietly(channel);
+                exchange.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Begins an exchange on a connected connection by writing its request.
+     *
+     * @param connection connection to use
+     * @param exchange   exchange to begin
+     */
+    private void begin(Connection connection, Exchange exchange) {
+        connection.exchange = exchange;
+        exchange.connection = connection;
+        exchange.reset();
+        try {
+            connection.key.interestOps(SelectionKey.OP_WRITE);
+            startWriting(connection);
+            write(connection);
+        } catch (IOException | RuntimeException e) {
+            fail(connection, e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+    }
+
+    /**
+     * Marks the start of writing the request of a connection, which ends its connection setup phases.
+     *
+     * @param connection connected connection with an exchange
+     */
+    private void startWriting(Connection connection) {
+        Exchange exchange = connection.exchange;
+        exchange.timing.addConnect(connection.dnsNanos, connection.connectNanos, 0, connection.reused);
+        exchange.writeStart = System.nanoTime();
+    }
+
+    /**
+     * Writes as much of the request of a connection as the socket accepts, from a pooled direct buffer that is filled
+     * from the request bytes. Once the request is written, the connection waits for its response.
+     *
+     * @param connection connection to write on
+     * @throws IOException if any problem occurs in writing
+     */
+    private void write(Connection connection) throws IOException {
+        Exchange exchange = connection.exchange;
+        if (exchange == null) {
+            return;
+        }
+        while (true) {
+            if (exchange.writeBuffer == null || !exchange.writeBuffer.hasRemaining()) {
+                if (exchange.requestOffset == exchange.requestBytes.length) {
+                    exchange.writeEnd = System.nanoTime();
+                    exchange.timing.addWrite(exchange.writeEnd - exchange.writeStart);
+                    exchange.releaseWriteBuffer();
+                    connection.key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+                if (exchange.writeBuffer == null) {
+                    exchange.writeBuffer = bufferPool.acquire();
+                }
+                ByteBuffer buffer = exchange.writeBuffer;
+                buffer.clear();
+                int length = Math.min(buffer.capacity(), exchange.requestBytes.length - exchange.requestOffset);
+                buffer.put(exchange.requestBytes, exchange.requestOffset, length);
+                buffer.flip();
+                exchange.requestOffset += length;
+            }
+            int written = connection.channel.write(exchange.writeBuffer);
+            exchange.bytesSent += written;
+            if (written == 0) {
+                //the socket send buffer is full, writing continues when it becomes writable
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the available bytes of a connection into a pooled direct buffer and parses them. An idle connection that
+     * becomes readable was closed by the server, or sent unexpected bytes, so it is closed.
+     *
+     * @param connection connection to read from
+     * @throws IOException if any problem occurs in reading or response is malformed
+     */
+    private void read(Connection connection) throws IOException {
+        Exchange exchange = connection.exchange;
+        if (exchange == null) {
+            connection.route.idle.remove(connection);
+            idleConnections--;
+            evictions++;
+            close(connection);
+            dispatch(connection.route);
+            return;
+        }
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            while (true) {
+                buffer.clear();
+                int read = connection.channel.read(buffer);
+                if (read == -1) {
+                    if (!exchange.parser.finish()) {
+                        throw new EOFException("Connection closed by server");
+                    }
+                    complete(connection, false);
+                    return;
+                }
+                if (read == 0) {
+                    return;
+                }
+                buffer.flip();
+                if (!exchange.parser.isStarted()) {
+                    exchange.firstByteAt = System.nanoTime();
+                    exchange.timing.addFirstByte(exchange.firstByteAt - exchange.writeEnd);
+                }
+                if (exchange.parser.parse(buffer)) {
+                    //bytes after the response were not asked for, so the connection can't be trusted for reuse
+                    complete(connection, !buffer.hasRemaining());
+                    return;
+                }
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Completes the exchange of a connection, whose response was parsed, and releases the connection. Redirects are
+     * followed by preparing the redirect request on the preparing executor of the exchange, and then starting the
+     * exchange again on the selector thread.
+     *
+     * @param connection connection of the exchange
+     * @param reusable   determines if the connection may be reused
+     */
+    private void complete(Connection connection, boolean reusable) {
+        Exchange exchange = connection.exchange;
+        NioResponseParser parser = exchange.parser;
+        connection.exchange = null;
+        exchange.connection = null;
+        release(connection, reusable && parser.isReusable(), parser.getKeepAliveTimeout());
+        exchange.timing.addDownload(System.nanoTime() - exchange.firstByteAt);
+        TransportResponse response = parser.toResponse();
+        String location = response.getHeader("Location");
+        if (exchange.request.isFollowRedirects() && PooledHttpTransport.isRedirect(response.getStatusCode())
+                && location != null && exchange.redirects < MAX_REDIRECTS) {
+            try {
+                URL redirectUrl = PooledHttpTransport.resolveRedirectUrl(exchange.request.getUrl(), location);
+                if (!isSupported(redirectUrl)) {
+                    throw new IOException("Redirect to " + redirectUrl + " can't be followed by non-blocking transport");
+                }
+                TransportRequest redirectRequest = PooledHttpTransport.makeRedirectRequest(exchange.request, response.getStatusCode(), redirectUrl);
+                exchange.redirects++;
+                //preparing writes the body and resolves the host, which may block, so it is done off the selector thread
+                exchange.prepareExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            exchange.prepare(redirectRequest);
+                        } catch (IOException e) {
+                            exchange.future.completeExceptionally(e);
+                            return;
+                        }
+                        submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                start(exchange);
+                            }
+                        });
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                exchange.future.completeExceptionally(new IOException("Redirect can't be prepared", e));
+            } catch (IOException e) {
+                exchange.future.completeExceptionally(e);
+            }
+        } else {
+            response.setTiming(exchange.timing);
+            exchange.future.complete(response);
+        }
+    }
+
+    /**
+     * Fails the exchange of a connection and closes the connection. If a reused connection was closed by the server
+     * before any byte of the response, the exchange is started again on another connection, unless its request is not
+     * idempotent and some of it was already sent, as the server may have received and processed it.
+     *
+     * @param connection failed connection
+     * @param e          failure
+     */
+    private void fail(Connection connection, IOException e) {
+        Exchange exchange = connection.exchange;
+        connection.exchange = null;
+        close(connection);
+        if (exchange != null) {
+            exchange.connection = null;
+            exchange.releaseWriteBuffer();
+            if (connection.reused && !exchange.parser.isStarted()
+                    && (PooledHttpTransport.isIdempotent(exchange.request.getMethod()) || exchange.bytesSent == 0)) {
+                //a reused keep alive connection may have been closed by server meanwhile
+                start(exchange);
+            } else {
+                exchange.future.completeExceptionally(e);
+            }
+        }
+        dispatch(connection.route);
+    }
+
+    /**
+     * Aborts a cancelled exchange, either by removing it from the queue of its route or by closing its connection.
+     *
+     * @param exchange exchange to abort
+     */
+    private void abort(Exchange exchange) {
+        Connection connection = exchange.connection;
+        if (connection == null) {
+            Route route = routes.get(exchange.route);
+            if (route != null) {
+                route.pending.remove(exchange);
+            }
+            return;
+        }
+        connection.exchange = null;
+        exchange.connection = null;
+        exchange.releaseWriteBuffer();
+        close(connection);
+        dispatch(connection.route);
+    }
+
+    /**
+     * Releases a connection whose exchange is complete. A reusable connection is kept idle until the specified keep
+     * alive time or idle timeout, whichever is sooner, and a non reusable connection is closed.
+     *
+     * @param connection connection to release
+     * @param reusable   determines if the connection can be reused
+     * @param keepAlive  time in millis that the server keeps the connection, or -1 if not specified
+     */
+    private void release(Connection connection, boolean reusable, long keepAlive) {
+        if (reusable && idleTimeout > 0 && !closed) {
+            long timeout = keepAlive >= 0 ? Math.min(keepAlive, idleTimeout) : idleTimeout;
+            connection.expiresAt = System.currentTimeMillis() + timeout;
+            connection.route.idle.addFirst(connection);
+            idleConnections++;
+        } else {
+            close(connection);
+        }
+        dispatch(connection.route);
+    }
+
+    /**
+     * Starts the queued exchanges of a route while it has idle connections or room for new connections.
+     *
+     * @param route route to dispatch
+     */
+    private void dispatch(Route route) {
+        while (!route.pending.isEmpty() && (!route.idle.isEmpty() || route.open < maxConnectionsPerRoute)) {
+            start(route.pending.pollFirst());
+        }
+        if (route.open == 0 && route.pending.isEmpty()) {
+            routes.remove(route.key);
+        }
+    }
+
+    /**
+     * Closes idle connections that are expired.
+     *
+     * @param now current time in millis
+     */
+    private void evictExpired(long now) {
+        for (Route route : new ArrayList<>(routes.values())) {
+            Iterator<Connection> iterator = route.idle.iterator();
+            while (iterator.hasNext()) {
+                Connection connection = iterator.next();
+                if (connection.expiresAt <= now) {
+                    iterator.remove();
+                    idleConnections--;
+                    evictions++;
+                    close(connection);
+                }
+            }
+            dispatch(route);
+        }
+    }
+
+    /**
+     * Closes a connection that is not idle anymore and counts it out of its route.
+     *
+     * @param connection connection to close
+     */
+    private void close(Connection connection) {
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        closeQuietly(connection.channel);
+        connection.route.open--;
+        openConnections--;
+    }
+
+    /**
+     * Closes all connections and fails all exchanges when the selector loop ends.
+     */
+    private void shutdown() {
+        IOException closedException = new IOException("Transport closed");
+        List<Exchange> exchanges = new ArrayList<>();
+        for (Route route : routes.values()) {
+            exchanges.addAll(route.pending);
+        }
+        for (SelectionKey key : selector.keys()) {
+            Connection connection = (Connection) key.attachment();
+            if (connection.exchange != null) {
+                exchanges.add(connection.exchange);
+                connection.exchange.releaseWriteBuffer();
+            }
+            key.cancel();
+            closeQuietly(connection.channel);
+        }
+        routes.clear();
+        redirectExecutor.shutdown();
+        idleConnections = 0;
+        openConnections = 0;
+        for (Exchange exchange : exchanges) {
+            exchange.future.completeExceptionally(closedException);
+        }
+        //tasks submitted while closing fail their exchanges, as the transport is closed
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            //the transport is closed anyway
+        }
+    }
+
+    /**
+     * Closes a channel, ignoring failures.
+     *
+     * @param channel channel to close, or null
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //the connection is dropped anyway
+        }
+    }
+
+    /**
+     * Connections and queued exchanges of a route.
+     */
+    private static class Route {
+        /**
+         * route key
+         */
+        private final String key;
+        /**
+         * idle connections, most recently used first
+         */
+        private final Deque<Connection> idle = new ArrayDeque<>();
+        /**
+         * exchanges waiting for a connection, in arrival order
+         */
+        private final Deque<Exchange> pending = new ArrayDeque<>();
+        /**
+         * number of open connections
+         */
+        private int open;
+
+        /**
+         * Constructor of route.
+         *
+         * @param key route key
+         */
+        private Route(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A non-blocking connection of a route.
+     */
+    private static class Connection {
+        /**
+         * route of the connection
+         */
+        private final Route route;
+        /**
+         * socket channel of the connection
+         */
+        private final SocketChannel channel;
+        /**
+         * selection key of the channel
+         */
+        private SelectionKey key;
+        /**
+         * exchange in progress on the connection, or null if the connection is idle
+         */
+        private Exchange exchange;
+        /**
+         * determines the connection was reused from idle connections
+         */
+        private boolean reused;
+        /**
+         * time in millis that the idle connection expires at
+         */
+        private long expiresAt;
+        /**
+         * DNS lookup time in nanos of the exchange that opened the connection
+         */
+        private long dnsNanos;
+        /**
+         * time in nanos that connecting started at
+         */
+        private long connectStart;
+        /**
+         * TCP connect time in nanos
+         */
+        private long connectNanos;
+
+        /**
+         * Constructor of connection.
+         *
+         * @param route   route of the connection
+         * @param channel socket channel of the connection
+         */
+        private Connection(Route route, SocketChannel channel) {
+            this.route = route;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * A request in flight with its wire bytes, response parser and the future of its response.
+     */
+    private class Exchange {
+        /**
+         * future of the response
+         */
+        private final CompletableFuture<TransportResponse> future;
+        /**
+         * executor that prepares redirect requests
+         */
+        private final Executor prepareExecutor;
+        /**
+         * request being sent, which is the redirect request after redirects
+         */
+        private TransportRequest request;
+        /**
+         * request head and body bytes
+         */
+        private byte[] requestBytes;
+        /**
+         * resolved address of the request host
+         */
+        private InetSocketAddress address;
+        /**
+         * route key of the request
+         */
+        private String route;
+        /**
+         * number of redirects followed
+         */
+        private int redirects;
+        /**
+         * connection of the exchange, or null if it is not started or is queued
+         */
+        private Connection connection;
+        /**
+         * offset of the request bytes not copied into the write buffer yet
+         */
+        private int requestOffset;
+        /**
+         * number of request bytes that the socket accepted on the current connection
+         */
+        private long bytesSent;
+        /**
+         * pooled buffer that request bytes are written from, or null if not writing
+         */
+        private ByteBuffer writeBuffer;
+        /**
+         * parser of the response
+         */
+        private NioResponseParser parser;
+        /**
+         * phase times of the exchange, added up over redirects
+         */
+        private final TransportTiming timing = new TransportTiming();
+        /**
+         * DNS lookup time in nanos of the request host
+         */
+        private long dnsNanos;
+        /**
+         * time in nanos that writing the request started at
+         */
+        private long writeStart;
+        /**
+         * time in nanos that writing the request ended at
+         */
+        private long writeEnd;
+        /**
+         * time in nanos that the first byte of the response arrived at
+         */
+        private long firstByteAt;
+
+        /**
+         * Constructor of exchange.
+         *
+         * @param future          future of the response
+         * @param prepareExecutor executor that prepares redirect requests
+         */
+        private Exchange(CompletableFuture<TransportResponse> future, Executor prepareExecutor) {
+            this.future = future;
+            this.prepareExecutor = prepareExecutor;
+        }
+
+        /**
+         * Prepares the exchange for a request by writing its head and body into memory and resolving its host.
+         *
+         * @param request request to send
+         * @throws IOException if url is not supported, host is unknown or body can't be written
+         */
+        private void prepare(TransportRequest request) throws IOException {
+            URL url = request.getUrl();
+            if (!isSupported(url)) {
+                throw new IOException("Non-blocking transport does not support " + url.getProtocol() + " urls");
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            HttpWireFormat.writeRequestHead(outputStream, request);
+            RequestBody body = request.getBody();
+            if (body != null) {
+                if (body.getContentLength() >= 0) {
+                    body.writeTo(outputStream);
+                } else {
+                    ChunkedOutputStream chunkedOutputStream = new ChunkedOutputStream(outputStream);
+                    body.writeTo(chunkedOutputStream);
+                    chunkedOutputStream.finish();
+                }
+            }
+            long dnsStart = System.nanoTime();
+            InetSocketAddress address = new InetSocketAddress(url.getHost(), url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+            if (address.isUnresolved()) {
+                throw new UnknownHostException(url.getHost());
+            }
+            this.dnsNanos = System.nanoTime() - dnsStart;
+            this.request = request;
+            this.requestBytes = outputStream.toByteArray();
+            this.address = address;
+            this.route = ConnectionPool.routeKey(url);
+        }
+
+        /**
+         * Resets writing and parsing state before the request is sent on a connection.
+         */
+        private void reset() {
+            requestOffset = 0;
+            bytesSent = 0;
+            parser = new NioResponseParser(request.getMethod());
+        }
+
+        /**
+         * Returns the write buffer to the buffer pool.
+         */
+        private void releaseWriteBuffer() {
+            if (writeBuffer != null) {
+                bufferPool.release(writeBuffer);
+                writeBuffer = null;
+            }
+        }
+    }
+}
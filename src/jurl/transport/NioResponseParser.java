@@ -0,0 +1,433 @@
+package jurl.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental parser of an HTTP/1.1 response received by {@link NioHttpTransport}. Bytes are parsed directly from the
+ * read buffers as they arrive, so a response may span any number of reads. Status code and chunk sizes are decoded
+ * from bytes, header names and values are decoded once from their byte ranges, and body bytes are copied once from
+ * the buffers into the body array, with chunked transfer coding removed.
+ */
+class NioResponseParser {
+    /**
+     * maximum length of a status, header or chunk size line
+     */
+    private static final int MAX_LINE_LENGTH = 65536;
+    /**
+     * maximum initial capacity of the body array, which grows beyond it as body arrives
+     */
+    private static final int MAX_INITIAL_BODY_CAPACITY = 1 << 20;
+    /**
+     * parsing status line
+     */
+    private static final int STATUS_LINE = 0;
+    /**
+     * parsing header lines
+     */
+    private static final int HEADER_LINE = 1;
+    /**
+     * parsing fixed length body
+     */
+    private static final int FIXED_BODY = 2;
+    /**
+     * parsing chunk size line
+     */
+    private static final int CHUNK_SIZE = 3;
+    /**
+     * parsing chunk data
+     */
+    private static final int CHUNK_DATA = 4;
+    /**
+     * parsing line ending after chunk data
+     */
+    private static final int CHUNK_END = 5;
+    /**
+     * parsing trailer lines after the last chunk
+     */
+    private static final int TRAILER_LINE = 6;
+    /**
+     * parsing body that ends when the server closes the connection
+     */
+    private static final int UNTIL_CLOSE_BODY = 7;
+    /**
+     * response is complete
+     */
+    private static final int COMPLETE = 8;
+    /**
+     * request method, which determines if the response has a body
+     */
+    private final String method;
+    /**
+     * current parsing state
+     */
+    private int state = STATUS_LINE;
+    /**
+     * bytes of the current line, without line ending
+     */
+    private byte[] line = new byte[256];
+    /**
+     * length of the current line
+     */
+    private int lineLength;
+    /**
+     * determines if any byte of the response was received
+     */
+    private boolean started;
+    /**
+     * parsed response head, or null until status line is parsed
+     */
+    private HttpWireFormat.ResponseHead head;
+    /**
+     * body framing type of {@link ResponseBodyInputStream}
+     */
+    private int framing;
+    /**
+     * remaining bytes of the fixed length body or the current chunk
+     */
+    private long remaining;
+    /**
+     * body bytes received so far
+     */
+    private byte[] body = new byte[0];
+    /**
+     * number of body bytes received so far
+     */
+    private int bodyLength;
+    /**
+     * number of response head bytes received so far, including skipped informational responses
+     */
+    private long headBytes;
+
+    /**
+     * Constructor of response parser.
+     *
+     * @param method request method, which determines if the response has a body
+     */
+    NioResponseParser(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Parses the bytes of the buffer until it is empty or the response is complete. Bytes that follow a complete
+     * response are left in the buffer.
+     *
+     * @param buffer buffer to parse, ready for reading
+     * @return {@code true} if the response is complete
+     * @throws IOException if response is malformed
+     */
+    boolean parse(ByteBuffer buffer) throws IOException {
+        if (buffer.hasRemaining()) {
+            started = true;
+        }
+        while (state != COMPLETE && buffer.hasRemaining()) {
+            if (state == FIXED_BODY || state == CHUNK_DATA) {
+                int length = (int) Math.min(remaining, buffer.remaining());
+                appendBody(buffer, length);
+                remaining -= length;
+                if (remaining == 0) {
+                    state = state == FIXED_BODY ? COMPLETE : CHUNK_END;
+                }
+            } else if (state == UNTIL_CLOSE_BODY) {
+                appendBody(buffer, buffer.remaining());
+            } else {
+                int position = buffer.position();
+                boolean lineRead = readLine(buffer);
+                if (state == STATUS_LINE || state == HEADER_LINE) {
+                    headBytes += buffer.position() - position;
+                }
+                if (lineRead) {
+                    handleLine();
+                    lineLength = 0;
+                }
+            }
+        }
+        return state == COMPLETE;
+    }
+
+    /**
+     * Handles the end of the stream, when the server closed the connection. It completes a body that ends with the
+     * connection.
+     *
+     * @return {@code true} if the response is complete
+     */
+    boolean finish() {
+        if (state == UNTIL_CLOSE_BODY) {
+            state = COMPLETE;
+        }
+        return state == COMPLETE;
+    }
+
+    /**
+     * Determines if any byte of the response was received.
+     *
+     * @return {@code true} if the response was started
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Determines if the connection can be reused after the complete response.
+     *
+     * @return {@code true} if the response was framed by its length and the server keeps the connection alive
+     */
+    boolean isReusable() {
+        return state == COMPLETE && framing != ResponseBodyInputStream.UNTIL_CLOSE && head.isKeepAlive();
+    }
+
+    /**
+     * Gets time in millis that the server keeps the connection after the response.
+     *
+     * @return keep alive time in millis, or -1 if not specified
+     */
+    long getKeepAliveTimeout() {
+        return head.getKeepAliveTimeout();
+    }
+
+    /**
+     * Makes the transport response of the complete response, whose body stream reads the body array.
+     *
+     * @return transport response
+     */
+    TransportResponse toResponse() {
+        TransportResponse response = new TransportResponse(head.getStatusCode(), head.getStatusMessage(), head.getHeaders(),
+                new ByteArrayInputStream(body, 0, bodyLength));
+        response.setHeaderBytes(headBytes);
+        return response;
+    }
+
+    /**
+     * Reads bytes of a line from the buffer until its line feed.
+     *
+     * @param buffer buffer to read from
+     * @return {@code true} if the line is complete
+     * @throws IOException if line is too long
+     */
+    private boolean readLine(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            byte read = buffer.get();
+            if (read == '\n') {
+                if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                    lineLength--;
+                }
+                return true;
+            }
+            if (lineLength == line.length) {
+                if (lineLength >= MAX_LINE_LENGTH) {
+                    throw new IOException("Too long line in response head");
+                }
+                byte[] grown = new byte[Math.min(lineLength * 2, MAX_LINE_LENGTH)];
+                System.arraycopy(line, 0, grown, 0, lineLength);
+                line = grown;
+            }
+            line[lineLength++] = read;
+        }
+        return false;
+    }
+
+    /**
+     * Handles a complete line of the current state.
+     *
+     * @throws IOException if the line is malformed
+     */
+    private void handleLine() throws IOException {
+        switch (state) {
+            case STATUS_LINE:
+                //empty lines before status line are ignored
+                if (lineLength > 0) {
+                    parseStatusLine();
+                    state = HEADER_LINE;
+                }
+                break;
+            case HEADER_LINE:
+                if (lineLength > 0) {
+                    parseHeaderLine();
+                } else if (head.getStatusCode() >= 100 && head.getStatusCode() < 200) {
+                    //informational responses are skipped
+                    head = null;
+                    state = STATUS_LINE;
+                } else {
+                    startBody();
+                }
+                break;
+            case CHUNK_SIZE:
+                remaining = parseChunkSize();
+                state = remaining == 0 ? TRAILER_LINE : CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                state = CHUNK_SIZE;
+                break;
+            default:
+                //trailer headers are ignored until the empty line that ends the response
+                if (lineLength == 0) {
+                    state = COMPLETE;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Parses the status line, with the status code decoded from its digits.
+     *
+     * @throws IOException if status line is invalid
+     */
+    private void parseStatusLine() throws IOException {
+        int versionEnd = indexOf(' ', 0);
+        if (lineLength < 5 || line[0] != 'H' || line[1] != 'T' || line[2] != 'T' || line[3] != 'P' || line[4] != '/'
+                || versionEnd < 0) {
+            throw new IOException("Invalid status line \"" + lineString(0, lineLength) + "\"");
+        }
+        int codeStart = versionEnd + 1;
+        int codeEnd = indexOf(' ', codeStart);
+        if (codeEnd < 0) {
+            codeEnd = lineLength;
+        }
+        int statusCode = 0;
+        for (int i = codeStart; i < codeEnd; i++) {
+            if (line[i] < '0' || line[i] > '9' || codeEnd - codeStart > 3) {
+                throw new IOException("Invalid status line \"" + lineString(0, lineLength) + "\"");
+            }
+            statusCode = statusCode * 10 + line[i] - '0';
+        }
+        if (codeEnd == codeStart) {
+            throw new IOException("Invalid status line \"" + lineString(0, lineLength) + "\"");
+        }
+        String statusMessage = codeEnd < lineLength ? lineString(codeEnd + 1, lineLength) : "";
+        head = new HttpWireFormat.ResponseHead(lineString(0, versionEnd), statusCode, statusMessage);
+    }
+
+    /**
+     * Parses a header line into its trimmed name and value. Lines without a name are ignored.
+     */
+    private void parseHeaderLine() {
+        int colonIndex = indexOf(':', 0);
+        if (colonIndex <= 0) {
+            return;
+        }
+        int nameEnd = colonIndex;
+        while (nameEnd > 0 && isWhitespace(line[nameEnd - 1])) {
+            nameEnd--;
+        }
+        int valueStart = colonIndex + 1;
+        int valueEnd = lineLength;
+        while (valueStart < valueEnd && isWhitespace(line[valueStart])) {
+            valueStart++;
+        }
+        while (valueEnd > valueStart && isWhitespace(line[valueEnd - 1])) {
+            valueEnd--;
+        }
+        head.addHeader(lineString(0, nameEnd), lineString(valueStart, valueEnd));
+    }
+
+    /**
+     * Starts parsing the body by the framing of the response head.
+     *
+     * @throws IOException if content length header is invalid or too long
+     */
+    private void startBody() throws IOException {
+        framing = head.getBodyFraming(method);
+        if (framing == ResponseBodyInputStream.CHUNKED) {
+            state = CHUNK_SIZE;
+        } else if (framing == ResponseBodyInputStream.UNTIL_CLOSE) {
+            state = UNTIL_CLOSE_BODY;
+        } else {
+            remaining = head.getContentLength(method);
+            if (remaining > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too long response body " + remaining);
+            }
+            //the body array is sized once for bodies of known length
+            body = new byte[(int) Math.min(remaining, MAX_INITIAL_BODY_CAPACITY)];
+            state = remaining == 0 ? COMPLETE : FIXED_BODY;
+        }
+    }
+
+    /**
+     * Parses the hexadecimal size of a chunk size line. Chunk extensions are ignored.
+     *
+     * @return chunk size
+     * @throws IOException if chunk size is invalid
+     */
+    private long parseChunkSize() throws IOException {
+        long size = 0;
+        int digits = 0;
+        for (int i = 0; i < lineLength && line[i] != ';'; i++) {
+            int digit = Character.digit(line[i], 16);
+            if (digit < 0) {
+                if (isWhitespace(line[i])) {
+                    continue;
+                }
+                throw new IOException("Invalid chunk size \"" + lineString(0, lineLength) + "\"");
+            }
+            size = size * 16 + digit;
+            digits++;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too long chunk " + lineString(0, lineLength));
+            }
+        }
+        if (digits == 0) {
+            throw new IOException("Invalid chunk size \"" + lineString(0, lineLength) + "\"");
+        }
+        return size;
+    }
+
+    /**
+     * Copies bytes of the buffer to the end of the body array, growing it if needed.
+     *
+     * @param buffer buffer to copy from
+     * @param length number of bytes to copy
+     * @throws IOException if body becomes too long
+     */
+    private void appendBody(ByteBuffer buffer, int length) throws IOException {
+        if (bodyLength + (long) length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too long response body");
+        }
+        if (bodyLength + length > body.length) {
+            long capacity = Math.max(Math.max(body.length * 2L, bodyLength + (long) length), 8192);
+            byte[] grown = new byte[(int) Math.min(capacity, Integer.MAX_VALUE - 8)];
+            System.arraycopy(body, 0, grown, 0, bodyLength);
+            body = grown;
+        }
+        buffer.get(body, bodyLength, length);
+        bodyLength += length;
+    }
+
+    /**
+     * Finds a byte in the current line.
+     *
+     * @param value byte to find
+     * @param from  index to start from
+     * @return index of the byte, or -1 if not found
+     */
+    private int indexOf(char value, int from) {
+        for (int i = from; i < lineLength; i++) {
+            if (line[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a byte is a space or a horizontal tab.
+     *
+     * @param value byte to check
+     * @return {@code true} if the byte is whitespace
+     */
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t';
+    }
+
+    /**
+     * Decodes a range of the current line as ISO-8859-1 text, as header bytes are read.
+     *
+     * @param start start index, inclusive
+     * @param end   end index, exclusive
+     * @return decoded text
+     */
+    private String lineString(int start, int end) {
+        return new String(line, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,100 @@
+package jurl.transport;
+
+/**
+ * A snapshot of connection pool statistics.
+ */
+public class PoolStats {
+    /**
+     * number of acquires that reused an idle connection
+     */
+    private final long hits;
+    /**
+     * number of acquires that opened a new connection
+     */
+    private final long misses;
+    /**
+     * number of idle connections closed because of expiration or being stale
+     */
+    private final long evictions;
+    /**
+     * number of idle connections in the pool
+     */
+    private final int idleConnections;
+    /**
+     * number of connections in use
+     */
+    private final int leasedConnections;
+
+    /**
+     * Constructor of pool statistics.
+     *
+     * @param hits              number of acquires that reused an idle connection
+     * @param misses            number of acquires that opened a new connection
+     * @param evictions         number of idle connections closed because of expiration or being stale
+     * @param idleConnections   number of idle connections in the pool
+     * @param leasedConnections number of connections in use
+     */
+    public PoolStats(long hits, long misses, long evictions, int idleConnections, int leasedConnections) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.idleConnections = idleConnections;
+        this.leasedConnections = leasedConnections;
+    }
+
+    /**
+     * Gets number of acquires that reused an idle connection.
+     *
+     * @return number of pool hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets number of acquires that opened a new connection.
+     *
+     * @return number of pool misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets number of idle connections closed because of expiration or being stale.
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets number of idle connections in the pool.
+     *
+     * @return number of idle connections
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * Gets number of connections in use.
+     *
+     * @return number of leased connections
+     */
+    public int getLeasedConnections() {
+        return leasedConnections;
+    }
+
+    /**
+     * Returns a string representation of the statistics.
+     *
+     * @return a string representation of the statistics
+     */
+    @Override
+    public String toString() {
+        return "hits: " + hits + " | misses: " + misses + " | evictions: " + evictions
+                + " | idle: " + idleConnections + " | leased: " + leasedConnections;
+    }
+}
@@ -0,0 +1,272 @@
+package jurl.transport;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+/**
+ * A persistent socket connection to a route (scheme, host and port) that is kept in a connection pool between requests.
+ */
+class PooledConnection {
+    /**
+     * socket buffer size
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * route key of the connection
+     */
+    private final String route;
+    /**
+     * connected socket
+     */
+    private final Socket socket;
+    /**
+     * buffered socket input stream
+     */
+    private final InputStream inputStream;
+    /**
+     * buffered socket output stream
+     */
+    private final OutputStream outputStream;
+    /**
+     * determines if the connection was taken from idle connections
+     */
+    private boolean reused;
+    /**
+     * time in millis that the idle connection expires at
+     */
+    private long expiresAt;
+    /**
+     * DNS lookup time of opening the connection in nanos
+     */
+    private long dnsNanos;
+    /**
+     * TCP connect time of opening the connection in nanos
+     */
+    private long connectNanos;
+    /**
+     * TLS handshake time of opening the connection in nanos, 0 for plain connections
+     */
+    private long tlsNanos;
+    /**
+     * number of bytes that the socket accepted, over all requests of the connection
+     */
+    private long bytesWritten;
+
+    /**
+     * Constructor of pooled connection.
+     *
+     * @param route  route key of the connection
+     * @param socket connected socket
+     * @throws IOException if socket streams can't be opened
+     */
+    private PooledConnection(String route, Socket socket) throws IOException {
+        this.route = route;
+        this.socket = socket;
+        this.inputStream = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        //bytes are counted when the socket accepts them, under the buffer
+        this.outputStream = new BufferedOutputStream(new FilterOutputStream(socket.getOutputStream()) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesWritten++;
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                bytesWritten += length;
+            }
+        }, BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a new connection to the host of the specified url. For https urls, it also performs the TLS handshake.
+     *
+     * @param url   url to connect to its host
+     * @param route route key of the connection
+     * @return opened connection
+     * @throws IOException if connecting fails
+     */
+    static PooledConnection open(URL url, String route) throws IOException {
+        String host = url.getHost();
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        //host is resolved before connecting, so lookup and connect are timed apart
+        long dnsStart = System.nanoTime();
+        InetAddress address = InetAddress.getByName(host);
+        long connectStart = System.nanoTime();
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(address, port));
+            long connectEnd = System.nanoTime();
+            long tlsNanos = 0;
+            if ("https".equalsIgnoreCase(url.getProtocol())) {
+                SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(socket, host, port, true);
+                SSLParameters sslParameters = sslSocket.getSSLParameters();
+                sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(sslParameters);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+                tlsNanos = System.nanoTime() - connectEnd;
+            }
+            PooledConnection connection = new PooledConnection(route, socket);
+            connection.dnsNanos = connectStart - dnsStart;
+            connection.connectNanos = connectEnd - connectStart;
+            connection.tlsNanos = tlsNanos;
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that an idle connection is still usable, meaning the peer has not closed it and has not sent any
+     * unexpected data.
+     *
+     * @return {@code true} if the connection is usable, {@code false} otherwise
+     */
+    boolean isAlive() {
+        if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        try {
+            if (inputStream.available() > 0) {
+                return false;
+            }
+            //a short blocking peek: timing out means the peer is silent and the connection is alive
+            socket.setSoTimeout(1);
+            //reading anything, either end of stream or unexpected data, makes the connection unusable
+            inputStream.read();
+            return false;
+        } catch (SocketTimeoutException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                socket.setSoTimeout(0);
+            } catch (IOException e) {
+                //socket is closed, it will be evicted
+            }
+        }
+    }
+
+    /**
+     * Closes the connection quietly.
+     */
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //nothing to do, the connection is discarded anyway
+        }
+    }
+
+    /**
+     * Gets DNS lookup time of opening the connection.
+     *
+     * @return DNS lookup time in nanos
+     */
+    long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * Gets TCP connect time of opening the connection.
+     *
+     * @return TCP connect time in nanos
+     */
+    long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * Gets TLS handshake time of opening the connection.
+     *
+     * @return TLS handshake time in nanos, 0 for plain connections
+     */
+    long getTlsNanos() {
+        return tlsNanos;
+    }
+
+    /**
+     * Gets route key of the connection.
+     *
+     * @return route key of the connection
+     */
+    String getRoute() {
+        return route;
+    }
+
+    /**
+     * Gets buffered socket input stream.
+     *
+     * @return socket input stream
+     */
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Gets buffered socket output stream.
+     *
+     * @return socket output stream
+     */
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Gets number of bytes that the socket accepted, over all requests of the connection. Bytes still in the buffer of
+     * the output stream are not counted.
+     *
+     * @return number of bytes written to the socket
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Gets reused state of the connection.
+     *
+     * @return {@code true} if the connection was taken from idle connections
+     */
+    boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * Sets reused state of the connection.
+     *
+     * @param reused reused state of the connection
+     */
+    void setReused(boolean reused) {
+        this.reused = reused;
+    }
+
+    /**
+     * Gets time in millis that the idle connection expires at.
+     *
+     * @return expiration time in millis
+     */
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets time in millis that the idle connection expires at.
+     *
+     * @param expiresAt expiration time in millis
+     */
+    void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
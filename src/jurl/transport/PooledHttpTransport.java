@@ -0,0 +1,288 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP/1.1 transport that sends requests over persistent socket connections taken from a connection pool. Sending a
+ * group of requests to the same host reuses the sockets instead of paying DNS, TCP and TLS setup for each request.
+ * <p>
+ * Sockets are connected directly, so requests to urls that the default {@link ProxySelector} sends through a proxy,
+ * such as those configured by http.proxyHost and https.proxyHost system properties, are sent by
+ * {@link UrlConnectionTransport}, which honors proxies.
+ */
+public class PooledHttpTransport implements HttpTransport {
+    /**
+     * maximum number of redirects to follow
+     */
+    private static final int MAX_REDIRECTS = 20;
+    /**
+     * pool of connections
+     */
+    private final ConnectionPool connectionPool;
+    /**
+     * transport of the requests that are sent through a proxy
+     */
+    private final UrlConnectionTransport proxyTransport = new UrlConnectionTransport();
+
+    /**
+     * Constructor of pooled http transport with a default connection pool.
+     */
+    public PooledHttpTransport() {
+        this(new ConnectionPool());
+    }
+
+    /**
+     * Constructor of pooled http transport.
+     *
+     * @param connectionPool pool of connections
+     */
+    public PooledHttpTransport(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Sends the specified request and follows redirects if the request asks for it. A request to a proxied url is sent
+     * by http url connection.
+     *
+     * @param request request to send
+     * @return response of the request
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    @Override
+    public TransportResponse send(TransportRequest request) throws IOException {
+        if (isProxied(request.getUrl())) {
+            return proxyTransport.send(request);
+        }
+        TransportRequest currentRequest = request;
+        TransportTiming timing = new TransportTiming();
+        int redirects = 0;
+        while (true) {
+            TransportResponse response = exchange(currentRequest, timing);
+            String location = response.getHeader("Location");
+            if (!currentRequest.isFollowRedirects() || !isRedirect(response.getStatusCode()) || location == null
+                    || redirects >= MAX_REDIRECTS) {
+                response.setTiming(timing);
+                return response;
+            }
+            response.close();
+            currentRequest = makeRedirectRequest(currentRequest, response.getStatusCode(), resolveRedirectUrl(currentRequest.getUrl(), location));
+            redirects++;
+        }
+    }
+
+    /**
+     * Sends a request on a pooled connection and reads its response head. If a reused connection turns out to be closed
+     * by the server, the request is sent again on another connection, unless it is not idempotent and some of it was
+     * already written to the socket, as the server may have received and processed it.
+     *
+     * @param request request to send
+     * @param timing  timing that the phases of the exchange are added to
+     * @return response of the request
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    private TransportResponse exchange(TransportRequest request, TransportTiming timing) throws IOException {
+        while (true) {
+            PooledConnection connection = connectionPool.acquire(request.getUrl());
+            timing.addConnect(connection.getDnsNanos(), connection.getConnectNanos(), connection.getTlsNanos(), connection.isReused());
+            long writtenBefore = connection.getBytesWritten();
+            try {
+                long writeStart = System.nanoTime();
+                writeRequest(connection, request);
+                long writeEnd = System.nanoTime();
+                timing.addWrite(writeEnd - writeStart);
+                HttpWireFormat.awaitFirstByte(connection.getInputStream());
+                timing.addFirstByte(System.nanoTime() - writeEnd);
+                HttpWireFormat.ResponseHead responseHead = HttpWireFormat.readResponseHead(connection.getInputStream());
+                ResponseBodyInputStream body = new ResponseBodyInputStream(connection, connectionPool,
+                        responseHead.getBodyFraming(request.getMethod()), responseHead.getContentLength(request.getMethod()),
+                        responseHead.isKeepAlive(), responseHead.getKeepAliveTimeout());
+                TransportResponse response = new TransportResponse(responseHead.getStatusCode(), responseHead.getStatusMessage(), responseHead.getHeaders(), body);
+                response.setHeaderBytes(responseHead.getHeadBytes());
+                return response;
+            } catch (IOException e) {
+                connectionPool.release(connection, false, -1);
+                //a reused keep alive connection may have been closed by server meanwhile, so retry it on another one
+                if (!connection.isReused() || (!isIdempotent(request.getMethod()) && connection.getBytesWritten() != writtenBefore)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes request head and body on the connection.
+     *
+     * @param connection connection to write on
+     * @param request    request to write
+     * @throws IOException if any problem occurs in writing
+     */
+    static void writeRequest(PooledConnection connection, TransportRequest request) throws IOException {
+        OutputStream outputStream = connection.getOutputStream();
+        HttpWireFormat.writeRequestHead(outputStream, request);
+        RequestBody body = request.getBody();
+        if (body != null) {
+            if (body.getContentLength() >= 0) {
+                body.writeTo(outputStream);
+            } else {
+                //a body of unknown length is sent in chunks as it is written
+                ChunkedOutputStream chunkedOutputStream = new ChunkedOutputStream(outputStream);
+                body.writeTo(chunkedOutputStream);
+                chunkedOutputStream.finish();
+            }
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Starts a pipeline of requests to the same route. Requests are written on a single connection ahead of their
+     * responses, which are read in order by {@link HttpPipeline#next()}. Requests should be idempotent, as the requests
+     * without response are sent again one by one if the server closes the connection in the middle of the pipeline.
+     *
+     * @param requests requests to the same route
+     * @param depth    maximum number of requests written ahead of their responses
+     * @return started pipeline
+     */
+    public HttpPipeline pipeline(List<TransportRequest> requests, int depth) {
+        return new HttpPipeline(this, connectionPool, requests, depth);
+    }
+
+    /**
+     * Checks if the default proxy selector sends requests to the specified url through a proxy.
+     *
+     * @param url destination url
+     * @return {@code true} if a proxy is selected for the url
+     */
+    public static boolean isProxied(URL url) {
+        ProxySelector proxySelector = ProxySelector.getDefault();
+        if (proxySelector == null) {
+            return false;
+        }
+        try {
+            for (Proxy proxy : proxySelector.select(url.toURI())) {
+                if (proxy.type() != Proxy.Type.DIRECT) {
+                    return true;
+                }
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            //a url that is not a valid uri can't be matched by proxy settings
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a request method is idempotent, so that sending its request again has the same effect as sending it
+     * once.
+     *
+     * @param method request method
+     * @return {@code true} if the method is idempotent
+     */
+    static boolean isIdempotent(String method) {
+        return method.equals("GET") || method.equals("HEAD") || method.equals("PUT") || method.equals("DELETE")
+                || method.equals("OPTIONS") || method.equals("TRACE");
+    }
+
+    /**
+     * Checks if a status code is a redirect status code.
+     *
+     * @param statusCode status code to check
+     * @return {@code true} if the status code is a redirect
+     */
+    static boolean isRedirect(int statusCode) {
+        return statusCode == 301 || statusCode == 302 || statusCode == 303 || statusCode == 307 || statusCode == 308;
+    }
+
+    /**
+     * Resolves a redirect location against the url of the redirected request.
+     *
+     * @param url      url of the redirected request
+     * @param location location header of the redirect, absolute or relative
+     * @return url of the redirect location
+     * @throws MalformedURLException if url or location is not a valid uri
+     */
+    static URL resolveRedirectUrl(URL url, String location) throws MalformedURLException {
+        try {
+            URI uri = url.toURI();
+            //a base uri without path would resolve relative locations without the separating slash
+            if (uri.getRawPath() == null || uri.getRawPath().isEmpty()) {
+                uri = uri.resolve("/");
+            }
+            return uri.resolve(location).toURL();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new MalformedURLException("Invalid redirect location " + location);
+        }
+    }
+
+    /**
+     * Makes the request that follows a redirect. As browsers do, 303 and non GET 301/302 redirects continue with a GET
+     * request without body, while 307 and 308 keep the method and body. Authorization and cookie headers are dropped
+     * when the redirect goes to another scheme, host or port, so credentials are not sent to other origins.
+     *
+     * @param request    redirected request
+     * @param statusCode redirect status code
+     * @param location   redirect location
+     * @return request to the redirect location
+     */
+    static TransportRequest makeRedirectRequest(TransportRequest request, int statusCode, URL location) {
+        boolean keepMethod = statusCode == 307 || statusCode == 308 || request.getMethod().equals("HEAD")
+                || (request.getMethod().equals("GET") && statusCode != 303);
+        TransportRequest redirectRequest = new TransportRequest(keepMethod ? request.getMethod() : "GET", location);
+        redirectRequest.setFollowRedirects(true);
+        boolean sameOrigin = isSameOrigin(request.getUrl(), location);
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            //host is recomputed for the new location and body headers are dropped with the body
+            if (header.getKey().equalsIgnoreCase("Host")
+                    || (!keepMethod && header.getKey().equalsIgnoreCase("Content-Type"))) {
+                continue;
+            }
+            if (!sameOrigin && (header.getKey().equalsIgnoreCase("Authorization") || header.getKey().equalsIgnoreCase("Cookie"))) {
+                continue;
+            }
+            redirectRequest.setHeader(header.getKey(), header.getValue());
+        }
+        if (keepMethod) {
+            redirectRequest.setBody(request.getBody());
+        }
+        return redirectRequest;
+    }
+
+    /**
+     * Checks if two urls have the same scheme, host and port.
+     *
+     * @param url   first url
+     * @param other second url
+     * @return {@code true} if the urls have the same origin
+     */
+    private static boolean isSameOrigin(URL url, URL other) {
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        int otherPort = other.getPort() == -1 ? other.getDefaultPort() : other.getPort();
+        return url.getProtocol().equalsIgnoreCase(other.getProtocol()) && url.getHost().equalsIgnoreCase(other.getHost())
+                && port == otherPort;
+    }
+
+    /**
+     * Gets connection pool statistics.
+     *
+     * @return connection pool statistics
+     */
+    @Override
+    public PoolStats getPoolStats() {
+        return connectionPool.getStats();
+    }
+
+    /**
+     * Closes all idle connections of the pool.
+     */
+    @Override
+    public void close() {
+        connectionPool.close();
+    }
+}
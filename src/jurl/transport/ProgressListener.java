@@ -0,0 +1,14 @@
+package jurl.transport;
+
+/**
+ * Listener of the progress of sending a request body.
+ */
+public interface ProgressListener {
+    /**
+     * Called as the request body is being sent.
+     *
+     * @param sentBytes  number of bytes sent so far
+     * @param totalBytes total number of bytes, or -1 if length is unknown
+     */
+    void progress(long sentBytes, long totalBytes);
+}
@@ -0,0 +1,147 @@
+package jurl.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body that reports the progress of writing another request body to a progress listener. Progress is
+ * reported at most once per percent (or per megabyte for bodies of unknown length) and once more when writing ends.
+ */
+public class ProgressRequestBody implements RequestBody {
+    /**
+     * minimum number of bytes between two progress reports
+     */
+    private static final long MIN_REPORT_STEP = 1024 * 1024;
+    /**
+     * body to report its progress
+     */
+    private final RequestBody body;
+    /**
+     * listener of progress
+     */
+    private final ProgressListener progressListener;
+
+    /**
+     * Constructor of progress request body.
+     *
+     * @param body             body to report its progress
+     * @param progressListener listener of progress
+     */
+    public ProgressRequestBody(RequestBody body, ProgressListener progressListener) {
+        this.body = body;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Gets length of the wrapped body.
+     *
+     * @return body length in bytes, or -1 if length is unknown
+     */
+    @Override
+    public long getContentLength() {
+        return body.getContentLength();
+    }
+
+    /**
+     * Writes the wrapped body into the specified output stream while reporting the written bytes.
+     *
+     * @param outputStream output stream to write body in
+     * @throws IOException if any problem occurs in writing
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        ProgressOutputStream progressOutputStream = new ProgressOutputStream(outputStream, body.getContentLength());
+        body.writeTo(progressOutputStream);
+        progressOutputStream.finish();
+    }
+
+    /**
+     * Output stream that counts written bytes and reports them to the progress listener.
+     */
+    private class ProgressOutputStream extends FilterOutputStream {
+        /**
+         * total number of bytes, or -1 if length is unknown
+         */
+        private final long totalBytes;
+        /**
+         * minimum number of bytes between two reports
+         */
+        private final long step;
+        /**
+         * number of bytes written
+         */
+        private long sentBytes;
+        /**
+         * number of written bytes at the last report
+         */
+        private long reportedBytes = -1;
+
+        /**
+         * Constructor of progress output stream.
+         *
+         * @param outputStream output stream to write body in
+         * @param totalBytes   total number of bytes, or -1 if length is unknown
+         */
+        ProgressOutputStream(OutputStream outputStream, long totalBytes) {
+            super(outputStream);
+            this.totalBytes = totalBytes;
+            this.step = Math.max(totalBytes / 100, MIN_REPORT_STEP);
+        }
+
+        /**
+         * Writes a byte and counts it.
+         *
+         * @param b byte to write
+         * @throws IOException if any problem occurs in writing
+         */
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count(1);
+        }
+
+        /**
+         * Writes the specified bytes and counts them.
+         *
+         * @param buffer bytes to write
+         * @param offset offset of bytes
+         * @param length number of bytes to write
+         * @throws IOException if any problem occurs in writing
+         */
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count(length);
+        }
+
+        /**
+         * Counts written bytes and reports them if a step has passed since the last report.
+         *
+         * @param length number of written bytes
+         */
+        private void count(int length) {
+            sentBytes += length;
+            if (sentBytes - Math.max(reportedBytes, 0) >= step) {
+                report();
+            }
+        }
+
+        /**
+         * Reports the final count if it has not been reported yet.
+         */
+        void finish() {
+            if (reportedBytes != sentBytes) {
+                report();
+            }
+        }
+
+        /**
+         * Reports the number of written bytes to the progress listener.
+         */
+        private void report() {
+            reportedBytes = sentBytes;
+            progressListener.progress(sentBytes, totalBytes);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Body of a wire level request. A request body can be written more than once, so it can be sent again in the case of
+ * redirects or retries.
+ */
+public interface RequestBody {
+    /**
+     * Gets body length in bytes.
+     *
+     * @return body length in bytes, or -1 if length is unknown
+     */
+    long getContentLength();
+
+    /**
+     * Writes the body into the specified output stream. It does not close the output stream.
+     *
+     * @param outputStream output stream to write body in
+     * @throws IOException if any problem occurs in writing
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
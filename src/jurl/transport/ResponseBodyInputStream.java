@@ -0,0 +1,267 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a response body from a pooled connection using the body framing of the response (fixed length, chunked or until
+ * the connection closes). When closed, it gives the connection back to the pool, as reusable if the whole body was
+ * consumed and the server allows keeping the connection alive. A body of a pipelined response has no pool, as its
+ * connection is still owned by the pipeline.
+ */
+class ResponseBodyInputStream extends InputStream {
+    /**
+     * maximum number of remaining bytes that are drained on close to keep the connection reusable
+     */
+    private static final int DRAIN_LIMIT = 65536;
+    /**
+     * body framing: body length is known
+     */
+    static final int FIXED_LENGTH = 1;
+    /**
+     * body framing: body is chunked
+     */
+    static final int CHUNKED = 2;
+    /**
+     * body framing: body ends when connection closes
+     */
+    static final int UNTIL_CLOSE = 3;
+
+    /**
+     * connection that body is read from
+     */
+    private final PooledConnection connection;
+    /**
+     * pool that connection belongs to
+     */
+    private final ConnectionPool connectionPool;
+    /**
+     * socket input stream
+     */
+    private final InputStream inputStream;
+    /**
+     * body framing type
+     */
+    private final int framing;
+    /**
+     * determines if server allows keeping the connection alive
+     */
+    private final boolean keepAlive;
+    /**
+     * time in millis that the server keeps the connection, or -1 if not specified
+     */
+    private final long keepAliveTimeout;
+    /**
+     * remaining bytes of the fixed length body or of the current chunk
+     */
+    private long remaining;
+    /**
+     * determines that the whole body was read
+     */
+    private boolean finished;
+    /**
+     * determines that the stream was closed
+     */
+    private boolean closed;
+
+    /**
+     * Constructor of response body input stream.
+     *
+     * @param connection       connection that body is read from
+     * @param connectionPool   pool that connection belongs to, or null if the connection is released by its owner
+     * @param framing          body framing type
+     * @param length           body length for fixed length framing
+     * @param keepAlive        determines if server allows keeping the connection alive
+     * @param keepAliveTimeout time in millis that the server keeps the connection, or -1 if not specified
+     */
+    ResponseBodyInputStream(PooledConnection connection, ConnectionPool connectionPool, int framing, long length, boolean keepAlive, long keepAliveTimeout) {
+        this.connection = connection;
+        this.connectionPool = connectionPool;
+        this.inputStream = connection.getInputStream();
+        this.framing = framing;
+        this.keepAlive = keepAlive;
+        this.keepAliveTimeout = keepAliveTimeout;
+        if (framing == FIXED_LENGTH) {
+            remaining = length;
+            finished = length == 0;
+        } else {
+            remaining = 0;
+        }
+    }
+
+    /**
+     * Reads a byte of body.
+     *
+     * @return the byte, or -1 at the end of body
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    /**
+     * Reads some bytes of body into the buffer.
+     *
+     * @param buffer buffer to read into
+     * @param offset offset of the buffer
+     * @param length maximum number of bytes to read
+     * @return number of bytes read, or -1 at the end of body
+     * @throws IOException if any problem occurs in reading
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (finished) {
+            return -1;
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (framing == CHUNKED && remaining == 0) {
+            remaining = readChunkSize();
+            if (remaining == 0) {
+                readTrailers();
+                finished = true;
+                return -1;
+            }
+        }
+        int toRead = framing == UNTIL_CLOSE ? length : (int) Math.min(length, remaining);
+        int read = inputStream.read(buffer, offset, toRead);
+        if (read == -1) {
+            if (framing == UNTIL_CLOSE) {
+                finished = true;
+                return -1;
+            }
+            throw new IOException("Connection closed before end of response body");
+        }
+        if (framing != UNTIL_CLOSE) {
+            remaining -= read;
+            if (framing == FIXED_LENGTH && remaining == 0) {
+                finished = true;
+            } else if (framing == CHUNKED && remaining == 0) {
+                readCrLf();
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Returns number of bytes that can be read without blocking.
+     *
+     * @return number of available bytes
+     * @throws IOException if any problem occurs
+     */
+    @Override
+    public int available() throws IOException {
+        if (closed || finished) {
+            return 0;
+        }
+        int available = inputStream.available();
+        return framing == UNTIL_CLOSE ? available : (int) Math.min(available, remaining);
+    }
+
+    /**
+     * Determines if the connection can be reused after the body, which is when the whole body was consumed and the
+     * server allows keeping the connection alive.
+     *
+     * @return {@code true} if the connection can be reused
+     */
+    boolean isReusable() {
+        return finished && keepAlive && framing != UNTIL_CLOSE;
+    }
+
+    /**
+     * Gets time in millis that the server keeps the connection alive.
+     *
+     * @return keep alive time in millis, or -1 if not specified
+     */
+    long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * Closes the body stream and releases the connection to the pool, if it has a pool. Small unread remainder of the
+     * body is drained to keep the connection reusable.
+     *
+     * @throws IOException never, connection problems only make the connection not reusable
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (!finished && framing != UNTIL_CLOSE) {
+            drain();
+        }
+        closed = true;
+        if (connectionPool != null) {
+            connectionPool.release(connection, isReusable(), keepAliveTimeout);
+        }
+    }
+
+    /**
+     * Reads and discards remaining body, up to the drain limit.
+     */
+    private void drain() {
+        byte[] buffer = new byte[4096];
+        long drained = 0;
+        try {
+            while (!finished && drained <= DRAIN_LIMIT) {
+                int read = read(buffer, 0, buffer.length);
+                if (read == -1) {
+                    break;
+                }
+                drained += read;
+            }
+        } catch (IOException e) {
+            //connection is broken, it will not be reused
+        }
+    }
+
+    /**
+     * Reads size line of the next chunk.
+     *
+     * @return chunk size
+     * @throws IOException if the chunk size line is invalid
+     */
+    private long readChunkSize() throws IOException {
+        String line = HttpWireFormat.readLine(inputStream);
+        int extensionIndex = line.indexOf(';');
+        if (extensionIndex >= 0) {
+            line = line.substring(0, extensionIndex);
+        }
+        try {
+            return Long.parseLong(line.trim(), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk size \"" + line + "\"");
+        }
+    }
+
+    /**
+     * Reads trailer headers after the last chunk.
+     *
+     * @throws IOException if any problem occurs in reading
+     */
+    private void readTrailers() throws IOException {
+        String line;
+        do {
+            line = HttpWireFormat.readLine(inputStream);
+        } while (!line.isEmpty());
+    }
+
+    /**
+     * Reads the line break after a chunk.
+     *
+     * @throws IOException if line break not found
+     */
+    private void readCrLf() throws IOException {
+        if (!HttpWireFormat.readLine(inputStream).isEmpty()) {
+            throw new IOException("Invalid chunk ending");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package jurl.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request body that is the concatenation of other request bodies, such as the parts of a multipart form. Parts are
+ * written one after another, so file parts are streamed rather than buffered.
+ */
+public class SequenceRequestBody implements RequestBody {
+    /**
+     * parts of the body in order
+     */
+    private final List<RequestBody> parts = new ArrayList<>();
+
+    /**
+     * Adds a part to the end of the body.
+     *
+     * @param part part to add
+     */
+    public void addPart(RequestBody part) {
+        parts.add(part);
+    }
+
+    /**
+     * Gets body length in bytes, which is the sum of lengths of the parts.
+     *
+     * @return body length in bytes, or -1 if length of any part is unknown
+     */
+    @Override
+    public long getContentLength() {
+        long contentLength = 0;
+        for (RequestBody part : parts) {
+            if (part.getContentLength() < 0) {
+                return -1;
+            }
+            contentLength += part.getContentLength();
+        }
+        return contentLength;
+    }
+
+    /**
+     * Writes all parts into the specified output stream in order.
+     *
+     * @param outputStream output stream to write body in
+     * @throws IOException if any problem occurs in writing
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        for (RequestBody part : parts) {
+            part.writeTo(outputStream);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package jurl.transport;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds a wire level request data, that is built from a request and sent by a transport.
+ */
+public class TransportRequest {
+    /**
+     * http method name
+     */
+    private String method;
+    /**
+     * destination url
+     */
+    private URL url;
+    /**
+     * request header name values
+     */
+    private Map<String, String> headers = new LinkedHashMap<>();
+    /**
+     * request body, or null for no body
+     */
+    private RequestBody body;
+    /**
+     * determines following redirects
+     */
+    private boolean followRedirects;
+
+    /**
+     * Constructor of transport request.
+     *
+     * @param method http method name
+     * @param url    destination url
+     */
+    public TransportRequest(String method, URL url) {
+        this.method = method;
+        this.url = url;
+    }
+
+    /**
+     * Gets http method name.
+     *
+     * @return http method name
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Sets http method name.
+     *
+     * @param method http method name
+     */
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    /**
+     * Gets destination url.
+     *
+     * @return destination url
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets destination url.
+     *
+     * @param url destination url
+     */
+    public void setUrl(URL url) {
+        this.url = url;
+    }
+
+    /**
+     * Gets request header name values.
+     *
+     * @return request header name values
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Sets a request header value.
+     *
+     * @param name  header name
+     * @param value header value
+     */
+    public void setHeader(String name, String value) {
+        headers.put(name, value);
+    }
+
+    /**
+     * Gets request body.
+     *
+     * @return request body, or null for no body
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * Sets request body.
+     *
+     * @param body request body, or null for no body
+     */
+    public void setBody(RequestBody body) {
+        this.body = body;
+    }
+
+    /**
+     * Gets following redirects state.
+     *
+     * @return following redirects state
+     */
+    public boolean isFollowRedirects() {
+        return followRedirects;
+    }
+
+    /**
+     * Sets following redirects state.
+     *
+     * @param followRedirects following redirects state
+     */
+    public void setFollowRedirects(boolean followRedirects) {
+        this.followRedirects = followRedirects;
+    }
+}
@@ -0,0 +1,150 @@
+package jurl.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Holds a wire level response data, received by a transport. Its body is an open stream that should be closed by
+ * closing the response.
+ */
+public class TransportResponse implements Closeable {
+    /**
+     * response status code
+     */
+    private final int statusCode;
+    /**
+     * response status message
+     */
+    private final String statusMessage;
+    /**
+     * response header name values
+     */
+    private final Map<String, String> headers;
+    /**
+     * response body stream
+     */
+    private final InputStream body;
+    /**
+     * time spent in each phase of the exchange, or null if the transport does not measure it
+     */
+    private TransportTiming timing;
+    /**
+     * number of response head bytes as they were received, or -1 if the transport can't count them
+     */
+    private long headerBytes = -1;
+
+    /**
+     * Constructor of transport response.
+     *
+     * @param statusCode    response status code
+     * @param statusMessage response status message
+     * @param headers       response header name values
+     * @param body          response body stream
+     */
+    public TransportResponse(int statusCode, String statusMessage, Map<String, String> headers, InputStream body) {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Gets response status code.
+     *
+     * @return response status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets response status message.
+     *
+     * @return response status message
+     */
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * Gets response header name values.
+     *
+     * @return response header name values
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets a response header value.
+     *
+     * @param name header name
+     * @return header value, or null if header not found
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets response body stream.
+     *
+     * @return response body stream
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Gets time spent in each phase of the exchange.
+     *
+     * @return exchange timing, or null if the transport does not measure it
+     */
+    public TransportTiming getTiming() {
+        return timing;
+    }
+
+    /**
+     * Sets time spent in each phase of the exchange.
+     *
+     * @param timing exchange timing
+     */
+    public void setTiming(TransportTiming timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Gets number of response head bytes as they were received, which are status line and header lines including
+     * line endings. Heads of followed redirects are not counted.
+     *
+     * @return number of response head bytes, or -1 if the transport can't count them
+     */
+    public long getHeaderBytes() {
+        return headerBytes;
+    }
+
+    /**
+     * Sets number of response head bytes as they were received.
+     *
+     * @param headerBytes number of response head bytes
+     */
+    public void setHeaderBytes(long headerBytes) {
+        this.headerBytes = headerBytes;
+    }
+
+    /**
+     * Closes response body stream and releases the connection.
+     *
+     * @throws IOException if any problem occurs in closing
+     */
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
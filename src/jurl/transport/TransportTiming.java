@@ -0,0 +1,153 @@
+package jurl.transport;
+
+/**
+ * Holds the time a transport spent in each phase of sending a request and receiving its response head, measured in
+ * nanoseconds by {@link System#nanoTime()}. Phases that did not happen take zero and phases that the transport can't
+ * measure are -1. Timings of the requests of a redirect chain are added up.
+ */
+public class TransportTiming {
+    /**
+     * DNS lookup time in nanos, or -1 if not measured
+     */
+    private long dnsNanos = -1;
+    /**
+     * TCP connect time in nanos, or -1 if not measured
+     */
+    private long connectNanos = -1;
+    /**
+     * TLS handshake time in nanos, or -1 if not measured
+     */
+    private long tlsNanos = -1;
+    /**
+     * request write time in nanos, or -1 if not measured
+     */
+    private long writeNanos = -1;
+    /**
+     * time in nanos from the end of request writing to the first byte of the response, or -1 if not measured
+     */
+    private long firstByteNanos = -1;
+    /**
+     * body download time in nanos if the transport read the body itself, or -1 if the body is read from its stream
+     */
+    private long downloadNanos = -1;
+    /**
+     * determines the last request was sent on a reused connection
+     */
+    private boolean reused;
+
+    /**
+     * Gets DNS lookup time.
+     *
+     * @return DNS lookup time in nanos, or -1 if not measured
+     */
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * Gets TCP connect time.
+     *
+     * @return TCP connect time in nanos, or -1 if not measured
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * Gets TLS handshake time.
+     *
+     * @return TLS handshake time in nanos, or -1 if not measured
+     */
+    public long getTlsNanos() {
+        return tlsNanos;
+    }
+
+    /**
+     * Gets request write time.
+     *
+     * @return request write time in nanos, or -1 if not measured
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Gets time to first byte.
+     *
+     * @return time to first byte in nanos, or -1 if not measured
+     */
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    /**
+     * Gets body download time.
+     *
+     * @return body download time in nanos, or -1 if the body is read from its stream
+     */
+    public long getDownloadNanos() {
+        return downloadNanos;
+    }
+
+    /**
+     * Determines if the last request was sent on a reused connection.
+     *
+     * @return {@code true} if the connection was reused
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * Adds connection setup times of a connection. A reused connection adds zero.
+     *
+     * @param dnsNanos     DNS lookup time in nanos
+     * @param connectNanos TCP connect time in nanos
+     * @param tlsNanos     TLS handshake time in nanos
+     * @param reused       determines the connection was reused
+     */
+    void addConnect(long dnsNanos, long connectNanos, long tlsNanos, boolean reused) {
+        this.dnsNanos = add(this.dnsNanos, reused ? 0 : dnsNanos);
+        this.connectNanos = add(this.connectNanos, reused ? 0 : connectNanos);
+        this.tlsNanos = add(this.tlsNanos, reused ? 0 : tlsNanos);
+        this.reused = reused;
+    }
+
+    /**
+     * Adds request write time.
+     *
+     * @param writeNanos request write time in nanos
+     */
+    void addWrite(long writeNanos) {
+        this.writeNanos = add(this.writeNanos, writeNanos);
+    }
+
+    /**
+     * Adds time to first byte.
+     *
+     * @param firstByteNanos time to first byte in nanos
+     */
+    void addFirstByte(long firstByteNanos) {
+        this.firstByteNanos = add(this.firstByteNanos, firstByteNanos);
+    }
+
+    /**
+     * Adds body download time of a body read by the transport.
+     *
+     * @param downloadNanos body download time in nanos
+     */
+    void addDownload(long downloadNanos) {
+        this.downloadNanos = add(this.downloadNanos, downloadNanos);
+    }
+
+    /**
+     * Adds a measured phase time to a total that may not be measured yet.
+     *
+     * @param total total so far, or -1 if not measured yet
+     * @param nanos phase time to add
+     * @return new total
+     */
+    private static long add(long total, long nanos) {
+        return total < 0 ? nanos : total + nanos;
+    }
+}
@@ -0,0 +1,114 @@
+package jurl.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A transport that sends requests using {@link HttpURLConnection}. Connection reuse is left to the JDK keep alive cache,
+ * so it does not provide pool statistics. It is the fallback of the pooled transport, selected by setting jurl.transport
+ * system property to urlconnection.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+    /**
+     * chunk size of bodies of unknown length
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Sends the specified request using a new {@link HttpURLConnection}.
+     *
+     * @param request request to send
+     * @return response of the request
+     * @throws IOException if any problem occurs in sending request or receiving response
+     */
+    @Override
+    public TransportResponse send(TransportRequest request) throws IOException {
+        HttpURLConnection httpURLConnection = (HttpURLConnection) request.getUrl().openConnection();
+        long sendStart = System.nanoTime();
+        try {
+            setMethod(request.getMethod(), httpURLConnection);
+            httpURLConnection.setInstanceFollowRedirects(request.isFollowRedirects());
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                httpURLConnection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            if (request.getBody() != null) {
+                httpURLConnection.setDoOutput(true);
+                //streaming modes keep http url connection from buffering the whole body
+                if (request.getBody().getContentLength() >= 0) {
+                    httpURLConnection.setFixedLengthStreamingMode(request.getBody().getContentLength());
+                } else {
+                    httpURLConnection.setChunkedStreamingMode(CHUNK_SIZE);
+                }
+                try (OutputStream outputStream = httpURLConnection.getOutputStream()) {
+                    request.getBody().writeTo(outputStream);
+                }
+            }
+            int statusCode = httpURLConnection.getResponseCode();
+            //http url connection does not expose its connection phases, so the wait for the response head includes them
+            TransportTiming timing = new TransportTiming();
+            timing.addFirstByte(System.nanoTime() - sendStart);
+            Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<String, List<String>> header : httpURLConnection.getHeaderFields().entrySet()) {
+                if (header.getKey() != null) {
+                    headers.put(header.getKey(), httpURLConnection.getHeaderField(header.getKey()));
+                }
+            }
+            //error responses have their body in error stream
+            InputStream body = statusCode >= 400 ? httpURLConnection.getErrorStream() : httpURLConnection.getInputStream();
+            if (body == null) {
+                body = new ByteArrayInputStream(new byte[0]);
+            }
+            TransportResponse response = new TransportResponse(statusCode, httpURLConnection.getResponseMessage(), headers, body);
+            response.setTiming(timing);
+            return response;
+        } catch (IOException e) {
+            httpURLConnection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the http method. It performs PATCH using force!
+     *
+     * @param method            http method name
+     * @param httpURLConnection connection to use
+     * @throws IOException if the method can't be set
+     */
+    private void setMethod(String method, HttpURLConnection httpURLConnection) throws IOException {
+        if (!method.equals("PATCH")) {
+            httpURLConnection.setRequestMethod(method);
+        } else {
+            try {
+                Field field = HttpURLConnection.class.getDeclaredField("method");
+                field.setAccessible(true);
+                field.set(httpURLConnection, "PATCH");
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new IOException("PATCH method is not supported, " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns no statistics, as connections are not pooled by this transport.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public PoolStats getPoolStats() {
+        return null;
+    }
+
+    /**
+     * Does nothing, as connections are managed by the JDK.
+     */
+    @Override
+    public void close() {
+    }
+}